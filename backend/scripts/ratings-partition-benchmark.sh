@@ -0,0 +1,74 @@
+#!/usr/bin/env bash
+#
+# Compares rating insert throughput into a plain table and into a table hash-partitioned by
+# user_id, as created by migration V6. Both scratch tables carry the same indexes as ratings
+# and are dropped afterwards; the application's own tables are not touched.
+#
+# Usage (from the backend directory, against a PostgreSQL 13+ database):
+#   PGDATABASE=heartrate PGUSER=postgres scripts/ratings-partition-benchmark.sh [partitions]
+#
+# Environment:
+#   CLIENTS   concurrent pgbench clients (default 16)
+#   DURATION  seconds per run (default 30)
+#   USERS     distinct user ids the inserts are spread over (default 100000)
+set -euo pipefail
+
+PARTITIONS=${1:-16}
+CLIENTS=${CLIENTS:-16}
+DURATION=${DURATION:-30}
+USERS=${USERS:-100000}
+
+WORKDIR=$(mktemp -d)
+trap 'rm -rf "$WORKDIR"; psql -q -c "drop table if exists bench_ratings_plain, bench_ratings_hash" > /dev/null' EXIT
+
+psql -q -v ON_ERROR_STOP=1 <<SQL
+drop table if exists bench_ratings_plain, bench_ratings_hash;
+
+create table bench_ratings_plain (
+    id uuid not null,
+    user_id uuid not null,
+    item_id uuid not null,
+    rating integer,
+    status varchar(255),
+    timestamp timestamp(6),
+    primary key (id)
+);
+create index on bench_ratings_plain (user_id, item_id);
+create index on bench_ratings_plain (user_id, timestamp, id);
+
+create table bench_ratings_hash (
+    id uuid not null,
+    user_id uuid not null,
+    item_id uuid not null,
+    rating integer,
+    status varchar(255),
+    timestamp timestamp(6),
+    primary key (id, user_id)
+) partition by hash (user_id);
+select format('create table bench_ratings_hash_p%s partition of bench_ratings_hash for values with (modulus %s, remainder %s)',
+              i, $PARTITIONS, i)
+from generate_series(0, $PARTITIONS - 1) as i
+\gexec
+create index on bench_ratings_hash (user_id, item_id);
+create index on bench_ratings_hash (user_id, timestamp, id);
+SQL
+
+# Same statement shape as saveRating's insert
+for table in bench_ratings_plain bench_ratings_hash; do
+    cat > "$WORKDIR/$table.sql" <<SQL
+\set user random(1, $USERS)
+insert into $table (id, user_id, item_id, rating, status, timestamp)
+values (gen_random_uuid(), md5(:user::text)::uuid, gen_random_uuid(), 4, 'RATED', now());
+SQL
+done
+
+run() {
+    local table=$1
+    local tps
+    tps=$(pgbench -n -c "$CLIENTS" -j "$CLIENTS" -T "$DURATION" -f "$WORKDIR/$table.sql" 2> /dev/null \
+        | awk '/^tps/ { print $3; exit }')
+    printf '%-22s clients=%d duration=%ss inserts/s=%s\n' "$table" "$CLIENTS" "$DURATION" "$tps"
+}
+
+run bench_ratings_plain
+run bench_ratings_hash
@@ -0,0 +1,85 @@
+#!/usr/bin/env bash
+#
+# Measures time-to-first-successful-request: the wall time from launching the JVM until
+# GET /actuator/health first answers 200. Each mode is started RUNS times against an
+# in-memory H2 database so results do not depend on an external PostgreSQL.
+#
+# Usage (from the backend directory):
+#   mvn -Pfast-startup package -DskipTests
+#   scripts/startup-benchmark.sh [runs]
+#
+# Modes:
+#   baseline  thin jar, no AOT, no CDS
+#   aot       thin jar with Spring AOT bean definitions
+#   aot+cds   thin jar with Spring AOT and the AppCDS archive from the training run
+set -euo pipefail
+
+RUNS=${1:-5}
+PORT=${PORT:-18080}
+JAR=${JAR:-target/backend-0.0.1-SNAPSHOT.jar}
+CDS_ARCHIVE=${CDS_ARCHIVE:-target/application.jsa}
+TIMEOUT_SECONDS=${TIMEOUT_SECONDS:-60}
+
+if [[ ! -f "$JAR" || ! -f "$CDS_ARCHIVE" ]]; then
+    echo "Missing $JAR or $CDS_ARCHIVE; run 'mvn -Pfast-startup package -DskipTests' first" >&2
+    exit 1
+fi
+
+APP_ARGS=(
+    --server.port="$PORT"
+    --spring.profiles.active=cds-training
+    --logging.level.root=WARN
+)
+
+now_ms() {
+    date +%s%3N
+}
+
+# Starts the application with the given JVM flags and prints the milliseconds until the first 200.
+measure() {
+    local start end pid status
+    start=$(now_ms)
+    java "$@" -jar "$JAR" "${APP_ARGS[@]}" > /dev/null 2>&1 &
+    pid=$!
+
+    while true; do
+        status=$(curl -s -o /dev/null -w '%{http_code}' "http://localhost:$PORT/actuator/health" || true)
+        if [[ "$status" == "200" ]]; then
+            end=$(now_ms)
+            break
+        fi
+        if ! kill -0 "$pid" 2> /dev/null; then
+            echo "application exited before becoming healthy" >&2
+            return 1
+        fi
+        if (( $(now_ms) - start > TIMEOUT_SECONDS * 1000 )); then
+            kill "$pid"
+            echo "timed out waiting for the application" >&2
+            return 1
+        fi
+        sleep 0.02
+    done
+
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+    echo $((end - start))
+}
+
+run_mode() {
+    local name=$1
+    shift
+    local results=()
+    for ((i = 1; i <= RUNS; i++)); do
+        results+=("$(measure "$@")")
+    done
+    local sorted
+    sorted=$(printf '%s\n' "${results[@]}" | sort -n)
+    local min median
+    min=$(echo "$sorted" | head -1)
+    median=$(echo "$sorted" | sed -n "$(((RUNS + 1) / 2))p")
+    printf '%-10s runs=%d min=%sms median=%sms all=[%s]\n' "$name" "$RUNS" "$min" "$median" "${results[*]}"
+}
+
+run_mode baseline -Xshare:auto
+run_mode aot -Dspring.aot.enabled=true
+run_mode aot+cds -Dspring.aot.enabled=true -XX:SharedArchiveFile="$CDS_ARCHIVE"
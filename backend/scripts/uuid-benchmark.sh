@@ -0,0 +1,73 @@
+#!/usr/bin/env bash
+#
+# Compares insert throughput and index size for rating-shaped rows keyed by random v4 UUIDs
+# and by time-ordered v7 UUIDs, as assigned by UuidV7Generator. v7 ids are produced in SQL by
+# a scratch function with the same bit layout. The scratch tables and function are dropped
+# afterwards; the application's own tables are not touched. The H2 counterpart is
+# UuidV7GeneratorTest.testH2InsertBenchmark.
+#
+# Usage (from the backend directory, against a PostgreSQL 13+ database):
+#   PGDATABASE=heartrate PGUSER=postgres scripts/uuid-benchmark.sh
+#
+# Environment:
+#   CLIENTS   concurrent pgbench clients (default 16)
+#   DURATION  seconds per run (default 30)
+#   USERS     distinct user ids the inserts are spread over (default 100000)
+set -euo pipefail
+
+CLIENTS=${CLIENTS:-16}
+DURATION=${DURATION:-30}
+USERS=${USERS:-100000}
+
+WORKDIR=$(mktemp -d)
+trap 'rm -rf "$WORKDIR"; psql -q -c "drop table if exists bench_uuid_v4, bench_uuid_v7; drop function if exists bench_uuid_v7()" > /dev/null' EXIT
+
+psql -q -v ON_ERROR_STOP=1 <<SQL
+drop table if exists bench_uuid_v4, bench_uuid_v7;
+
+-- 48-bit millisecond timestamp over the first six bytes of a v4 UUID, version bits set to 7
+create or replace function bench_uuid_v7() returns uuid as \$\$
+    select encode(set_bit(set_bit(overlay(uuid_send(gen_random_uuid())
+        placing substring(int8send(floor(extract(epoch from clock_timestamp()) * 1000)::bigint) from 3)
+        from 1 for 6), 52, 1), 53, 1), 'hex')::uuid
+\$\$ language sql volatile;
+
+create table bench_uuid_v4 (
+    id uuid not null,
+    user_id uuid not null,
+    item_id uuid not null,
+    rating integer,
+    status varchar(255),
+    timestamp timestamp(6),
+    primary key (id)
+);
+create index on bench_uuid_v4 (user_id, item_id);
+create table bench_uuid_v7 (like bench_uuid_v4 including all);
+SQL
+
+for version in v4 v7; do
+    if [[ $version == v4 ]]; then id_expr="gen_random_uuid()"; else id_expr="bench_uuid_v7()"; fi
+    cat > "$WORKDIR/$version.sql" <<SQL
+\set user random(1, $USERS)
+insert into bench_uuid_$version (id, user_id, item_id, rating, status, timestamp)
+values ($id_expr, md5(:user::text)::uuid, gen_random_uuid(), 4, 'RATED', now());
+SQL
+done
+
+run() {
+    local version=$1
+    local table=bench_uuid_$version
+    local tps
+    tps=$(pgbench -n -c "$CLIENTS" -j "$CLIENTS" -T "$DURATION" -f "$WORKDIR/$version.sql" 2> /dev/null \
+        | awk '/^tps/ { print $3; exit }')
+    psql -q -t -A -F ' ' -c "select count(*), pg_size_pretty(pg_relation_size('${table}_pkey')),
+                                    pg_size_pretty(pg_relation_size('${table}_pkey') / greatest(count(*), 1) * 1000000)
+                             from $table" \
+        | while read -r rows pkey per_million; do
+            printf '%-14s clients=%d duration=%ss inserts/s=%s rows=%s pkey=%s (%s per 1M rows)\n' \
+                "$table" "$CLIENTS" "$DURATION" "$tps" "$rows" "$pkey" "$per_million"
+        done
+}
+
+run v4
+run v7
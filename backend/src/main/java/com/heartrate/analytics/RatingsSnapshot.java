@@ -0,0 +1,230 @@
+package com.heartrate.analytics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Read-only, memory-mapped columnar copy of the ratings table for analytics and model training.
+ *
+ * The file is little-endian:
+ * <pre>
+ *   0  magic "HRRATES1", version, flags
+ *  16  row count (long), user count, item count (ints), created at (epoch millis)
+ *  40  offsets of: user dictionary, item dictionary, user ordinal, item ordinal, epoch second,
+ *      rating and status columns (longs); the header is {@value #HEADER_SIZE} bytes
+ * </pre>
+ * followed by the sections at those offsets, each 8-byte aligned:
+ * <ul>
+ *   <li>user and item dictionaries: 16 bytes (msb, lsb) per id, the position is the ordinal;</li>
+ *   <li>user ordinal, item ordinal, epoch second: one int per rating. Epoch seconds are unsigned,
+ *       good until 2106;</li>
+ *   <li>rating: one byte per rating, 0-5 or -1 for none;</li>
+ *   <li>status: one byte per rating, the codes of {@link com.heartrate.journal.RatingEvent}.</li>
+ * </ul>
+ * Rows are addressed by index. Every accessor reads straight from the mapped pages, so scans
+ * allocate nothing and run at memory or page cache bandwidth; the typed column views can be
+ * handed to tight loops, and disjoint row ranges scanned from several threads. The mapping is
+ * released when the snapshot is garbage collected.
+ */
+public class RatingsSnapshot {
+    public static final int HEADER_SIZE = 128;
+    public static final int VERSION = 1;
+    static final long MAGIC = ByteBuffer.wrap("HRRATES1".getBytes(StandardCharsets.US_ASCII))
+        .order(ByteOrder.LITTLE_ENDIAN).getLong();
+    // An int column has to fit a single mapping
+    static final long MAX_ROWS = Integer.MAX_VALUE / Integer.BYTES;
+
+    private final int rowCount;
+    private final int userCount;
+    private final int itemCount;
+    private final long createdAt;
+    private final ByteBuffer users;
+    private final ByteBuffer items;
+    private final IntBuffer userOrdinals;
+    private final IntBuffer itemOrdinals;
+    private final IntBuffer epochSeconds;
+    private final ByteBuffer ratings;
+    private final ByteBuffer statuses;
+    private volatile Map<UUID, Integer> userIndex;
+    private volatile Map<UUID, Integer> itemIndex;
+
+    private RatingsSnapshot(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw new IOException("Not a ratings snapshot");
+            }
+        }
+        if (header.getLong(0) != MAGIC) {
+            throw new IOException("Not a ratings snapshot");
+        }
+        if (header.getInt(8) != VERSION) {
+            throw new IOException("Unsupported ratings snapshot version " + header.getInt(8));
+        }
+        this.rowCount = Math.toIntExact(header.getLong(16));
+        this.userCount = header.getInt(24);
+        this.itemCount = header.getInt(28);
+        this.createdAt = header.getLong(32);
+        this.users = map(channel, header.getLong(40), userCount * 16L);
+        this.items = map(channel, header.getLong(48), itemCount * 16L);
+        this.userOrdinals = map(channel, header.getLong(56), rowCount * 4L).asIntBuffer();
+        this.itemOrdinals = map(channel, header.getLong(64), rowCount * 4L).asIntBuffer();
+        this.epochSeconds = map(channel, header.getLong(72), rowCount * 4L).asIntBuffer();
+        this.ratings = map(channel, header.getLong(80), rowCount);
+        this.statuses = map(channel, header.getLong(88), rowCount);
+    }
+
+    public static RatingsSnapshot open(Path path) throws IOException {
+        // The mappings stay valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new RatingsSnapshot(channel);
+        }
+    }
+
+    public int rowCount() {
+        return rowCount;
+    }
+
+    public int userCount() {
+        return userCount;
+    }
+
+    public int itemCount() {
+        return itemCount;
+    }
+
+    public long createdAt() {
+        return createdAt;
+    }
+
+    public int userOrdinal(int row) {
+        return userOrdinals.get(row);
+    }
+
+    public int itemOrdinal(int row) {
+        return itemOrdinals.get(row);
+    }
+
+    public long epochSecond(int row) {
+        return Integer.toUnsignedLong(epochSeconds.get(row));
+    }
+
+    /**
+     * @return 0-5, or -1 when the row has no rating
+     */
+    public int rating(int row) {
+        return ratings.get(row);
+    }
+
+    public byte status(int row) {
+        return statuses.get(row);
+    }
+
+    public UUID userId(int ordinal) {
+        return uuid(users, ordinal);
+    }
+
+    public UUID itemId(int ordinal) {
+        return uuid(items, ordinal);
+    }
+
+    /**
+     * @return the user's ordinal, or -1 if the user has no ratings in the snapshot
+     */
+    public int userOrdinal(UUID userId) {
+        Map<UUID, Integer> index = userIndex;
+        if (index == null) {
+            userIndex = index = buildIndex(users, userCount);
+        }
+        return index.getOrDefault(userId, -1);
+    }
+
+    /**
+     * @return the item's ordinal, or -1 if the item has no ratings in the snapshot
+     */
+    public int itemOrdinal(UUID itemId) {
+        Map<UUID, Integer> index = itemIndex;
+        if (index == null) {
+            itemIndex = index = buildIndex(items, itemCount);
+        }
+        return index.getOrDefault(itemId, -1);
+    }
+
+    // Independent read-only views of whole columns, for loops that want the buffers directly
+    public IntBuffer userOrdinals() {
+        return userOrdinals.asReadOnlyBuffer();
+    }
+
+    public IntBuffer itemOrdinals() {
+        return itemOrdinals.asReadOnlyBuffer();
+    }
+
+    public IntBuffer epochSeconds() {
+        return epochSeconds.asReadOnlyBuffer();
+    }
+
+    public ByteBuffer ratings() {
+        return ratings.asReadOnlyBuffer();
+    }
+
+    public ByteBuffer statuses() {
+        return statuses.asReadOnlyBuffer();
+    }
+
+    /**
+     * Visits rows {@code from} (inclusive) to {@code to} (exclusive) without allocating.
+     */
+    public void scan(int from, int to, RowVisitor visitor) {
+        if (from < 0 || to > rowCount || from > to) {
+            throw new IndexOutOfBoundsException("Rows " + from + ".." + to + " of " + rowCount);
+        }
+        for (int row = from; row < to; row++) {
+            visitor.visit(row, userOrdinals.get(row), itemOrdinals.get(row), ratings.get(row), statuses.get(row),
+                Integer.toUnsignedLong(epochSeconds.get(row)));
+        }
+    }
+
+    public void scan(RowVisitor visitor) {
+        scan(0, rowCount, visitor);
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long offset, long size) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    private static UUID uuid(ByteBuffer dictionary, int ordinal) {
+        int offset = ordinal * 16;
+        return new UUID(dictionary.getLong(offset), dictionary.getLong(offset + 8));
+    }
+
+    private static Map<UUID, Integer> buildIndex(ByteBuffer dictionary, int count) {
+        Map<UUID, Integer> index = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            index.put(uuid(dictionary, i), i);
+        }
+        return index;
+    }
+
+    /**
+     * Receives snapshot rows as primitives.
+     */
+    @FunctionalInterface
+    public interface RowVisitor {
+        /**
+         * @param rating 0-5, or -1 when the row has no rating
+         */
+        void visit(int row, int userOrdinal, int itemOrdinal, int rating, byte status, long epochSecond);
+    }
+}
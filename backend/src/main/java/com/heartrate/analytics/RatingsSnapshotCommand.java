@@ -0,0 +1,54 @@
+package com.heartrate.analytics;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import com.heartrate.config.RatingsSnapshotConfig;
+
+/**
+ * Command line ratings snapshot. Starting the application with
+ * {@code --app.ratings-snapshot.file=<path>} writes the snapshot and exits instead of serving
+ * requests:
+ * <pre>
+ * java -jar backend.jar --app.ratings-snapshot.file=ratings.snapshot
+ * </pre>
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.ratings-snapshot", name = "file")
+public class RatingsSnapshotCommand implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(RatingsSnapshotCommand.class);
+
+    private final RatingsSnapshotExporter exporter;
+    private final RatingsSnapshotConfig config;
+    private final ApplicationContext context;
+
+    public RatingsSnapshotCommand(RatingsSnapshotExporter exporter, RatingsSnapshotConfig config, ApplicationContext context) {
+        this.exporter = exporter;
+        this.config = config;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Path file = Paths.get(config.getFile()).toAbsolutePath().normalize();
+        int exitCode;
+        try {
+            exporter.export(file);
+            exitCode = 0;
+        } catch (Exception e) {
+            logger.error("Ratings snapshot to {} failed", file, e);
+            exitCode = 1;
+        }
+        int code = exitCode;
+        System.exit(SpringApplication.exit(context, () -> code));
+    }
+}
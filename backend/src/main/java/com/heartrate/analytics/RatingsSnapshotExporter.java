@@ -0,0 +1,78 @@
+package com.heartrate.analytics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.ZoneId;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.heartrate.config.RatingsSnapshotConfig;
+import com.heartrate.journal.RatingEvent;
+
+/**
+ * Exports the ratings table to a {@link RatingsSnapshot} file.
+ *
+ * Rows are read with plain JDBC through a forward-only cursor ({@code fetch-size} rows at a time),
+ * so no Rating, User or Item entities are created. The export runs in a single read-only
+ * transaction, which gives a consistent view and is served by a read replica when one is
+ * configured.
+ */
+@Service
+public class RatingsSnapshotExporter {
+    private static final Logger logger = LoggerFactory.getLogger(RatingsSnapshotExporter.class);
+    private static final String SELECT_RATINGS = "select user_id, item_id, rating, status, timestamp from ratings";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public RatingsSnapshotExporter(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                   RatingsSnapshotConfig config) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(config.getFetchSize());
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Writes a snapshot of every rating to {@code target}, replacing any previous snapshot there.
+     *
+     * @return the number of rows written
+     */
+    public long export(Path target) throws IOException {
+        long startNanos = System.nanoTime();
+        ZoneId zone = ZoneId.systemDefault();
+        try (RatingsSnapshotWriter writer = new RatingsSnapshotWriter(target)) {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(SELECT_RATINGS, rs -> {
+                Integer rating = rs.getObject(3, Integer.class);
+                String ratingStatus = rs.getString(4);
+                Timestamp timestamp = rs.getTimestamp(5);
+                try {
+                    writer.add(
+                        rs.getObject(1, UUID.class),
+                        rs.getObject(2, UUID.class),
+                        rating == null ? RatingEvent.NO_RATING : rating,
+                        ratingStatus == null ? 0 : RatingEvent.statusCode(ratingStatus),
+                        timestamp == null ? 0 : timestamp.toLocalDateTime().atZone(zone).toEpochSecond());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+            writer.finish();
+            logger.info("Exported {} ratings ({} users, {} items) to {} in {} ms", writer.getRowCount(),
+                writer.getUserCount(), writer.getItemCount(), target, (System.nanoTime() - startNanos) / 1_000_000);
+            return writer.getRowCount();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
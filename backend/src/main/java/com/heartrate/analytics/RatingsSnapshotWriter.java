@@ -0,0 +1,227 @@
+package com.heartrate.analytics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import com.heartrate.journal.RatingEvent;
+
+/**
+ * Writes a {@link RatingsSnapshot} file row by row.
+ *
+ * Each column is streamed to its own temporary file, so memory use is bounded by the user and
+ * item dictionaries rather than the number of ratings. {@link #finish()} lays the dictionaries and
+ * columns out in the final file and moves it into place atomically; until then the target path
+ * is untouched.
+ */
+public class RatingsSnapshotWriter implements AutoCloseable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path target;
+    private final Path workDirectory;
+    private final Map<UUID, Integer> userOrdinals = new HashMap<>();
+    private final Map<UUID, Integer> itemOrdinals = new HashMap<>();
+    private final List<UUID> users = new ArrayList<>();
+    private final List<UUID> items = new ArrayList<>();
+    private final Column userColumn;
+    private final Column itemColumn;
+    private final Column epochSecondColumn;
+    private final Column ratingColumn;
+    private final Column statusColumn;
+    private long rowCount;
+    private boolean finished;
+
+    public RatingsSnapshotWriter(Path target) throws IOException {
+        this.target = target.toAbsolutePath();
+        Files.createDirectories(this.target.getParent());
+        this.workDirectory = Files.createTempDirectory(this.target.getParent(), ".snapshot-");
+        this.userColumn = new Column(workDirectory.resolve("user"));
+        this.itemColumn = new Column(workDirectory.resolve("item"));
+        this.epochSecondColumn = new Column(workDirectory.resolve("epoch-second"));
+        this.ratingColumn = new Column(workDirectory.resolve("rating"));
+        this.statusColumn = new Column(workDirectory.resolve("status"));
+    }
+
+    /**
+     * @param rating 0-5, or -1 for none; encoded as in the journal, see
+     *               {@link RatingEvent#ratingCode(int)}
+     * @param status status code, see {@link RatingEvent#statusCode(String)}
+     */
+    public void add(UUID userId, UUID itemId, int rating, byte status, long epochSecond) throws IOException {
+        if (rowCount == RatingsSnapshot.MAX_ROWS) {
+            throw new IllegalStateException("Ratings snapshot is limited to " + RatingsSnapshot.MAX_ROWS + " rows");
+        }
+        byte ratingCode = RatingEvent.ratingCode(rating);
+        userColumn.putInt(ordinal(userId, userOrdinals, users));
+        itemColumn.putInt(ordinal(itemId, itemOrdinals, items));
+        epochSecondColumn.putInt((int) epochSecond);
+        ratingColumn.put(ratingCode);
+        statusColumn.put(status);
+        rowCount++;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public int getUserCount() {
+        return users.size();
+    }
+
+    public int getItemCount() {
+        return items.size();
+    }
+
+    /**
+     * Writes the snapshot file and replaces {@code target} with it.
+     */
+    public void finish() throws IOException {
+        Path staging = workDirectory.resolve("snapshot");
+        try (FileChannel out = FileChannel.open(staging, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long usersOffset = RatingsSnapshot.HEADER_SIZE;
+            long itemsOffset = align(usersOffset + users.size() * 16L);
+            long userColumnOffset = align(itemsOffset + items.size() * 16L);
+            long itemColumnOffset = align(userColumnOffset + rowCount * 4);
+            long epochSecondOffset = align(itemColumnOffset + rowCount * 4);
+            long ratingOffset = align(epochSecondOffset + rowCount * 4);
+            long statusOffset = align(ratingOffset + rowCount);
+
+            ByteBuffer header = ByteBuffer.allocate(RatingsSnapshot.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putLong(RatingsSnapshot.MAGIC)
+                .putInt(RatingsSnapshot.VERSION)
+                .putInt(0)
+                .putLong(rowCount)
+                .putInt(users.size())
+                .putInt(items.size())
+                .putLong(System.currentTimeMillis())
+                .putLong(usersOffset)
+                .putLong(itemsOffset)
+                .putLong(userColumnOffset)
+                .putLong(itemColumnOffset)
+                .putLong(epochSecondOffset)
+                .putLong(ratingOffset)
+                .putLong(statusOffset);
+            header.clear();
+            writeFully(out, header, 0);
+
+            writeDictionary(out, users, usersOffset);
+            writeDictionary(out, items, itemsOffset);
+            userColumn.copyTo(out, userColumnOffset);
+            itemColumn.copyTo(out, itemColumnOffset);
+            epochSecondColumn.copyTo(out, epochSecondOffset);
+            ratingColumn.copyTo(out, ratingOffset);
+            statusColumn.copyTo(out, statusOffset);
+            out.force(true);
+        }
+        Files.move(staging, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Column column : List.of(userColumn, itemColumn, epochSecondColumn, ratingColumn, statusColumn)) {
+            column.close();
+        }
+        if (!finished) {
+            Files.deleteIfExists(workDirectory.resolve("snapshot"));
+        }
+        Files.deleteIfExists(workDirectory);
+    }
+
+    private static int ordinal(UUID id, Map<UUID, Integer> ordinals, List<UUID> ids) {
+        Integer ordinal = ordinals.get(id);
+        if (ordinal == null) {
+            ordinal = ids.size();
+            ordinals.put(id, ordinal);
+            ids.add(id);
+        }
+        return ordinal;
+    }
+
+    private static void writeDictionary(FileChannel out, List<UUID> ids, long offset) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        long position = offset;
+        for (UUID id : ids) {
+            if (buffer.remaining() < 16) {
+                buffer.flip();
+                position += writeFully(out, buffer, position);
+                buffer.clear();
+            }
+            buffer.putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits());
+        }
+        buffer.flip();
+        writeFully(out, buffer, position);
+    }
+
+    private static int writeFully(FileChannel out, ByteBuffer buffer, long position) throws IOException {
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += out.write(buffer, position + written);
+        }
+        return written;
+    }
+
+    // Columns start on 8-byte boundaries so readers can map them as aligned typed views
+    private static long align(long offset) {
+        return (offset + 7) & ~7L;
+    }
+
+    // A column being written: a temporary file behind a little-endian buffer
+    private static final class Column {
+        private final Path path;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        private Column(Path path) throws IOException {
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        }
+
+        void putInt(int value) throws IOException {
+            if (buffer.remaining() < Integer.BYTES) {
+                drain();
+            }
+            buffer.putInt(value);
+        }
+
+        void put(byte value) throws IOException {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            buffer.put(value);
+        }
+
+        void copyTo(FileChannel out, long position) throws IOException {
+            drain();
+            long size = channel.size();
+            long copied = 0;
+            while (copied < size) {
+                copied += channel.transferTo(copied, size - copied, out.position(position + copied));
+            }
+        }
+
+        void close() throws IOException {
+            channel.close();
+            Files.deleteIfExists(path);
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
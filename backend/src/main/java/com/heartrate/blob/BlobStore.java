@@ -0,0 +1,40 @@
+package com.heartrate.blob;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * Storage of immutable blobs by key, behind {@link com.heartrate.service.ImageStore}.
+ *
+ * Keys are lower-case hex digests of the content, so a key always names the same bytes and
+ * storing it again is a no-op. Implementations are thread-safe. Reference counting, staging and
+ * size limits are the caller's business; a store only keeps bytes.
+ */
+public interface BlobStore extends Closeable {
+
+    /**
+     * Stores the content of the file under the key, unless the key is already stored. The file
+     * is taken over: it is moved into the store or deleted.
+     *
+     * @return false if the key was already stored
+     */
+    boolean put(String key, Path source) throws IOException;
+
+    boolean contains(String key) throws IOException;
+
+    /**
+     * @return the blob's bytes as a read-only buffer, or null if the key is not stored
+     */
+    ByteBuffer get(String key) throws IOException;
+
+    /**
+     * @return false if the key was not stored
+     */
+    boolean delete(String key) throws IOException;
+
+    @Override
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,80 @@
+package com.heartrate.blob;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One file per blob, in a directory named by the key's first two characters so that no single
+ * directory holds more than a small share of the files. Simple and easy to inspect, but every
+ * blob costs an inode; see {@link PackedBlobStore} for millions of blobs.
+ */
+public class FileSystemBlobStore implements BlobStore {
+    private final Path directory;
+
+    public FileSystemBlobStore(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+    }
+
+    @Override
+    public boolean put(String key, Path source) throws IOException {
+        Path file = file(key);
+        if (Files.exists(file)) {
+            Files.deleteIfExists(source);
+            return false;
+        }
+        Files.createDirectories(file.getParent());
+        try {
+            Files.move(source, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Staged on another file system: copy next to the target, then rename into place
+            Path copy = file.resolveSibling(key + ".tmp");
+            Files.copy(source, copy, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(copy, file, StandardCopyOption.ATOMIC_MOVE);
+            Files.deleteIfExists(source);
+        } catch (FileAlreadyExistsException e) {
+            Files.deleteIfExists(source);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean contains(String key) {
+        return Files.exists(file(key));
+    }
+
+    @Override
+    public ByteBuffer get(String key) throws IOException {
+        try (FileChannel channel = FileChannel.open(file(key), StandardOpenOption.READ)) {
+            // Read rather than mapped: a mapping per small file costs more than copying it
+            ByteBuffer content = ByteBuffer.allocate((int) channel.size());
+            while (content.hasRemaining()) {
+                if (channel.read(content, content.position()) < 0) {
+                    throw new EOFException("Blob " + key + " shrank while being read");
+                }
+            }
+            return content.flip().asReadOnlyBuffer();
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        return Files.deleteIfExists(file(key));
+    }
+
+    private Path file(String key) {
+        return directory.resolve(key.substring(0, 2)).resolve(key);
+    }
+}
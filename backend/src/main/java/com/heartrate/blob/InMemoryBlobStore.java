@@ -0,0 +1,38 @@
+package com.heartrate.blob;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Blobs on the heap, for tests. Contents are lost on shutdown.
+ */
+public class InMemoryBlobStore implements BlobStore {
+    private final Map<String, byte[]> blobs = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean put(String key, Path source) throws IOException {
+        byte[] content = Files.readAllBytes(source);
+        Files.deleteIfExists(source);
+        return blobs.putIfAbsent(key, content) == null;
+    }
+
+    @Override
+    public boolean contains(String key) {
+        return blobs.containsKey(key);
+    }
+
+    @Override
+    public ByteBuffer get(String key) {
+        byte[] content = blobs.get(key);
+        return content != null ? ByteBuffer.wrap(content).asReadOnlyBuffer() : null;
+    }
+
+    @Override
+    public boolean delete(String key) {
+        return blobs.remove(key) != null;
+    }
+}
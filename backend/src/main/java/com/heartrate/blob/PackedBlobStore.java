@@ -0,0 +1,612 @@
+package com.heartrate.blob;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Blobs appended to large segment files, for stores of millions of small images where a file
+ * per blob wastes inodes, directory lookups and a partly filled block per image.
+ *
+ * Every blob is a record of a {@value #HEADER_SIZE}-byte little-endian header, the key and the
+ * bytes:
+ * <pre>
+ *  0  flag       1 once the record is fully written
+ *  1  type       1 blob, 2 tombstone
+ *  2  key length
+ *  4  crc32c     of bytes 1..3 and 8..end of the key
+ *  8  sequence   increases with every put and delete
+ * 16  length     of the bytes that follow the key, 0 for a tombstone
+ * 20  crc32c     of the bytes that follow the key
+ * 24  key        UTF-8
+ * </pre>
+ * A put copies the file in with {@code transferTo}, forces it, and only then sets the flag and
+ * forces again, so a record is either complete or dropped on open. A delete appends a tombstone.
+ * Segments are named after their number and rolled at {@code segmentSize}. A sealed segment is
+ * mapped whole once and reads return slices of the mapping; the active one, still growing, is read
+ * into a heap buffer instead. Every read checks the bytes against the record's data checksum,
+ * which the header checksum covers in turn, so a corrupt blob fails instead of being served.
+ *
+ * The index of key to record is kept in memory and rebuilt on open by reading the headers of
+ * every segment in order; of several records for a key the highest sequence wins, and a torn
+ * tail left by a crash is cut off. The data itself is not read on open. Deleted and overwritten records are counted per segment, and
+ * a sealed segment whose dead share reaches {@code compactionThreshold} is compacted in the
+ * background: its live blobs are copied, with their sequence numbers, to the active segment and
+ * the segment is deleted, dropping its mapping. Its tombstones are carried over only where an older segment still
+ * holds a record of the blob they delete, found by reading the headers of the older segments.
+ *
+ * Puts, deletes and each copied record of a compaction are serialised on the store; reads take
+ * no lock.
+ */
+public class PackedBlobStore implements BlobStore {
+    public static final int HEADER_SIZE = 24;
+    private static final Logger logger = LoggerFactory.getLogger(PackedBlobStore.class);
+    private static final String SEGMENT_SUFFIX = ".pack";
+    private static final byte COMMITTED = 1;
+    private static final byte BLOB = 1;
+    private static final byte TOMBSTONE = 2;
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final Path directory;
+    private final long segmentSize;
+    private final double compactionThreshold;
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+    // By number, oldest first; guarded by this
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private final ExecutorService compactor;
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean();
+    private final Object compactionLock = new Object();
+
+    private Segment active;
+    private long nextSequence = 1;
+    private boolean closed;
+
+    /**
+     * @param segmentSize size at which a segment is sealed, at most 2 GiB so that it can be mapped
+     * @param compactionThreshold share of dead bytes, 0 to 1, at which a segment is compacted
+     */
+    public PackedBlobStore(Path directory, long segmentSize, double compactionThreshold) throws IOException {
+        if (segmentSize <= HEADER_SIZE || segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid blob segment size: " + segmentSize);
+        }
+        if (compactionThreshold <= 0 || compactionThreshold > 1) {
+            throw new IllegalArgumentException("Invalid blob compaction threshold: " + compactionThreshold);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.compactionThreshold = compactionThreshold;
+        this.compactor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "blob-compaction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Files.createDirectories(directory);
+        try {
+            open();
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean put(String key, Path source) throws IOException {
+        byte[] keyBytes = keyBytes(key);
+        boolean stored;
+        try (FileChannel input = FileChannel.open(source, StandardOpenOption.READ)) {
+            long length = input.size();
+            if (HEADER_SIZE + keyBytes.length + length > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Blob " + key + " is too large: " + length + " bytes");
+            }
+            int crc = dataChecksum(input, length);
+            synchronized (this) {
+                checkOpen();
+                stored = !index.containsKey(key);
+                if (stored) {
+                    store(key, keyBytes, input, (int) length, crc);
+                }
+            }
+        }
+        Files.deleteIfExists(source);
+        return stored;
+    }
+
+    @Override
+    public boolean contains(String key) {
+        return index.containsKey(key);
+    }
+
+    @Override
+    public ByteBuffer get(String key) throws IOException {
+        while (true) {
+            Location location = index.get(key);
+            if (location == null) {
+                return null;
+            }
+            ByteBuffer data;
+            try {
+                data = location.segment.read(location.dataOffset(), location.length);
+            } catch (ClosedChannelException e) {
+                // Sealed and compacted away between the lookup and the read: look again, unless
+                // the store itself is closed
+                if (index.get(key) == location) {
+                    throw e;
+                }
+                continue;
+            }
+            if (dataChecksum(data.duplicate()) != location.crc) {
+                throw new IOException("Blob " + key + " is corrupt in segment " + location.segment.file.getFileName());
+            }
+            return data.asReadOnlyBuffer();
+        }
+    }
+
+    @Override
+    public synchronized boolean delete(String key) throws IOException {
+        checkOpen();
+        Location location = index.get(key);
+        if (location == null) {
+            return false;
+        }
+        byte[] keyBytes = keyBytes(key);
+        Segment segment = segmentFor(HEADER_SIZE + keyBytes.length);
+        ByteBuffer header = header(TOMBSTONE, keyBytes, nextSequence, 0, 0);
+        header.put(0, COMMITTED);
+        try {
+            writeFully(segment.channel, header, segment.size);
+            segment.channel.force(false);
+        } catch (IOException e) {
+            segment.channel.truncate(segment.size);
+            throw e;
+        }
+        nextSequence++;
+        segment.size += header.capacity();
+        segment.deadBytes += header.capacity();
+        index.remove(key);
+        location.segment.deadBytes += location.recordSize();
+        if (isCompactable(location.segment)) {
+            scheduleCompaction();
+        }
+        return true;
+    }
+
+    /**
+     * Compacts every sealed segment whose dead share has reached the threshold. Runs in the
+     * background after deletes; puts and reads carry on meanwhile.
+     *
+     * @return the number of segments compacted
+     */
+    public int compact() throws IOException {
+        synchronized (compactionLock) {
+            List<Segment> candidates;
+            synchronized (this) {
+                candidates = segments.values().stream().filter(this::isCompactable).toList();
+            }
+            for (Segment segment : candidates) {
+                compact(segment);
+            }
+            return candidates.size();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        compactor.shutdown();
+        synchronized (compactionLock) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                for (Segment segment : segments.values()) {
+                    segment.channel.close();
+                    segment.mapped = null;
+                }
+            }
+        }
+    }
+
+    synchronized int segmentCount() {
+        return segments.size();
+    }
+
+    private void compact(Segment segment) throws IOException {
+        int moved = 0;
+        long movedBytes = 0;
+        List<Map.Entry<String, Location>> live = index.entrySet().stream()
+            .filter(entry -> entry.getValue().segment == segment)
+            .map(entry -> Map.entry(entry.getKey(), entry.getValue()))
+            .toList();
+        for (Map.Entry<String, Location> entry : live) {
+            synchronized (this) {
+                checkOpen();
+                Location location = entry.getValue();
+                if (index.get(entry.getKey()) != location) {
+                    // Deleted since
+                    continue;
+                }
+                // Copied with its checksum unchecked, so a corrupt blob stays detectably corrupt
+                ByteBuffer data = segment.read(location.dataOffset(), location.length);
+                index.put(entry.getKey(), append(BLOB, entry.getKey(), location.sequence, data, location.crc));
+                segment.deadBytes += location.recordSize();
+                moved++;
+                movedBytes += location.length;
+            }
+        }
+
+        for (RecordHeader tombstone : shadowingTombstones(segment)) {
+            synchronized (this) {
+                if (!index.containsKey(tombstone.key)) {
+                    append(TOMBSTONE, tombstone.key, tombstone.sequence, null, 0);
+                    active.deadBytes += tombstone.recordSize();
+                }
+            }
+        }
+
+        synchronized (this) {
+            checkOpen();
+            // The copies must be on disk before the originals go
+            active.channel.force(false);
+            segments.remove(segment.number);
+            segment.channel.close();
+            // Slices already handed out keep the mapping alive until they are collected
+            segment.mapped = null;
+        }
+        Files.deleteIfExists(segment.file);
+        logger.info("Compacted blob segment {}: moved {} live blobs ({} bytes)", segment.file.getFileName(), moved, movedBytes);
+    }
+
+    // The segment's tombstones that still hide an older blob record in an earlier segment, which
+    // would come back on open without them; the others are dropped with the segment
+    private List<RecordHeader> shadowingTombstones(Segment segment) throws IOException {
+        Map<String, RecordHeader> tombstones = new HashMap<>();
+        scan(segment, record -> {
+            if (record.type == TOMBSTONE) {
+                tombstones.merge(record.key, record, (a, b) -> a.sequence > b.sequence ? a : b);
+            }
+        });
+        List<Segment> older;
+        synchronized (this) {
+            older = List.copyOf(segments.headMap(segment.number).values());
+        }
+        List<RecordHeader> shadowing = new ArrayList<>();
+        // Sealed, and not compacted meanwhile as the caller holds the compaction lock
+        for (Segment candidate : older) {
+            if (tombstones.isEmpty()) {
+                break;
+            }
+            scan(candidate, record -> {
+                RecordHeader tombstone = tombstones.get(record.key);
+                if (record.type == BLOB && tombstone != null && tombstone.sequence > record.sequence) {
+                    shadowing.add(tombstones.remove(record.key));
+                }
+            });
+        }
+        return shadowing;
+    }
+
+    // Caller holds the lock
+    private void store(String key, byte[] keyBytes, FileChannel input, int length, int crc) throws IOException {
+        Segment segment = segmentFor(HEADER_SIZE + keyBytes.length + (long) length);
+        long start = segment.size;
+        ByteBuffer header = header(BLOB, keyBytes, nextSequence, length, crc);
+        try {
+            writeFully(segment.channel, header, start);
+            segment.channel.position(start + header.capacity());
+            for (long copied = 0; copied < length; ) {
+                long transferred = input.transferTo(copied, length - copied, segment.channel);
+                if (transferred <= 0) {
+                    throw new EOFException("Blob " + key + " shrank while being stored");
+                }
+                copied += transferred;
+            }
+            segment.channel.force(false);
+            // Flag last, so a crash never leaves a committed record with missing bytes
+            writeFully(segment.channel, ByteBuffer.wrap(new byte[] {COMMITTED}), start);
+            segment.channel.force(false);
+        } catch (IOException | RuntimeException e) {
+            segment.channel.truncate(start);
+            throw e;
+        }
+        segment.size = start + header.capacity() + length;
+        index.put(key, new Location(segment, start, header.capacity(), length, crc, nextSequence++));
+    }
+
+    // Appends a copied record, committed but not forced; caller holds the lock
+    private Location append(byte type, String key, long sequence, ByteBuffer data, int crc) {
+        byte[] keyBytes = keyBytes(key);
+        int length = data == null ? 0 : data.remaining();
+        try {
+            Segment segment = segmentFor(HEADER_SIZE + keyBytes.length + (long) length);
+            long start = segment.size;
+            ByteBuffer header = header(type, keyBytes, sequence, length, crc);
+            header.put(0, COMMITTED);
+            try {
+                writeFully(segment.channel, header, start);
+                if (data != null) {
+                    writeFully(segment.channel, data, start + header.capacity());
+                }
+            } catch (IOException e) {
+                segment.channel.truncate(start);
+                throw e;
+            }
+            segment.size = start + header.capacity() + length;
+            return new Location(segment, start, header.capacity(), length, crc, sequence);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not copy blob " + key, e);
+        }
+    }
+
+    // The active segment, rolled first if the record would not fit; caller holds the lock
+    private Segment segmentFor(long recordSize) throws IOException {
+        if (active.size > 0 && active.size + recordSize > segmentSize) {
+            seal(active);
+            active = createSegment(active.number + 1);
+        }
+        return active;
+    }
+
+    private void scheduleCompaction() {
+        if (compactionScheduled.compareAndSet(false, true)) {
+            compactor.execute(() -> {
+                // Cleared first, so that deletes during the run schedule another
+                compactionScheduled.set(false);
+                try {
+                    compact();
+                } catch (IOException | RuntimeException e) {
+                    logger.warn("Could not compact blob segments in {}", directory, e);
+                }
+            });
+        }
+    }
+
+    private boolean isCompactable(Segment segment) {
+        return segment != active && segment.size > 0 && segment.deadBytes >= compactionThreshold * segment.size;
+    }
+
+    private void open() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+        }
+        Map<String, Long> deletes = new HashMap<>();
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            long number = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+            Segment segment = new Segment(number, file,
+                FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE));
+            segments.put(number, segment);
+            long end = scan(segment, record -> {
+                nextSequence = Math.max(nextSequence, record.sequence + 1);
+                if (record.type == TOMBSTONE) {
+                    segment.deadBytes += record.recordSize();
+                    deletes.merge(record.key, record.sequence, Math::max);
+                    return;
+                }
+                Location location = new Location(segment, record.offset, record.headerSize, record.length, record.crc, record.sequence);
+                Location existing = index.get(record.key);
+                if (existing == null || existing.sequence < record.sequence) {
+                    index.put(record.key, location);
+                    if (existing != null) {
+                        existing.segment.deadBytes += existing.recordSize();
+                    }
+                } else {
+                    segment.deadBytes += location.recordSize();
+                }
+            });
+            if (end < segment.channel.size()) {
+                logger.warn("Discarding {} bytes of incomplete records at the end of blob segment {}",
+                    segment.channel.size() - end, name);
+                segment.channel.truncate(end);
+                segment.channel.force(false);
+            }
+            segment.size = end;
+        }
+        deletes.forEach((key, sequence) -> {
+            Location location = index.get(key);
+            if (location != null && location.sequence < sequence) {
+                index.remove(key);
+                location.segment.deadBytes += location.recordSize();
+            }
+        });
+
+        if (segments.isEmpty() || segments.lastEntry().getValue().size >= segmentSize) {
+            active = createSegment(segments.isEmpty() ? 1 : segments.lastKey() + 1);
+        } else {
+            active = segments.lastEntry().getValue();
+        }
+        for (Segment segment : segments.values()) {
+            if (segment != active) {
+                seal(segment);
+            }
+        }
+        logger.info("Opened {} blobs in {} segments in {}", index.size(), segments.size(), directory);
+        if (segments.values().stream().anyMatch(this::isCompactable)) {
+            scheduleCompaction();
+        }
+    }
+
+    // Reads the records of a segment in order; returns the offset after the last complete one
+    private static long scan(Segment segment, Consumer<RecordHeader> visitor) throws IOException {
+        long size = segment.channel.size();
+        long position = 0;
+        ByteBuffer fixed = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        while (position + HEADER_SIZE <= size) {
+            fixed.clear();
+            readFully(segment.channel, fixed, position);
+            byte type = fixed.get(1);
+            int keyLength = Short.toUnsignedInt(fixed.getShort(2));
+            int length = fixed.getInt(16);
+            if (fixed.get(0) != COMMITTED || (type != BLOB && type != TOMBSTONE)
+                    || keyLength == 0 || position + HEADER_SIZE + keyLength > size) {
+                break;
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + keyLength).order(ByteOrder.LITTLE_ENDIAN);
+            header.put(fixed.flip());
+            readFully(segment.channel, header, position + HEADER_SIZE);
+            if (checksum(header) != header.getInt(4)
+                    || length < 0 || position + HEADER_SIZE + keyLength + length > size) {
+                break;
+            }
+            String key = new String(header.array(), HEADER_SIZE, keyLength, StandardCharsets.UTF_8);
+            visitor.accept(new RecordHeader(type, key, header.getLong(8), position, HEADER_SIZE + keyLength, length, header.getInt(20)));
+            position += HEADER_SIZE + keyLength + length;
+        }
+        return position;
+    }
+
+    private Segment createSegment(long number) throws IOException {
+        Path file = directory.resolve(String.format("%020d%s", number, SEGMENT_SUFFIX));
+        Segment segment = new Segment(number, file, FileChannel.open(file,
+            StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE));
+        segments.put(number, segment);
+        return segment;
+    }
+
+    private static void seal(Segment segment) throws IOException {
+        segment.channel.force(false);
+        segment.mapped = segment.channel.map(FileChannel.MapMode.READ_ONLY, 0, segment.size);
+    }
+
+    // Header with the flag clear
+    private static ByteBuffer header(byte type, byte[] key, long sequence, int length, int crc) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + key.length).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(1, type);
+        header.putShort(2, (short) key.length);
+        header.putLong(8, sequence);
+        header.putInt(16, length);
+        header.putInt(20, crc);
+        header.put(HEADER_SIZE, key);
+        header.putInt(4, checksum(header));
+        return header;
+    }
+
+    private static int checksum(ByteBuffer header) {
+        CRC32C crc = new CRC32C();
+        crc.update(header.duplicate().position(1).limit(4));
+        crc.update(header.duplicate().position(8));
+        return (int) crc.getValue();
+    }
+
+    private static int dataChecksum(FileChannel input, long length) throws IOException {
+        CRC32C crc = new CRC32C();
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(length, 64 * 1024));
+        for (long position = 0; position < length; ) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), length - position));
+            int read = input.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("Blob shrank while being checksummed");
+            }
+            crc.update(buffer.flip());
+            position += read;
+        }
+        return (int) crc.getValue();
+    }
+
+    private static int dataChecksum(ByteBuffer data) {
+        CRC32C crc = new CRC32C();
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+
+    private static byte[] keyBytes(String key) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length == 0 || bytes.length > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Invalid blob key: " + key);
+        }
+        return bytes;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        ByteBuffer source = buffer.duplicate().rewind();
+        while (source.hasRemaining()) {
+            position += channel.write(source, position);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException();
+            }
+            position += read;
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Blob store is closed");
+        }
+    }
+
+    /**
+     * A segment file. Size and dead bytes are guarded by the store.
+     */
+    private static final class Segment {
+        private final long number;
+        private final Path file;
+        private final FileChannel channel;
+        private long size;
+        private long deadBytes;
+        // Set once the segment is sealed
+        private volatile MappedByteBuffer mapped;
+
+        Segment(long number, Path file, FileChannel channel) {
+            this.number = number;
+            this.file = file;
+            this.channel = channel;
+        }
+
+        ByteBuffer read(long offset, int length) throws IOException {
+            MappedByteBuffer whole = mapped;
+            if (whole != null) {
+                return whole.slice((int) offset, length);
+            }
+            // Still growing, so read rather than mapped per call
+            ByteBuffer data = ByteBuffer.allocate(length);
+            readFully(channel, data, offset);
+            return data.flip();
+        }
+    }
+
+    private record Location(Segment segment, long offset, int headerSize, int length, int crc, long sequence) {
+        long dataOffset() {
+            return offset + headerSize;
+        }
+
+        long recordSize() {
+            return headerSize + (long) length;
+        }
+    }
+
+    private record RecordHeader(byte type, String key, long sequence, long offset, int headerSize, int length, int crc) {
+        long recordSize() {
+            return headerSize + (long) length;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.heartrate.bloom;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Scalable Bloom filter of item ids (Almeida et al., 2007).
+ *
+ * The filter is a chain of plain Bloom filters. Each one is twice the capacity of the previous
+ * one and gets half its false-positive rate, and a new one is appended once the last is full. The
+ * combined false-positive rate therefore stays below the configured rate however many ids are
+ * added, while a small history costs only a small filter. Membership answers are "maybe" or
+ * "definitely not"; ids are never removed.
+ *
+ * Not thread-safe. {@link #toBytes()} produces the compact persisted form.
+ */
+public class ScalableBloomFilter {
+    private static final byte FORMAT_VERSION = 1;
+    private static final int GROWTH_FACTOR = 2;
+    private static final double TIGHTENING_RATIO = 0.5;
+    private static final double LN2 = Math.log(2);
+
+    private final int initialCapacity;
+    private final double falsePositiveRate;
+    private final List<Slice> slices;
+
+    private ScalableBloomFilter(int initialCapacity, double falsePositiveRate, List<Slice> slices) {
+        if (initialCapacity < 1) {
+            throw new IllegalArgumentException("Initial capacity must be positive");
+        }
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("False-positive rate must be between 0 and 1");
+        }
+        this.initialCapacity = initialCapacity;
+        this.falsePositiveRate = falsePositiveRate;
+        this.slices = slices;
+    }
+
+    public static ScalableBloomFilter create(int initialCapacity, double falsePositiveRate) {
+        return new ScalableBloomFilter(initialCapacity, falsePositiveRate, new ArrayList<>());
+    }
+
+    /**
+     * Restores a filter written by {@link #toBytes()}. The capacity and rate only apply to slices
+     * added from now on; existing slices keep the parameters they were created with.
+     *
+     * @throws IllegalArgumentException if the data is not a serialized filter
+     */
+    public static ScalableBloomFilter fromBytes(byte[] data, int initialCapacity, double falsePositiveRate) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            if (buffer.get() != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported Bloom filter format");
+            }
+            int sliceCount = buffer.getInt();
+            List<Slice> slices = new ArrayList<>(sliceCount);
+            for (int i = 0; i < sliceCount; i++) {
+                int capacity = buffer.getInt();
+                int count = buffer.getInt();
+                int hashes = buffer.get();
+                long[] bits = new long[buffer.getInt()];
+                if (bits.length == 0 || hashes < 1) {
+                    throw new IllegalArgumentException("Corrupt Bloom filter data");
+                }
+                buffer.asLongBuffer().get(bits);
+                buffer.position(buffer.position() + bits.length * Long.BYTES);
+                slices.add(new Slice(capacity, hashes, bits, count));
+            }
+            return new ScalableBloomFilter(initialCapacity, falsePositiveRate, slices);
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            throw new IllegalArgumentException("Corrupt Bloom filter data", e);
+        }
+    }
+
+    /**
+     * @return false if the id was definitely never added
+     */
+    public boolean mightContain(UUID id) {
+        long h1 = hash1(id);
+        long h2 = hash2(h1);
+        for (Slice slice : slices) {
+            if (slice.mightContain(h1, h2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the id, appending a larger slice if the current one is full.
+     *
+     * @return false if the id was (possibly) present already and the filter is unchanged
+     */
+    public boolean add(UUID id) {
+        long h1 = hash1(id);
+        long h2 = hash2(h1);
+        for (Slice slice : slices) {
+            if (slice.mightContain(h1, h2)) {
+                return false;
+            }
+        }
+        Slice last = slices.isEmpty() ? null : slices.get(slices.size() - 1);
+        if (last == null || last.count >= last.capacity) {
+            last = newSlice(slices.size());
+            slices.add(last);
+        }
+        last.add(h1, h2);
+        return true;
+    }
+
+    /**
+     * Number of ids added. An id mistaken for one already present is not counted, so this can
+     * undercount by about the false-positive rate.
+     */
+    public long count() {
+        long count = 0;
+        for (Slice slice : slices) {
+            count += slice.count;
+        }
+        return count;
+    }
+
+    public int sliceCount() {
+        return slices.size();
+    }
+
+    public byte[] toBytes() {
+        int size = 1 + Integer.BYTES;
+        for (Slice slice : slices) {
+            size += 3 * Integer.BYTES + 1 + slice.bits.length * Long.BYTES;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(FORMAT_VERSION);
+        buffer.putInt(slices.size());
+        for (Slice slice : slices) {
+            buffer.putInt(slice.capacity);
+            buffer.putInt(slice.count);
+            buffer.put((byte) slice.hashes);
+            buffer.putInt(slice.bits.length);
+            buffer.asLongBuffer().put(slice.bits);
+            buffer.position(buffer.position() + slice.bits.length * Long.BYTES);
+        }
+        return buffer.array();
+    }
+
+    // Slice i holds initialCapacity * 2^i ids at rate * (1 - r) * r^i, so the rates sum to at most rate
+    private Slice newSlice(int index) {
+        long capacity = (long) Math.min(initialCapacity * Math.pow(GROWTH_FACTOR, index), Integer.MAX_VALUE / 64);
+        double rate = falsePositiveRate * (1 - TIGHTENING_RATIO) * Math.pow(TIGHTENING_RATIO, index);
+        long bitCount = (long) Math.ceil(-capacity * Math.log(rate) / (LN2 * LN2));
+        int words = (int) Math.min((bitCount + 63) / 64, Integer.MAX_VALUE / 8);
+        int hashes = (int) Math.max(1, Math.min(64, Math.round((double) words * 64 / capacity * LN2)));
+        return new Slice((int) capacity, hashes, new long[words], 0);
+    }
+
+    // Two independent 64-bit hashes; slice positions are h1 + i * h2 (Kirsch and Mitzenmacher)
+    private static long hash1(UUID id) {
+        return mix(id.getMostSignificantBits() ^ mix(id.getLeastSignificantBits()));
+    }
+
+    private static long hash2(long hash1) {
+        return mix(hash1 + 0x9E3779B97F4A7C15L) | 1;
+    }
+
+    // MurmurHash3 finalizer
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB9FE1A85EC53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    private static final class Slice {
+        private final int capacity;
+        private final int hashes;
+        private final long[] bits;
+        private final long bitCount;
+        private int count;
+
+        Slice(int capacity, int hashes, long[] bits, int count) {
+            this.capacity = capacity;
+            this.hashes = hashes;
+            this.bits = bits;
+            this.bitCount = (long) bits.length * 64;
+            this.count = count;
+        }
+
+        boolean mightContain(long h1, long h2) {
+            long combined = h1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Long.remainderUnsigned(combined, bitCount);
+                if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                    return false;
+                }
+                combined += h2;
+            }
+            return true;
+        }
+
+        void add(long h1, long h2) {
+            long combined = h1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Long.remainderUnsigned(combined, bitCount);
+                bits[(int) (bit >>> 6)] |= 1L << bit;
+                combined += h2;
+            }
+            count++;
+        }
+    }
+}
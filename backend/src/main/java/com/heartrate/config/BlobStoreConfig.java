@@ -0,0 +1,77 @@
+package com.heartrate.config;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.heartrate.blob.BlobStore;
+import com.heartrate.blob.FileSystemBlobStore;
+import com.heartrate.blob.InMemoryBlobStore;
+import com.heartrate.blob.PackedBlobStore;
+
+/**
+ * Where stored item images are kept, see {@link BlobStore}. The file system store uses the
+ * {@code app.uploads.directory} layout of one file per image.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.blob-store")
+public class BlobStoreConfig {
+    public enum Type { FILESYSTEM, PACKED, MEMORY }
+
+    private Type type = Type.FILESYSTEM;
+    // Segment files of the packed store
+    private String packedDirectory = "uploads/packs";
+    private int segmentSizeMb = 256;
+    // Share of a sealed segment's bytes that must be deleted or overwritten before it is compacted
+    private double compactionThreshold = 0.5;
+
+    @Bean
+    public BlobStore blobStore(UploadConfig uploadConfig) throws IOException {
+        return switch (type) {
+            case FILESYSTEM -> new FileSystemBlobStore(absolute(uploadConfig.getDirectory()));
+            case PACKED -> new PackedBlobStore(absolute(packedDirectory),
+                (long) segmentSizeMb * 1024 * 1024, compactionThreshold);
+            case MEMORY -> new InMemoryBlobStore();
+        };
+    }
+
+    private static Path absolute(String directory) {
+        return Paths.get(directory).toAbsolutePath().normalize();
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public String getPackedDirectory() {
+        return packedDirectory;
+    }
+
+    public void setPackedDirectory(String packedDirectory) {
+        this.packedDirectory = packedDirectory;
+    }
+
+    public int getSegmentSizeMb() {
+        return segmentSizeMb;
+    }
+
+    public void setSegmentSizeMb(int segmentSizeMb) {
+        this.segmentSizeMb = segmentSizeMb;
+    }
+
+    public double getCompactionThreshold() {
+        return compactionThreshold;
+    }
+
+    public void setCompactionThreshold(double compactionThreshold) {
+        this.compactionThreshold = compactionThreshold;
+    }
+}
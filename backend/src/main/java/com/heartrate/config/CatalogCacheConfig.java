@@ -0,0 +1,135 @@
+package com.heartrate.config;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+/**
+ * Hibernate second-level and query cache for the catalog (items and their relationships),
+ * held in Caffeine caches behind the JCache API.
+ *
+ * Entity regions use READ_WRITE concurrency, so updates and deletes made through Hibernate
+ * invalidate the cached entry. Cached query results are invalidated whenever Hibernate writes to
+ * one of the tables they read from, tracked by the update-timestamps region.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.catalog-cache")
+public class CatalogCacheConfig {
+    public static final String ITEMS_REGION = "items";
+    public static final String TYPE_OF_REGION = "type-of";
+    public static final String CHILD_OF_REGION = "child-of";
+    public static final String RELATIONSHIP_QUERIES_REGION = "relationship-queries";
+
+    private Region items = new Region(10_000, Duration.ofMinutes(30));
+    private Region relationships = new Region(50_000, Duration.ofMinutes(30));
+    private Region queries = new Region(10_000, Duration.ofMinutes(5));
+    // Item versions backing conditional GETs, see ItemVersionCache. Kept short: it bounds how long
+    // a write that bypasses JPA can go unnoticed
+    private Region versions = new Region(100_000, Duration.ofMinutes(1));
+
+    @Bean(destroyMethod = "close")
+    public CacheManager catalogCacheManager() {
+        // A manager per application context, so test contexts never share regions
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+            .getCacheManager(URI.create("catalog-cache-" + UUID.randomUUID()), getClass().getClassLoader());
+        cacheManager.createCache(ITEMS_REGION, regionConfiguration(items));
+        cacheManager.createCache(TYPE_OF_REGION, regionConfiguration(relationships));
+        cacheManager.createCache(CHILD_OF_REGION, regionConfiguration(relationships));
+        cacheManager.createCache(RELATIONSHIP_QUERIES_REGION, regionConfiguration(queries));
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, regionConfiguration(queries));
+        // Never evicted: a lost timestamp would let a stale query result be served
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, new CaffeineConfiguration<>()
+            .setStoreByValue(false)
+            .setStatisticsEnabled(true));
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer catalogCacheHibernateProperties(CacheManager catalogCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, catalogCacheManager);
+    }
+
+    private static CaffeineConfiguration<Object, Object> regionConfiguration(Region region) {
+        return new CaffeineConfiguration<>()
+            .setMaximumSize(OptionalLong.of(region.getMaxSize()))
+            .setExpireAfterWrite(OptionalLong.of(region.getTtl().toNanos()))
+            // Hibernate already stores disassembled, immutable cache entries
+            .setStoreByValue(false)
+            .setStatisticsEnabled(true);
+    }
+
+    public Region getItems() {
+        return items;
+    }
+
+    public void setItems(Region items) {
+        this.items = items;
+    }
+
+    public Region getRelationships() {
+        return relationships;
+    }
+
+    public void setRelationships(Region relationships) {
+        this.relationships = relationships;
+    }
+
+    public Region getQueries() {
+        return queries;
+    }
+
+    public void setQueries(Region queries) {
+        this.queries = queries;
+    }
+
+    public Region getVersions() {
+        return versions;
+    }
+
+    public void setVersions(Region versions) {
+        this.versions = versions;
+    }
+
+    public static class Region {
+        private long maxSize;
+        private Duration ttl;
+
+        public Region() {
+        }
+
+        public Region(long maxSize, Duration ttl) {
+            this.maxSize = maxSize;
+            this.ttl = ttl;
+        }
+
+        public long getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(long maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.heartrate.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Adaptive concurrency limits for the item and relationship endpoints, see
+ * {@link com.heartrate.limiter.ConcurrencyLimitFilter}. Every endpoint group learns its own limit
+ * from these settings.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.concurrency-limit")
+public class ConcurrencyLimitConfig {
+    private boolean enabled = true;
+    private int initialLimit = 20;
+    private int minLimit = 4;
+    private int maxLimit = 500;
+    // Share of a group's limit that catalog browsing may take; the rest is kept for swipes
+    private double browseShare = 0.75;
+    private double smoothing = 0.2;
+    // Latency may rise this far above the baseline before the limit shrinks
+    private double rttTolerance = 1.5;
+    private double backoffRatio = 0.9;
+    // Samples averaged into the baseline latency
+    private int longWindow = 600;
+    private int retryAfterSeconds = 1;
+    // Long-running endpoints that would hold a slot for minutes and distort the latency samples;
+    // Ant-style patterns such as /api/items/*/image
+    private List<String> excludedPaths = new ArrayList<>(List.of("/api/items/import", "/api/relationships/import",
+        "/api/items/*/image"));
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    public void setInitialLimit(int initialLimit) {
+        this.initialLimit = initialLimit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public void setMinLimit(int minLimit) {
+        this.minLimit = minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public void setMaxLimit(int maxLimit) {
+        this.maxLimit = maxLimit;
+    }
+
+    public double getBrowseShare() {
+        return browseShare;
+    }
+
+    public void setBrowseShare(double browseShare) {
+        this.browseShare = browseShare;
+    }
+
+    public double getSmoothing() {
+        return smoothing;
+    }
+
+    public void setSmoothing(double smoothing) {
+        this.smoothing = smoothing;
+    }
+
+    public double getRttTolerance() {
+        return rttTolerance;
+    }
+
+    public void setRttTolerance(double rttTolerance) {
+        this.rttTolerance = rttTolerance;
+    }
+
+    public double getBackoffRatio() {
+        return backoffRatio;
+    }
+
+    public void setBackoffRatio(double backoffRatio) {
+        this.backoffRatio = backoffRatio;
+    }
+
+    public int getLongWindow() {
+        return longWindow;
+    }
+
+    public void setLongWindow(int longWindow) {
+        this.longWindow = longWindow;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public void setRetryAfterSeconds(int retryAfterSeconds) {
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public List<String> getExcludedPaths() {
+        return excludedPaths;
+    }
+
+    public void setExcludedPaths(List<String> excludedPaths) {
+        this.excludedPaths = excludedPaths;
+    }
+}
@@ -0,0 +1,84 @@
+package com.heartrate.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.feed")
+public class FeedConfig {
+    private int defaultSize = 10;
+    private int maxSize = 50;
+    // How long items handed out in a feed page stay reserved for that user
+    private int reservationMinutes = 30;
+    // Server-sent event stream (GET /api/items/feed/stream)
+    private int streamMaxConnections = 10_000;
+    private int streamMaxConnectionsPerUser = 4;
+    private int streamTimeoutMinutes = 30;
+    private int streamHeartbeatSeconds = 25;
+    // Platform threads that write events to the clients, each blocked for as long as one client is slow
+    private int streamSendThreads = 32;
+
+    public int getDefaultSize() {
+        return defaultSize;
+    }
+
+    public void setDefaultSize(int defaultSize) {
+        this.defaultSize = defaultSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public int getReservationMinutes() {
+        return reservationMinutes;
+    }
+
+    public void setReservationMinutes(int reservationMinutes) {
+        this.reservationMinutes = reservationMinutes;
+    }
+
+    public int getStreamMaxConnections() {
+        return streamMaxConnections;
+    }
+
+    public void setStreamMaxConnections(int streamMaxConnections) {
+        this.streamMaxConnections = streamMaxConnections;
+    }
+
+    public int getStreamMaxConnectionsPerUser() {
+        return streamMaxConnectionsPerUser;
+    }
+
+    public void setStreamMaxConnectionsPerUser(int streamMaxConnectionsPerUser) {
+        this.streamMaxConnectionsPerUser = streamMaxConnectionsPerUser;
+    }
+
+    public int getStreamTimeoutMinutes() {
+        return streamTimeoutMinutes;
+    }
+
+    public void setStreamTimeoutMinutes(int streamTimeoutMinutes) {
+        this.streamTimeoutMinutes = streamTimeoutMinutes;
+    }
+
+    public int getStreamHeartbeatSeconds() {
+        return streamHeartbeatSeconds;
+    }
+
+    public void setStreamHeartbeatSeconds(int streamHeartbeatSeconds) {
+        this.streamHeartbeatSeconds = streamHeartbeatSeconds;
+    }
+
+    public int getStreamSendThreads() {
+        return streamSendThreads;
+    }
+
+    public void setStreamSendThreads(int streamSendThreads) {
+        this.streamSendThreads = streamSendThreads;
+    }
+}
@@ -0,0 +1,109 @@
+package com.heartrate.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.feed-sampling")
+public class FeedSamplingConfig {
+    // Off keeps the feed in plain id order
+    private boolean enabled = true;
+    // Share of each feed page drawn by category; the rest, including uncategorised items, comes in id order
+    private double sampledShare = 0.75;
+    // Categories per alias block; a weight change rebuilds one block and the block index
+    private int blockSize = 256;
+    // How often queued item, relationship and like changes are applied to the tables
+    private long rebuildIntervalMs = 1000;
+    // How often every category is reweighed so freshness decays
+    private int reweighIntervalMinutes = 10;
+    // Age of a category's newest item at which its freshness boost halves
+    private double freshnessHalfLifeDays = 14;
+    // Weight multiplier added for a category whose newest item is brand new
+    private double freshnessBoost = 1.0;
+    // Share of draws taken from the user's liked categories when they have any
+    private double affinityShare = 0.5;
+    // Users whose category affinity table is kept in memory
+    private int affinityCacheSize = 10000;
+    // Draws per wanted item before giving up, bounding the cost when most draws are seen items
+    private int maxAttemptsPerItem = 8;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public double getSampledShare() {
+        return sampledShare;
+    }
+
+    public void setSampledShare(double sampledShare) {
+        this.sampledShare = sampledShare;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public void setBlockSize(int blockSize) {
+        this.blockSize = blockSize;
+    }
+
+    public long getRebuildIntervalMs() {
+        return rebuildIntervalMs;
+    }
+
+    public void setRebuildIntervalMs(long rebuildIntervalMs) {
+        this.rebuildIntervalMs = rebuildIntervalMs;
+    }
+
+    public int getReweighIntervalMinutes() {
+        return reweighIntervalMinutes;
+    }
+
+    public void setReweighIntervalMinutes(int reweighIntervalMinutes) {
+        this.reweighIntervalMinutes = reweighIntervalMinutes;
+    }
+
+    public double getFreshnessHalfLifeDays() {
+        return freshnessHalfLifeDays;
+    }
+
+    public void setFreshnessHalfLifeDays(double freshnessHalfLifeDays) {
+        this.freshnessHalfLifeDays = freshnessHalfLifeDays;
+    }
+
+    public double getFreshnessBoost() {
+        return freshnessBoost;
+    }
+
+    public void setFreshnessBoost(double freshnessBoost) {
+        this.freshnessBoost = freshnessBoost;
+    }
+
+    public double getAffinityShare() {
+        return affinityShare;
+    }
+
+    public void setAffinityShare(double affinityShare) {
+        this.affinityShare = affinityShare;
+    }
+
+    public int getAffinityCacheSize() {
+        return affinityCacheSize;
+    }
+
+    public void setAffinityCacheSize(int affinityCacheSize) {
+        this.affinityCacheSize = affinityCacheSize;
+    }
+
+    public int getMaxAttemptsPerItem() {
+        return maxAttemptsPerItem;
+    }
+
+    public void setMaxAttemptsPerItem(int maxAttemptsPerItem) {
+        this.maxAttemptsPerItem = maxAttemptsPerItem;
+    }
+}
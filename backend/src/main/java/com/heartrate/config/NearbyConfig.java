@@ -0,0 +1,65 @@
+package com.heartrate.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.nearby")
+public class NearbyConfig {
+    private double defaultRadiusMeters = 10_000;
+    // Bounds the area one query can cover
+    private double maxRadiusMeters = 500_000;
+    private int defaultLimit = 20;
+    private int maxLimit = 100;
+    // Backoff between attempts to load the index, doubling from the initial delay up to the max
+    private long loadRetryInitialMs = 1000;
+    private long loadRetryMaxMs = 300_000;
+
+    public double getDefaultRadiusMeters() {
+        return defaultRadiusMeters;
+    }
+
+    public void setDefaultRadiusMeters(double defaultRadiusMeters) {
+        this.defaultRadiusMeters = defaultRadiusMeters;
+    }
+
+    public double getMaxRadiusMeters() {
+        return maxRadiusMeters;
+    }
+
+    public void setMaxRadiusMeters(double maxRadiusMeters) {
+        this.maxRadiusMeters = maxRadiusMeters;
+    }
+
+    public int getDefaultLimit() {
+        return defaultLimit;
+    }
+
+    public void setDefaultLimit(int defaultLimit) {
+        this.defaultLimit = defaultLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public void setMaxLimit(int maxLimit) {
+        this.maxLimit = maxLimit;
+    }
+
+    public long getLoadRetryInitialMs() {
+        return loadRetryInitialMs;
+    }
+
+    public void setLoadRetryInitialMs(long loadRetryInitialMs) {
+        this.loadRetryInitialMs = loadRetryInitialMs;
+    }
+
+    public long getLoadRetryMaxMs() {
+        return loadRetryMaxMs;
+    }
+
+    public void setLoadRetryMaxMs(long loadRetryMaxMs) {
+        this.loadRetryMaxMs = loadRetryMaxMs;
+    }
+}
@@ -0,0 +1,74 @@
+package com.heartrate.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitConfig {
+    private Limit login = new Limit(5, 15);
+    private Limit passwordReset = new Limit(3, 60);
+    private int stripes = 16;
+    private int maxKeysPerStripe = 4096;
+
+    public Limit getLogin() {
+        return login;
+    }
+
+    public void setLogin(Limit login) {
+        this.login = login;
+    }
+
+    public Limit getPasswordReset() {
+        return passwordReset;
+    }
+
+    public void setPasswordReset(Limit passwordReset) {
+        this.passwordReset = passwordReset;
+    }
+
+    public int getStripes() {
+        return stripes;
+    }
+
+    public void setStripes(int stripes) {
+        this.stripes = stripes;
+    }
+
+    public int getMaxKeysPerStripe() {
+        return maxKeysPerStripe;
+    }
+
+    public void setMaxKeysPerStripe(int maxKeysPerStripe) {
+        this.maxKeysPerStripe = maxKeysPerStripe;
+    }
+
+    public static class Limit {
+        private int attempts;
+        private int windowMinutes;
+
+        public Limit() {
+        }
+
+        public Limit(int attempts, int windowMinutes) {
+            this.attempts = attempts;
+            this.windowMinutes = windowMinutes;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+
+        public void setAttempts(int attempts) {
+            this.attempts = attempts;
+        }
+
+        public int getWindowMinutes() {
+            return windowMinutes;
+        }
+
+        public void setWindowMinutes(int windowMinutes) {
+            this.windowMinutes = windowMinutes;
+        }
+    }
+}
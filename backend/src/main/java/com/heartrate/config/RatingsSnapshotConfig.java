@@ -0,0 +1,29 @@
+package com.heartrate.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.ratings-snapshot")
+public class RatingsSnapshotConfig {
+    // Command line export: when set, a ratings snapshot is written to this path at startup
+    private String file;
+    // Rows per JDBC round trip while reading the ratings table
+    private int fetchSize = 10_000;
+
+    public String getFile() {
+        return file;
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+}
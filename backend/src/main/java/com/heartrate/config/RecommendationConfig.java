@@ -0,0 +1,97 @@
+package com.heartrate.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.recommendations")
+public class RecommendationConfig {
+    private int defaultLimit = 20;
+    // Length of the ranked list computed and cached per user
+    private int maxItems = 100;
+    // Ratings at or above this count as likes and seed the scoring
+    private int likeThreshold = 4;
+    // Highest rated likes used as seeds; bounds the cost of scoring heavy raters
+    private int maxSeeds = 50;
+    // Approximate heap held by cached lists, see RecommendationCache
+    private long cacheMaxBytes = 64L * 1024 * 1024;
+    // Entries older than this are served once more while a background refresh runs
+    private Duration refreshAfter = Duration.ofMinutes(5);
+    private Duration expireAfter = Duration.ofHours(1);
+    private int refreshThreads = 2;
+    private int refreshQueueSize = 1000;
+
+    public int getDefaultLimit() {
+        return defaultLimit;
+    }
+
+    public void setDefaultLimit(int defaultLimit) {
+        this.defaultLimit = defaultLimit;
+    }
+
+    public int getMaxItems() {
+        return maxItems;
+    }
+
+    public void setMaxItems(int maxItems) {
+        this.maxItems = maxItems;
+    }
+
+    public int getLikeThreshold() {
+        return likeThreshold;
+    }
+
+    public void setLikeThreshold(int likeThreshold) {
+        this.likeThreshold = likeThreshold;
+    }
+
+    public int getMaxSeeds() {
+        return maxSeeds;
+    }
+
+    public void setMaxSeeds(int maxSeeds) {
+        this.maxSeeds = maxSeeds;
+    }
+
+    public long getCacheMaxBytes() {
+        return cacheMaxBytes;
+    }
+
+    public void setCacheMaxBytes(long cacheMaxBytes) {
+        this.cacheMaxBytes = cacheMaxBytes;
+    }
+
+    public Duration getRefreshAfter() {
+        return refreshAfter;
+    }
+
+    public void setRefreshAfter(Duration refreshAfter) {
+        this.refreshAfter = refreshAfter;
+    }
+
+    public Duration getExpireAfter() {
+        return expireAfter;
+    }
+
+    public void setExpireAfter(Duration expireAfter) {
+        this.expireAfter = expireAfter;
+    }
+
+    public int getRefreshThreads() {
+        return refreshThreads;
+    }
+
+    public void setRefreshThreads(int refreshThreads) {
+        this.refreshThreads = refreshThreads;
+    }
+
+    public int getRefreshQueueSize() {
+        return refreshQueueSize;
+    }
+
+    public void setRefreshQueueSize(int refreshQueueSize) {
+        this.refreshQueueSize = refreshQueueSize;
+    }
+}
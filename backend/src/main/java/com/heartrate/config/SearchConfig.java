@@ -0,0 +1,85 @@
+package com.heartrate.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.search")
+public class SearchConfig {
+    private int defaultLimit = 20;
+    private int maxLimit = 100;
+    // Deepest result reachable by paging; ranking cost grows with offset + limit
+    private int maxOffset = 1000;
+    // Default field weights; a request may override them
+    private double nameBoost = 2.0;
+    private double descriptionBoost = 1.0;
+    // Threads analysing items when the index is built at startup; 0 means one per core
+    private int buildThreads = 0;
+    // A failed build is retried after this delay, doubling on every failure up to the maximum
+    private long buildRetryInitialMs = 1000;
+    private long buildRetryMaxMs = 300_000;
+
+    public int getDefaultLimit() {
+        return defaultLimit;
+    }
+
+    public void setDefaultLimit(int defaultLimit) {
+        this.defaultLimit = defaultLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public void setMaxLimit(int maxLimit) {
+        this.maxLimit = maxLimit;
+    }
+
+    public int getMaxOffset() {
+        return maxOffset;
+    }
+
+    public void setMaxOffset(int maxOffset) {
+        this.maxOffset = maxOffset;
+    }
+
+    public double getNameBoost() {
+        return nameBoost;
+    }
+
+    public void setNameBoost(double nameBoost) {
+        this.nameBoost = nameBoost;
+    }
+
+    public double getDescriptionBoost() {
+        return descriptionBoost;
+    }
+
+    public void setDescriptionBoost(double descriptionBoost) {
+        this.descriptionBoost = descriptionBoost;
+    }
+
+    public int getBuildThreads() {
+        return buildThreads;
+    }
+
+    public void setBuildThreads(int buildThreads) {
+        this.buildThreads = buildThreads;
+    }
+
+    public long getBuildRetryInitialMs() {
+        return buildRetryInitialMs;
+    }
+
+    public void setBuildRetryInitialMs(long buildRetryInitialMs) {
+        this.buildRetryInitialMs = buildRetryInitialMs;
+    }
+
+    public long getBuildRetryMaxMs() {
+        return buildRetryMaxMs;
+    }
+
+    public void setBuildRetryMaxMs(long buildRetryMaxMs) {
+        this.buildRetryMaxMs = buildRetryMaxMs;
+    }
+}
@@ -17,15 +17,22 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import com.heartrate.limiter.ConcurrencyLimitFilter;
+import com.heartrate.security.BoundedPasswordEncoder;
 import com.heartrate.security.JwtAuthenticationFilter;
 
+import jakarta.servlet.DispatcherType;
+
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    // Not a bean, so that it only runs inside the security chain
+    private final ConcurrencyLimitFilter concurrencyLimitFilter;
 
-    public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter) {
+    public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter, ConcurrencyLimitConfig concurrencyLimitConfig) {
         this.jwtAuthenticationFilter = jwtAuthenticationFilter;
+        this.concurrencyLimitFilter = new ConcurrencyLimitFilter(concurrencyLimitConfig);
     }
 
     @Bean
@@ -36,9 +43,14 @@ public class SecurityConfig {
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll() // Allow all OPTIONS requests
+                // Completion of an already authorized async request, e.g. a feed event stream
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers("/api/users/signin", "/api/users/signup").permitAll()
                 .requestMatchers("/api/users/reset-password/**").permitAll() // Allow password reset endpoints
                 .requestMatchers("/api/users/current-user").authenticated()
+                .requestMatchers(HttpMethod.GET, "/actuator/health/**").permitAll()
+                // Stored images are loaded by <img> tags, which send no token; their URLs are digests
+                .requestMatchers(HttpMethod.GET, "/uploads/images/*").permitAll()
                 
                 // Allow authenticated access to item endpoints
                 .requestMatchers(HttpMethod.POST, "/api/items").authenticated()
@@ -47,7 +59,9 @@ public class SecurityConfig {
 
                 .anyRequest().authenticated()
             )
-            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+            // Sheds load before authentication looks the user up
+            .addFilterBefore(concurrencyLimitFilter, JwtAuthenticationFilter.class);
         
         return http.build();
     }
@@ -56,7 +70,7 @@ public class SecurityConfig {
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOrigins(List.of("http://localhost:3000"));
-        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
+        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList(
             "Authorization",
             "Content-Type",
@@ -64,9 +78,13 @@ public class SecurityConfig {
             "Accept",
             "Origin",
             "Access-Control-Request-Method",
-            "Access-Control-Request-Headers"
+            "Access-Control-Request-Headers",
+            "X-Request-Id",
+            "If-None-Match",
+            "Upload-Offset",
+            "X-Content-SHA256"
         ));
-        configuration.setExposedHeaders(List.of("Authorization"));
+        configuration.setExposedHeaders(List.of("Authorization", "X-Request-Id", "ETag", "Location", "Upload-Offset"));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L); // 1 hour
         
@@ -76,7 +94,7 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(PasswordHashingConfig passwordHashingConfig) {
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), passwordHashingConfig);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.heartrate.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.seen-items")
+public class SeenItemsConfig {
+    // Upper bound on the chance that an unseen item is taken for a seen one and skipped
+    private double falsePositiveRate = 0.01;
+    // Items the first filter slice holds; each further slice doubles
+    private int initialCapacity = 256;
+    // How often queued filter additions are written to the stored filters
+    private long flushIntervalMs = 2000;
+
+    public double getFalsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    public void setFalsePositiveRate(double falsePositiveRate) {
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    public int getInitialCapacity() {
+        return initialCapacity;
+    }
+
+    public void setInitialCapacity(int initialCapacity) {
+        this.initialCapacity = initialCapacity;
+    }
+
+    public long getFlushIntervalMs() {
+        return flushIntervalMs;
+    }
+
+    public void setFlushIntervalMs(long flushIntervalMs) {
+        this.flushIntervalMs = flushIntervalMs;
+    }
+}
@@ -0,0 +1,28 @@
+package com.heartrate.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.tracing")
+public class TracingConfig {
+    // Fraction of requests (0.0 - 1.0) that record span timings
+    private double sampleRate = 0.01;
+    private String requestIdHeader = "X-Request-Id";
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    public String getRequestIdHeader() {
+        return requestIdHeader;
+    }
+
+    public void setRequestIdHeader(String requestIdHeader) {
+        this.requestIdHeader = requestIdHeader;
+    }
+}
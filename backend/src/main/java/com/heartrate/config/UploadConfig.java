@@ -0,0 +1,81 @@
+package com.heartrate.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Item image uploads, see {@link com.heartrate.service.ImageStore} and
+ * {@link com.heartrate.service.ImageUploadService}.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.uploads")
+public class UploadConfig {
+    private String directory = "uploads/images";
+    private long maxFileSize = 10L * 1024 * 1024;
+    // Buffers being written to disk at once; the rest wait up to writeWaitMs for a slot
+    private int maxConcurrentWrites = 8;
+    private long writeWaitMs = 1000;
+    // Per upload, and all the memory an upload needs however large the file
+    private int bufferSize = 64 * 1024;
+    // Resumable uploads not touched for this long are dropped with their partial file
+    private Duration resumableTtl = Duration.ofHours(24);
+    private int maxResumableUploads = 1000;
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public long getMaxFileSize() {
+        return maxFileSize;
+    }
+
+    public void setMaxFileSize(long maxFileSize) {
+        this.maxFileSize = maxFileSize;
+    }
+
+    public int getMaxConcurrentWrites() {
+        return maxConcurrentWrites;
+    }
+
+    public void setMaxConcurrentWrites(int maxConcurrentWrites) {
+        this.maxConcurrentWrites = maxConcurrentWrites;
+    }
+
+    public long getWriteWaitMs() {
+        return writeWaitMs;
+    }
+
+    public void setWriteWaitMs(long writeWaitMs) {
+        this.writeWaitMs = writeWaitMs;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public Duration getResumableTtl() {
+        return resumableTtl;
+    }
+
+    public void setResumableTtl(Duration resumableTtl) {
+        this.resumableTtl = resumableTtl;
+    }
+
+    public int getMaxResumableUploads() {
+        return maxResumableUploads;
+    }
+
+    public void setMaxResumableUploads(int maxResumableUploads) {
+        this.maxResumableUploads = maxResumableUploads;
+    }
+}
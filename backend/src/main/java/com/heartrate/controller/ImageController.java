@@ -0,0 +1,71 @@
+package com.heartrate.controller;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import com.heartrate.service.ImageStore;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Serves stored item images at their {@code imageUrl}. The URL names the content by its digest,
+ * so responses are cached for good and revalidated by ETag.
+ */
+@RestController
+@RequestMapping("/uploads/images")
+public class ImageController {
+    private static final Logger logger = LoggerFactory.getLogger(ImageController.class);
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+
+    @Autowired
+    private ImageStore imageStore;
+
+    // Written straight from the store's buffer, which may be a mapping of the file, rather than
+    // copied into a byte array first
+    @GetMapping("/{name}")
+    public void getImage(@PathVariable String name, WebRequest webRequest, HttpServletResponse response) throws IOException {
+        String imageUrl = ImageStore.URL_PREFIX + name;
+        String sha256 = ImageStore.digestOf(imageUrl);
+        if (sha256 == null) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        ByteBuffer image;
+        try {
+            image = imageStore.read(imageUrl);
+        } catch (IOException e) {
+            logger.error("Could not read image {}", sha256, e);
+            response.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            return;
+        }
+        if (image == null) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        response.setHeader(HttpHeaders.CACHE_CONTROL, IMMUTABLE.getHeaderValue());
+        if (webRequest.checkNotModified('"' + sha256 + '"')) {
+            return;
+        }
+        response.setContentType(ImageStore.contentTypeOf(imageUrl));
+        response.setContentLengthLong(image.remaining());
+        WritableByteChannel body = Channels.newChannel(response.getOutputStream());
+        while (image.hasRemaining()) {
+            body.write(image);
+        }
+    }
+}
@@ -1,32 +1,70 @@
 package com.heartrate.controller;
 
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.heartrate.config.FeedConfig;
+import com.heartrate.config.NearbyConfig;
+import com.heartrate.config.RecommendationConfig;
+import com.heartrate.config.SearchConfig;
+import com.heartrate.config.UploadConfig;
+import com.heartrate.controller.dto.FeedResponse;
 import com.heartrate.controller.dto.ItemFromUrlRequest;
+import com.heartrate.controller.dto.ItemImportResult;
+import com.heartrate.controller.dto.ItemResponse;
+import com.heartrate.controller.dto.NearbyItemResponse;
+import com.heartrate.controller.dto.RatingResponse;
+import com.heartrate.controller.dto.RecommendationResponse;
+import com.heartrate.controller.dto.SearchResponse;
+import com.heartrate.importer.FeedFormatException;
 import com.heartrate.model.Item;
 import com.heartrate.model.Rating;
-import com.heartrate.model.User;
+import com.heartrate.security.AuthenticatedUser;
+import com.heartrate.service.FeedService;
+import com.heartrate.service.FeedStream;
+import com.heartrate.service.FeedStreamLimitException;
+import com.heartrate.service.FeedStreamService;
+import com.heartrate.service.ItemImportService;
+import com.heartrate.service.ItemLocationIndex;
+import com.heartrate.service.ItemSearchIndex;
 import com.heartrate.service.ItemService;
+import com.heartrate.service.ItemVersionCache;
 import com.heartrate.service.RatingService;
+import com.heartrate.service.RecommendationCache;
+import com.heartrate.service.SeenItemService;
+import com.heartrate.service.UploadRejectedException;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
 @RestController
 @RequestMapping("/api/items")
 public class ItemController {
+    private static final Logger logger = LoggerFactory.getLogger(ItemController.class);
+    private static final String CONTENT_SHA256 = "X-Content-SHA256";
 
     @Autowired
     private ItemService itemService;
@@ -34,73 +72,308 @@ public class ItemController {
     @Autowired
     private RatingService ratingService;
 
+    @Autowired
+    private ItemImportService itemImportService;
+
+    @Autowired
+    private ItemVersionCache itemVersionCache;
+
+    @Autowired
+    private FeedService feedService;
+
+    @Autowired
+    private FeedStreamService feedStreamService;
+
+    @Autowired
+    private FeedConfig feedConfig;
+
+    @Autowired
+    private RecommendationCache recommendationCache;
+
+    @Autowired
+    private RecommendationConfig recommendationConfig;
+
+    @Autowired
+    private SeenItemService seenItemService;
+
+    @Autowired
+    private ItemLocationIndex itemLocationIndex;
+
+    @Autowired
+    private NearbyConfig nearbyConfig;
+
+    @Autowired
+    private ItemSearchIndex itemSearchIndex;
+
+    @Autowired
+    private SearchConfig searchConfig;
+
+    @Autowired
+    private UploadConfig uploadConfig;
+
     @PostMapping("/from-url")
-    public ResponseEntity<Item> createItemFromUrl(
+    public ResponseEntity<ItemResponse> createItemFromUrl(
             @Valid @RequestBody ItemFromUrlRequest itemRequest
     ) {
         try {
             Item savedItem = itemService.saveItemFromUrl(itemRequest);
-            return new ResponseEntity<>(savedItem, HttpStatus.CREATED);
+            return new ResponseEntity<>(ItemResponse.from(savedItem), HttpStatus.CREATED);
         } catch (RuntimeException e) {
-            System.err.println("Error creating item from URL: " + e.getMessage());
+            logger.warn("Error creating item from URL: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
         }
     }
 
+    /**
+     * Bulk imports a CSV or NDJSON feed streamed in the request body. Pass the importId returned
+     * by a failed import to resume after its last committed chunk.
+     */
+    @PostMapping("/import")
+    public ResponseEntity<?> importItems(
+            @RequestParam(required = false) String format,
+            @RequestParam(required = false) UUID importId,
+            HttpServletRequest request
+    ) {
+        String feedFormat = format != null ? format : formatFromContentType(request.getContentType());
+        UUID id = importId != null ? importId : UUID.randomUUID();
+        try {
+            ItemImportResult result = itemImportService.importItems(request.getInputStream(), feedFormat, id);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException | FeedFormatException e) {
+            return ResponseEntity.badRequest().body(Map.of("importId", id, "error", e.getMessage()));
+        } catch (IOException | RuntimeException e) {
+            logger.error("Item import {} failed", id, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("importId", id, "error", "Import failed; retry with the same importId to resume"));
+        }
+    }
+
+    /**
+     * Replaces the item's image with the request body, streamed to disk in a single pass. The
+     * body's SHA-256 is checked against {@code X-Content-SHA256} if given. Use {@code /api/uploads}
+     * to upload in resumable chunks instead.
+     */
+    @PutMapping("/{itemId}/image")
+    public ResponseEntity<?> uploadItemImage(
+            @PathVariable UUID itemId,
+            @RequestHeader(value = CONTENT_SHA256, required = false) String sha256,
+            HttpServletRequest request
+    ) {
+        if (request.getContentLengthLong() > uploadConfig.getMaxFileSize()) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                .body(Map.of("error", "File is larger than " + uploadConfig.getMaxFileSize() + " bytes"));
+        }
+        Optional<Item> item = itemService.findById(itemId);
+        if (item.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            Item saved = itemService.saveItem(item.get(), request.getInputStream(), request.getContentType(), sha256);
+            return ResponseEntity.ok(ItemResponse.from(saved));
+        } catch (UploadRejectedException e) {
+            return UploadController.rejected(e);
+        } catch (IOException e) {
+            logger.info("Image upload for item {} failed: {}", itemId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @PostMapping("/{itemId}/rate")
-    public ResponseEntity<Rating> rateItem(
+    public ResponseEntity<RatingResponse> rateItem(
             @PathVariable UUID itemId,
             @RequestBody Integer ratingValue,
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal AuthenticatedUser user
     ) {
         try {
             Rating savedRating = ratingService.saveRating(user.getId(), itemId, ratingValue, "RATED");
-            return ResponseEntity.ok(savedRating);
+            return ResponseEntity.ok(RatingResponse.from(savedRating));
         } catch (RuntimeException e) {
             // Log the error for debugging
-            System.err.println("Error rating item: " + e.getMessage());
+            logger.warn("Error rating item {}: {}", itemId, e.getMessage());
             // Return a NOT_FOUND status if the exception indicates item not found
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null); // Or return an error response body
         }
     }
 
     @PostMapping("/{itemId}/dont-know")
-    public ResponseEntity<Rating> dontKnowItem(
+    public ResponseEntity<RatingResponse> dontKnowItem(
             @PathVariable UUID itemId,
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal AuthenticatedUser user
     ) {
         try {
             Rating savedRating = ratingService.saveRating(user.getId(), itemId, null, "DONT_KNOW");
-            return ResponseEntity.ok(savedRating);
+            return ResponseEntity.ok(RatingResponse.from(savedRating));
         } catch (RuntimeException e) {
-            System.err.println("Error marking item as don't know: " + e.getMessage());
+            logger.warn("Error marking item {} as don't know: {}", itemId, e.getMessage());
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
         }
     }
 
     @PostMapping("/{itemId}/dont-care")
-    public ResponseEntity<Rating> dontCareItem(
+    public ResponseEntity<RatingResponse> dontCareItem(
             @PathVariable UUID itemId,
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal AuthenticatedUser user
     ) {
         try {
             Rating savedRating = ratingService.saveRating(user.getId(), itemId, null, "DONT_CARE");
-            return ResponseEntity.ok(savedRating);
+            return ResponseEntity.ok(RatingResponse.from(savedRating));
         } catch (RuntimeException e) {
-            System.err.println("Error marking item as don't care: " + e.getMessage());
+            logger.warn("Error marking item {} as don't care: {}", itemId, e.getMessage());
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
         }
     }
 
+    /**
+     * Dismisses a recommended item, so that neither recommendations nor the feed offer it again.
+     */
+    @PostMapping("/{itemId}/dismiss")
+    public ResponseEntity<Void> dismissItem(
+            @PathVariable UUID itemId,
+            @AuthenticationPrincipal AuthenticatedUser user
+    ) {
+        if (itemService.findById(itemId).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        seenItemService.addToFilter(user.getId(), List.of(itemId));
+        recommendationCache.onItemSeen(user.getId(), itemId);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Next page of items the user has not rated, reserved so the user's other devices do not
+     * receive the same items.
+     */
+    @GetMapping("/feed")
+    public ResponseEntity<?> getFeed(
+            @RequestParam(required = false) Integer size,
+            @AuthenticationPrincipal AuthenticatedUser user
+    ) {
+        try {
+            FeedResponse feed = feedService.nextPage(user.getId(), size != null ? size : feedConfig.getDefaultSize());
+            return ResponseEntity.ok(feed);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Server-sent event stream of feed items. The client receives up to {@code window} items,
+     * then one more for every item it acknowledges through the ack endpoint.
+     */
+    @GetMapping(value = "/feed/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamFeed(
+            @RequestParam(required = false) Integer window,
+            @AuthenticationPrincipal AuthenticatedUser user
+    ) {
+        try {
+            FeedStream stream = feedStreamService.open(user.getId(), window != null ? window : feedConfig.getDefaultSize());
+            return ResponseEntity.ok(stream.getEmitter());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (FeedStreamLimitException e) {
+            logger.info("Rejected feed stream for user {}: {}", user.getId(), e.getMessage());
+            HttpStatus status = e.isPerUser() ? HttpStatus.TOO_MANY_REQUESTS : HttpStatus.SERVICE_UNAVAILABLE;
+            return ResponseEntity.status(status).header(HttpHeaders.RETRY_AFTER, "30").build();
+        }
+    }
+
+    @PostMapping("/feed/stream/{streamId}/ack")
+    public ResponseEntity<Void> acknowledgeFeedItems(
+            @PathVariable UUID streamId,
+            @RequestParam(defaultValue = "1") int count,
+            @AuthenticationPrincipal AuthenticatedUser user
+    ) {
+        if (feedStreamService.acknowledge(streamId, user.getId(), count)) {
+            return ResponseEntity.accepted().build();
+        }
+        return ResponseEntity.notFound().build();
+    }
+
+    /**
+     * The user's recommended items, best first. Served from a per-user cache that is refreshed in
+     * the background, so it can briefly lag behind the user's latest ratings other than the rated
+     * items themselves, which are removed immediately.
+     */
+    @GetMapping("/recommendations")
+    public ResponseEntity<?> getRecommendations(
+            @RequestParam(required = false) Integer limit,
+            @AuthenticationPrincipal AuthenticatedUser user
+    ) {
+        try {
+            List<RecommendationResponse> recommendations = recommendationCache.get(user.getId(),
+                limit != null ? limit : recommendationConfig.getDefaultLimit());
+            return ResponseEntity.ok(recommendations);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Items whose name or description matches the query, ranked by BM25. Name matches weigh more
+     * by default; {@code nameBoost} and {@code descriptionBoost} override the field weights.
+     * Answered from the in-memory search index, which is unavailable while it is built at startup.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> searchItems(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Double nameBoost,
+            @RequestParam(required = false) Double descriptionBoost
+    ) {
+        if (!itemSearchIndex.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
+        try {
+            SearchResponse results = itemSearchIndex.search(q, offset,
+                limit != null ? limit : searchConfig.getDefaultLimit(), nameBoost, descriptionBoost);
+            return ResponseEntity.ok(results);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Located items within {@code radius} metres of the given point, nearest first, each with its
+     * distance. Answered from the in-memory location index, which is unavailable for a short while
+     * after startup.
+     */
+    @GetMapping("/nearby")
+    public ResponseEntity<?> getNearbyItems(
+            @RequestParam double lat,
+            @RequestParam double lon,
+            @RequestParam(required = false) Double radius,
+            @RequestParam(required = false) Integer limit
+    ) {
+        if (!itemLocationIndex.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
+        try {
+            List<NearbyItemResponse> items = itemLocationIndex.nearby(lat, lon,
+                radius != null ? radius : nearbyConfig.getDefaultRadiusMeters(),
+                limit != null ? limit : nearbyConfig.getDefaultLimit());
+            return ResponseEntity.ok(items);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @GetMapping("/{itemId}")
-    public ResponseEntity<Item> getItemById(@PathVariable UUID itemId) {
-        System.out.println("Attempting to retrieve item with ID: " + itemId);
+    public ResponseEntity<ItemResponse> getItemById(@PathVariable UUID itemId, WebRequest request) {
+        // Unchanged items are answered from the version cache without loading them
+        Long knownVersion = itemVersionCache.get(itemId);
+        if (knownVersion != null && request.checkNotModified(ItemVersionCache.etag(knownVersion))) {
+            return null;
+        }
+
         Optional<Item> item = itemService.findById(itemId);
         if (item.isPresent()) {
-            System.out.println("Item found: " + item.get().getName());
-            return ResponseEntity.ok(item.get());
+            itemVersionCache.record(itemId, item.get().getVersion());
+            // A matching If-None-Match still turns this into a 304 without a body
+            return ResponseEntity.ok()
+                .eTag(ItemVersionCache.etag(item.get().getVersion()))
+                .body(ItemResponse.from(item.get()));
         } else {
-            System.out.println("Item with ID " + itemId + " not found.");
             return ResponseEntity.notFound().build();
         }
     }
@@ -111,4 +384,11 @@ public class ItemController {
         // For now, return a placeholder response
         return ResponseEntity.ok(java.util.Map.of("status", "NO_ITEMS"));
     }
+
+    private static String formatFromContentType(String contentType) {
+        if (contentType != null && (contentType.contains("ndjson") || contentType.contains("jsonl"))) {
+            return "ndjson";
+        }
+        return "csv";
+    }
 } 
\ No newline at end of file
@@ -1,8 +1,12 @@
 package com.heartrate.controller;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -11,60 +15,95 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.heartrate.controller.dto.ChildOfRequest;
+import com.heartrate.controller.dto.ChildOfResponse;
+import com.heartrate.controller.dto.RelationshipImportResult;
 import com.heartrate.controller.dto.TypeOfRequest;
+import com.heartrate.controller.dto.TypeOfResponse;
+import com.heartrate.importer.FeedFormatException;
+import com.heartrate.importer.RelationshipCycleException;
 import com.heartrate.model.ChildOf;
 import com.heartrate.model.TypeOf;
+import com.heartrate.service.RelationshipImportService;
 import com.heartrate.service.RelationshipService;
 
+import jakarta.servlet.http.HttpServletRequest;
+
 @RestController
 @RequestMapping("/api/relationships")
 public class RelationshipController {
+    private static final Logger logger = LoggerFactory.getLogger(RelationshipController.class);
 
     @Autowired
     private RelationshipService relationshipService;
 
+    @Autowired
+    private RelationshipImportService relationshipImportService;
+
     // Endpoint to create a TypeOf relationship
     @PostMapping("/typeof")
-    public ResponseEntity<TypeOf> createTypeOfRelationship(@RequestBody TypeOfRequest request) {
+    public ResponseEntity<TypeOfResponse> createTypeOfRelationship(@RequestBody TypeOfRequest request) {
         TypeOf typeOf = relationshipService.createTypeOfRelationship(request.getItemId(), request.getCategoryId());
-        return new ResponseEntity<>(typeOf, HttpStatus.CREATED);
+        return new ResponseEntity<>(TypeOfResponse.from(typeOf), HttpStatus.CREATED);
     }
 
     // Endpoint to find TypeOf relationships by item ID
     @GetMapping("/typeof/item/{itemId}")
-    public ResponseEntity<List<TypeOf>> findTypeOfRelationshipsByItemId(@PathVariable UUID itemId) {
-        List<TypeOf> relationships = relationshipService.findTypeOfRelationshipsByItemId(itemId);
+    public ResponseEntity<List<TypeOfResponse>> findTypeOfRelationshipsByItemId(@PathVariable UUID itemId) {
+        List<TypeOfResponse> relationships = relationshipService.findTypeOfRelationshipsByItemId(itemId);
         return ResponseEntity.ok(relationships);
     }
 
     // Endpoint to find TypeOf relationships by category ID
     @GetMapping("/typeof/category/{categoryId}")
-    public ResponseEntity<List<TypeOf>> findTypeOfRelationshipsByCategoryId(@PathVariable UUID categoryId) {
-        List<TypeOf> relationships = relationshipService.findTypeOfRelationshipsByCategoryId(categoryId);
+    public ResponseEntity<List<TypeOfResponse>> findTypeOfRelationshipsByCategoryId(@PathVariable UUID categoryId) {
+        List<TypeOfResponse> relationships = relationshipService.findTypeOfRelationshipsByCategoryId(categoryId);
         return ResponseEntity.ok(relationships);
     }
 
     // Endpoint to create a ChildOf relationship
     @PostMapping("/childof")
-    public ResponseEntity<ChildOf> createChildOfRelationship(@RequestBody ChildOfRequest request) {
+    public ResponseEntity<ChildOfResponse> createChildOfRelationship(@RequestBody ChildOfRequest request) {
         ChildOf childOf = relationshipService.createChildOfRelationship(request.getChildId(), request.getParentId());
-        return new ResponseEntity<>(childOf, HttpStatus.CREATED);
+        return new ResponseEntity<>(ChildOfResponse.from(childOf), HttpStatus.CREATED);
     }
 
     // Endpoint to find ChildOf relationships by child ID
     @GetMapping("/childof/child/{childId}")
-    public ResponseEntity<List<ChildOf>> findChildOfRelationshipsByChildId(@PathVariable UUID childId) {
-        List<ChildOf> relationships = relationshipService.findChildOfRelationshipsByChildId(childId);
+    public ResponseEntity<List<ChildOfResponse>> findChildOfRelationshipsByChildId(@PathVariable UUID childId) {
+        List<ChildOfResponse> relationships = relationshipService.findChildOfRelationshipsByChildId(childId);
         return ResponseEntity.ok(relationships);
     }
 
     // Endpoint to find ChildOf relationships by parent ID
     @GetMapping("/childof/parent/{parentId}")
-    public ResponseEntity<List<ChildOf>> findChildOfRelationshipsByParentId(@PathVariable UUID parentId) {
-        List<ChildOf> relationships = relationshipService.findChildOfRelationshipsByParentId(parentId);
+    public ResponseEntity<List<ChildOfResponse>> findChildOfRelationshipsByParentId(@PathVariable UUID parentId) {
+        List<ChildOfResponse> relationships = relationshipService.findChildOfRelationshipsByParentId(parentId);
         return ResponseEntity.ok(relationships);
     }
-} 
\ No newline at end of file
+
+    // Endpoint to bulk load TypeOf and ChildOf relationships from a CSV or NDJSON feed
+    @PostMapping("/import")
+    public ResponseEntity<?> importRelationships(
+            @RequestParam(required = false) String format,
+            HttpServletRequest request
+    ) {
+        String contentType = request.getContentType();
+        String feedFormat = format != null ? format
+            : contentType != null && (contentType.contains("ndjson") || contentType.contains("jsonl")) ? "ndjson" : "csv";
+        try {
+            RelationshipImportResult result = relationshipImportService.importRelationships(request.getInputStream(), feedFormat);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException | FeedFormatException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (RelationshipCycleException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage(), "cycle", e.getCycle()));
+        } catch (IOException | RuntimeException e) {
+            logger.error("Relationship import failed", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "Import failed; nothing was stored"));
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.heartrate.controller;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.heartrate.controller.dto.UploadRequest;
+import com.heartrate.controller.dto.UploadStatusResponse;
+import com.heartrate.security.AuthenticatedUser;
+import com.heartrate.service.ImageUploadService;
+import com.heartrate.service.UploadRejectedException;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+
+/**
+ * Resumable item image uploads: open an upload with its size, send the bytes in one or more
+ * chunks with {@code PATCH} at the offset in {@code Upload-Offset}, and after a dropped connection
+ * ask for the offset with {@code GET} and continue from there.
+ */
+@RestController
+@RequestMapping("/api/uploads")
+public class UploadController {
+    private static final Logger logger = LoggerFactory.getLogger(UploadController.class);
+    static final String UPLOAD_OFFSET = "Upload-Offset";
+
+    @Autowired
+    private ImageUploadService imageUploadService;
+
+    @PostMapping
+    public ResponseEntity<?> beginUpload(
+            @Valid @RequestBody UploadRequest request,
+            @AuthenticationPrincipal AuthenticatedUser user
+    ) {
+        try {
+            UploadStatusResponse status = imageUploadService.begin(user.getId(), request.getItemId(),
+                request.getContentType(), request.getSize(), request.getSha256());
+            return ResponseEntity.created(URI.create("/api/uploads/" + status.uploadId()))
+                .header(UPLOAD_OFFSET, "0")
+                .body(status);
+        } catch (UploadRejectedException e) {
+            return rejected(e);
+        } catch (IOException e) {
+            logger.error("Could not open an upload for item {}", request.getItemId(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<?> getUpload(@PathVariable UUID uploadId, @AuthenticationPrincipal AuthenticatedUser user) {
+        try {
+            UploadStatusResponse status = imageUploadService.status(user.getId(), uploadId);
+            return ResponseEntity.ok().header(UPLOAD_OFFSET, String.valueOf(status.offset())).body(status);
+        } catch (UploadRejectedException e) {
+            return rejected(e);
+        }
+    }
+
+    /**
+     * Appends the request body at {@code Upload-Offset}. A wrong offset is answered with 409 and
+     * the upload's actual offset.
+     */
+    @PatchMapping("/{uploadId}")
+    public ResponseEntity<?> appendChunk(
+            @PathVariable UUID uploadId,
+            @RequestHeader(UPLOAD_OFFSET) long offset,
+            @AuthenticationPrincipal AuthenticatedUser user,
+            HttpServletRequest request
+    ) {
+        try {
+            UploadStatusResponse status = imageUploadService.append(user.getId(), uploadId, offset, request.getInputStream());
+            return ResponseEntity.ok().header(UPLOAD_OFFSET, String.valueOf(status.offset())).body(status);
+        } catch (UploadRejectedException e) {
+            if (e.getReason() == UploadRejectedException.Reason.CONFLICT) {
+                UploadStatusResponse status = imageUploadService.status(user.getId(), uploadId);
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .header(UPLOAD_OFFSET, String.valueOf(status.offset()))
+                    .body(status);
+            }
+            return rejected(e);
+        } catch (IOException e) {
+            // Usually the client went away; what arrived is kept for it to resume from
+            logger.info("Chunk for upload {} was cut off: {}", uploadId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<?> cancelUpload(@PathVariable UUID uploadId, @AuthenticationPrincipal AuthenticatedUser user) {
+        try {
+            imageUploadService.cancel(user.getId(), uploadId);
+            return ResponseEntity.noContent().build();
+        } catch (UploadRejectedException e) {
+            return rejected(e);
+        }
+    }
+
+    static ResponseEntity<?> rejected(UploadRejectedException e) {
+        HttpStatus status = switch (e.getReason()) {
+            case NOT_FOUND -> HttpStatus.NOT_FOUND;
+            case UNSUPPORTED_TYPE -> HttpStatus.UNSUPPORTED_MEDIA_TYPE;
+            case TOO_LARGE -> HttpStatus.PAYLOAD_TOO_LARGE;
+            case BUSY -> HttpStatus.SERVICE_UNAVAILABLE;
+            case CONFLICT -> HttpStatus.CONFLICT;
+            case DIGEST_MISMATCH -> HttpStatus.BAD_REQUEST;
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(status);
+        if (status == HttpStatus.SERVICE_UNAVAILABLE) {
+            response.header(HttpHeaders.RETRY_AFTER, "1");
+        }
+        return response.body(Map.of("error", e.getMessage()));
+    }
+}
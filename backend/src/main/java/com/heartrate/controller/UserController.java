@@ -1,54 +1,99 @@
 package com.heartrate.controller;
 
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.heartrate.config.RatingHistoryConfig;
+import com.heartrate.controller.dto.RatingPage;
+import com.heartrate.controller.dto.UserResponse;
 import com.heartrate.model.User;
+import com.heartrate.security.AuthRateLimiter;
+import com.heartrate.security.AuthenticatedUser;
+import com.heartrate.security.PasswordHashingRejectedException;
+import com.heartrate.service.RatingHistoryService;
 import com.heartrate.service.UserService;
 
+import jakarta.servlet.http.HttpServletRequest;
+
 @RestController
 @RequestMapping("/api/users")
 public class UserController {
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);
     private final UserService userService;
+    private final AuthRateLimiter authRateLimiter;
+    private final RatingHistoryService ratingHistoryService;
+    private final RatingHistoryConfig ratingHistoryConfig;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, AuthRateLimiter authRateLimiter,
+                          RatingHistoryService ratingHistoryService, RatingHistoryConfig ratingHistoryConfig) {
         this.userService = userService;
+        this.authRateLimiter = authRateLimiter;
+        this.ratingHistoryService = ratingHistoryService;
+        this.ratingHistoryConfig = ratingHistoryConfig;
     }
 
     @PostMapping("/signup")
-    public ResponseEntity<User> signup(@RequestBody User user) {
-        return ResponseEntity.ok(userService.signup(user));
+    public ResponseEntity<UserResponse> signup(@RequestBody User user) {
+        try {
+            return ResponseEntity.ok(UserResponse.from(userService.signup(user)));
+        } catch (PasswordHashingRejectedException e) {
+            logger.warn("Signup rejected - {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
     }
 
     @PostMapping("/signin")
-    public ResponseEntity<?> signin(@RequestBody Map<String, String> credentials) {
+    public ResponseEntity<?> signin(@RequestBody Map<String, String> credentials, HttpServletRequest httpRequest) {
         String email = credentials.get("email");
         String password = credentials.get("password");
         
         logger.info("Login attempt received - Email: {}", email);
         logger.debug("Login attempt - Password length: {}", password != null ? password.length() : 0);
+
+        long retryAfter = authRateLimiter.tryLogin(email, httpRequest.getRemoteAddr());
+        if (retryAfter > 0) {
+            logger.warn("Login rate limit exceeded for user: {}", email);
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                .body(Map.of("message", "Too many login attempts, please try again later"));
+        }
         
         try {
             Map<String, Object> response = userService.signin(email, password);
             
             if (response != null) {
                 logger.info("Login successful for user: {}", email);
-                return ResponseEntity.ok(response);
+                authRateLimiter.loginSucceeded(email, httpRequest.getRemoteAddr());
+                Map<String, Object> body = new HashMap<>(response);
+                body.put("user", UserResponse.from((User) response.get("user")));
+                return ResponseEntity.ok(body);
             }
             
             logger.warn("Login failed for user: {} - Invalid credentials", email);
             return ResponseEntity.status(401).body(Map.of("message", "Invalid email or password"));
+        } catch (PasswordHashingRejectedException e) {
+            logger.warn("Login attempt for user: {} rejected - {}", email, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("message", "Server is busy, please try again"));
         } catch (Exception e) {
             logger.error("Error during login attempt for user: {} - {}", email, e.getMessage(), e);
             return ResponseEntity.status(500).body(Map.of("message", "An error occurred during login"));
@@ -56,13 +101,23 @@ public class UserController {
     }
 
     @PostMapping("/reset-password/request")
-    public ResponseEntity<Void> requestPasswordReset(@RequestBody Map<String, String> request) {
+    public ResponseEntity<Void> requestPasswordReset(@RequestBody Map<String, String> request,
+                                                     HttpServletRequest httpRequest) {
+        long retryAfter = authRateLimiter.tryPasswordReset(request.get("email"), httpRequest.getRemoteAddr());
+        if (retryAfter > 0) {
+            return tooManyRequests(retryAfter);
+        }
         userService.requestPasswordReset(request.get("email"));
         return ResponseEntity.ok().build();
     }
 
     @PostMapping("/reset-password")
-    public ResponseEntity<Void> resetPassword(@RequestBody Map<String, String> request) {
+    public ResponseEntity<Void> resetPassword(@RequestBody Map<String, String> request,
+                                              HttpServletRequest httpRequest) {
+        long retryAfter = authRateLimiter.tryPasswordReset(null, httpRequest.getRemoteAddr());
+        if (retryAfter > 0) {
+            return tooManyRequests(retryAfter);
+        }
         try {
             userService.resetPassword(
                 request.get("token"),
@@ -71,6 +126,8 @@ public class UserController {
             return ResponseEntity.ok().build();
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
+        } catch (PasswordHashingRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
         }
     }
 
@@ -87,6 +144,44 @@ public class UserController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid token");
         }
 
-        return ResponseEntity.ok(user);
+        return ResponseEntity.ok(UserResponse.from(user));
+    }
+
+    /**
+     * The caller's ratings, newest first. Pass the returned nextCursor to get the following page.
+     */
+    @GetMapping("/me/ratings")
+    public ResponseEntity<RatingPage> getMyRatings(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) List<String> status,
+            @AuthenticationPrincipal AuthenticatedUser user) {
+        try {
+            return ResponseEntity.ok(ratingHistoryService.page(user.getId(), status, cursor,
+                limit != null ? limit : ratingHistoryConfig.getDefaultLimit()));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid rating history request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Streams all of the caller's ratings as newline-delimited JSON, newest first.
+     */
+    @GetMapping(value = "/me/ratings/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportMyRatings(
+            @RequestParam(required = false) List<String> status,
+            @AuthenticationPrincipal AuthenticatedUser user) {
+        UUID userId = user.getId();
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"ratings.ndjson\"")
+            .body(output -> ratingHistoryService.exportNdjson(userId, status, output));
+    }
+
+    private static ResponseEntity<Void> tooManyRequests(long retryAfterSeconds) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+            .build();
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,18 @@
+package com.heartrate.controller.dto;
+
+import java.util.UUID;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.heartrate.model.ChildOf;
+
+/**
+ * A ChildOf relationship with the names of both items, so a list can be rendered without
+ * fetching every item separately. Names are omitted when they were not loaded.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ChildOfResponse(UUID id, UUID childId, String childName, UUID parentId, String parentName) {
+
+    public static ChildOfResponse from(ChildOf childOf) {
+        return new ChildOfResponse(childOf.getId(), childOf.getChildId(), null, childOf.getParentId(), null);
+    }
+}
@@ -0,0 +1,12 @@
+package com.heartrate.controller.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A page of unseen items for the swipe UI.
+ *
+ * @param reservedUntil until when the items are withheld from the user's other devices
+ */
+public record FeedResponse(List<ItemResponse> items, LocalDateTime reservedUntil) {
+}
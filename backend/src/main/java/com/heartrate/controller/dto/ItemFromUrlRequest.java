@@ -1,15 +1,30 @@
 package com.heartrate.controller.dto;
 
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 
 public class ItemFromUrlRequest {
     @NotBlank(message = "Name is mandatory")
+    @Size(max = 255, message = "Name must be at most 255 characters")
     private String name;
 
+    @Size(max = 255, message = "Description must be at most 255 characters")
     private String description;
 
+    @Size(max = 255, message = "Image URL must be at most 255 characters")
     private String imageUrl;
 
+    // Optional; give both or neither
+    @DecimalMin(value = "-90", message = "Latitude must be between -90 and 90")
+    @DecimalMax(value = "90", message = "Latitude must be between -90 and 90")
+    private Double latitude;
+
+    @DecimalMin(value = "-180", message = "Longitude must be between -180 and 180")
+    @DecimalMax(value = "180", message = "Longitude must be between -180 and 180")
+    private Double longitude;
+
     // Getters and setters
 
     public String getName() {
@@ -35,4 +50,20 @@ public class ItemFromUrlRequest {
     public void setImageUrl(String imageUrl) {
         this.imageUrl = imageUrl;
     }
-} 
\ No newline at end of file
+
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(Double latitude) {
+        this.latitude = latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(Double longitude) {
+        this.longitude = longitude;
+    }
+}
@@ -0,0 +1,15 @@
+package com.heartrate.controller.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Outcome of a bulk item import. Counts cover the whole import, including rows committed by
+ * earlier attempts with the same import id.
+ *
+ * @param rowsSkipped rows already processed by a previous attempt and skipped on resume
+ * @param errors the first rejected rows, as "row N: reason"
+ */
+public record ItemImportResult(UUID importId, long rowsProcessed, long rowsImported, long rowsRejected,
+                               long rowsSkipped, long elapsedMs, double rowsPerSecond, List<String> errors) {
+}
@@ -0,0 +1,13 @@
+package com.heartrate.controller.dto;
+
+import java.util.UUID;
+
+import com.heartrate.model.Item;
+
+public record ItemResponse(UUID id, String name, String description, String imageUrl, Double latitude, Double longitude) {
+
+    public static ItemResponse from(Item item) {
+        return new ItemResponse(item.getId(), item.getName(), item.getDescription(), item.getImageUrl(),
+            item.getLatitude(), item.getLongitude());
+    }
+}
@@ -0,0 +1,14 @@
+package com.heartrate.controller.dto;
+
+import java.util.UUID;
+
+import com.heartrate.model.Item;
+
+public record NearbyItemResponse(UUID id, String name, String description, String imageUrl,
+                                 Double latitude, Double longitude, double distanceMeters) {
+
+    public static NearbyItemResponse from(Item item, double distanceMeters) {
+        return new NearbyItemResponse(item.getId(), item.getName(), item.getDescription(), item.getImageUrl(),
+            item.getLatitude(), item.getLongitude(), distanceMeters);
+    }
+}
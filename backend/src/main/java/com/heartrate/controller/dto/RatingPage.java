@@ -0,0 +1,11 @@
+package com.heartrate.controller.dto;
+
+import java.util.List;
+
+/**
+ * A page of the user's rating history, newest first.
+ *
+ * @param nextCursor opaque cursor for the following page, or null on the last page
+ */
+public record RatingPage(List<RatingResponse> ratings, String nextCursor) {
+}
@@ -0,0 +1,25 @@
+package com.heartrate.controller.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import com.heartrate.model.Rating;
+
+/**
+ * Flat view of a rating. Only the ids of the user and item are exposed, so serializing it never
+ * touches the lazy associations on {@link Rating}.
+ */
+public record RatingResponse(UUID id, UUID userId, UUID itemId, Integer rating, String status, LocalDateTime timestamp) {
+
+    public static RatingResponse from(Rating rating) {
+        // getId() on an uninitialized Hibernate proxy returns the foreign key without a query
+        return new RatingResponse(
+            rating.getId(),
+            rating.getUser().getId(),
+            rating.getItem().getId(),
+            rating.getRating(),
+            rating.getStatus(),
+            rating.getTimestamp()
+        );
+    }
+}
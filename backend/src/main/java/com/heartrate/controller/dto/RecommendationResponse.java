@@ -0,0 +1,10 @@
+package com.heartrate.controller.dto;
+
+import java.util.UUID;
+
+public record RecommendationResponse(UUID id, String name, String description, String imageUrl, double score) {
+
+    public static RecommendationResponse from(ItemResponse item, double score) {
+        return new RecommendationResponse(item.id(), item.name(), item.description(), item.imageUrl(), score);
+    }
+}
@@ -0,0 +1,13 @@
+package com.heartrate.controller.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk relationship import.
+ *
+ * @param duplicatesSkipped edges repeated within the feed or already stored
+ * @param errors the first rejected rows, with the reason
+ */
+public record RelationshipImportResult(long rowsProcessed, long rowsRejected, long typeOfInserted, long childOfInserted,
+                                       long duplicatesSkipped, long elapsedMs, double rowsPerSecond, List<String> errors) {
+}
@@ -0,0 +1,12 @@
+package com.heartrate.controller.dto;
+
+import java.util.UUID;
+
+import com.heartrate.model.Item;
+
+public record SearchHitResponse(UUID id, String name, String description, String imageUrl, double score) {
+
+    public static SearchHitResponse from(Item item, double score) {
+        return new SearchHitResponse(item.getId(), item.getName(), item.getDescription(), item.getImageUrl(), score);
+    }
+}
@@ -0,0 +1,11 @@
+package com.heartrate.controller.dto;
+
+import java.util.List;
+
+/**
+ * One page of search results, best first.
+ *
+ * @param total number of items matching the query, across all pages
+ */
+public record SearchResponse(List<SearchHitResponse> items, long total, int offset, int limit) {
+}
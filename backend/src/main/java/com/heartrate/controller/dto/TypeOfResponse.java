@@ -0,0 +1,18 @@
+package com.heartrate.controller.dto;
+
+import java.util.UUID;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.heartrate.model.TypeOf;
+
+/**
+ * A TypeOf relationship with the names of both items, so a list can be rendered without
+ * fetching every item separately. Names are omitted when they were not loaded.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TypeOfResponse(UUID id, UUID itemId, String itemName, UUID categoryId, String categoryName) {
+
+    public static TypeOfResponse from(TypeOf typeOf) {
+        return new TypeOfResponse(typeOf.getId(), typeOf.getItemId(), null, typeOf.getCategoryId(), null);
+    }
+}
@@ -0,0 +1,56 @@
+package com.heartrate.controller.dto;
+
+import java.util.UUID;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+
+public class UploadRequest {
+    @NotNull(message = "Item id is mandatory")
+    private UUID itemId;
+
+    @NotBlank(message = "Content type is mandatory")
+    private String contentType;
+
+    @NotNull(message = "Size is mandatory")
+    @Positive(message = "Size must be positive")
+    private Long size;
+
+    // Optional; checked against the uploaded bytes when the upload completes
+    @Pattern(regexp = "[0-9a-fA-F]{64}", message = "SHA-256 must be 64 hex digits")
+    private String sha256;
+
+    public UUID getItemId() {
+        return itemId;
+    }
+
+    public void setItemId(UUID itemId) {
+        this.itemId = itemId;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public Long getSize() {
+        return size;
+    }
+
+    public void setSize(Long size) {
+        this.size = size;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public void setSha256(String sha256) {
+        this.sha256 = sha256;
+    }
+}
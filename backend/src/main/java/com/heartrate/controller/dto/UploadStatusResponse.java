@@ -0,0 +1,12 @@
+package com.heartrate.controller.dto;
+
+import java.util.UUID;
+
+/**
+ * State of a resumable image upload.
+ *
+ * @param offset bytes received so far; the next chunk must start here
+ * @param imageUrl the item's new image once the upload is complete, otherwise null
+ */
+public record UploadStatusResponse(UUID uploadId, UUID itemId, long offset, long size, boolean complete, String imageUrl) {
+}
@@ -0,0 +1,25 @@
+package com.heartrate.controller.dto;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import com.heartrate.model.User;
+
+/**
+ * Public view of a user. Leaves out the password hash and reset token fields of the entity.
+ */
+public record UserResponse(UUID id, String firstName, String lastName, String email, LocalDate dateOfBirth,
+                           String zipCode, String gender) {
+
+    public static UserResponse from(User user) {
+        return new UserResponse(
+            user.getId(),
+            user.getFirstName(),
+            user.getLastName(),
+            user.getEmail(),
+            user.getDateOfBirth(),
+            user.getZipCode(),
+            user.getGender()
+        );
+    }
+}
@@ -0,0 +1,34 @@
+package com.heartrate.datasource;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Remembers which users committed a write recently. Their read-only transactions are kept on the
+ * primary until the window has passed, so a user always sees their own ratings even while the
+ * replicas are still catching up. The window should exceed the usual replication lag.
+ *
+ * The state is per application instance; a user whose requests are spread over several
+ * instances is only covered on the instance that handled the write.
+ */
+public class ReadYourWritesGuard {
+    private final Cache<UUID, Boolean> recentWriters;
+
+    public ReadYourWritesGuard(Duration window, long maxUsers) {
+        this.recentWriters = Caffeine.newBuilder()
+            .expireAfterWrite(window)
+            .maximumSize(maxUsers)
+            .build();
+    }
+
+    public void recordWrite(UUID userId) {
+        recentWriters.put(userId, Boolean.TRUE);
+    }
+
+    public boolean wroteRecently(UUID userId) {
+        return recentWriters.getIfPresent(userId) != null;
+    }
+}
@@ -0,0 +1,116 @@
+package com.heartrate.datasource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.heartrate.security.AuthenticatedUser;
+
+/**
+ * Sends read-only transactions of application services to the replicas and everything else to
+ * the primary.
+ *
+ * A connection goes to a replica, picked round-robin, only when all of these hold:
+ * <ul>
+ *   <li>a transaction is active and marked {@code readOnly};</li>
+ *   <li>it was started by application code, not by the implicit read-only transaction Spring
+ *       Data wraps around a bare repository call, so authentication lookups and other
+ *       unannotated reads stay consistent;</li>
+ *   <li>the current user has not written within the read-your-writes window.</li>
+ * </ul>
+ * Must be wrapped in a {@code LazyConnectionDataSourceProxy}: the transaction manager asks for a
+ * connection before the transaction's read-only flag is published, and the proxy defers the
+ * choice until the first statement.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    private static final String REPOSITORY_TRANSACTION_PREFIX = "org.springframework.data.";
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final ReadYourWritesGuard guard;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, ReadYourWritesGuard guard) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.guard = guard;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        DataSource replica = selectReplica();
+        if (replica != null) {
+            try {
+                return replica.getConnection();
+            } catch (SQLException e) {
+                // An unreachable replica degrades to primary reads rather than failed requests
+                logger.warn("Read replica unavailable, using the primary: {}", e.getMessage());
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource dataSource : replicas) {
+            if (dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+        if (primary instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private DataSource selectReplica() {
+        if (replicas.isEmpty() || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return null;
+        }
+        UUID userId = currentUserId();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (userId != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        guard.recordWrite(userId);
+                    }
+                });
+            }
+            return null;
+        }
+        String transactionName = TransactionSynchronizationManager.getCurrentTransactionName();
+        if (transactionName != null && transactionName.startsWith(REPOSITORY_TRANSACTION_PREFIX)) {
+            return null;
+        }
+        if (userId != null && guard.wroteRecently(userId)) {
+            return null;
+        }
+        return replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+    }
+
+    private static UUID currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            return user.getId();
+        }
+        return null;
+    }
+}
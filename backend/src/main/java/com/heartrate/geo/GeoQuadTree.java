@@ -0,0 +1,279 @@
+package com.heartrate.geo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory point index of ids by latitude and longitude.
+ *
+ * A region quadtree over longitude × latitude: leaves hold up to {@value #LEAF_CAPACITY} points
+ * and split into four quadrants when they overflow, so dense areas get small cells and empty ones
+ * cost nothing. {@link #nearest} is a best-first search (Hjaltason and Samet, 1999): nodes and
+ * points are visited in order of their great-circle distance from the query point, using an exact
+ * lower bound for nodes, so the results come out nearest first and the search stops as soon as it
+ * has {@code limit} points or passes the radius. The longitude seam at ±180° is handled by taking
+ * longitude differences the short way round.
+ *
+ * Thread-safe: searches share a read lock and updates take the write lock.
+ */
+public class GeoQuadTree {
+    public static final double EARTH_RADIUS_METERS = 6_371_008.8;
+    private static final int LEAF_CAPACITY = 64;
+    // Below about a metre there is no point splitting further; such leaves just grow
+    private static final int MAX_DEPTH = 26;
+
+    private final Node root = new Node(-180, -90, 180, 90, 0);
+    private final Map<UUID, Point> points = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Adds the id at the given location, or moves it there.
+     *
+     * @throws IllegalArgumentException if the coordinates are out of range
+     */
+    public void put(UUID id, double latitude, double longitude) {
+        if (!(latitude >= -90 && latitude <= 90) || !(longitude >= -180 && longitude <= 180)) {
+            throw new IllegalArgumentException("Latitude must be within ±90 and longitude within ±180");
+        }
+        Point point = new Point(id, latitude, longitude);
+        lock.writeLock().lock();
+        try {
+            Point previous = points.put(id, point);
+            if (previous != null) {
+                root.remove(previous);
+            }
+            root.insert(point);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return false if the id was not indexed
+     */
+    public boolean remove(UUID id) {
+        lock.writeLock().lock();
+        try {
+            Point previous = points.remove(id);
+            if (previous == null) {
+                return false;
+            }
+            root.remove(previous);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return points.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Up to {@code limit} ids within {@code radiusMeters} of the given location, nearest first.
+     */
+    public List<Neighbor> nearest(double latitude, double longitude, double radiusMeters, int limit) {
+        List<Neighbor> results = new ArrayList<>(Math.min(limit, 64));
+        if (limit < 1) {
+            return results;
+        }
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        double maxAngle = radiusMeters / EARTH_RADIUS_METERS;
+        PriorityQueue<Candidate> queue = new PriorityQueue<>();
+
+        lock.readLock().lock();
+        try {
+            queue.add(new Candidate(root, null, 0));
+            while (!queue.isEmpty()) {
+                Candidate next = queue.poll();
+                if (next.angle() > maxAngle) {
+                    break;
+                }
+                if (next.point() != null) {
+                    Point point = next.point();
+                    results.add(new Neighbor(point.id(), point.latitude(), point.longitude(), next.angle() * EARTH_RADIUS_METERS));
+                    if (results.size() == limit) {
+                        break;
+                    }
+                } else if (next.node().children != null) {
+                    for (Node child : next.node().children) {
+                        if (child.size > 0) {
+                            double angle = child.minAngle(lat, lon);
+                            if (angle <= maxAngle) {
+                                queue.add(new Candidate(child, null, angle));
+                            }
+                        }
+                    }
+                } else {
+                    Node leaf = next.node();
+                    for (int i = 0; i < leaf.count; i++) {
+                        Point point = leaf.points[i];
+                        double angle = angle(lat, lon, Math.toRadians(point.latitude()), Math.toRadians(point.longitude()));
+                        if (angle <= maxAngle) {
+                            queue.add(new Candidate(null, point, angle));
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return results;
+    }
+
+    /**
+     * Great-circle distance in metres (haversine).
+     */
+    public static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        return angle(Math.toRadians(lat1), Math.toRadians(lon1), Math.toRadians(lat2), Math.toRadians(lon2)) * EARTH_RADIUS_METERS;
+    }
+
+    // Central angle between two points, all in radians
+    private static double angle(double lat1, double lon1, double lat2, double lon2) {
+        double sinLat = Math.sin((lat2 - lat1) / 2);
+        double sinLon = Math.sin((lon2 - lon1) / 2);
+        double h = sinLat * sinLat + Math.cos(lat1) * Math.cos(lat2) * sinLon * sinLon;
+        return 2 * Math.asin(Math.min(1, Math.sqrt(h)));
+    }
+
+    // Longitude difference taken the short way round, in [-π, π]
+    private static double wrap(double deltaLon) {
+        return Math.IEEEremainder(deltaLon, 2 * Math.PI);
+    }
+
+    public record Neighbor(UUID id, double latitude, double longitude, double distanceMeters) {
+    }
+
+    private record Point(UUID id, double latitude, double longitude) {
+    }
+
+    private record Candidate(Node node, Point point, double angle) implements Comparable<Candidate> {
+        @Override
+        public int compareTo(Candidate other) {
+            return Double.compare(angle, other.angle);
+        }
+    }
+
+    private static final class Node {
+        private final double minLon;
+        private final double minLat;
+        private final double maxLon;
+        private final double maxLat;
+        private final int depth;
+        private Point[] points = new Point[LEAF_CAPACITY];
+        private int count;
+        // Points in this subtree, so empty quadrants are skipped
+        private int size;
+        private Node[] children;
+
+        Node(double minLon, double minLat, double maxLon, double maxLat, int depth) {
+            this.minLon = minLon;
+            this.minLat = minLat;
+            this.maxLon = maxLon;
+            this.maxLat = maxLat;
+            this.depth = depth;
+        }
+
+        void insert(Point point) {
+            size++;
+            if (children != null) {
+                child(point).insert(point);
+                return;
+            }
+            if (count == points.length) {
+                if (depth < MAX_DEPTH) {
+                    split();
+                    child(point).insert(point);
+                    return;
+                }
+                points = Arrays.copyOf(points, points.length * 2);
+            }
+            points[count++] = point;
+        }
+
+        // Quadrants are not merged again when they empty; a later insert reuses them
+        void remove(Point point) {
+            if (children != null) {
+                Node child = child(point);
+                int before = child.size;
+                child.remove(point);
+                size -= before - child.size;
+                return;
+            }
+            for (int i = 0; i < count; i++) {
+                if (points[i].id().equals(point.id())) {
+                    points[i] = points[--count];
+                    points[count] = null;
+                    size--;
+                    return;
+                }
+            }
+        }
+
+        private void split() {
+            double midLon = (minLon + maxLon) / 2;
+            double midLat = (minLat + maxLat) / 2;
+            children = new Node[] {
+                new Node(minLon, minLat, midLon, midLat, depth + 1),
+                new Node(midLon, minLat, maxLon, midLat, depth + 1),
+                new Node(minLon, midLat, midLon, maxLat, depth + 1),
+                new Node(midLon, midLat, maxLon, maxLat, depth + 1)
+            };
+            for (int i = 0; i < count; i++) {
+                child(points[i]).insert(points[i]);
+            }
+            points = null;
+            count = 0;
+        }
+
+        private Node child(Point point) {
+            int east = point.longitude() >= (minLon + maxLon) / 2 ? 1 : 0;
+            int north = point.latitude() >= (minLat + maxLat) / 2 ? 2 : 0;
+            return children[east + north];
+        }
+
+        /**
+         * Smallest central angle from the point (radians) to any point of this cell. Within the
+         * cell's longitudes the nearest point is straight north or south; otherwise it lies on
+         * the nearer of the two bounding meridians.
+         */
+        double minAngle(double lat, double lon) {
+            double south = Math.toRadians(minLat);
+            double north = Math.toRadians(maxLat);
+            double west = Math.toRadians(minLon);
+            double east = Math.toRadians(maxLon);
+            if (lon >= west && lon <= east) {
+                return lat < south ? south - lat : lat > north ? lat - north : 0;
+            }
+            double toWest = Math.abs(wrap(lon - west));
+            double toEast = Math.abs(wrap(lon - east));
+            double edge = toWest <= toEast ? west : east;
+            return angleToMeridianSegment(lat, lon, edge, south, north);
+        }
+
+        private static double angleToMeridianSegment(double lat, double lon, double edge, double south, double north) {
+            double deltaLon = Math.abs(wrap(lon - edge));
+            if (deltaLon < Math.PI / 2) {
+                // Foot of the perpendicular from the point to the meridian's great circle
+                double footLat = Math.atan(Math.tan(lat) / Math.cos(deltaLon));
+                if (footLat >= south && footLat <= north) {
+                    return Math.asin(Math.min(1, Math.cos(lat) * Math.sin(deltaLon)));
+                }
+            }
+            return Math.min(angle(lat, lon, south, edge), angle(lat, lon, north, edge));
+        }
+    }
+}
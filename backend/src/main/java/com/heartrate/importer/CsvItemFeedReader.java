@@ -0,0 +1,61 @@
+package com.heartrate.importer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import com.heartrate.controller.dto.ItemFromUrlRequest;
+
+/**
+ * Streaming CSV item reader. The first record must be a header naming the columns
+ * {@code name}, {@code description} and {@code imageUrl} (or {@code image_url}) in any order;
+ * other columns are ignored.
+ */
+public class CsvItemFeedReader implements ItemFeedReader {
+    private final CsvRecordReader reader;
+    private final int nameColumn;
+    private final int descriptionColumn;
+    private final int imageUrlColumn;
+
+    public CsvItemFeedReader(InputStream input) throws IOException {
+        this.reader = new CsvRecordReader(input);
+        List<String> header = reader.next();
+        if (header == null) {
+            throw new FeedFormatException("CSV feed is empty; a header row is required");
+        }
+        int[] columns = CsvRecordReader.columnIndexes(header,
+            new String[] {"name"}, new String[] {"description"}, new String[] {"imageurl", "image_url"});
+        if (columns[0] < 0) {
+            throw new FeedFormatException("CSV header must contain a 'name' column");
+        }
+        this.nameColumn = columns[0];
+        this.descriptionColumn = columns[1];
+        this.imageUrlColumn = columns[2];
+    }
+
+    @Override
+    public ItemFromUrlRequest next() throws IOException {
+        List<String> record = reader.next();
+        if (record == null) {
+            return null;
+        }
+        ItemFromUrlRequest request = new ItemFromUrlRequest();
+        request.setName(column(record, nameColumn));
+        request.setDescription(column(record, descriptionColumn));
+        request.setImageUrl(column(record, imageUrlColumn));
+        return request;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    static String column(List<String> record, int index) {
+        if (index < 0 || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index);
+        return value.isEmpty() ? null : value;
+    }
+}
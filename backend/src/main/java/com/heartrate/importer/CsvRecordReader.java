@@ -0,0 +1,142 @@
+package com.heartrate.importer;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Streaming RFC 4180 record parser shared by the CSV feed readers. Quoted fields may contain
+ * commas, doubled quotes and line breaks. Blank lines are skipped.
+ */
+public class CsvRecordReader implements Closeable {
+    private final BufferedReader reader;
+    private final StringBuilder field = new StringBuilder(128);
+    private final List<String> record = new ArrayList<>(8);
+    private long recordNumber;
+    private boolean eof;
+
+    public CsvRecordReader(InputStream input) {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    /**
+     * Reads the next non-blank record. The returned list is reused by the following call.
+     *
+     * @return the record's fields, or null at end of input
+     */
+    public List<String> next() throws IOException {
+        while (readRecord()) {
+            if (record.size() == 1 && record.get(0).isEmpty()) {
+                continue;
+            }
+            recordNumber++;
+            return record;
+        }
+        return null;
+    }
+
+    /**
+     * Maps lower-cased header names to the index of a matching column.
+     *
+     * @param names accepted names, lower case, per column to locate
+     * @return one index per entry of {@code names}, -1 when the column is absent
+     */
+    public static int[] columnIndexes(List<String> header, String[]... names) {
+        int[] indexes = new int[names.length];
+        Arrays.fill(indexes, -1);
+        for (int i = 0; i < header.size(); i++) {
+            String column = header.get(i).trim().toLowerCase(Locale.ROOT);
+            for (int n = 0; n < names.length; n++) {
+                for (String name : names[n]) {
+                    if (name.equals(column)) {
+                        indexes[n] = i;
+                    }
+                }
+            }
+        }
+        return indexes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private boolean readRecord() throws IOException {
+        record.clear();
+        if (eof) {
+            return false;
+        }
+        field.setLength(0);
+        boolean quoted = false;
+        boolean fieldStarted = false;
+
+        while (true) {
+            int c = reader.read();
+            if (c == -1) {
+                eof = true;
+                if (quoted) {
+                    throw new FeedFormatException("Unterminated quoted field after record " + recordNumber);
+                }
+                if (!fieldStarted && record.isEmpty() && field.length() == 0) {
+                    return false;
+                }
+                record.add(field.toString());
+                return true;
+            }
+
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (next != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    field.append((char) c);
+                }
+                continue;
+            }
+
+            switch (c) {
+                case '"' -> {
+                    quoted = true;
+                    fieldStarted = true;
+                }
+                case ',' -> {
+                    record.add(field.toString());
+                    field.setLength(0);
+                    fieldStarted = true;
+                }
+                case '\r' -> {
+                    reader.mark(1);
+                    if (reader.read() != '\n') {
+                        reader.reset();
+                    }
+                    record.add(field.toString());
+                    return true;
+                }
+                case '\n' -> {
+                    record.add(field.toString());
+                    return true;
+                }
+                default -> {
+                    field.append((char) c);
+                    fieldStarted = true;
+                }
+            }
+        }
+    }
+}
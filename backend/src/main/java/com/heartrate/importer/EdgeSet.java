@@ -0,0 +1,115 @@
+package com.heartrate.importer;
+
+/**
+ * Open-addressing hash set of directed edges between dense node ids (both &gt; 0), packed into
+ * one long per edge. Each edge also carries whether it already exists in the database, so a
+ * feed can be de-duplicated against stored rows without keeping a second set.
+ */
+class EdgeSet {
+    static final byte NEW = 1;
+    static final byte EXISTING = 2;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private byte[] states;
+    private int size;
+    private int mask;
+    private int resizeAt;
+
+    EdgeSet() {
+        allocate(1024);
+    }
+
+    // Same edges and states, independent of the original
+    EdgeSet(EdgeSet other) {
+        keys = other.keys.clone();
+        states = other.states.clone();
+        size = other.size;
+        mask = other.mask;
+        resizeAt = other.resizeAt;
+    }
+
+    /**
+     * Adds the edge, or upgrades it to {@link #EXISTING}.
+     *
+     * @return false if the edge was already present
+     */
+    boolean add(int from, int to, byte state) {
+        long key = pack(from, to);
+        int slot = mix(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                if (state == EXISTING) {
+                    states[slot] = EXISTING;
+                }
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        states[slot] = state;
+        if (++size == resizeAt) {
+            grow();
+        }
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Visits every edge; {@code state} is {@link #NEW} or {@link #EXISTING}.
+     */
+    void forEach(EdgeVisitor visitor) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            long key = keys[slot];
+            if (key != 0) {
+                visitor.visit((int) (key >>> 32), (int) key, states[slot]);
+            }
+        }
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        byte[] oldStates = states;
+        allocate(keys.length * 2);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            long key = oldKeys[slot];
+            if (key != 0) {
+                int target = mix(key) & mask;
+                while (keys[target] != 0) {
+                    target = (target + 1) & mask;
+                }
+                keys[target] = key;
+                states[target] = oldStates[slot];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        states = new byte[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static long pack(int from, int to) {
+        return ((long) from << 32) | (to & 0xffffffffL);
+    }
+
+    // 64-bit finalizer from MurmurHash3, so sequential node ids spread across the table
+    private static int mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    @FunctionalInterface
+    interface EdgeVisitor {
+        void visit(int from, int to, byte state);
+    }
+}
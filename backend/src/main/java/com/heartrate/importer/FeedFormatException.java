@@ -0,0 +1,14 @@
+package com.heartrate.importer;
+
+/**
+ * Thrown when a row of an import feed cannot be parsed.
+ */
+public class FeedFormatException extends RuntimeException {
+    public FeedFormatException(String message) {
+        super(message);
+    }
+
+    public FeedFormatException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,31 @@
+package com.heartrate.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.heartrate.controller.dto.ItemFromUrlRequest;
+
+/**
+ * Incrementally parses an item feed, one row at a time, so feeds of any size are read in
+ * constant memory.
+ */
+public interface ItemFeedReader extends Closeable {
+
+    /**
+     * @return the next row, or null at the end of the feed
+     * @throws FeedFormatException if the row cannot be parsed; the row is consumed and
+     *         reading can continue with the next one
+     */
+    ItemFromUrlRequest next() throws IOException;
+
+    static ItemFeedReader open(InputStream input, String format) throws IOException {
+        if ("csv".equalsIgnoreCase(format)) {
+            return new CsvItemFeedReader(input);
+        }
+        if ("ndjson".equalsIgnoreCase(format) || "jsonl".equalsIgnoreCase(format)) {
+            return new NdjsonItemFeedReader(input);
+        }
+        throw new IllegalArgumentException("Unsupported item feed format: " + format);
+    }
+}
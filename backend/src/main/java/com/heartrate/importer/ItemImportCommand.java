@@ -0,0 +1,69 @@
+package com.heartrate.importer;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import com.heartrate.config.ItemImportConfig;
+import com.heartrate.controller.dto.ItemImportResult;
+import com.heartrate.service.ItemImportService;
+
+/**
+ * Command line item import. Starting the application with {@code --app.item-import.file=<path>}
+ * imports that feed, logs the result and exits instead of serving requests:
+ * <pre>
+ * java -jar backend.jar --app.item-import.file=items.csv [--app.item-import.format=ndjson]
+ *                       [--app.item-import.import-id=&lt;uuid to resume&gt;]
+ * </pre>
+ * The import id defaults to a name-based UUID of the file's absolute path, so re-running the same
+ * command after a failure resumes where it stopped.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.item-import", name = "file")
+public class ItemImportCommand implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(ItemImportCommand.class);
+
+    private final ItemImportService itemImportService;
+    private final ItemImportConfig config;
+    private final ApplicationContext context;
+
+    public ItemImportCommand(ItemImportService itemImportService, ItemImportConfig config, ApplicationContext context) {
+        this.itemImportService = itemImportService;
+        this.config = config;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        Path file = Paths.get(config.getFile()).toAbsolutePath().normalize();
+        UUID importId = config.getImportId() != null
+            ? UUID.fromString(config.getImportId())
+            : UUID.nameUUIDFromBytes(file.toString().getBytes());
+
+        int exitCode;
+        try (InputStream input = Files.newInputStream(file)) {
+            ItemImportResult result = itemImportService.importItems(input, config.getFormat(), importId);
+            logger.info("Imported {}: {} rows processed, {} imported, {} rejected, {} skipped in {} ms ({} rows/s)",
+                file, result.rowsProcessed(), result.rowsImported(), result.rowsRejected(),
+                result.rowsSkipped(), result.elapsedMs(), result.rowsPerSecond());
+            result.errors().forEach(error -> logger.warn("Rejected {}", error));
+            exitCode = 0;
+        } catch (Exception e) {
+            logger.error("Import of {} failed; re-run with --app.item-import.import-id={} to resume", file, importId, e);
+            exitCode = 1;
+        }
+        int code = exitCode;
+        System.exit(SpringApplication.exit(context, () -> code));
+    }
+}
@@ -0,0 +1,52 @@
+package com.heartrate.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.heartrate.controller.dto.ItemFromUrlRequest;
+
+/**
+ * Reads newline-delimited JSON, one item object per line. Blank lines are skipped.
+ */
+public class NdjsonItemFeedReader implements ItemFeedReader {
+    private static final ObjectReader ITEM_READER = new ObjectMapper()
+        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+        .readerFor(ItemFromUrlRequest.class);
+
+    private final BufferedReader reader;
+    private long rowNumber;
+
+    public NdjsonItemFeedReader(InputStream input) {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    @Override
+    public ItemFromUrlRequest next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+
+        rowNumber++;
+        try {
+            return ITEM_READER.readValue(line);
+        } catch (JsonProcessingException e) {
+            throw new FeedFormatException("Invalid JSON on row " + rowNumber + ": " + e.getOriginalMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
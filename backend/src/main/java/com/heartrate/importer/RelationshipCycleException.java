@@ -0,0 +1,20 @@
+package com.heartrate.importer;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Thrown when a relationship import would make the ChildOf hierarchy cyclic.
+ */
+public class RelationshipCycleException extends RuntimeException {
+    private final List<UUID> cycle;
+
+    public RelationshipCycleException(List<UUID> cycle) {
+        super("ChildOf relationships would form a cycle: " + cycle);
+        this.cycle = cycle;
+    }
+
+    public List<UUID> getCycle() {
+        return cycle;
+    }
+}
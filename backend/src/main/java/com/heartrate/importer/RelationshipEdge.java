@@ -0,0 +1,14 @@
+package com.heartrate.importer;
+
+import java.util.UUID;
+
+/**
+ * One row of a relationship feed.
+ *
+ * @param type {@link #TYPE_OF} (source is a type of the target category) or {@link #CHILD_OF}
+ *             (source is a child of the target parent)
+ */
+public record RelationshipEdge(String type, UUID source, UUID target) {
+    public static final String TYPE_OF = "typeof";
+    public static final String CHILD_OF = "childof";
+}
@@ -0,0 +1,131 @@
+package com.heartrate.importer;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Incrementally parses a relationship feed. Every row names a relationship type
+ * ({@code typeof} or {@code childof}), a source item and a target item:
+ * <pre>
+ * csv:    type,source,target
+ *         childof,&lt;child id&gt;,&lt;parent id&gt;
+ * ndjson: {"type":"typeof","source":"&lt;item id&gt;","target":"&lt;category id&gt;"}
+ * </pre>
+ */
+public class RelationshipFeedReader implements Closeable {
+    private static final ObjectReader JSON_READER = new ObjectMapper().readerFor(JsonNode.class);
+
+    private final CsvRecordReader csv;
+    private final BufferedReader ndjson;
+    private int typeColumn;
+    private int sourceColumn;
+    private int targetColumn;
+    private long rowNumber;
+
+    public RelationshipFeedReader(InputStream input, String format) throws IOException {
+        if ("csv".equalsIgnoreCase(format)) {
+            this.csv = new CsvRecordReader(input);
+            this.ndjson = null;
+            readHeader();
+        } else if ("ndjson".equalsIgnoreCase(format) || "jsonl".equalsIgnoreCase(format)) {
+            this.csv = null;
+            this.ndjson = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 64 * 1024);
+        } else {
+            throw new IllegalArgumentException("Unsupported relationship feed format: " + format);
+        }
+    }
+
+    /**
+     * @return the next edge, or null at the end of the feed
+     * @throws FeedFormatException if the row cannot be parsed; the row is consumed and
+     *         reading can continue with the next one
+     */
+    public RelationshipEdge next() throws IOException {
+        return csv != null ? nextCsv() : nextNdjson();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (csv != null) {
+            csv.close();
+        } else {
+            ndjson.close();
+        }
+    }
+
+    private void readHeader() throws IOException {
+        List<String> header = csv.next();
+        if (header == null) {
+            throw new FeedFormatException("CSV feed is empty; a header row is required");
+        }
+        int[] columns = CsvRecordReader.columnIndexes(header,
+            new String[] {"type"}, new String[] {"source"}, new String[] {"target"});
+        if (columns[0] < 0 || columns[1] < 0 || columns[2] < 0) {
+            throw new FeedFormatException("CSV header must contain 'type', 'source' and 'target' columns");
+        }
+        typeColumn = columns[0];
+        sourceColumn = columns[1];
+        targetColumn = columns[2];
+    }
+
+    private RelationshipEdge nextCsv() throws IOException {
+        List<String> record = csv.next();
+        if (record == null) {
+            return null;
+        }
+        rowNumber++;
+        return edge(CsvItemFeedReader.column(record, typeColumn),
+                    CsvItemFeedReader.column(record, sourceColumn),
+                    CsvItemFeedReader.column(record, targetColumn));
+    }
+
+    private RelationshipEdge nextNdjson() throws IOException {
+        String line;
+        do {
+            line = ndjson.readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+
+        rowNumber++;
+        JsonNode node;
+        try {
+            node = JSON_READER.readValue(line);
+        } catch (JsonProcessingException e) {
+            throw new FeedFormatException("Invalid JSON on row " + rowNumber + ": " + e.getOriginalMessage(), e);
+        }
+        return edge(node.path("type").asText(null), node.path("source").asText(null), node.path("target").asText(null));
+    }
+
+    private RelationshipEdge edge(String type, String source, String target) {
+        String normalizedType = type == null ? "" : type.trim().toLowerCase(Locale.ROOT);
+        if (!RelationshipEdge.TYPE_OF.equals(normalizedType) && !RelationshipEdge.CHILD_OF.equals(normalizedType)) {
+            throw new FeedFormatException("Unknown relationship type '" + type + "' on row " + rowNumber);
+        }
+        return new RelationshipEdge(normalizedType, uuid(source, "source"), uuid(target, "target"));
+    }
+
+    private UUID uuid(String value, String column) {
+        if (value == null) {
+            throw new FeedFormatException("Missing " + column + " on row " + rowNumber);
+        }
+        try {
+            return UUID.fromString(value.trim());
+        } catch (IllegalArgumentException e) {
+            throw new FeedFormatException("Invalid " + column + " id '" + value + "' on row " + rowNumber);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.heartrate.importer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * In-memory view of the {@code type_of} and {@code child_of} edges touched by a bulk import.
+ *
+ * Item ids are interned to dense ints so that each edge costs one long in an {@link EdgeSet}.
+ * Feed edges are added as new, stored rows as existing; whatever is still new afterwards is
+ * exactly the set of rows to insert.
+ */
+public class RelationshipGraph {
+    private final Map<UUID, Integer> nodeIds;
+    // Index 0 is unused so that a packed edge is never 0, the EdgeSet empty marker
+    private final List<UUID> nodes;
+    private final EdgeSet typeOf;
+    private final EdgeSet childOf;
+
+    public RelationshipGraph() {
+        nodeIds = new HashMap<>();
+        nodes = new ArrayList<>();
+        nodes.add(null);
+        typeOf = new EdgeSet();
+        childOf = new EdgeSet();
+    }
+
+    private RelationshipGraph(RelationshipGraph other) {
+        nodeIds = new HashMap<>(other.nodeIds);
+        nodes = new ArrayList<>(other.nodes);
+        typeOf = new EdgeSet(other.typeOf);
+        childOf = new EdgeSet(other.childOf);
+    }
+
+    /**
+     * An independent copy, so that the stored rows of one attempt at an import do not carry over
+     * to the next.
+     */
+    public RelationshipGraph copy() {
+        return new RelationshipGraph(this);
+    }
+
+    /**
+     * Adds an edge read from the feed.
+     *
+     * @return false if the feed already contained the edge
+     */
+    public boolean addNew(RelationshipEdge edge) {
+        return edges(edge.type()).add(node(edge.source()), node(edge.target()), EdgeSet.NEW);
+    }
+
+    /**
+     * Records a relationship that is already stored.
+     *
+     * @return false if the feed contained it too, so it will not be inserted again
+     */
+    public boolean addExisting(String type, UUID source, UUID target) {
+        return edges(type).add(node(source), node(target), EdgeSet.EXISTING);
+    }
+
+    /**
+     * Visits the edges of the given type that are not stored yet.
+     */
+    public void forEachNew(String type, BiConsumer<UUID, UUID> consumer) {
+        edges(type).forEach((from, to, state) -> {
+            if (state == EdgeSet.NEW) {
+                consumer.accept(nodes.get(from), nodes.get(to));
+            }
+        });
+    }
+
+    public int size(String type) {
+        return edges(type).size();
+    }
+
+    /**
+     * Looks for a cycle in the ChildOf edges, stored and new together, with an iterative
+     * depth-first search that visits every node and edge once.
+     *
+     * @return the ids along one cycle, starting and ending with the same item, or null if the
+     *         graph is acyclic
+     */
+    public List<UUID> findChildOfCycle() {
+        int nodeCount = nodes.size();
+
+        // Compressed sparse row adjacency, child -> parents
+        int[] offsets = new int[nodeCount + 1];
+        childOf.forEach((from, to, state) -> offsets[from + 1]++);
+        for (int i = 0; i < nodeCount; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] targets = new int[childOf.size()];
+        int[] fill = Arrays.copyOf(offsets, nodeCount);
+        childOf.forEach((from, to, state) -> targets[fill[from]++] = to);
+
+        // Per node: -1 unvisited, -2 finished, otherwise its position on the DFS stack
+        int[] stackPosition = new int[nodeCount];
+        Arrays.fill(stackPosition, -1);
+        int[] stack = new int[nodeCount];
+        int[] cursor = new int[nodeCount];
+
+        for (int root = 1; root < nodeCount; root++) {
+            if (stackPosition[root] != -1) {
+                continue;
+            }
+            int depth = 0;
+            stack[0] = root;
+            stackPosition[root] = 0;
+            cursor[root] = offsets[root];
+            while (depth >= 0) {
+                int node = stack[depth];
+                if (cursor[node] == offsets[node + 1]) {
+                    stackPosition[node] = -2;
+                    depth--;
+                    continue;
+                }
+                int next = targets[cursor[node]++];
+                if (stackPosition[next] == -1) {
+                    stack[++depth] = next;
+                    stackPosition[next] = depth;
+                    cursor[next] = offsets[next];
+                } else if (stackPosition[next] >= 0) {
+                    List<UUID> cycle = new ArrayList<>(depth - stackPosition[next] + 2);
+                    for (int i = stackPosition[next]; i <= depth; i++) {
+                        cycle.add(nodes.get(stack[i]));
+                    }
+                    cycle.add(nodes.get(next));
+                    return cycle;
+                }
+            }
+        }
+        return null;
+    }
+
+    private EdgeSet edges(String type) {
+        return RelationshipEdge.CHILD_OF.equals(type) ? childOf : typeOf;
+    }
+
+    private int node(UUID id) {
+        Integer existing = nodeIds.get(id);
+        if (existing != null) {
+            return existing;
+        }
+        int index = nodes.size();
+        nodes.add(id);
+        nodeIds.put(id, index);
+        return index;
+    }
+}
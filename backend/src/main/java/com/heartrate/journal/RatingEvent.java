@@ -0,0 +1,57 @@
+package com.heartrate.journal;
+
+import java.util.UUID;
+
+/**
+ * A single rating interaction as recorded in the {@link RatingJournal}.
+ *
+ * @param rating the 0-5 star value, or null when the status is not RATED
+ * @param timestamp epoch milliseconds
+ */
+public record RatingEvent(UUID userId, UUID itemId, String status, Integer rating, long timestamp) {
+
+    // Stored on disk for an event without a rating
+    public static final byte NO_RATING = -1;
+    public static final int MAX_RATING = 5;
+
+    // Statuses are stored as a single byte on disk. Codes are append-only; never renumber them.
+    private static final String[] STATUSES = {null, "RATED", "DONT_KNOW", "DONT_CARE", "DELETED"};
+
+    public static byte statusCode(String status) {
+        for (int i = 1; i < STATUSES.length; i++) {
+            if (STATUSES[i].equals(status)) {
+                return (byte) i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown rating status: " + status);
+    }
+
+    public static String statusName(byte code) {
+        if (code <= 0 || code >= STATUSES.length) {
+            throw new IllegalArgumentException("Unknown rating status code: " + code);
+        }
+        return STATUSES[code];
+    }
+
+    /**
+     * The single byte a rating is stored as in the journal and in ratings snapshots.
+     *
+     * @throws IllegalArgumentException if the rating is outside 0-5, rather than wrapping it
+     */
+    public static byte ratingCode(Integer rating) {
+        if (rating == null) {
+            return NO_RATING;
+        }
+        if (rating < 0 || rating > MAX_RATING) {
+            throw new IllegalArgumentException("Rating must be between 0 and " + MAX_RATING + ": " + rating);
+        }
+        return rating.byteValue();
+    }
+
+    /**
+     * Same as {@link #ratingCode(Integer)} with {@value #NO_RATING} for no rating.
+     */
+    public static byte ratingCode(int rating) {
+        return rating == NO_RATING ? NO_RATING : ratingCode(Integer.valueOf(rating));
+    }
+}
@@ -0,0 +1,328 @@
+package com.heartrate.journal;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.heartrate.config.RatingJournalConfig;
+
+/**
+ * Append-only journal of rating events, written through memory-mapped segment files.
+ *
+ * Every event is a fixed {@value #RECORD_SIZE}-byte little-endian record:
+ * <pre>
+ *  0  flag       1 once the record is fully written
+ *  1  status     see {@link RatingEvent#statusCode(String)}
+ *  2  rating     0-5, or -1 for none
+ *  3  (reserved)
+ *  4  crc32c     of bytes 1..2 and 8..47
+ *  8  timestamp  epoch millis
+ * 16  user id    msb, lsb
+ * 32  item id    msb, lsb
+ * </pre>
+ * Segments are preallocated to a fixed size and named after the sequence number of their first
+ * record, so replay is a straight sequential scan in file-name order. Dirty pages are forced to
+ * disk on a fixed interval and whenever a segment is sealed. On open, the tail of the last
+ * segment is scanned and any torn record left by a crash is overwritten by the next append.
+ * Replay checks every record's checksum and stops at the first one that does not match.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.rating-journal", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class RatingJournal implements AutoCloseable {
+    public static final int RECORD_SIZE = 48;
+    private static final Logger logger = LoggerFactory.getLogger(RatingJournal.class);
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final byte COMMITTED = 1;
+
+    private final Path directory;
+    private final int recordsPerSegment;
+    private final ScheduledExecutorService fsyncScheduler;
+    private final CRC32C crc = new CRC32C();
+
+    private MappedByteBuffer activeSegment;
+    private long activeBaseSequence;
+    private int activeCount;
+    private boolean dirty;
+    private boolean closed;
+
+    @Autowired
+    public RatingJournal(RatingJournalConfig config) {
+        this(Paths.get(config.getDirectory()).toAbsolutePath().normalize(),
+             (long) config.getSegmentSizeMb() * 1024 * 1024,
+             config.getFsyncIntervalMs());
+    }
+
+    public RatingJournal(Path directory, long segmentSizeBytes, long fsyncIntervalMs) {
+        if (segmentSizeBytes < RECORD_SIZE || segmentSizeBytes / RECORD_SIZE > Integer.MAX_VALUE / RECORD_SIZE) {
+            throw new IllegalArgumentException("Invalid journal segment size: " + segmentSizeBytes);
+        }
+        this.directory = directory;
+        this.recordsPerSegment = (int) (segmentSizeBytes / RECORD_SIZE);
+        try {
+            Files.createDirectories(directory);
+            openTail();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not open the rating journal in " + directory, ex);
+        }
+
+        if (fsyncIntervalMs > 0) {
+            this.fsyncScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "rating-journal-fsync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            fsyncScheduler.scheduleWithFixedDelay(this::flush, fsyncIntervalMs, fsyncIntervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            this.fsyncScheduler = null;
+        }
+    }
+
+    /**
+     * Appends an event and returns its sequence number. The write is visible to replay
+     * immediately and durable after the next fsync.
+     */
+    public synchronized long append(UUID userId, UUID itemId, String status, Integer rating, long timestamp) {
+        if (closed) {
+            throw new IllegalStateException("Rating journal is closed");
+        }
+        byte statusCode = RatingEvent.statusCode(status);
+        byte ratingCode = RatingEvent.ratingCode(rating);
+        if (activeCount == recordsPerSegment) {
+            roll();
+        }
+
+        int offset = activeCount * RECORD_SIZE;
+        MappedByteBuffer buffer = activeSegment;
+        buffer.putLong(offset + 8, timestamp);
+        buffer.putLong(offset + 16, userId.getMostSignificantBits());
+        buffer.putLong(offset + 24, userId.getLeastSignificantBits());
+        buffer.putLong(offset + 32, itemId.getMostSignificantBits());
+        buffer.putLong(offset + 40, itemId.getLeastSignificantBits());
+        buffer.put(offset + 1, statusCode);
+        buffer.put(offset + 2, ratingCode);
+        buffer.putInt(offset + 4, checksum(crc, buffer, offset));
+        // Flag last, so a reader never sees a committed record with a partial body
+        buffer.put(offset, COMMITTED);
+
+        dirty = true;
+        return activeBaseSequence + activeCount++;
+    }
+
+    public long append(RatingEvent event) {
+        return append(event.userId(), event.itemId(), event.status(), event.rating(), event.timestamp());
+    }
+
+    /**
+     * Forces written records to disk.
+     */
+    public synchronized void flush() {
+        if (dirty && !closed) {
+            activeSegment.force();
+            dirty = false;
+        }
+    }
+
+    /**
+     * Number of events appended over the lifetime of the journal.
+     */
+    public synchronized long size() {
+        return activeBaseSequence + activeCount;
+    }
+
+    /**
+     * Streams every committed event, in append order, to the visitor without allocating per event.
+     * A record that fails its checksum ends the replay, since the events after it may depend on it.
+     *
+     * @return the number of events visited
+     */
+    public long replay(RatingEventVisitor visitor) {
+        List<Path> segments;
+        long end;
+        // Mapped writes reach other mappings of the same file through the page cache,
+        // so everything below the current end sequence is readable without an fsync
+        synchronized (this) {
+            end = activeBaseSequence + activeCount;
+        }
+        try {
+            segments = listSegments();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not list rating journal segments", ex);
+        }
+
+        long visited = 0;
+        for (Path segment : segments) {
+            long base = baseSequence(segment);
+            if (base >= end) {
+                break;
+            }
+            int limit = (int) Math.min(recordsPerSegment, end - base);
+            long replayed = replaySegment(segment, limit, visitor);
+            visited += replayed;
+            if (replayed < limit) {
+                logger.warn("Stopping rating journal replay at invalid record {} in segment {}", base + replayed, segment);
+                break;
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Convenience replay that materialises a {@link RatingEvent} per record.
+     */
+    public long replayEvents(Consumer<RatingEvent> consumer) {
+        return replay((userMsb, userLsb, itemMsb, itemLsb, status, rating, timestamp) ->
+            consumer.accept(new RatingEvent(
+                new UUID(userMsb, userLsb),
+                new UUID(itemMsb, itemLsb),
+                RatingEvent.statusName(status),
+                rating < 0 ? null : rating,
+                timestamp)));
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        if (fsyncScheduler != null) {
+            fsyncScheduler.shutdownNow();
+        }
+        flush();
+        closed = true;
+        activeSegment = null;
+    }
+
+    private long replaySegment(Path segment, int limit, RatingEventVisitor visitor) {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, (long) limit * RECORD_SIZE);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            // Its own, as replay runs alongside appends
+            CRC32C replayCrc = new CRC32C();
+            long visited = 0;
+            for (int offset = 0, end = limit * RECORD_SIZE; offset < end; offset += RECORD_SIZE) {
+                if (!isValid(replayCrc, buffer, offset)) {
+                    break;
+                }
+                visitor.visit(
+                    buffer.getLong(offset + 16), buffer.getLong(offset + 24),
+                    buffer.getLong(offset + 32), buffer.getLong(offset + 40),
+                    buffer.get(offset + 1), buffer.get(offset + 2),
+                    buffer.getLong(offset + 8));
+                visited++;
+            }
+            return visited;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not replay rating journal segment " + segment, ex);
+        }
+    }
+
+    private void openTail() throws IOException {
+        List<Path> segments = listSegments();
+        if (segments.isEmpty()) {
+            activeBaseSequence = 0;
+            activeSegment = mapSegment(segmentPath(0));
+            activeCount = 0;
+            return;
+        }
+
+        Path last = segments.get(segments.size() - 1);
+        activeBaseSequence = baseSequence(last);
+        activeSegment = mapSegment(last);
+        activeCount = 0;
+        while (activeCount < recordsPerSegment && isValid(crc, activeSegment, activeCount * RECORD_SIZE)) {
+            activeCount++;
+        }
+        if (activeCount < recordsPerSegment && activeSegment.get(activeCount * RECORD_SIZE) != 0) {
+            logger.warn("Discarding torn record {} in rating journal segment {}", activeBaseSequence + activeCount, last);
+            activeSegment.put(activeCount * RECORD_SIZE, (byte) 0);
+        }
+    }
+
+    private void roll() {
+        activeSegment.force();
+        long nextBase = activeBaseSequence + recordsPerSegment;
+        try {
+            activeSegment = mapSegment(segmentPath(nextBase));
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not roll the rating journal to a new segment", ex);
+        }
+        activeBaseSequence = nextBase;
+        activeCount = 0;
+        dirty = false;
+    }
+
+    private MappedByteBuffer mapSegment(Path path) throws IOException {
+        long size = (long) recordsPerSegment * RECORD_SIZE;
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            if (file.length() < size) {
+                file.setLength(size);
+            }
+            MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        }
+    }
+
+    private static boolean isValid(CRC32C crc, MappedByteBuffer buffer, int offset) {
+        return buffer.get(offset) == COMMITTED && buffer.getInt(offset + 4) == checksum(crc, buffer, offset);
+    }
+
+    private static int checksum(CRC32C crc, MappedByteBuffer buffer, int offset) {
+        crc.reset();
+        crc.update(buffer.slice(offset + 8, RECORD_SIZE - 8));
+        crc.update(buffer.get(offset + 1));
+        crc.update(buffer.get(offset + 2));
+        return (int) crc.getValue();
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                .filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                .sorted()
+                .toList();
+        }
+    }
+
+    private Path segmentPath(long baseSequence) {
+        return directory.resolve(String.format("%020d%s", baseSequence, SEGMENT_SUFFIX));
+    }
+
+    private static long baseSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Receives journal records as primitives so replay does not allocate per event.
+     */
+    @FunctionalInterface
+    public interface RatingEventVisitor {
+        /**
+         * @param status status code, see {@link RatingEvent}
+         * @param rating 0-5, or -1 when the event carries no rating
+         */
+        void visit(long userMsb, long userLsb, long itemMsb, long itemLsb, byte status, int rating, long timestamp);
+    }
+}
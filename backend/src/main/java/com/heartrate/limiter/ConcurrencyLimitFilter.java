@@ -0,0 +1,103 @@
+package com.heartrate.limiter;
+
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.heartrate.config.ConcurrencyLimitConfig;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Sheds load on the item and relationship endpoints before it queues up on request threads and
+ * the connection pool.
+ *
+ * Each endpoint group has its own {@link ConcurrencyLimiter}, whose limit follows the group's
+ * measured latency. Requests over the limit are answered immediately with 503 and Retry-After.
+ * Swipes (rate, don't know, don't care) may use the whole limit, while browsing is held to
+ * {@code browseShare} of it, so swipes keep being accepted while browsing is shed.
+ *
+ * Registered in the security filter chain by {@link com.heartrate.config.SecurityConfig}, after
+ * CORS so rejected requests still carry CORS headers, and before JWT authentication, whose user
+ * lookup is the first database access of a request and must be shed with the rest.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrencyLimitFilter.class);
+    private static final String ITEMS_PATH = "/api/items";
+    private static final String RELATIONSHIPS_PATH = "/api/relationships";
+    private static final Pattern SWIPE_PATH = Pattern.compile("/api/items/[^/]+/(rate|dont-know|dont-care|dismiss)");
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private final ConcurrencyLimitConfig config;
+    private final ConcurrencyLimiter items;
+    private final ConcurrencyLimiter relationships;
+
+    public ConcurrencyLimitFilter(ConcurrencyLimitConfig config) {
+        this.config = config;
+        this.items = newLimiter(config);
+        this.relationships = newLimiter(config);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return !config.isEnabled() || limiterFor(path) == null
+            || config.getExcludedPaths().stream().anyMatch(excluded -> PATH_MATCHER.match(excluded, path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI();
+        boolean swipe = "POST".equals(request.getMethod()) && SWIPE_PATH.matcher(path).matches();
+        ConcurrencyLimiter limiter = limiterFor(path);
+        ConcurrencyLimiter.Permit permit = limiter.tryAcquire(swipe);
+        if (permit == null) {
+            logger.debug("Shedding {} {}: {} in flight, limit {}", request.getMethod(), path,
+                limiter.getInflight(), limiter.getLimit());
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(config.getRetryAfterSeconds()));
+            return;
+        }
+
+        boolean completed = false;
+        try {
+            filterChain.doFilter(request, response);
+            completed = true;
+        } finally {
+            if (!completed || response.getStatus() >= 500) {
+                permit.onDropped();
+            } else if (request.isAsyncStarted()) {
+                // Event streams and streamed exports outlive this call
+                permit.onIgnore();
+            } else {
+                permit.onSuccess();
+            }
+        }
+    }
+
+    private ConcurrencyLimiter limiterFor(String path) {
+        if (path.startsWith(ITEMS_PATH)) {
+            return items;
+        }
+        if (path.startsWith(RELATIONSHIPS_PATH)) {
+            return relationships;
+        }
+        return null;
+    }
+
+    private static ConcurrencyLimiter newLimiter(ConcurrencyLimitConfig config) {
+        return new ConcurrencyLimiter(new GradientLimit(config.getInitialLimit(), config.getMinLimit(),
+            config.getMaxLimit(), config.getSmoothing(), config.getRttTolerance(), config.getBackoffRatio(),
+            config.getLongWindow()), config.getBrowseShare());
+    }
+}
@@ -0,0 +1,79 @@
+package com.heartrate.limiter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Admits requests while fewer than the adaptive limit are in flight.
+ *
+ * Low-priority requests may only fill {@code lowPriorityShare} of the limit, so the remainder is
+ * always available to high-priority ones and they keep going through when the limit shrinks.
+ */
+public class ConcurrencyLimiter {
+    private final GradientLimit limit;
+    private final double lowPriorityShare;
+    private final LongSupplier nanoClock;
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    public ConcurrencyLimiter(GradientLimit limit, double lowPriorityShare) {
+        this(limit, lowPriorityShare, System::nanoTime);
+    }
+
+    ConcurrencyLimiter(GradientLimit limit, double lowPriorityShare, LongSupplier nanoClock) {
+        this.limit = limit;
+        this.lowPriorityShare = lowPriorityShare;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * @return a permit that must be completed exactly once, or null if the request is rejected
+     */
+    public Permit tryAcquire(boolean highPriority) {
+        int current = limit.getLimit();
+        int max = highPriority ? current : Math.max(1, (int) (current * lowPriorityShare));
+        while (true) {
+            int active = inflight.get();
+            if (active >= max) {
+                return null;
+            }
+            if (inflight.compareAndSet(active, active + 1)) {
+                return new Permit(nanoClock.getAsLong(), active + 1);
+            }
+        }
+    }
+
+    public int getLimit() {
+        return limit.getLimit();
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    public final class Permit {
+        private final long startNanos;
+        private final int inflightAtStart;
+
+        private Permit(long startNanos, int inflightAtStart) {
+            this.startNanos = startNanos;
+            this.inflightAtStart = inflightAtStart;
+        }
+
+        // Completed normally; the latency feeds the limit
+        public void onSuccess() {
+            inflight.decrementAndGet();
+            limit.onSample(nanoClock.getAsLong() - startNanos, inflightAtStart, false);
+        }
+
+        // Failed or timed out, which backs the limit off
+        public void onDropped() {
+            inflight.decrementAndGet();
+            limit.onSample(nanoClock.getAsLong() - startNanos, inflightAtStart, true);
+        }
+
+        // Latency is not representative, e.g. the request went asynchronous
+        public void onIgnore() {
+            inflight.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.heartrate.limiter;
+
+/**
+ * Concurrency limit derived from measured latency, after the gradient algorithm of Netflix's
+ * concurrency-limits library.
+ *
+ * A long-term moving average of the round-trip time serves as the no-load baseline. Each sample
+ * compares it with the latest round-trip time: while latency stays near the baseline the limit
+ * grows by roughly its square root, and as soon as requests start queueing (latency rising above
+ * the baseline times {@code rttTolerance}) the limit shrinks in proportion, by at most half.
+ * Failed requests back the limit off multiplicatively. Samples taken while less than half the
+ * limit is in use are ignored, since they say nothing about whether the limit is too high.
+ */
+public class GradientLimit {
+    private static final int WARMUP_SAMPLES = 10;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final double rttTolerance;
+    private final double backoffRatio;
+    private final double longRttDecay;
+
+    private volatile int limit;
+    private double estimatedLimit;
+    private double longRttNanos;
+    private long samples;
+
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit, double smoothing, double rttTolerance,
+                         double backoffRatio, int longWindow) {
+        if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit) {
+            throw new IllegalArgumentException("Concurrency limits must satisfy 1 <= min <= initial <= max");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.rttTolerance = rttTolerance;
+        this.backoffRatio = backoffRatio;
+        this.longRttDecay = 2.0 / (longWindow + 1);
+        this.estimatedLimit = initialLimit;
+        this.limit = initialLimit;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public synchronized void onSample(long rttNanos, int inflight, boolean dropped) {
+        if (dropped) {
+            update(estimatedLimit * backoffRatio);
+            return;
+        }
+        double shortRtt = Math.max(1, rttNanos);
+        samples++;
+        if (samples <= WARMUP_SAMPLES) {
+            longRttNanos += (shortRtt - longRttNanos) / samples;
+        } else {
+            longRttNanos += (shortRtt - longRttNanos) * longRttDecay;
+        }
+        // After a sustained slowdown the baseline has crept up; let it recover once latency drops
+        if (longRttNanos / shortRtt > 2) {
+            longRttNanos *= 0.95;
+        }
+        if (inflight < estimatedLimit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRttNanos / shortRtt));
+        // The square root allows a small queue, so the limit can probe upwards
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        update(estimatedLimit * (1 - smoothing) + newLimit * smoothing);
+    }
+
+    private void update(double newLimit) {
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        limit = (int) estimatedLimit;
+    }
+}
@@ -0,0 +1,71 @@
+package com.heartrate.model;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+/**
+ * An item handed out in a user's feed and not yet rated. Until it expires, other devices of the
+ * same user are not sent the item again.
+ */
+@Entity
+@Table(name = "feed_reservations", uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "item_id"}))
+public class FeedReservation {
+
+    @Id
+    @GeneratedUuidV7
+    private UUID id;
+
+    private UUID userId;
+
+    private UUID itemId;
+
+    private LocalDateTime reservedUntil;
+
+    // Constructors, Getters, and Setters
+
+    public FeedReservation() {
+    }
+
+    public FeedReservation(UUID userId, UUID itemId, LocalDateTime reservedUntil) {
+        this.userId = userId;
+        this.itemId = itemId;
+        this.reservedUntil = reservedUntil;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public void setUserId(UUID userId) {
+        this.userId = userId;
+    }
+
+    public UUID getItemId() {
+        return itemId;
+    }
+
+    public void setItemId(UUID itemId) {
+        this.itemId = itemId;
+    }
+
+    public LocalDateTime getReservedUntil() {
+        return reservedUntil;
+    }
+
+    public void setReservedUntil(LocalDateTime reservedUntil) {
+        this.reservedUntil = reservedUntil;
+    }
+}
@@ -0,0 +1,82 @@
+package com.heartrate.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * An item image stored under its SHA-256 digest, and the number of items whose image it is.
+ * Changed only while holding the row lock, see {@link com.heartrate.service.ImageStore}.
+ */
+@Entity
+@Table(name = "image_blobs")
+public class ImageBlob {
+
+    // Lower-case hex
+    @Id
+    @Column(length = 64)
+    private String sha256;
+
+    private long size;
+
+    private String contentType;
+
+    private int referenceCount;
+
+    private LocalDateTime createdAt;
+
+    // Constructors, Getters, and Setters
+
+    public ImageBlob() {
+    }
+
+    public ImageBlob(String sha256, long size, String contentType) {
+        this.sha256 = sha256;
+        this.size = size;
+        this.contentType = contentType;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public void setSha256(String sha256) {
+        this.sha256 = sha256;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public int getReferenceCount() {
+        return referenceCount;
+    }
+
+    public void setReferenceCount(int referenceCount) {
+        this.referenceCount = referenceCount;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -2,24 +2,48 @@ package com.heartrate.model;
 
 import java.util.UUID;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import com.heartrate.config.CatalogCacheConfig;
+import com.heartrate.service.ItemImageListener;
+import com.heartrate.service.ItemLocationListener;
+import com.heartrate.service.ItemSearchListener;
+import com.heartrate.service.ItemVersionListener;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CatalogCacheConfig.ITEMS_REGION)
 @Table(name = "items")
+@EntityListeners({ItemVersionListener.class, ItemLocationListener.class, ItemSearchListener.class, ItemImageListener.class})
 public class Item {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @GeneratedUuidV7
     private UUID id;
 
     private String name;
     private String description;
     private String imageUrl;
 
+    // Optional location in WGS84 degrees; either both are set or neither
+    private Double latitude;
+    private Double longitude;
+
+    // Incremented on every update; exposed to clients as the item's ETag. The default lets
+    // ddl-auto=update add the column to a table that already has rows
+    @Version
+    @ColumnDefault("0")
+    private long version;
+
     // Getters and setters
 
     public UUID getId() {
@@ -53,4 +77,28 @@ public class Item {
     public void setImageUrl(String imageUrl) {
         this.imageUrl = imageUrl;
     }
-} 
\ No newline at end of file
+
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(Double latitude) {
+        this.latitude = latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(Double longitude) {
+        this.longitude = longitude;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,78 @@
+package com.heartrate.model;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Progress of a bulk item import. Updated in the same transaction as each committed chunk, so a
+ * failed import can be resumed by replaying the feed and skipping the rows already processed.
+ */
+@Entity
+@Table(name = "item_import_checkpoints")
+public class ItemImportCheckpoint {
+
+    @Id
+    private UUID importId;
+
+    private long rowsProcessed;
+
+    private long rowsImported;
+
+    private long rowsRejected;
+
+    private LocalDateTime updatedAt;
+
+    // Constructors, Getters, and Setters
+
+    public ItemImportCheckpoint() {
+    }
+
+    public ItemImportCheckpoint(UUID importId) {
+        this.importId = importId;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public UUID getImportId() {
+        return importId;
+    }
+
+    public void setImportId(UUID importId) {
+        this.importId = importId;
+    }
+
+    public long getRowsProcessed() {
+        return rowsProcessed;
+    }
+
+    public void setRowsProcessed(long rowsProcessed) {
+        this.rowsProcessed = rowsProcessed;
+    }
+
+    public long getRowsImported() {
+        return rowsImported;
+    }
+
+    public void setRowsImported(long rowsImported) {
+        this.rowsImported = rowsImported;
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    public void setRowsRejected(long rowsRejected) {
+        this.rowsRejected = rowsRejected;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -5,19 +5,23 @@ import java.util.UUID;
 
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 
 @Entity
-@Table(name = "ratings")
+// (user_id, item_id) serves the per-user lookups in saveRating and the unseen-items feed;
+// (user_id, timestamp, id) serves the keyset-paginated rating history
+@Table(name = "ratings", indexes = {
+    @Index(name = "idx_ratings_user_item", columnList = "user_id, item_id"),
+    @Index(name = "idx_ratings_user_timestamp", columnList = "user_id, timestamp, id")
+})
 public class Rating {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @GeneratedUuidV7
     private UUID id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,70 @@
+package com.heartrate.model;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * A user's serialized {@link com.heartrate.bloom.ScalableBloomFilter} of items already shown,
+ * rated or dismissed. Written while holding the user's row lock, see SeenItemService.
+ */
+@Entity
+@Table(name = "seen_item_filters")
+public class SeenItemFilter {
+
+    @Id
+    private UUID userId;
+
+    private long itemCount;
+
+    // Bytea on PostgreSQL; the length only sizes the column on H2
+    @Column(nullable = false, length = 64 * 1024 * 1024)
+    private byte[] data;
+
+    private LocalDateTime updatedAt;
+
+    // Constructors, Getters, and Setters
+
+    public SeenItemFilter() {
+    }
+
+    public SeenItemFilter(UUID userId) {
+        this.userId = userId;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public void setUserId(UUID userId) {
+        this.userId = userId;
+    }
+
+    public long getItemCount() {
+        return itemCount;
+    }
+
+    public void setItemCount(long itemCount) {
+        this.itemCount = itemCount;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public void setData(byte[] data) {
+        this.data = data;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
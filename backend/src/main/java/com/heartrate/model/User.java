@@ -33,9 +33,12 @@ public class User {
     private String resetToken;
     @Column(nullable = true)
     private LocalDateTime resetTokenExpiry;
+    // Last item the id-ordered part of the user's feed got to, see FeedService
+    @Column(nullable = true)
+    private UUID feedScanPosition;
 
     public User() {
-        this.id = UUID.randomUUID();
+        this.id = UuidV7Generator.generate();
     }
 
     // Getters and Setters
@@ -119,6 +122,14 @@ public class User {
         this.resetTokenExpiry = resetTokenExpiry;
     }
 
+    public UUID getFeedScanPosition() {
+        return feedScanPosition;
+    }
+
+    public void setFeedScanPosition(UUID feedScanPosition) {
+        this.feedScanPosition = feedScanPosition;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,76 @@
+package com.heartrate.model;
+
+import java.security.SecureRandom;
+import java.util.EnumSet;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+
+/**
+ * Generates time-ordered version 7 UUIDs (RFC 9562).
+ *
+ * The first 48 bits hold the Unix time in milliseconds, followed by the version nibble and a
+ * 12-bit counter that keeps ids from this JVM strictly increasing within the same millisecond
+ * (method 1 of the RFC); if the counter runs out it borrows from the timestamp. The remaining
+ * 62 bits after the variant are random. New keys therefore land at the right-hand edge of
+ * primary-key B-trees instead of on random pages. Ids stay ordinary {@code uuid} values, so
+ * rows keyed by the earlier random v4 ids are unaffected.
+ */
+public class UuidV7Generator implements BeforeExecutionGenerator {
+    private static final int COUNTER_BITS = 12;
+    // A fresh millisecond starts the counter at a random value in the lower half, leaving room to count up
+    private static final int COUNTER_SEED_BOUND = 1 << (COUNTER_BITS - 1);
+
+    private static final AtomicLong lastState = new AtomicLong();
+    private static final ThreadLocal<SecureRandom> random = ThreadLocal.withInitial(SecureRandom::new);
+
+    public static UUID generate() {
+        return generate(System.currentTimeMillis());
+    }
+
+    static UUID generate(long epochMillis) {
+        SecureRandom rng = random.get();
+        long state = nextState(epochMillis, rng);
+        long mostSigBits = ((state >>> COUNTER_BITS) << 16) | 0x7000L | (state & 0xFFFL);
+        long leastSigBits = (rng.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    /**
+     * Returns the Unix millisecond timestamp embedded in a version 7 UUID.
+     */
+    public static long timestamp(UUID uuid) {
+        if (uuid.version() != 7) {
+            throw new IllegalArgumentException("Not a version 7 UUID: " + uuid);
+        }
+        return uuid.getMostSignificantBits() >>> 16;
+    }
+
+    // State is the 48-bit timestamp followed by the 12-bit counter, i.e. the sortable prefix of the id
+    private static long nextState(long epochMillis, SecureRandom rng) {
+        while (true) {
+            long last = lastState.get();
+            long next = epochMillis > (last >>> COUNTER_BITS)
+                ? (epochMillis << COUNTER_BITS) | rng.nextInt(COUNTER_SEED_BOUND)
+                : last + 1;
+            if (lastState.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue,
+                           EventType eventType) {
+        return generate();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+}
@@ -2,17 +2,58 @@ package com.heartrate.repository;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.heartrate.config.CatalogCacheConfig;
+import com.heartrate.controller.dto.ChildOfResponse;
 import com.heartrate.model.ChildOf;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface ChildOfRepository extends JpaRepository<ChildOf, UUID> {
     // Find all ChildOf relationships for a given child item
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CatalogCacheConfig.RELATIONSHIP_QUERIES_REGION)
+    })
     List<ChildOf> findByChildId(UUID childId);
 
     // Find all ChildOf relationships for a given parent item
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CatalogCacheConfig.RELATIONSHIP_QUERIES_REGION)
+    })
     List<ChildOf> findByParentId(UUID parentId);
-} 
\ No newline at end of file
+
+    // Same as findByChildId, with both item names resolved in a single query
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CatalogCacheConfig.RELATIONSHIP_QUERIES_REGION)
+    })
+    @Query("select new com.heartrate.controller.dto.ChildOfResponse(r.id, r.childId, c.name, r.parentId, p.name) "
+         + "from ChildOf r left join Item c on c.id = r.childId left join Item p on p.id = r.parentId "
+         + "where r.childId = :childId")
+    List<ChildOfResponse> findResponsesByChildId(@Param("childId") UUID childId);
+
+    // Same as findByParentId, with both item names resolved in a single query
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CatalogCacheConfig.RELATIONSHIP_QUERIES_REGION)
+    })
+    @Query("select new com.heartrate.controller.dto.ChildOfResponse(r.id, r.childId, c.name, r.parentId, p.name) "
+         + "from ChildOf r left join Item c on c.id = r.childId left join Item p on p.id = r.parentId "
+         + "where r.parentId = :parentId")
+    List<ChildOfResponse> findResponsesByParentId(@Param("parentId") UUID parentId);
+
+    // Every (childId, parentId) pair, streamed for bulk import de-duplication; needs an open transaction
+    @Query("select r.childId, r.parentId from ChildOf r")
+    Stream<Object[]> streamAllPairs();
+}
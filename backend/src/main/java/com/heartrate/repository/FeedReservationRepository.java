@@ -0,0 +1,28 @@
+package com.heartrate.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.heartrate.model.FeedReservation;
+
+@Repository
+public interface FeedReservationRepository extends JpaRepository<FeedReservation, UUID> {
+    // Frees the user's reservations that were never rated before they expired
+    @Modifying
+    @Query("delete from FeedReservation f where f.userId = :userId and f.reservedUntil <= :now")
+    int deleteExpired(@Param("userId") UUID userId, @Param("now") LocalDateTime now);
+
+    // Releases reserved items that were never delivered, e.g. when a feed stream disconnects
+    @Transactional
+    @Modifying
+    @Query("delete from FeedReservation f where f.userId = :userId and f.itemId in :itemIds")
+    int release(@Param("userId") UUID userId, @Param("itemIds") Collection<UUID> itemIds);
+}
@@ -0,0 +1,19 @@
+package com.heartrate.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.stereotype.Repository;
+
+import com.heartrate.model.ImageBlob;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface ImageBlobRepository extends JpaRepository<ImageBlob, String> {
+
+    // Serialises reference changes to one image with the creation and deletion of its file
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<ImageBlob> findLockedBySha256(String sha256);
+}
@@ -1,12 +1,42 @@
 package com.heartrate.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.heartrate.controller.dto.ItemResponse;
 import com.heartrate.model.Item;
 
 @Repository
 public interface ItemRepository extends JpaRepository<Item, UUID> {
-} 
\ No newline at end of file
+    // Items with afterId < id <= upTo the user has not rated and does not currently hold in their feed, as response DTOs
+    @Query("select new com.heartrate.controller.dto.ItemResponse(i.id, i.name, i.description, i.imageUrl, i.latitude, i.longitude) from Item i "
+         + "where i.id > :afterId and i.id <= :upTo "
+         + "and not exists (select 1 from Rating r where r.user.id = :userId and r.item.id = i.id) "
+         + "and not exists (select 1 from FeedReservation f where f.userId = :userId and f.itemId = i.id) "
+         + "order by i.id")
+    List<ItemResponse> findFeedCandidates(@Param("userId") UUID userId, @Param("afterId") UUID afterId,
+                                          @Param("upTo") UUID upTo, Pageable pageable);
+
+    // Same filters as findFeedCandidates, restricted to the given items, in no particular order
+    @Query("select new com.heartrate.controller.dto.ItemResponse(i.id, i.name, i.description, i.imageUrl, i.latitude, i.longitude) from Item i "
+         + "where i.id in :itemIds "
+         + "and not exists (select 1 from Rating r where r.user.id = :userId and r.item.id = i.id) "
+         + "and not exists (select 1 from FeedReservation f where f.userId = :userId and f.itemId = i.id)")
+    List<ItemResponse> findFeedCandidatesAmong(@Param("userId") UUID userId, @Param("itemIds") Collection<UUID> itemIds);
+
+    // Every located item, streamed to build the in-memory location index; needs an open transaction
+    @Query("select i.id, i.latitude, i.longitude from Item i where i.latitude is not null and i.longitude is not null")
+    Stream<Object[]> streamLocations();
+
+    // Every item's searchable text, streamed to build the in-memory search index; needs an open transaction
+    @Query("select i.id, i.name, i.description from Item i")
+    Stream<Object[]> streamSearchText();
+}
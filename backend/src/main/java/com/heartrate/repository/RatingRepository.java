@@ -1,9 +1,14 @@
 package com.heartrate.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.heartrate.model.Item;
@@ -13,4 +18,24 @@ import com.heartrate.model.User;
 @Repository
 public interface RatingRepository extends JpaRepository<Rating, UUID> {
     Optional<Rating> findByUserAndItem(User user, Item item);
-} 
\ No newline at end of file
+
+    // Matches on the foreign key columns, so neither the user nor the item has to be loaded first
+    Optional<Rating> findByUserIdAndItemId(UUID userId, UUID itemId);
+
+    // (itemId, rating) of every item the user has interacted with; rating is null unless RATED
+    @Query("select r.item.id, r.rating from Rating r where r.user.id = :userId")
+    List<Object[]> findItemRatingsByUserId(@Param("userId") UUID userId);
+
+    // (itemId, likes) of items liked by other users who liked any of the given items, most liked first
+    @Query("select other.item.id, count(other) from Rating seed, Rating other "
+         + "where seed.item.id in :itemIds and seed.rating >= :minRating and seed.user.id <> :userId "
+         + "and other.user.id = seed.user.id and other.rating >= :minRating "
+         + "group by other.item.id order by count(other) desc")
+    List<Object[]> findCoLikedItems(@Param("userId") UUID userId, @Param("itemIds") Collection<UUID> itemIds,
+                                    @Param("minRating") int minRating, Pageable pageable);
+
+    // (itemId, likes) of the most liked items overall
+    @Query("select r.item.id, count(r) from Rating r where r.rating >= :minRating "
+         + "group by r.item.id order by count(r) desc")
+    List<Object[]> findMostLikedItems(@Param("minRating") int minRating, Pageable pageable);
+}
@@ -0,0 +1,12 @@
+package com.heartrate.repository;
+
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.heartrate.model.SeenItemFilter;
+
+@Repository
+public interface SeenItemFilterRepository extends JpaRepository<SeenItemFilter, UUID> {
+}
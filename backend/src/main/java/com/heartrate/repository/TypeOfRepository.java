@@ -1,18 +1,81 @@
 package com.heartrate.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.heartrate.config.CatalogCacheConfig;
+import com.heartrate.controller.dto.TypeOfResponse;
 import com.heartrate.model.TypeOf;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface TypeOfRepository extends JpaRepository<TypeOf, UUID> {
     // Find all TypeOf relationships for a given item (where the item is the 'is a type of' item)
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CatalogCacheConfig.RELATIONSHIP_QUERIES_REGION)
+    })
     List<TypeOf> findByItemId(UUID itemId);
 
     // Find all TypeOf relationships for a given category item
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CatalogCacheConfig.RELATIONSHIP_QUERIES_REGION)
+    })
     List<TypeOf> findByCategoryId(UUID categoryId);
-} 
\ No newline at end of file
+
+    // Same as findByItemId, with both item names resolved in a single query
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CatalogCacheConfig.RELATIONSHIP_QUERIES_REGION)
+    })
+    @Query("select new com.heartrate.controller.dto.TypeOfResponse(t.id, t.itemId, i.name, t.categoryId, c.name) "
+         + "from TypeOf t left join Item i on i.id = t.itemId left join Item c on c.id = t.categoryId "
+         + "where t.itemId = :itemId")
+    List<TypeOfResponse> findResponsesByItemId(@Param("itemId") UUID itemId);
+
+    // Same as findByCategoryId, with both item names resolved in a single query
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CatalogCacheConfig.RELATIONSHIP_QUERIES_REGION)
+    })
+    @Query("select new com.heartrate.controller.dto.TypeOfResponse(t.id, t.itemId, i.name, t.categoryId, c.name) "
+         + "from TypeOf t left join Item i on i.id = t.itemId left join Item c on c.id = t.categoryId "
+         + "where t.categoryId = :categoryId")
+    List<TypeOfResponse> findResponsesByCategoryId(@Param("categoryId") UUID categoryId);
+
+    // Every (itemId, categoryId) pair, streamed for bulk import de-duplication; needs an open transaction
+    @Query("select t.itemId, t.categoryId from TypeOf t")
+    Stream<Object[]> streamAllPairs();
+
+    // Likes (ratings at or above minRating) per category, counted over the category's items
+    @Query("select t.categoryId, count(r) from TypeOf t, Rating r "
+         + "where r.item.id = t.itemId and r.rating >= :minRating group by t.categoryId")
+    List<Object[]> countLikesByCategory(@Param("minRating") int minRating);
+
+    // (itemId, weight) of the unrated items sharing a category with the given items the user liked,
+    // where each shared category adds rating - minRating + 1 of the liked item, highest weight first
+    @Query("select sibling.itemId, sum(r.rating - :minRating + 1) as weight from TypeOf seed, TypeOf sibling, Rating r "
+         + "where seed.itemId in :itemIds and sibling.categoryId = seed.categoryId "
+         + "and r.item.id = seed.itemId and r.user.id = :userId and r.rating >= :minRating "
+         + "and not exists (select 1 from Rating own where own.user.id = :userId and own.item.id = sibling.itemId) "
+         + "group by sibling.itemId order by weight desc")
+    List<Object[]> findCoCategoryItems(@Param("userId") UUID userId, @Param("itemIds") Collection<UUID> itemIds,
+                                       @Param("minRating") int minRating, Pageable pageable);
+
+    // Same as countLikesByCategory for one user's likes
+    @Query("select t.categoryId, count(r) from TypeOf t, Rating r "
+         + "where r.item.id = t.itemId and r.user.id = :userId and r.rating >= :minRating group by t.categoryId")
+    List<Object[]> countUserLikesByCategory(@Param("userId") UUID userId, @Param("minRating") int minRating);
+}
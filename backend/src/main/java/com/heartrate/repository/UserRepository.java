@@ -1,14 +1,22 @@
 package com.heartrate.repository;
 
+import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.stereotype.Repository;
 
 import com.heartrate.model.User;
 
+import jakarta.persistence.LockModeType;
+
 @Repository
 public interface UserRepository extends JpaRepository<User, UUID> {
     User findByEmail(String email);
     User findByResetToken(String resetToken);
+
+    // Takes a row lock on the user, serialising per-user work such as feed reservation
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<User> findLockedById(UUID id);
 } 
\ No newline at end of file
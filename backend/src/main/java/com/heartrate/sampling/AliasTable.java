@@ -0,0 +1,83 @@
+package com.heartrate.sampling;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Walker's alias method (Vose's construction): after O(n) preprocessing, draws an index with
+ * probability proportional to its weight in O(1), one uniform index and one coin flip.
+ * Immutable, so one table can be shared by any number of threads.
+ */
+public final class AliasTable {
+    private final double[] probability;
+    private final int[] alias;
+    private final double totalWeight;
+
+    public AliasTable(double[] weights) {
+        int n = weights.length;
+        double total = 0;
+        for (double weight : weights) {
+            if (weight < 0 || Double.isNaN(weight)) {
+                throw new IllegalArgumentException("Weights must be non-negative");
+            }
+            total += weight;
+        }
+        this.totalWeight = total;
+        this.probability = new double[n];
+        this.alias = new int[n];
+        if (total <= 0) {
+            return;
+        }
+
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / total;
+            if (scaled[i] < 1) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1;
+            if (scaled[more] < 1) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        // Whatever is left is 1 up to rounding error
+        while (largeCount > 0) {
+            probability[large[--largeCount]] = 1;
+        }
+        while (smallCount > 0) {
+            probability[small[--smallCount]] = 1;
+        }
+    }
+
+    /**
+     * @return an index drawn in proportion to its weight, or -1 if all weights are zero
+     */
+    public int sample(RandomGenerator random) {
+        if (totalWeight <= 0) {
+            return -1;
+        }
+        int column = random.nextInt(probability.length);
+        return random.nextDouble() < probability[column] ? column : alias[column];
+    }
+
+    public int size() {
+        return probability.length;
+    }
+
+    public double totalWeight() {
+        return totalWeight;
+    }
+}
@@ -0,0 +1,115 @@
+package com.heartrate.sampling;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+/**
+ * Weighted sampling over a changing set of keys with O(1) draws and cheap updates.
+ *
+ * Keys are kept in fixed-size blocks, each with its own {@link AliasTable}, under a top-level
+ * alias table over the block totals. A draw picks a block, then a key within it. Changing a
+ * weight only marks its block dirty; {@link #publish()} rebuilds the dirty blocks and the top
+ * table, O(block size + keys / block size) per dirty block instead of O(keys), and swaps in a new
+ * immutable snapshot. Draws always see a complete snapshot and never block.
+ *
+ * Writers are synchronised with each other; readers take no locks.
+ */
+public class BlockedAliasSampler<K> {
+    private final int blockSize;
+    private final List<K> keys = new ArrayList<>();
+    private final Map<K, Integer> positions = new HashMap<>();
+    private double[] weights = new double[16];
+    private final BitSet dirtyBlocks = new BitSet();
+    private volatile Snapshot<K> snapshot = new Snapshot<>(List.of(), new AliasTable(new double[0]));
+
+    public BlockedAliasSampler(int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be positive");
+        }
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Sets a key's weight, adding the key if it is new. A weight of zero keeps the key's slot but
+     * stops it being drawn. Takes effect at the next {@link #publish()}.
+     */
+    public synchronized void setWeight(K key, double weight) {
+        if (weight < 0 || Double.isNaN(weight)) {
+            throw new IllegalArgumentException("Weight must be non-negative");
+        }
+        Integer position = positions.get(key);
+        if (position == null) {
+            position = keys.size();
+            keys.add(key);
+            positions.put(key, position);
+            if (position == weights.length) {
+                weights = Arrays.copyOf(weights, weights.length * 2);
+            }
+        }
+        weights[position] = weight;
+        dirtyBlocks.set(position / blockSize);
+    }
+
+    public synchronized double getWeight(K key) {
+        Integer position = positions.get(key);
+        return position == null ? 0 : weights[position];
+    }
+
+    /**
+     * Rebuilds the blocks changed since the last call and makes them visible to draws.
+     *
+     * @return false if nothing had changed
+     */
+    public synchronized boolean publish() {
+        if (dirtyBlocks.isEmpty()) {
+            return false;
+        }
+        List<Block<K>> previous = snapshot.blocks();
+        int blockCount = (keys.size() + blockSize - 1) / blockSize;
+        List<Block<K>> blocks = new ArrayList<>(blockCount);
+        double[] totals = new double[blockCount];
+        for (int b = 0; b < blockCount; b++) {
+            Block<K> block = b < previous.size() && !dirtyBlocks.get(b) ? previous.get(b) : buildBlock(b);
+            blocks.add(block);
+            totals[b] = block.table().totalWeight();
+        }
+        dirtyBlocks.clear();
+        snapshot = new Snapshot<>(blocks, new AliasTable(totals));
+        return true;
+    }
+
+    /**
+     * @return a key drawn in proportion to its published weight, or null if there is none
+     */
+    public K sample(RandomGenerator random) {
+        Snapshot<K> current = snapshot;
+        int b = current.top().sample(random);
+        if (b < 0) {
+            return null;
+        }
+        Block<K> block = current.blocks().get(b);
+        int i = block.table().sample(random);
+        return i < 0 ? null : block.keys().get(i);
+    }
+
+    public synchronized int size() {
+        return keys.size();
+    }
+
+    private Block<K> buildBlock(int b) {
+        int from = b * blockSize;
+        int to = Math.min(keys.size(), from + blockSize);
+        return new Block<>(List.copyOf(keys.subList(from, to)), new AliasTable(Arrays.copyOfRange(weights, from, to)));
+    }
+
+    private record Block<K>(List<K> keys, AliasTable table) {
+    }
+
+    private record Snapshot<K>(List<Block<K>> blocks, AliasTable top) {
+    }
+}
@@ -0,0 +1,67 @@
+package com.heartrate.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Turns item text and queries into index terms: Unicode letters and digits are split into words,
+ * lower-cased, stripped of accents, English stop words are dropped and the rest are stemmed with
+ * {@link PorterStemmer}. Indexing and querying must use the same analysis, so this is the only
+ * place it happens.
+ */
+public final class Analyzer {
+    // Longer runs are not words, and would only bloat the dictionary
+    private static final int MAX_TERM_LENGTH = 40;
+    private static final Set<String> STOP_WORDS = Set.of(
+        "a", "an", "and", "are", "as", "at", "be", "but", "by", "for", "if", "in", "into", "is", "it",
+        "no", "not", "of", "on", "or", "such", "that", "the", "their", "then", "there", "these",
+        "they", "this", "to", "was", "will", "with");
+
+    private Analyzer() {
+    }
+
+    /**
+     * @return the terms of the text in order, repeats included; empty for null
+     */
+    public static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return terms;
+        }
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFKD);
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i <= folded.length(); i++) {
+            char c = i < folded.length() ? folded.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                word.append(Character.toLowerCase(c));
+            } else if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                // Accents split off by NFKD; dropping them folds "café" into "cafe"
+                continue;
+            } else if (!word.isEmpty()) {
+                addTerm(terms, word.toString());
+                word.setLength(0);
+            }
+        }
+        return terms;
+    }
+
+    private static void addTerm(List<String> terms, String word) {
+        if (word.length() > MAX_TERM_LENGTH || STOP_WORDS.contains(word)) {
+            return;
+        }
+        terms.add(isAsciiLetters(word) ? PorterStemmer.stem(word) : word);
+    }
+
+    // The stemmer only knows English; other words and numbers are kept as they are
+    private static boolean isAsciiLetters(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c < 'a' || c > 'z') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
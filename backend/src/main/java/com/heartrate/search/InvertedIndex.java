@@ -0,0 +1,422 @@
+package com.heartrate.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index of item names and descriptions with Okapi BM25 ranking.
+ *
+ * Each document gets an ordinal, and each field keeps, per term, a posting list of ordinals and
+ * term frequencies in ascending ordinal order. A field's BM25 score is multiplied by the field's
+ * boost and the fields are summed. Saving a document again retires its old ordinal and indexes
+ * it under a new one, so posting lists only ever grow at the end; a list is compacted once more
+ * than half of it belongs to retired ordinals.
+ *
+ * {@link #build} indexes a batch of documents on several threads. Thread-safe: searches share a
+ * read lock and updates take the write lock.
+ */
+public class InvertedIndex {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    // Lists shorter than this are not worth compacting
+    private static final int MIN_COMPACT_SIZE = 16;
+
+    public enum Field {
+        NAME,
+        DESCRIPTION
+    }
+
+    public record Document(UUID id, String name, String description) {
+
+        String text(Field field) {
+            return field == Field.NAME ? name : description;
+        }
+    }
+
+    public record Hit(UUID id, double score) {
+    }
+
+    /**
+     * @param total number of documents matching at least one query term
+     */
+    public record Result(List<Hit> hits, int total) {
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<UUID, Integer> ordinals = new HashMap<>();
+    private final FieldIndex[] fields = new FieldIndex[Field.values().length];
+    // Document id by ordinal; null for retired ordinals
+    private UUID[] ids = new UUID[1024];
+    private int ordinalCount;
+
+    public InvertedIndex() {
+        for (int f = 0; f < fields.length; f++) {
+            fields[f] = new FieldIndex();
+        }
+    }
+
+    /**
+     * Indexes the documents using up to {@code parallelism} threads to analyse them.
+     */
+    public static InvertedIndex build(List<Document> documents, int parallelism) {
+        InvertedIndex index = new InvertedIndex();
+        int count = documents.size();
+        index.ensureCapacity(count);
+        int chunkCount = Math.max(1, Math.min(parallelism * 4, count / 1024));
+        int chunkSize = (count + chunkCount - 1) / Math.max(1, chunkCount);
+        List<Chunk> chunks = new ArrayList<>(chunkCount);
+        for (int start = 0; start < count; start += chunkSize) {
+            chunks.add(new Chunk(start, Math.min(count, start + chunkSize)));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        try {
+            // Chunks cover disjoint ordinal ranges, so each analyses into its own partial lists and its slice of the arrays
+            pool.submit(() -> chunks.parallelStream().forEach(chunk -> chunk.analyse(index, documents))).join();
+
+            // Merging chunk by chunk keeps every posting list in ordinal order
+            for (Chunk chunk : chunks) {
+                for (int f = 0; f < index.fields.length; f++) {
+                    FieldIndex field = index.fields[f];
+                    for (Postings partial : chunk.postings.get(f).values()) {
+                        partial.merged = field.postings.computeIfAbsent(partial.term, Postings::new);
+                        partial.merged.appendAll(partial);
+                    }
+                    field.totalLength += chunk.totalLengths[f];
+                }
+            }
+
+            // Point each document at the merged lists, so the partial ones can be collected
+            pool.submit(() -> chunks.parallelStream().forEach(chunk -> chunk.relink(index))).join();
+        } finally {
+            pool.shutdown();
+        }
+        for (int i = 0; i < count; i++) {
+            index.ordinals.put(documents.get(i).id(), i);
+        }
+        index.ordinalCount = count;
+        return index;
+    }
+
+    /**
+     * Adds the document, or replaces the indexed version with the same id.
+     */
+    public void put(Document document) {
+        lock.writeLock().lock();
+        try {
+            Integer previous = ordinals.get(document.id());
+            if (previous != null) {
+                retire(previous);
+            }
+            int ordinal = ordinalCount++;
+            ensureCapacity(ordinalCount);
+            ids[ordinal] = document.id();
+            ordinals.put(document.id(), ordinal);
+            for (Field field : Field.values()) {
+                FieldIndex index = fields[field.ordinal()];
+                index.totalLength += index.add(ordinal, Analyzer.terms(document.text(field)), index.postings);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return false if the id was not indexed
+     */
+    public boolean remove(UUID id) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(id);
+            if (ordinal == null) {
+                return false;
+            }
+            retire(ordinal);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ranks the documents matching any term of the query by BM25.
+     *
+     * @param boosts multiplier per {@link Field}, by ordinal; zero leaves the field out
+     * @return hits {@code offset} to {@code offset + limit} of the ranking, best first, ties in
+     *         indexing order, with the total number of matches
+     */
+    public Result search(String query, double[] boosts, int offset, int limit) {
+        List<String> terms = Analyzer.terms(query).stream().distinct().toList();
+        lock.readLock().lock();
+        try {
+            int documentCount = ordinals.size();
+            if (terms.isEmpty() || documentCount == 0) {
+                return new Result(List.of(), 0);
+            }
+            List<Cursor> cursors = new ArrayList<>();
+            for (Field field : Field.values()) {
+                double boost = boosts[field.ordinal()];
+                if (boost > 0) {
+                    fields[field.ordinal()].cursors(terms, boost, documentCount, cursors);
+                }
+            }
+            return rank(cursors, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Walks all the query's posting lists in ordinal order at once (document at a time), scoring
+     * each matching document completely before moving on, and keeps the best in a bounded heap.
+     * Nothing is allocated per matching document, only per document that enters the heap.
+     */
+    private Result rank(List<Cursor> cursors, int offset, int limit) {
+        int wanted = offset + limit;
+        // Worst of the best so far at the head; on equal scores the earlier ordinal was kept
+        PriorityQueue<Scored> heap = new PriorityQueue<>(wanted + 1,
+            (a, b) -> a.score != b.score ? Double.compare(a.score, b.score) : Integer.compare(b.ordinal, a.ordinal));
+        Cursor[] active = cursors.toArray(new Cursor[0]);
+        int total = 0;
+        while (true) {
+            int ordinal = Integer.MAX_VALUE;
+            for (Cursor cursor : active) {
+                if (cursor.position < cursor.postings.size) {
+                    ordinal = Math.min(ordinal, cursor.postings.ordinals[cursor.position]);
+                }
+            }
+            if (ordinal == Integer.MAX_VALUE) {
+                break;
+            }
+            double score = 0;
+            for (Cursor cursor : active) {
+                if (cursor.position < cursor.postings.size && cursor.postings.ordinals[cursor.position] == ordinal) {
+                    score += cursor.score(ordinal);
+                    cursor.position++;
+                }
+            }
+            if (ids[ordinal] == null) {
+                continue;
+            }
+            total++;
+            if (heap.size() < wanted) {
+                heap.add(new Scored(ordinal, score));
+            } else if (score > heap.peek().score) {
+                heap.poll();
+                heap.add(new Scored(ordinal, score));
+            }
+        }
+
+        List<Scored> ranked = new ArrayList<>(heap);
+        ranked.sort(heap.comparator().reversed());
+        List<Hit> hits = new ArrayList<>(Math.max(0, ranked.size() - offset));
+        for (int i = offset; i < ranked.size(); i++) {
+            hits.add(new Hit(ids[ranked.get(i).ordinal], ranked.get(i).score));
+        }
+        return new Result(hits, total);
+    }
+
+    private void retire(int ordinal) {
+        ids[ordinal] = null;
+        for (FieldIndex field : fields) {
+            field.totalLength -= field.lengths[ordinal];
+            for (Postings postings : field.documentPostings[ordinal]) {
+                postings.live--;
+                if (postings.live == 0) {
+                    field.postings.remove(postings.term);
+                } else if (postings.size >= MIN_COMPACT_SIZE && postings.live * 2 < postings.size) {
+                    postings.compact(ids);
+                }
+            }
+            field.documentPostings[ordinal] = null;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > ids.length) {
+            int length = Math.max(capacity, ids.length * 2);
+            ids = Arrays.copyOf(ids, length);
+            for (FieldIndex field : fields) {
+                field.lengths = Arrays.copyOf(field.lengths, length);
+                field.documentPostings = Arrays.copyOf(field.documentPostings, length);
+            }
+        }
+    }
+
+    private static final class FieldIndex {
+        private final Map<String, Postings> postings = new HashMap<>();
+        private int[] lengths = new int[1024];
+        // The posting lists each document appears in, to retire it without re-analysing its text
+        private Postings[][] documentPostings = new Postings[1024][];
+        private long totalLength;
+
+        /**
+         * Appends the document's terms to {@code target}, which is this field's dictionary or a
+         * build chunk's partial one, and returns the field length.
+         */
+        int add(int ordinal, List<String> terms, Map<String, Postings> target) {
+            Map<String, Integer> frequencies = new HashMap<>();
+            for (String term : terms) {
+                frequencies.merge(term, 1, Integer::sum);
+            }
+            Postings[] appended = new Postings[frequencies.size()];
+            int i = 0;
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                Postings postings = target.computeIfAbsent(entry.getKey(), Postings::new);
+                postings.append(ordinal, entry.getValue());
+                appended[i++] = postings;
+            }
+            lengths[ordinal] = terms.size();
+            documentPostings[ordinal] = appended;
+            return terms.size();
+        }
+
+        void cursors(List<String> queryTerms, double boost, int documentCount, List<Cursor> cursors) {
+            double averageLength = Math.max(1.0, (double) totalLength / documentCount);
+            for (String term : queryTerms) {
+                Postings postings = this.postings.get(term);
+                if (postings != null) {
+                    double idf = Math.log(1 + (documentCount - postings.live + 0.5) / (postings.live + 0.5));
+                    cursors.add(new Cursor(postings, this, boost * idf * (K1 + 1), averageLength));
+                }
+            }
+        }
+    }
+
+    /**
+     * Position in one posting list of one field during a search, with the term's weight.
+     */
+    private static final class Cursor {
+        private final Postings postings;
+        private final FieldIndex field;
+        private final double weight;
+        private final double averageLength;
+        private int position;
+
+        Cursor(Postings postings, FieldIndex field, double weight, double averageLength) {
+            this.postings = postings;
+            this.field = field;
+            this.weight = weight;
+            this.averageLength = averageLength;
+        }
+
+        // BM25 contribution of the entry at the current position
+        double score(int ordinal) {
+            int tf = postings.frequencies[position];
+            return weight * tf / (tf + K1 * (1 - B + B * field.lengths[ordinal] / averageLength));
+        }
+    }
+
+    private record Scored(int ordinal, double score) {
+    }
+
+    private static final class Postings {
+        private final String term;
+        private int[] ordinals = new int[2];
+        private int[] frequencies = new int[2];
+        private int size;
+        // Entries whose ordinal is not retired
+        private int live;
+        // During a build, the list a chunk's partial list was merged into
+        private Postings merged;
+
+        Postings(String term) {
+            this.term = term;
+        }
+
+        void append(int ordinal, int frequency) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            ordinals[size] = ordinal;
+            frequencies[size] = frequency;
+            size++;
+            live++;
+        }
+
+        void appendAll(Postings other) {
+            if (size + other.size > ordinals.length) {
+                int length = Math.max(size + other.size, ordinals.length * 2);
+                ordinals = Arrays.copyOf(ordinals, length);
+                frequencies = Arrays.copyOf(frequencies, length);
+            }
+            System.arraycopy(other.ordinals, 0, ordinals, size, other.size);
+            System.arraycopy(other.frequencies, 0, frequencies, size, other.size);
+            size += other.size;
+            live += other.live;
+        }
+
+        void compact(UUID[] ids) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (ids[ordinals[i]] != null) {
+                    ordinals[kept] = ordinals[i];
+                    frequencies[kept] = frequencies[i];
+                    kept++;
+                }
+            }
+            size = kept;
+            ordinals = Arrays.copyOf(ordinals, Math.max(2, kept));
+            frequencies = Arrays.copyOf(frequencies, Math.max(2, kept));
+        }
+    }
+
+    /**
+     * A contiguous range of documents analysed by one build task. Ordinals equal positions in
+     * the document list.
+     */
+    private static final class Chunk {
+        private final int start;
+        private final int end;
+        private final List<Map<String, Postings>> postings = new ArrayList<>();
+        private final long[] totalLengths = new long[Field.values().length];
+
+        Chunk(int start, int end) {
+            this.start = start;
+            this.end = end;
+            for (int f = 0; f < totalLengths.length; f++) {
+                postings.add(new HashMap<>());
+            }
+        }
+
+        void analyse(InvertedIndex index, List<Document> documents) {
+            for (int ordinal = start; ordinal < end; ordinal++) {
+                Document document = documents.get(ordinal);
+                index.ids[ordinal] = document.id();
+                for (Field field : Field.values()) {
+                    int f = field.ordinal();
+                    totalLengths[f] += index.fields[f].add(ordinal, Analyzer.terms(document.text(field)), postings.get(f));
+                }
+            }
+        }
+
+        void relink(InvertedIndex index) {
+            for (FieldIndex field : index.fields) {
+                for (int ordinal = start; ordinal < end; ordinal++) {
+                    Postings[] documentPostings = field.documentPostings[ordinal];
+                    for (int i = 0; i < documentPostings.length; i++) {
+                        documentPostings[i] = documentPostings[i].merged;
+                    }
+                }
+            }
+        }
+    }
+}
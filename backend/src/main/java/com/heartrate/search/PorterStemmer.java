@@ -0,0 +1,282 @@
+package com.heartrate.search;
+
+/**
+ * The Porter stemming algorithm (M.F. Porter, "An algorithm for suffix stripping", 1980) for
+ * lower-case English words, so that "running", "runs" and "run" index as the same term.
+ * Stateless; the input is not modified.
+ */
+final class PorterStemmer {
+
+    private PorterStemmer() {
+    }
+
+    static String stem(String word) {
+        if (word.length() <= 2) {
+            return word;
+        }
+        Word w = new Word(word);
+        w.step1a();
+        w.step1b();
+        w.step1c();
+        w.step2();
+        w.step3();
+        w.step4();
+        w.step5();
+        return w.toString();
+    }
+
+    /**
+     * The word being stemmed. {@code end} is its current length and {@code stem} the length of
+     * the stem left once the suffix matched by {@link #endsWith} is removed.
+     */
+    private static final class Word {
+        private final char[] b;
+        private int end;
+        private int stem;
+
+        Word(String word) {
+            this.b = word.toCharArray();
+            this.end = b.length;
+        }
+
+        @Override
+        public String toString() {
+            return new String(b, 0, end);
+        }
+
+        private boolean isConsonant(int i) {
+            switch (b[i]) {
+                case 'a', 'e', 'i', 'o', 'u':
+                    return false;
+                case 'y':
+                    return i == 0 || !isConsonant(i - 1);
+                default:
+                    return true;
+            }
+        }
+
+        // Number of vowel-consonant sequences in b[0, stem)
+        private int measure() {
+            int n = 0;
+            int i = 0;
+            while (i < stem && isConsonant(i)) {
+                i++;
+            }
+            while (i < stem) {
+                while (i < stem && !isConsonant(i)) {
+                    i++;
+                }
+                if (i >= stem) {
+                    break;
+                }
+                n++;
+                while (i < stem && isConsonant(i)) {
+                    i++;
+                }
+            }
+            return n;
+        }
+
+        private boolean stemHasVowel() {
+            for (int i = 0; i < stem; i++) {
+                if (!isConsonant(i)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean endsWithDoubleConsonant(int length) {
+            return length >= 2 && b[length - 1] == b[length - 2] && isConsonant(length - 1);
+        }
+
+        // Consonant-vowel-consonant ending at length, where the last is not w, x or y
+        private boolean endsCvc(int length) {
+            if (length < 3 || !isConsonant(length - 1) || isConsonant(length - 2) || !isConsonant(length - 3)) {
+                return false;
+            }
+            char c = b[length - 1];
+            return c != 'w' && c != 'x' && c != 'y';
+        }
+
+        private boolean endsWith(String suffix) {
+            int length = suffix.length();
+            if (length > end) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (b[end - length + i] != suffix.charAt(i)) {
+                    return false;
+                }
+            }
+            stem = end - length;
+            return true;
+        }
+
+        // Replaces the matched suffix
+        private void setSuffix(String suffix) {
+            for (int i = 0; i < suffix.length(); i++) {
+                b[stem + i] = suffix.charAt(i);
+            }
+            end = stem + suffix.length();
+        }
+
+        private void replaceIfMeasured(String suffix) {
+            if (measure() > 0) {
+                setSuffix(suffix);
+            }
+        }
+
+        private void step1a() {
+            if (endsWith("sses") || endsWith("ies")) {
+                end -= 2;
+            } else if (endsWith("ss")) {
+                // unchanged
+            } else if (endsWith("s")) {
+                end--;
+            }
+        }
+
+        private void step1b() {
+            if (endsWith("eed")) {
+                if (measure() > 0) {
+                    end--;
+                }
+                return;
+            }
+            if (!((endsWith("ed") || endsWith("ing")) && stemHasVowel())) {
+                return;
+            }
+            end = stem;
+            if (endsWith("at") || endsWith("bl") || endsWith("iz")) {
+                b[end] = 'e';
+                end++;
+            } else if (endsWithDoubleConsonant(end)) {
+                char c = b[end - 1];
+                if (c != 'l' && c != 's' && c != 'z') {
+                    end--;
+                }
+            } else {
+                stem = end;
+                if (measure() == 1 && endsCvc(end)) {
+                    b[end] = 'e';
+                    end++;
+                }
+            }
+        }
+
+        private void step1c() {
+            if (endsWith("y") && stemHasVowel()) {
+                b[end - 1] = 'i';
+            }
+        }
+
+        private void step2() {
+            if (end < 3) {
+                return;
+            }
+            switch (b[end - 2]) {
+                case 'a' -> {
+                    if (endsWith("ational")) replaceIfMeasured("ate");
+                    else if (endsWith("tional")) replaceIfMeasured("tion");
+                }
+                case 'c' -> {
+                    if (endsWith("enci")) replaceIfMeasured("ence");
+                    else if (endsWith("anci")) replaceIfMeasured("ance");
+                }
+                case 'e' -> {
+                    if (endsWith("izer")) replaceIfMeasured("ize");
+                }
+                case 'l' -> {
+                    if (endsWith("bli")) replaceIfMeasured("ble");
+                    else if (endsWith("alli")) replaceIfMeasured("al");
+                    else if (endsWith("entli")) replaceIfMeasured("ent");
+                    else if (endsWith("eli")) replaceIfMeasured("e");
+                    else if (endsWith("ousli")) replaceIfMeasured("ous");
+                }
+                case 'o' -> {
+                    if (endsWith("ization")) replaceIfMeasured("ize");
+                    else if (endsWith("ation")) replaceIfMeasured("ate");
+                    else if (endsWith("ator")) replaceIfMeasured("ate");
+                }
+                case 's' -> {
+                    if (endsWith("alism")) replaceIfMeasured("al");
+                    else if (endsWith("iveness")) replaceIfMeasured("ive");
+                    else if (endsWith("fulness")) replaceIfMeasured("ful");
+                    else if (endsWith("ousness")) replaceIfMeasured("ous");
+                }
+                case 't' -> {
+                    if (endsWith("aliti")) replaceIfMeasured("al");
+                    else if (endsWith("iviti")) replaceIfMeasured("ive");
+                    else if (endsWith("biliti")) replaceIfMeasured("ble");
+                }
+                case 'g' -> {
+                    if (endsWith("logi")) replaceIfMeasured("log");
+                }
+                default -> {
+                }
+            }
+        }
+
+        private void step3() {
+            switch (b[end - 1]) {
+                case 'e' -> {
+                    if (endsWith("icate")) replaceIfMeasured("ic");
+                    else if (endsWith("ative")) replaceIfMeasured("");
+                    else if (endsWith("alize")) replaceIfMeasured("al");
+                }
+                case 'i' -> {
+                    if (endsWith("iciti")) replaceIfMeasured("ic");
+                }
+                case 'l' -> {
+                    if (endsWith("ical")) replaceIfMeasured("ic");
+                    else if (endsWith("ful")) replaceIfMeasured("");
+                }
+                case 's' -> {
+                    if (endsWith("ness")) replaceIfMeasured("");
+                }
+                default -> {
+                }
+            }
+        }
+
+        private void step4() {
+            if (end < 3) {
+                return;
+            }
+            boolean matched = switch (b[end - 2]) {
+                case 'a' -> endsWith("al");
+                case 'c' -> endsWith("ance") || endsWith("ence");
+                case 'e' -> endsWith("er");
+                case 'i' -> endsWith("ic");
+                case 'l' -> endsWith("able") || endsWith("ible");
+                case 'n' -> endsWith("ant") || endsWith("ement") || endsWith("ment") || endsWith("ent");
+                case 'o' -> (endsWith("ion") && stem > 0 && (b[stem - 1] == 's' || b[stem - 1] == 't')) || endsWith("ou");
+                case 's' -> endsWith("ism");
+                case 't' -> endsWith("ate") || endsWith("iti");
+                case 'u' -> endsWith("ous");
+                case 'v' -> endsWith("ive");
+                case 'z' -> endsWith("ize");
+                default -> false;
+            };
+            if (matched && measure() > 1) {
+                end = stem;
+            }
+        }
+
+        private void step5() {
+            stem = end;
+            if (b[end - 1] == 'e') {
+                stem = end - 1;
+                int m = measure();
+                if (m > 1 || (m == 1 && !endsCvc(end - 1))) {
+                    end--;
+                }
+            }
+            stem = end;
+            if (b[end - 1] == 'l' && endsWithDoubleConsonant(end) && measure() > 1) {
+                end--;
+            }
+        }
+    }
+}
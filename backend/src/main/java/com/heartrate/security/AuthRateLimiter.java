@@ -0,0 +1,69 @@
+package com.heartrate.security;
+
+import java.time.Duration;
+
+import org.springframework.stereotype.Component;
+
+import com.heartrate.config.RateLimitConfig;
+
+/**
+ * Rate limits for the unauthenticated auth endpoints. Each attempt must obtain a token for both
+ * the client IP and the target email, so neither spraying many accounts from one address nor
+ * hammering one account from many addresses gets past the limit. Both tokens are taken or
+ * neither, and a successful login gives them back, so only failures count.
+ *
+ * The client IP is the request's remote address, which Tomcat takes from X-Forwarded-For when the
+ * connection comes from a trusted proxy (server.forward-headers-strategy=native); otherwise every
+ * client behind the proxy would share the proxy's limit.
+ */
+@Component
+public class AuthRateLimiter {
+    private final TokenBucketRateLimiter loginLimiter;
+    private final TokenBucketRateLimiter passwordResetLimiter;
+
+    public AuthRateLimiter(RateLimitConfig config) {
+        this.loginLimiter = create(config.getLogin(), config);
+        this.passwordResetLimiter = create(config.getPasswordReset(), config);
+    }
+
+    /**
+     * @return 0 if the login attempt may proceed, otherwise the seconds to wait before retrying.
+     */
+    public long tryLogin(String email, String ip) {
+        return tryAcquire(loginLimiter, email, ip);
+    }
+
+    /**
+     * Refunds the tokens of a login attempt that succeeded.
+     */
+    public void loginSucceeded(String email, String ip) {
+        loginLimiter.refund(keys(email, ip));
+    }
+
+    /**
+     * @return 0 if the password reset attempt may proceed, otherwise the seconds to wait before retrying.
+     */
+    public long tryPasswordReset(String email, String ip) {
+        return tryAcquire(passwordResetLimiter, email, ip);
+    }
+
+    private static long tryAcquire(TokenBucketRateLimiter limiter, String email, String ip) {
+        return limiter.tryAcquire(keys(email, ip));
+    }
+
+    private static String[] keys(String email, String ip) {
+        if (email == null) {
+            return new String[] {"ip:" + ip};
+        }
+        return new String[] {"ip:" + ip, "email:" + email.trim().toLowerCase()};
+    }
+
+    private static TokenBucketRateLimiter create(RateLimitConfig.Limit limit, RateLimitConfig config) {
+        return new TokenBucketRateLimiter(
+            limit.getAttempts(),
+            Duration.ofMinutes(limit.getWindowMinutes()),
+            config.getStripes(),
+            config.getMaxKeysPerStripe()
+        );
+    }
+}
@@ -0,0 +1,24 @@
+package com.heartrate.security;
+
+import java.util.Collection;
+import java.util.UUID;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+/**
+ * Security principal for an authenticated request. Carries the user's id so controllers can act on
+ * the current user without loading the {@code User} entity again.
+ */
+public class AuthenticatedUser extends User {
+    private final UUID id;
+
+    public AuthenticatedUser(UUID id, String email, String password, Collection<? extends GrantedAuthority> authorities) {
+        super(email, password, authorities);
+        this.id = id;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+}
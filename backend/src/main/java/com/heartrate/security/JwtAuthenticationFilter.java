@@ -13,6 +13,8 @@ import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.heartrate.tracing.RequestTrace;
+
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -33,34 +35,25 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         
-        try {
+        // The span covers authentication only; the rest of the chain is timed by its own spans
+        try (RequestTrace.Span span = RequestTrace.startSpan("filter:jwt")) {
             String jwt = getJwtFromRequest(request);
-            logger.debug("Processing request to: {}", request.getRequestURI());
-            
-            if (!StringUtils.hasText(jwt)) {
-                logger.debug("No JWT token found in request headers");
-                filterChain.doFilter(request, response);
-                return;
-            }
 
-            logger.debug("JWT token found, attempting to validate");
-            if (tokenProvider.validateToken(jwt)) {
+            if (StringUtils.hasText(jwt)) {
+                if (!tokenProvider.validateToken(jwt)) {
+                    logger.warn("Invalid JWT token received for: {}", request.getRequestURI());
+                    response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                    return;
+                }
+
                 String email = tokenProvider.getEmailFromToken(jwt);
-                logger.debug("Token validated successfully for user: {}", email);
-                
                 UserDetails userDetails = userDetailsService.loadUserByUsername(email);
-                logger.debug("User details loaded successfully for: {}", email);
                 
                 UsernamePasswordAuthenticationToken authentication = 
                     new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
-                logger.debug("Authentication set in SecurityContext for user: {}", email);
-            } else {
-                logger.warn("Invalid JWT token received");
-                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-                return;
             }
         } catch (Exception ex) {
             logger.error("Could not set user authentication in security context: {}", ex.getMessage(), ex);
@@ -0,0 +1,14 @@
+package com.heartrate.security;
+
+/**
+ * Thrown when the password hashing executor is saturated and cannot accept more work.
+ */
+public class PasswordHashingRejectedException extends RuntimeException {
+    public PasswordHashingRejectedException(String message) {
+        super(message);
+    }
+
+    public PasswordHashingRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,175 @@
+package com.heartrate.security;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory token bucket limiter keyed by an arbitrary string (email, IP, ...).
+ *
+ * Keys are spread over a fixed number of stripes, each guarded by its own lock, so unrelated
+ * keys rarely contend. Every stripe is an LRU map capped at {@code maxKeysPerStripe} entries,
+ * which bounds memory no matter how many distinct keys an attacker sends. Only a bucket that has
+ * refilled completely is evicted to make room, since a new bucket starts full and nothing is
+ * forgotten; while the least recently used bucket is still partly drained, new keys in that
+ * stripe are refused rather than let a flood of keys reset the limits of the others.
+ */
+public class TokenBucketRateLimiter {
+    private final int capacity;
+    private final double tokensPerNano;
+    private final Stripe[] stripes;
+    private final LongSupplier nanoClock;
+
+    public TokenBucketRateLimiter(int capacity, Duration window, int stripeCount, int maxKeysPerStripe) {
+        this(capacity, window, stripeCount, maxKeysPerStripe, System::nanoTime);
+    }
+
+    TokenBucketRateLimiter(int capacity, Duration window, int stripeCount, int maxKeysPerStripe,
+                           LongSupplier nanoClock) {
+        if (capacity <= 0 || window.isZero() || window.isNegative()) {
+            throw new IllegalArgumentException("Rate limit capacity and window must be positive");
+        }
+        this.capacity = capacity;
+        this.tokensPerNano = (double) capacity / window.toNanos();
+        this.nanoClock = nanoClock;
+        // Round up to a power of two so the stripe can be picked with a mask
+        int count = stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe(i, maxKeysPerStripe);
+        }
+    }
+
+    /**
+     * Takes one token for each of the keys, or none at all if any of them has no token left.
+     *
+     * @return 0 if the attempt is allowed, otherwise the number of seconds until a token is available.
+     */
+    public long tryAcquire(String... keys) {
+        long now = nanoClock.getAsLong();
+        Stripe[] locked = lock(keys);
+        try {
+            Bucket[] buckets = new Bucket[keys.length];
+            double missingNanos = 0;
+            for (int i = 0; i < keys.length; i++) {
+                Stripe stripe = stripeFor(keys[i]);
+                Bucket bucket = stripe.buckets.get(keys[i]);
+                if (bucket != null) {
+                    bucket.refill(now, capacity, tokensPerNano);
+                } else if (stripe.makeRoom(now)) {
+                    bucket = new Bucket(capacity, now);
+                    stripe.buckets.put(keys[i], bucket);
+                } else {
+                    // The stripe is full of active buckets; wait for the oldest to refill
+                    Bucket eldest = stripe.buckets.values().iterator().next();
+                    missingNanos = Math.max(missingNanos, (capacity - eldest.tokens) / tokensPerNano);
+                    continue;
+                }
+                if (bucket.tokens < 1.0) {
+                    missingNanos = Math.max(missingNanos, (1.0 - bucket.tokens) / tokensPerNano);
+                }
+                buckets[i] = bucket;
+            }
+            if (missingNanos > 0) {
+                return Math.max(1, (long) Math.ceil(missingNanos / 1_000_000_000d));
+            }
+            for (Bucket bucket : buckets) {
+                bucket.tokens -= 1.0;
+            }
+            return 0;
+        } finally {
+            unlock(locked);
+        }
+    }
+
+    /**
+     * Gives back a token taken for each of the keys, e.g. once a login has succeeded.
+     */
+    public void refund(String... keys) {
+        for (String key : keys) {
+            Stripe stripe = stripeFor(key);
+            stripe.lock.lock();
+            try {
+                Bucket bucket = stripe.buckets.get(key);
+                if (bucket != null) {
+                    bucket.tokens = Math.min(capacity, bucket.tokens + 1.0);
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    // Locks the stripes of the keys in index order, so that two callers never wait on each other
+    private Stripe[] lock(String[] keys) {
+        Stripe[] locked = Arrays.stream(keys).map(this::stripeFor).distinct()
+            .sorted((a, b) -> Integer.compare(a.index, b.index))
+            .toArray(Stripe[]::new);
+        for (Stripe stripe : locked) {
+            stripe.lock.lock();
+        }
+        return locked;
+    }
+
+    private static void unlock(Stripe[] locked) {
+        for (int i = locked.length - 1; i >= 0; i--) {
+            locked[i].lock.unlock();
+        }
+    }
+
+    private Stripe stripeFor(String key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return stripes[h & (stripes.length - 1)];
+    }
+
+    private final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<String, Bucket> buckets = new LinkedHashMap<>(16, 0.75f, true);
+        private final int index;
+        private final int maxKeys;
+
+        private Stripe(int index, int maxKeys) {
+            this.index = index;
+            this.maxKeys = maxKeys;
+        }
+
+        // Evicts the least recently used bucket if the stripe is full and that bucket has
+        // refilled; returns whether a new bucket may be added
+        private boolean makeRoom(long now) {
+            if (buckets.size() < maxKeys) {
+                return true;
+            }
+            Iterator<Bucket> eldest = buckets.values().iterator();
+            Bucket bucket = eldest.next();
+            bucket.refill(now, capacity, tokensPerNano);
+            if (bucket.tokens < capacity) {
+                return false;
+            }
+            eldest.remove();
+            return true;
+        }
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long lastRefillNanos;
+
+        private Bucket(int capacity, long now) {
+            this.tokens = capacity;
+            this.lastRefillNanos = now;
+        }
+
+        private void refill(long now, int capacity, double tokensPerNano) {
+            long elapsed = now - lastRefillNanos;
+            if (elapsed > 0) {
+                tokens = Math.min(capacity, tokens + elapsed * tokensPerNano);
+                lastRefillNanos = now;
+            }
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package com.heartrate.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.heartrate.bloom.ScalableBloomFilter;
+import com.heartrate.config.FeedSamplingConfig;
+import com.heartrate.config.RecommendationConfig;
+import com.heartrate.model.TypeOf;
+import com.heartrate.model.UuidV7Generator;
+import com.heartrate.repository.TypeOfRepository;
+import com.heartrate.sampling.AliasTable;
+import com.heartrate.sampling.BlockedAliasSampler;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Draws feed candidates category by category, so a page mixes categories instead of following
+ * the id order of the catalog.
+ *
+ * Items are grouped by their {@link TypeOf} categories. Each category is weighted by popularity
+ * (likes of its items, log-damped) and freshness (a boost that halves every
+ * {@code freshnessHalfLifeDays} with the age of its newest item, read from the item's time-ordered
+ * id), and held in a {@link BlockedAliasSampler}. A user who has liked items also gets a small
+ * alias table over the categories of their likes, and a share of their draws comes from it. Each
+ * draw is two alias lookups plus a uniform pick within the category, whatever the catalog size.
+ *
+ * New and removed relationships and likes are queued by {@link TypeOfSamplerListener} and
+ * {@link RatingService} and applied by a single background thread every
+ * {@code rebuildIntervalMs}, which only rebuilds the alias blocks that changed. The state is
+ * loaded once the application has started; until then {@link #sample} returns nothing. Draws are
+ * candidates only: the feed still checks them against ratings and reservations.
+ */
+@Component
+public class CategorySampler {
+    private static final Logger logger = LoggerFactory.getLogger(CategorySampler.class);
+    private static final double DAY_MILLIS = 24 * 60 * 60 * 1000.0;
+
+    private final TypeOfRepository typeOfRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final FeedSamplingConfig config;
+    private final RecommendationConfig recommendationConfig;
+    private final Map<UUID, Category> categories = new ConcurrentHashMap<>();
+    private final BlockedAliasSampler<UUID> globalSampler;
+    private final LoadingCache<UUID, Affinity> affinities;
+    private final Queue<Runnable> pendingChanges = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService samplerThread;
+    private volatile boolean ready;
+
+    public CategorySampler(TypeOfRepository typeOfRepository,
+                           PlatformTransactionManager transactionManager,
+                           FeedSamplingConfig config,
+                           RecommendationConfig recommendationConfig) {
+        this.typeOfRepository = typeOfRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.config = config;
+        this.recommendationConfig = recommendationConfig;
+        this.globalSampler = new BlockedAliasSampler<>(config.getBlockSize());
+        this.affinities = Caffeine.newBuilder()
+            .maximumSize(config.getAffinityCacheSize())
+            // Also picks up categories added to items the user liked earlier
+            .expireAfterWrite(Duration.ofMinutes(config.getReweighIntervalMinutes()))
+            .build(this::loadAffinity);
+        this.samplerThread = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("feed-sampler").factory());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        samplerThread.execute(this::load);
+        samplerThread.scheduleWithFixedDelay(this::applyPendingChanges,
+            config.getRebuildIntervalMs(), config.getRebuildIntervalMs(), TimeUnit.MILLISECONDS);
+        samplerThread.scheduleWithFixedDelay(this::reweighOrRetryLoad,
+            config.getReweighIntervalMinutes(), config.getReweighIntervalMinutes(), TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        samplerThread.shutdownNow();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Draws up to {@code count} distinct item ids, by category weight and the user's affinity,
+     * skipping items the user's seen filter holds. Returns fewer when draws keep hitting seen or
+     * repeated items, and none before the sampler has loaded or when it is disabled.
+     */
+    public List<UUID> sample(UUID userId, ScalableBloomFilter seen, int count) {
+        if (!ready || count < 1) {
+            return List.of();
+        }
+        RandomGenerator random = ThreadLocalRandom.current();
+        Affinity affinity = affinities.get(userId);
+        Set<UUID> picked = new LinkedHashSet<>();
+        int attempts = count * config.getMaxAttemptsPerItem();
+        for (int i = 0; i < attempts && picked.size() < count; i++) {
+            UUID categoryId = affinity.isEmpty() || random.nextDouble() >= config.getAffinityShare()
+                ? globalSampler.sample(random)
+                : affinity.sample(random);
+            if (categoryId == null) {
+                break;
+            }
+            Category category = categories.get(categoryId);
+            UUID itemId = category == null ? null : category.randomItem(random);
+            if (itemId != null && !seen.mightContain(itemId)) {
+                picked.add(itemId);
+            }
+        }
+        return new ArrayList<>(picked);
+    }
+
+    // Called from the entity listener once the relationship's transaction has committed
+    void onTypeOfAdded(UUID itemId, UUID categoryId) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        pendingChanges.add(() -> category(categoryId).add(itemId));
+    }
+
+    void onTypeOfRemoved(UUID itemId, UUID categoryId) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        pendingChanges.add(() -> {
+            Category category = categories.get(categoryId);
+            if (category != null) {
+                category.remove(itemId);
+            }
+        });
+    }
+
+    /**
+     * Counts a rating that crossed the like threshold, either way, towards the item's categories
+     * and refreshes the user's affinity, once the current transaction commits.
+     */
+    void onRatingChanged(UUID userId, UUID itemId, Integer oldRating, Integer newRating) {
+        int delta = (isLike(newRating) ? 1 : 0) - (isLike(oldRating) ? 1 : 0);
+        if (delta == 0 || !config.isEnabled()) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            affinities.invalidate(userId);
+            pendingChanges.add(() -> {
+                for (TypeOf typeOf : typeOfRepository.findByItemId(itemId)) {
+                    category(typeOf.getCategoryId()).addLikes(delta);
+                }
+            });
+        });
+    }
+
+    /**
+     * Applies every queued change now and waits for it, instead of at the next rebuild interval.
+     */
+    public void flush() {
+        try {
+            samplerThread.submit(this::applyPendingChanges).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Feed sampler update failed", e.getCause());
+        }
+    }
+
+    private boolean isLike(Integer rating) {
+        return rating != null && rating >= recommendationConfig.getLikeThreshold();
+    }
+
+    private void load() {
+        long startNanos = System.nanoTime();
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<Object[]> pairs = typeOfRepository.streamAllPairs()) {
+                    pairs.forEach(pair -> category((UUID) pair[1]).add((UUID) pair[0]));
+                }
+            });
+            for (Object[] row : typeOfRepository.countLikesByCategory(recommendationConfig.getLikeThreshold())) {
+                category((UUID) row[0]).addLikes(((Number) row[1]).longValue());
+            }
+            reweighAll();
+            ready = true;
+            logger.info("Feed sampler loaded {} categories in {} ms",
+                categories.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        } catch (RuntimeException e) {
+            // Left not ready, so the feed falls back to id order until the next reweigh retries
+            logger.error("Feed sampler failed to load", e);
+            categories.clear();
+        }
+    }
+
+    private void applyPendingChanges() {
+        try {
+            Runnable change;
+            while ((change = pendingChanges.poll()) != null) {
+                change.run();
+            }
+            for (Category category : categories.values()) {
+                if (category.dirty) {
+                    category.dirty = false;
+                    globalSampler.setWeight(category.id, weight(category, System.currentTimeMillis()));
+                }
+            }
+            globalSampler.publish();
+        } catch (RuntimeException e) {
+            // A scheduled task that throws is never run again
+            logger.error("Feed sampler update failed", e);
+        }
+    }
+
+    private void reweighOrRetryLoad() {
+        if (!ready) {
+            load();
+            return;
+        }
+        try {
+            reweighAll();
+        } catch (RuntimeException e) {
+            logger.error("Feed sampler reweigh failed", e);
+        }
+    }
+
+    private void reweighAll() {
+        long now = System.currentTimeMillis();
+        for (Category category : categories.values()) {
+            category.dirty = false;
+            globalSampler.setWeight(category.id, weight(category, now));
+        }
+        globalSampler.publish();
+    }
+
+    private double weight(Category category, long now) {
+        if (category.size == 0) {
+            return 0;
+        }
+        double popularity = Math.log(Math.E + category.likes);
+        double ageDays = Math.max(0, now - category.newestItemMillis) / DAY_MILLIS;
+        double freshness = 1 + config.getFreshnessBoost() * Math.pow(0.5, ageDays / config.getFreshnessHalfLifeDays());
+        return popularity * freshness;
+    }
+
+    private Category category(UUID categoryId) {
+        return categories.computeIfAbsent(categoryId, Category::new);
+    }
+
+    private Affinity loadAffinity(UUID userId) {
+        List<Object[]> rows = typeOfRepository.countUserLikesByCategory(userId, recommendationConfig.getLikeThreshold());
+        UUID[] categoryIds = new UUID[rows.size()];
+        double[] weights = new double[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            categoryIds[i] = (UUID) rows.get(i)[0];
+            weights[i] = ((Number) rows.get(i)[1]).doubleValue();
+        }
+        return new Affinity(categoryIds, new AliasTable(weights));
+    }
+
+    /**
+     * A category's items and counters. Only the sampler thread writes; request threads read the
+     * item array through {@link #randomItem}, which sees a consistent prefix of it.
+     */
+    private static final class Category {
+        private final UUID id;
+        private final Map<UUID, Integer> positions = new HashMap<>();
+        private volatile UUID[] items = new UUID[4];
+        private volatile int size;
+        private long likes;
+        private long newestItemMillis;
+        private boolean dirty;
+
+        Category(UUID id) {
+            this.id = id;
+        }
+
+        void add(UUID itemId) {
+            if (positions.containsKey(itemId)) {
+                return;
+            }
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size] = itemId;
+            positions.put(itemId, size);
+            size = size + 1;
+            if (itemId.version() == 7) {
+                newestItemMillis = Math.max(newestItemMillis, UuidV7Generator.timestamp(itemId));
+            }
+            dirty = true;
+        }
+
+        // Moves the last item into the gap; a concurrent reader may see the gap as null for a moment
+        void remove(UUID itemId) {
+            Integer position = positions.remove(itemId);
+            if (position == null) {
+                return;
+            }
+            int last = size - 1;
+            UUID[] current = items;
+            if (position != last) {
+                current[position] = current[last];
+                positions.put(current[position], position);
+            }
+            size = last;
+            current[last] = null;
+            dirty = true;
+        }
+
+        void addLikes(long delta) {
+            likes = Math.max(0, likes + delta);
+            dirty = true;
+        }
+
+        UUID randomItem(RandomGenerator random) {
+            int n = size;
+            return n == 0 ? null : items[random.nextInt(n)];
+        }
+    }
+
+    private record Affinity(UUID[] categoryIds, AliasTable table) {
+        boolean isEmpty() {
+            return table.totalWeight() <= 0;
+        }
+
+        UUID sample(RandomGenerator random) {
+            int i = table.sample(random);
+            return i < 0 ? null : categoryIds[i];
+        }
+    }
+}
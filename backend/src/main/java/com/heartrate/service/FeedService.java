@@ -0,0 +1,181 @@
+package com.heartrate.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.heartrate.bloom.ScalableBloomFilter;
+import com.heartrate.config.FeedConfig;
+import com.heartrate.config.FeedSamplingConfig;
+import com.heartrate.controller.dto.FeedResponse;
+import com.heartrate.controller.dto.ItemResponse;
+import com.heartrate.model.FeedReservation;
+import com.heartrate.model.User;
+import com.heartrate.repository.FeedReservationRepository;
+import com.heartrate.repository.ItemRepository;
+import com.heartrate.repository.UserRepository;
+
+/**
+ * Hands out pages of items a user has not rated, dismissed or been shown yet.
+ *
+ * Every item returned is reserved for the user, so another device of the same user asking for a
+ * page at the same time gets different items. Requests for one user are serialised by a row lock
+ * on the user, which holds across application instances. Rated and reserved items are excluded in
+ * SQL; shown and dismissed ones are skipped in memory with the user's seen-item filter
+ * ({@link SeenItemService}). A reservation outlasts the filter's flush interval, so another
+ * instance never offers an item shown moments ago.
+ *
+ * Most of each page is drawn across categories by {@link CategorySampler}. The rest, and any
+ * shortfall, comes from the items in id order, starting after the last item the previous page got
+ * to ({@link User#getFeedScanPosition}) and wrapping around at the end of the catalog. Items behind
+ * the position are therefore not scanned again until every later item has been, which keeps the
+ * scan short however much of the catalog the user has been through, while items released unsent
+ * or added with lower ids are still offered on the next round.
+ */
+@Service
+public class FeedService {
+    // Bounds of the id range, in the database's unsigned byte order
+    private static final UUID FIRST_ID = new UUID(0, 0);
+    private static final UUID LAST_ID = new UUID(-1L, -1L);
+    // Candidates fetched per query at least, since most can be seen ones for a user deep into the catalog
+    private static final int MIN_SCAN_BATCH = 100;
+
+    private final ItemRepository itemRepository;
+    private final UserRepository userRepository;
+    private final FeedReservationRepository reservationRepository;
+    private final SeenItemService seenItemService;
+    private final CategorySampler categorySampler;
+    private final FeedConfig config;
+    private final FeedSamplingConfig samplingConfig;
+
+    public FeedService(ItemRepository itemRepository,
+                       UserRepository userRepository,
+                       FeedReservationRepository reservationRepository,
+                       SeenItemService seenItemService,
+                       CategorySampler categorySampler,
+                       FeedConfig config,
+                       FeedSamplingConfig samplingConfig) {
+        this.itemRepository = itemRepository;
+        this.userRepository = userRepository;
+        this.reservationRepository = reservationRepository;
+        this.seenItemService = seenItemService;
+        this.categorySampler = categorySampler;
+        this.config = config;
+        this.samplingConfig = samplingConfig;
+    }
+
+    /**
+     * Reserves and returns up to {@code size} unseen items, and records them as shown; fewer when
+     * the user is near the end of the catalog.
+     */
+    @Transactional
+    public FeedResponse nextPage(UUID userId, int size) {
+        FeedResponse page = reservePage(userId, size);
+        seenItemService.addToFilter(userId, page.items().stream().map(ItemResponse::id).toList());
+        return page;
+    }
+
+    /**
+     * Like {@link #nextPage} but does not record the items as shown, for callers that buffer
+     * items and record them once actually delivered.
+     */
+    @Transactional
+    public FeedResponse reservePage(UUID userId, int size) {
+        if (size < 1 || size > config.getMaxSize()) {
+            throw new IllegalArgumentException("Feed size must be between 1 and " + config.getMaxSize());
+        }
+        User user = userRepository.findLockedById(userId).orElseThrow(() -> new RuntimeException("User not found"));
+
+        LocalDateTime now = LocalDateTime.now();
+        reservationRepository.deleteExpired(userId, now);
+        List<ItemResponse> items = unseenCandidates(user, size);
+
+        LocalDateTime reservedUntil = now.plusMinutes(config.getReservationMinutes());
+        List<FeedReservation> reservations = new ArrayList<>(items.size());
+        for (ItemResponse item : items) {
+            reservations.add(new FeedReservation(userId, item.id(), reservedUntil));
+        }
+        reservationRepository.saveAll(reservations);
+        return new FeedResponse(items, reservedUntil);
+    }
+
+    // Category draws first, then the unseen items in id order from the user's scan position
+    private List<ItemResponse> unseenCandidates(User user, int size) {
+        ScalableBloomFilter seen = seenItemService.load(user.getId());
+        // Rounded at random so small pages, down to one item, still get the configured share on average
+        int sampledCount = (int) (size * samplingConfig.getSampledShare() + ThreadLocalRandom.current().nextDouble());
+        List<ItemResponse> items = sampledCandidates(user.getId(), seen, Math.min(sampledCount, size));
+        if (items.size() == size) {
+            return items;
+        }
+        Set<UUID> picked = new HashSet<>();
+        for (ItemResponse item : items) {
+            picked.add(item.id());
+        }
+        UUID position = user.getFeedScanPosition();
+        UUID reached = scan(user.getId(), seen, picked, items, size, position != null ? position : FIRST_ID, LAST_ID);
+        if (reached == null && position != null) {
+            // Past the end of the catalog: start over from the beginning, up to where this scan began
+            reached = scan(user.getId(), seen, picked, items, size, FIRST_ID, position);
+        }
+        user.setFeedScanPosition(reached);
+        return items;
+    }
+
+    // Adds unseen items with afterId < id <= upTo to the page until it is full. Returns the last
+    // item checked, or null when the range ran out first.
+    private UUID scan(UUID userId, ScalableBloomFilter seen, Set<UUID> picked, List<ItemResponse> items,
+                      int size, UUID afterId, UUID upTo) {
+        PageRequest batch = PageRequest.ofSize(Math.max(size * 2, MIN_SCAN_BATCH));
+        while (true) {
+            List<ItemResponse> candidates = itemRepository.findFeedCandidates(userId, afterId, upTo, batch);
+            for (ItemResponse candidate : candidates) {
+                afterId = candidate.id();
+                if (!picked.contains(candidate.id()) && !seen.mightContain(candidate.id())) {
+                    items.add(candidate);
+                    if (items.size() == size) {
+                        return afterId;
+                    }
+                }
+            }
+            if (candidates.size() < batch.getPageSize()) {
+                return null;
+            }
+        }
+    }
+
+    // Draws twice as many as wanted, since some will be rated or reserved already, and keeps the draw order
+    private List<ItemResponse> sampledCandidates(UUID userId, ScalableBloomFilter seen, int wanted) {
+        List<ItemResponse> items = new ArrayList<>();
+        if (wanted < 1 || !categorySampler.isReady()) {
+            return items;
+        }
+        List<UUID> sampled = categorySampler.sample(userId, seen, wanted * 2);
+        if (sampled.isEmpty()) {
+            return items;
+        }
+        Map<UUID, ItemResponse> available = itemRepository.findFeedCandidatesAmong(userId, sampled).stream()
+            .collect(Collectors.toMap(ItemResponse::id, Function.identity()));
+        for (UUID itemId : sampled) {
+            ItemResponse item = available.get(itemId);
+            if (item != null) {
+                items.add(item);
+                if (items.size() == wanted) {
+                    break;
+                }
+            }
+        }
+        return items;
+    }
+}
@@ -0,0 +1,177 @@
+package com.heartrate.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.heartrate.controller.dto.ItemResponse;
+
+/**
+ * State of one connected feed stream: the emitter, the credits granted by client
+ * acknowledgements and a buffer of at most {@code window} items already reserved for the user.
+ *
+ * Guarded by a {@link ReentrantLock} rather than {@code synchronized} so that virtual threads
+ * waiting on it are not pinned to a carrier thread. Writes to the emitter hold a separate
+ * {@link #getSendLock() send lock}, so that they never queue up on the emitter's monitor.
+ */
+public class FeedStream {
+    private final UUID id;
+    private final UUID userId;
+    private final int window;
+    private final SseEmitter emitter;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ReentrantLock sendLock = new ReentrantLock();
+    private final ArrayDeque<ItemResponse> buffer;
+    private int credits;
+    private boolean pumping;
+    // The last fetch returned fewer items than asked for; cleared by the next grant
+    private boolean drained;
+    private boolean closed;
+
+    FeedStream(UUID id, UUID userId, int window, SseEmitter emitter) {
+        this.id = id;
+        this.userId = userId;
+        this.window = window;
+        this.emitter = emitter;
+        this.buffer = new ArrayDeque<>(window);
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    public SseEmitter getEmitter() {
+        return emitter;
+    }
+
+    ReentrantLock getSendLock() {
+        return sendLock;
+    }
+
+    /**
+     * Adds credits, never more than the window in total.
+     *
+     * @return true if the caller must start the pump, false if one is running or the stream is closed
+     */
+    boolean grant(int count) {
+        lock.lock();
+        try {
+            if (closed) {
+                return false;
+            }
+            credits = Math.min(window, credits + count);
+            drained = false;
+            if (pumping) {
+                return false;
+            }
+            pumping = true;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return how many items the pump should fetch to keep the buffer ahead of the client, or 0
+     */
+    int refillSize() {
+        lock.lock();
+        try {
+            // Refill at half capacity, so selection of the next items overlaps with the user swiping
+            return closed || drained || buffer.size() > window / 2 ? 0 : window - buffer.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void addToBuffer(Collection<ItemResponse> items, int requested) {
+        lock.lock();
+        try {
+            buffer.addAll(items);
+            drained = items.size() < requested;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes the next buffered item and spends a credit on it.
+     *
+     * @return null when there is no credit, the buffer is empty or the stream is closed
+     */
+    ItemResponse take() {
+        lock.lock();
+        try {
+            if (closed || credits == 0 || buffer.isEmpty()) {
+                return null;
+            }
+            credits--;
+            return buffer.poll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return true if the buffer is empty and the user has no unseen items left
+     */
+    boolean isExhausted() {
+        lock.lock();
+        try {
+            return drained && buffer.isEmpty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ends a pump run unless credits arrived meanwhile that it still has to serve.
+     *
+     * @return true if the pump should keep running
+     */
+    boolean finishPumping() {
+        lock.lock();
+        try {
+            if (!closed && credits > 0 && !(drained && buffer.isEmpty())) {
+                return true;
+            }
+            pumping = false;
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Marks the stream closed.
+     *
+     * @return the reserved items that were never sent, or null if the stream was already closed
+     */
+    List<ItemResponse> close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return null;
+            }
+            closed = true;
+            List<ItemResponse> unsent = new ArrayList<>(buffer);
+            buffer.clear();
+            return unsent;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
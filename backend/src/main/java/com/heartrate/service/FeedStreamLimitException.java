@@ -0,0 +1,20 @@
+package com.heartrate.service;
+
+/**
+ * Thrown when a feed stream cannot be opened because a connection limit is reached.
+ */
+public class FeedStreamLimitException extends RuntimeException {
+    private final boolean perUser;
+
+    public FeedStreamLimitException(String message, boolean perUser) {
+        super(message);
+        this.perUser = perUser;
+    }
+
+    /**
+     * @return true if the user's own limit was hit, false if the server-wide one was
+     */
+    public boolean isPerUser() {
+        return perUser;
+    }
+}
@@ -0,0 +1,267 @@
+package com.heartrate.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.heartrate.config.FeedConfig;
+import com.heartrate.controller.dto.ItemResponse;
+import com.heartrate.repository.FeedReservationRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Pushes feed items to connected clients as server-sent events.
+ *
+ * A client opens a stream with a window of N items and receives up to N {@code item} events.
+ * Every acknowledgement grants credit for more, so a client that stops consuming stops
+ * receiving and never has more than N unacknowledged items in flight. Items are selected and
+ * reserved through {@link FeedService} ahead of the client, refilling once half of the
+ * per-stream buffer has been sent.
+ *
+ * Pumps and fetches run on virtual threads, so an idle stream holds no thread at all. The writes
+ * themselves run on a pool of {@code app.feed.stream-send-threads} platform threads: SseEmitter
+ * writes to the socket inside a {@code synchronized} block, which would pin a virtual thread to
+ * its carrier for as long as a slow client keeps the write blocked. A stream has at most one write
+ * in progress and a heartbeat skips a stream that is already writing, so a slow client ties up
+ * one send thread, and only while it is slow. Connections are capped server-wide and per user,
+ * and a stream's memory is bounded by its window.
+ */
+@Service
+public class FeedStreamService {
+    private static final Logger logger = LoggerFactory.getLogger(FeedStreamService.class);
+
+    private final FeedService feedService;
+    private final FeedReservationRepository reservationRepository;
+    private final SeenItemService seenItemService;
+    private final FeedConfig config;
+    private final Map<UUID, FeedStream> streams = new ConcurrentHashMap<>();
+    private final Map<UUID, Integer> streamsPerUser = new ConcurrentHashMap<>();
+    private final Semaphore connections;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ExecutorService sender;
+    private final ScheduledExecutorService heartbeats;
+
+    public FeedStreamService(FeedService feedService, FeedReservationRepository reservationRepository,
+                             SeenItemService seenItemService, FeedConfig config) {
+        this.feedService = feedService;
+        this.reservationRepository = reservationRepository;
+        this.seenItemService = seenItemService;
+        this.config = config;
+        this.connections = new Semaphore(config.getStreamMaxConnections());
+        this.sender = Executors.newFixedThreadPool(config.getStreamSendThreads(),
+            Thread.ofPlatform().daemon().name("feed-stream-send-", 0).factory());
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("feed-stream-heartbeat").factory());
+        long interval = config.getStreamHeartbeatSeconds();
+        heartbeats.scheduleWithFixedDelay(this::sendHeartbeats, interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Opens a stream and starts sending the first {@code window} items.
+     *
+     * @throws IllegalArgumentException if the window is out of range
+     * @throws FeedStreamLimitException if a connection limit is reached
+     */
+    public FeedStream open(UUID userId, int window) {
+        if (window < 1 || window > config.getMaxSize()) {
+            throw new IllegalArgumentException("Window must be between 1 and " + config.getMaxSize());
+        }
+        if (!connections.tryAcquire()) {
+            throw new FeedStreamLimitException("Too many open feed streams", false);
+        }
+        boolean[] admitted = new boolean[1];
+        streamsPerUser.compute(userId, (id, count) -> {
+            int open = count == null ? 0 : count;
+            admitted[0] = open < config.getStreamMaxConnectionsPerUser();
+            return admitted[0] ? open + 1 : count;
+        });
+        if (!admitted[0]) {
+            connections.release();
+            throw new FeedStreamLimitException("Too many open feed streams for this user", true);
+        }
+
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(config.getStreamTimeoutMinutes()));
+        FeedStream stream = new FeedStream(UUID.randomUUID(), userId, window, emitter);
+        streams.put(stream.getId(), stream);
+        emitter.onCompletion(() -> close(stream));
+        emitter.onTimeout(() -> close(stream));
+        emitter.onError(error -> close(stream));
+
+        executor.execute(() -> {
+            try {
+                send(stream, SseEmitter.event().name("ready")
+                    .data(Map.of("streamId", stream.getId(), "window", window), MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException e) {
+                close(stream);
+                return;
+            }
+            grant(stream, window);
+        });
+        return stream;
+    }
+
+    /**
+     * Grants credit for {@code count} more items.
+     *
+     * @return false if the stream does not exist or belongs to another user
+     */
+    public boolean acknowledge(UUID streamId, UUID userId, int count) {
+        FeedStream stream = streams.get(streamId);
+        if (stream == null || !stream.getUserId().equals(userId)) {
+            return false;
+        }
+        grant(stream, Math.max(1, count));
+        return true;
+    }
+
+    public int openStreams() {
+        return streams.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeats.shutdownNow();
+        streams.values().forEach(stream -> stream.getEmitter().complete());
+        executor.shutdown();
+        sender.shutdown();
+    }
+
+    private void grant(FeedStream stream, int count) {
+        if (stream.grant(count)) {
+            executor.execute(() -> pump(stream));
+        }
+    }
+
+    // Runs on a virtual thread; FeedStream guarantees there is at most one pump per stream
+    private void pump(FeedStream stream) {
+        List<UUID> sent = new ArrayList<>();
+        try {
+            do {
+                while (true) {
+                    int refill = stream.refillSize();
+                    if (refill > 0) {
+                        stream.addToBuffer(feedService.reservePage(stream.getUserId(), refill).items(), refill);
+                    }
+                    ItemResponse item = stream.take();
+                    if (item == null) {
+                        if (stream.isExhausted()) {
+                            send(stream, SseEmitter.event().name("exhausted").data(""));
+                        }
+                        break;
+                    }
+                    try {
+                        send(stream, SseEmitter.event()
+                            .name("item")
+                            .id(item.id().toString())
+                            .data(item, MediaType.APPLICATION_JSON));
+                    } catch (IOException | RuntimeException e) {
+                        // Taken from the buffer, so closing the stream does not release it
+                        releaseUnsent(stream, List.of(item.id()));
+                        throw e;
+                    }
+                    sent.add(item.id());
+                }
+            } while (stream.finishPumping());
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; the emitter callbacks close the stream
+            stream.getEmitter().completeWithError(e);
+        } catch (RuntimeException e) {
+            logger.warn("Feed stream {} failed: {}", stream.getId(), e.getMessage());
+            stream.getEmitter().completeWithError(e);
+        } finally {
+            recordShown(stream, sent);
+        }
+    }
+
+    // Only delivered items count as shown; reserved but unsent ones are released on close
+    private void recordShown(FeedStream stream, List<UUID> sent) {
+        if (sent.isEmpty()) {
+            return;
+        }
+        try {
+            seenItemService.addToFilter(stream.getUserId(), sent);
+        } catch (RuntimeException e) {
+            logger.warn("Could not record items shown on feed stream {}: {}", stream.getId(), e.getMessage());
+        }
+    }
+
+    // Waits on a send thread; the stream's send lock keeps its writes one at a time
+    private void send(FeedStream stream, SseEmitter.SseEventBuilder event) throws IOException {
+        try {
+            sender.submit(() -> {
+                stream.getSendLock().lock();
+                try {
+                    stream.getEmitter().send(event);
+                } finally {
+                    stream.getSendLock().unlock();
+                }
+                return null;
+            }).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while sending", e);
+        }
+    }
+
+    // A stream that is writing needs no keepalive, and waiting for it would hold a send thread
+    private void sendHeartbeats() {
+        for (FeedStream stream : streams.values()) {
+            sender.execute(() -> {
+                if (!stream.getSendLock().tryLock()) {
+                    return;
+                }
+                try {
+                    stream.getEmitter().send(SseEmitter.event().comment("keepalive"));
+                } catch (IOException | IllegalStateException e) {
+                    stream.getEmitter().completeWithError(e);
+                } finally {
+                    stream.getSendLock().unlock();
+                }
+            });
+        }
+    }
+
+    private void releaseUnsent(FeedStream stream, List<UUID> itemIds) {
+        try {
+            reservationRepository.release(stream.getUserId(), itemIds);
+        } catch (RuntimeException e) {
+            logger.warn("Could not release items not sent on feed stream {}: {}", stream.getId(), e.getMessage());
+        }
+    }
+
+    private void close(FeedStream stream) {
+        List<ItemResponse> unsent = stream.close();
+        if (unsent == null) {
+            return;
+        }
+        streams.remove(stream.getId());
+        streamsPerUser.computeIfPresent(stream.getUserId(), (id, count) -> count > 1 ? count - 1 : null);
+        connections.release();
+        if (!unsent.isEmpty()) {
+            executor.execute(() -> releaseUnsent(stream, unsent.stream().map(ItemResponse::id).toList()));
+        }
+    }
+}
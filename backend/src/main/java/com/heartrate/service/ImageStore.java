@@ -0,0 +1,363 @@
+package com.heartrate.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.heartrate.blob.BlobStore;
+import com.heartrate.config.UploadConfig;
+import com.heartrate.model.ImageBlob;
+import com.heartrate.repository.ImageBlobRepository;
+import com.heartrate.upload.DigestingFileWriter;
+import com.heartrate.upload.SizeLimitExceededException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Item images, each content stored once in the {@link BlobStore} chosen by
+ * {@code app.blob-store.type}.
+ *
+ * Uploads are streamed from the request straight into a staging file under
+ * {@code app.uploads.directory}, hashed and size-checked on the way through one fixed buffer. At
+ * most {@code app.uploads.max-concurrent-writes} uploads write a buffer to disk at once; the
+ * others wait up to {@code write-wait-ms} for a slot and are then turned away as busy. A slot is
+ * taken per buffer once it has been read, so clients that send slowly do not hold any.
+ *
+ * A staged image is then stored under its SHA-256 digest, so a photo uploaded a thousand times
+ * takes the disk space of one: a duplicate's staging file is just deleted. An {@link ImageBlob}
+ * row counts the items using each image. A reference is taken in the transaction that saves the
+ * item, under the row's lock, and the blob is stored while that lock is held; references are
+ * dropped once the transaction that removes them has committed, and the last one deletes the
+ * blob under the same lock. A blob is therefore never deleted while an item refers to it; at
+ * worst it outlives its last reference if the release fails.
+ */
+@Component
+public class ImageStore {
+    private static final Logger logger = LoggerFactory.getLogger(ImageStore.class);
+    public static final String URL_PREFIX = "/uploads/images/";
+    private static final int DIGEST_LENGTH = 64;
+    private static final Map<String, String> EXTENSIONS = Map.of(
+        "image/jpeg", ".jpg",
+        "image/png", ".png",
+        "image/gif", ".gif",
+        "image/webp", ".webp",
+        "image/heic", ".heic");
+
+    private final UploadConfig config;
+    private final ImageBlobRepository imageBlobRepository;
+    private final BlobStore blobStore;
+    private final TransactionTemplate newTransaction;
+    private final Path stagingDirectory;
+    private final Semaphore writeSlots;
+    private final DigestingFileWriter.WriteGate writeGate = new DigestingFileWriter.WriteGate() {
+        // Throws UploadRejectedException if no slot comes free within app.uploads.write-wait-ms
+        @Override
+        public void enter() {
+            try {
+                if (writeSlots.tryAcquire(config.getWriteWaitMs(), TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new UploadRejectedException(UploadRejectedException.Reason.BUSY, "Too many uploads in progress");
+        }
+
+        @Override
+        public void exit() {
+            writeSlots.release();
+        }
+    };
+    private final Counter storedNew;
+    private final Counter storedDuplicate;
+
+    public ImageStore(UploadConfig config, ImageBlobRepository imageBlobRepository, BlobStore blobStore,
+                      PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.imageBlobRepository = imageBlobRepository;
+        this.blobStore = blobStore;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.stagingDirectory = Paths.get(config.getDirectory()).toAbsolutePath().normalize().resolve(".partial");
+        this.writeSlots = new Semaphore(config.getMaxConcurrentWrites(), true);
+        this.storedNew = Counter.builder("images.stored").tag("result", "new").register(meterRegistry);
+        this.storedDuplicate = Counter.builder("images.stored").tag("result", "duplicate").register(meterRegistry);
+        try {
+            Files.createDirectories(stagingDirectory);
+            // Resumable uploads do not survive a restart, so their partial files are dead
+            try (Stream<Path> leftovers = Files.list(stagingDirectory)) {
+                for (Path leftover : (Iterable<Path>) leftovers::iterator) {
+                    Files.deleteIfExists(leftover);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create the directory where the uploaded files will be stored", e);
+        }
+    }
+
+    /**
+     * A completely received image, not yet stored; see {@link #reference}.
+     *
+     * @param sha256 the digest of its bytes, in lower-case hex
+     */
+    public record StagedImage(Path file, String contentType, String sha256, long size) {
+    }
+
+    /**
+     * @return whether images of the content type can be stored
+     */
+    public static boolean isSupported(String contentType) {
+        return contentType != null && EXTENSIONS.containsKey(baseType(contentType));
+    }
+
+    /**
+     * Streams one whole image into a staging file.
+     *
+     * @param expectedSha256 hex digest the bytes must have, or null
+     * @throws UploadRejectedException if the type is unsupported, the image too large or its
+     *         digest wrong, or no write slot came free in time
+     */
+    public StagedImage stage(InputStream input, String contentType, String expectedSha256) throws IOException {
+        checkSupported(contentType);
+        Path staged = stagingDirectory.resolve(UUID.randomUUID() + ".part");
+        String sha256;
+        long size;
+        try (DigestingFileWriter writer = DigestingFileWriter.create(staged, writeGate)) {
+            writer.append(input, config.getMaxFileSize(), newBuffer());
+            size = writer.size();
+            sha256 = writer.finish();
+        } catch (SizeLimitExceededException e) {
+            discard(staged);
+            throw new UploadRejectedException(UploadRejectedException.Reason.TOO_LARGE, e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            discard(staged);
+            throw e;
+        }
+        return checked(new StagedImage(staged, contentType, sha256, size), expectedSha256);
+    }
+
+    /**
+     * Adds a reference to the image for an item being saved in the current transaction, storing
+     * the staging file if no item uses the image yet. The caller discards the staging file
+     * afterwards either way.
+     *
+     * @return the URL to keep in {@code Item.imageUrl}
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public String reference(StagedImage image) {
+        ImageBlob blob = lockBlob(image);
+        try {
+            if (blobStore.put(image.sha256(), image.file())) {
+                storedNew.increment();
+            } else {
+                storedDuplicate.increment();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store image " + image.sha256(), e);
+        }
+        blob.setReferenceCount(blob.getReferenceCount() + 1);
+        // The blob may have been stored for nothing if the item is not saved after all
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    release(image.sha256(), 0);
+                }
+            }
+        });
+        return URL_PREFIX + image.sha256() + EXTENSIONS.get(baseType(image.contentType()));
+    }
+
+    /**
+     * Drops an item's reference to the image at the URL once the current transaction commits, or
+     * straight away outside one. URLs not of this store, such as external images, are ignored.
+     */
+    public void releaseAfterCommit(String imageUrl) {
+        String sha256 = digestOf(imageUrl);
+        if (sha256 == null) {
+            return;
+        }
+        AfterCommit.run(() -> release(sha256, 1));
+    }
+
+    /**
+     * @return the bytes of the image at a URL of this store, or null if there is no such image
+     */
+    public ByteBuffer read(String imageUrl) throws IOException {
+        String sha256 = digestOf(imageUrl);
+        return sha256 != null ? blobStore.get(sha256) : null;
+    }
+
+    /**
+     * @return the content type named by the extension of an image URL of this store
+     */
+    public static String contentTypeOf(String imageUrl) {
+        int extension = imageUrl.lastIndexOf('.');
+        if (extension >= 0) {
+            String suffix = imageUrl.substring(extension);
+            for (Map.Entry<String, String> entry : EXTENSIONS.entrySet()) {
+                if (entry.getValue().equals(suffix)) {
+                    return entry.getKey();
+                }
+            }
+        }
+        return "application/octet-stream";
+    }
+
+    /**
+     * Whether a client-supplied image URL points into this store. Such URLs must be refused: only
+     * an upload takes a reference, and an item holding one without it would outlive the blob.
+     */
+    public static boolean isStoreUrl(String imageUrl) {
+        return imageUrl != null && imageUrl.startsWith(URL_PREFIX);
+    }
+
+    /**
+     * @return the digest of the image at a URL of this store, or null for other URLs
+     */
+    public static String digestOf(String imageUrl) {
+        if (imageUrl == null || !imageUrl.startsWith(URL_PREFIX)) {
+            return null;
+        }
+        String name = imageUrl.substring(URL_PREFIX.length());
+        if (name.length() < DIGEST_LENGTH || (name.length() > DIGEST_LENGTH && name.charAt(DIGEST_LENGTH) != '.')) {
+            return null;
+        }
+        String sha256 = name.substring(0, DIGEST_LENGTH);
+        for (int i = 0; i < sha256.length(); i++) {
+            if (Character.digit(sha256.charAt(i), 16) < 0 || Character.isUpperCase(sha256.charAt(i))) {
+                return null;
+            }
+        }
+        return sha256;
+    }
+
+    /**
+     * @throws UploadRejectedException if images of the content type cannot be stored
+     */
+    void checkSupported(String contentType) {
+        if (!isSupported(contentType)) {
+            throw new UploadRejectedException(UploadRejectedException.Reason.UNSUPPORTED_TYPE,
+                "Images must be one of " + EXTENSIONS.keySet());
+        }
+    }
+
+    // Staging files of resumable uploads, see ImageUploadService
+
+    Path stagingFile(UUID uploadId) {
+        return stagingDirectory.resolve(uploadId + ".part");
+    }
+
+    DigestingFileWriter createStaged(UUID uploadId) throws IOException {
+        return DigestingFileWriter.create(stagingFile(uploadId), writeGate);
+    }
+
+    DigestingFileWriter resumeStaged(UUID uploadId, MessageDigest digest, long size) throws IOException {
+        return DigestingFileWriter.resume(stagingFile(uploadId), digest, size, writeGate);
+    }
+
+    /**
+     * The completely written staging file of a resumable upload.
+     *
+     * @throws UploadRejectedException if the digest is not the expected one; the file is deleted
+     */
+    StagedImage staged(UUID uploadId, String contentType, String sha256, long size, String expectedSha256) {
+        return checked(new StagedImage(stagingFile(uploadId), contentType, sha256, size), expectedSha256);
+    }
+
+    void discard(StagedImage image) {
+        discard(image.file());
+    }
+
+    void discard(Path staged) {
+        try {
+            Files.deleteIfExists(staged);
+        } catch (IOException e) {
+            logger.warn("Could not delete staged upload {}", staged, e);
+        }
+    }
+
+    byte[] newBuffer() {
+        return new byte[config.getBufferSize()];
+    }
+
+    private StagedImage checked(StagedImage image, String expectedSha256) {
+        if (expectedSha256 != null && !expectedSha256.equalsIgnoreCase(image.sha256())) {
+            discard(image);
+            throw new UploadRejectedException(UploadRejectedException.Reason.DIGEST_MISMATCH,
+                "Uploaded image has SHA-256 " + image.sha256());
+        }
+        return image;
+    }
+
+    // The image's row, locked; created first in a transaction of its own if this is a new image,
+    // so that concurrent first uploads of the same image do not fail the item's transaction
+    private ImageBlob lockBlob(StagedImage image) {
+        return imageBlobRepository.findLockedBySha256(image.sha256()).orElseGet(() -> {
+            try {
+                newTransaction.executeWithoutResult(status ->
+                    imageBlobRepository.saveAndFlush(new ImageBlob(image.sha256(), image.size(), image.contentType())));
+            } catch (DataIntegrityViolationException e) {
+                // Created concurrently
+            }
+            return imageBlobRepository.findLockedBySha256(image.sha256())
+                .orElseThrow(() -> new IllegalStateException("Image " + image.sha256() + " vanished while being stored"));
+        });
+    }
+
+    // Drops references to the image, deleting it once it has none
+    private void release(String sha256, int references) {
+        try {
+            newTransaction.executeWithoutResult(status -> {
+                ImageBlob blob = imageBlobRepository.findLockedBySha256(sha256).orElse(null);
+                if (blob == null) {
+                    return;
+                }
+                int remaining = Math.max(0, blob.getReferenceCount() - references);
+                if (remaining > 0) {
+                    blob.setReferenceCount(remaining);
+                    return;
+                }
+                // Deleted before the row, under its lock: a new reference taken after this
+                // commits finds no row and stores the blob again
+                try {
+                    blobStore.delete(sha256);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not delete image " + sha256, e);
+                }
+                imageBlobRepository.delete(blob);
+            });
+        } catch (RuntimeException e) {
+            logger.warn("Could not release image {}; its blob may be left behind", sha256, e);
+        }
+    }
+
+    // "image/jpeg; charset=..." -> "image/jpeg"
+    private static String baseType(String contentType) {
+        int parameters = contentType.indexOf(';');
+        return (parameters < 0 ? contentType : contentType.substring(0, parameters)).trim().toLowerCase();
+    }
+}
@@ -0,0 +1,217 @@
+package com.heartrate.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.heartrate.config.UploadConfig;
+import com.heartrate.controller.dto.UploadStatusResponse;
+import com.heartrate.model.Item;
+import com.heartrate.upload.DigestingFileWriter;
+import com.heartrate.upload.SizeLimitExceededException;
+
+/**
+ * Resumable item image uploads for clients on unreliable connections.
+ *
+ * An upload is opened with its final size and then sent in chunks, each at the offset the server
+ * reports; a chunk cut off by a dropped connection keeps the bytes that arrived, so the client
+ * asks for the offset and continues from there. Chunks are appended to a staging file of
+ * {@link ImageStore} and hashed as they arrive. Between chunks an upload holds only its offset
+ * and the SHA-256 state, not an open file; when the last byte arrives the image is stored and
+ * becomes the item's image.
+ *
+ * Uploads are kept in memory and dropped, with any staging file, after
+ * {@code app.uploads.resumable-ttl} without a request or on restart.
+ */
+@Service
+public class ImageUploadService {
+    private static final Logger logger = LoggerFactory.getLogger(ImageUploadService.class);
+
+    private final ImageStore imageStore;
+    private final ItemService itemService;
+    private final UploadConfig config;
+    private final Cache<UUID, PendingUpload> uploads;
+
+    public ImageUploadService(ImageStore imageStore, ItemService itemService, UploadConfig config) {
+        this.imageStore = imageStore;
+        this.itemService = itemService;
+        this.config = config;
+        this.uploads = Caffeine.newBuilder()
+            .expireAfterAccess(config.getResumableTtl())
+            .scheduler(Scheduler.systemScheduler())
+            .<UUID, PendingUpload>removalListener((uploadId, upload, cause) -> {
+                if (cause == RemovalCause.EXPIRED && uploadId != null) {
+                    logger.info("Resumable upload {} expired at {} bytes", uploadId, upload.size);
+                    imageStore.discard(imageStore.stagingFile(uploadId));
+                }
+            })
+            .build();
+    }
+
+    /**
+     * Opens an upload of {@code size} bytes for the item.
+     *
+     * @param sha256 hex digest the complete image must have, or null
+     * @throws UploadRejectedException if the item does not exist, the type is unsupported, the
+     *         size too large or too many uploads are open
+     */
+    public UploadStatusResponse begin(UUID userId, UUID itemId, String contentType, long size, String sha256) throws IOException {
+        imageStore.checkSupported(contentType);
+        if (size > config.getMaxFileSize()) {
+            throw new UploadRejectedException(UploadRejectedException.Reason.TOO_LARGE,
+                "File is larger than " + config.getMaxFileSize() + " bytes");
+        }
+        if (itemService.findById(itemId).isEmpty()) {
+            throw new UploadRejectedException(UploadRejectedException.Reason.NOT_FOUND, "Item not found");
+        }
+        if (uploads.estimatedSize() >= config.getMaxResumableUploads()) {
+            throw new UploadRejectedException(UploadRejectedException.Reason.BUSY, "Too many uploads in progress");
+        }
+        UUID uploadId = UUID.randomUUID();
+        PendingUpload upload;
+        try (DigestingFileWriter writer = imageStore.createStaged(uploadId)) {
+            upload = new PendingUpload(userId, itemId, contentType, size, sha256, writer.digest());
+        }
+        uploads.put(uploadId, upload);
+        return upload.status(uploadId);
+    }
+
+    /**
+     * @throws UploadRejectedException if the user has no such upload open
+     */
+    public UploadStatusResponse status(UUID userId, UUID uploadId) {
+        return find(userId, uploadId).status(uploadId);
+    }
+
+    /**
+     * Appends a chunk at {@code offset}, completing the upload with its last byte.
+     *
+     * @return the upload's state after the chunk, with the item's image URL once complete
+     * @throws UploadRejectedException if the user has no such upload open, the offset is not the
+     *         upload's, another chunk is being written, the chunk runs past the declared size, the
+     *         complete image has the wrong digest or no write slot came free in time
+     * @throws IOException if the chunk could not be read completely; the bytes that were read are
+     *         kept, as they are when a write slot does not come free part way
+     */
+    public UploadStatusResponse append(UUID userId, UUID uploadId, long offset, InputStream chunk) throws IOException {
+        PendingUpload upload = find(userId, uploadId);
+        if (!upload.lock.tryLock()) {
+            throw new UploadRejectedException(UploadRejectedException.Reason.CONFLICT, "Another chunk is being written");
+        }
+        try {
+            if (upload.cancelled) {
+                throw new UploadRejectedException(UploadRejectedException.Reason.NOT_FOUND, "Upload not found");
+            }
+            if (offset != upload.size || upload.imageUrl != null) {
+                throw new UploadRejectedException(UploadRejectedException.Reason.CONFLICT,
+                    "Upload is at offset " + upload.size);
+            }
+            String sha256 = write(uploadId, upload, chunk);
+            if (sha256 != null) {
+                complete(uploadId, upload, sha256);
+            }
+            return upload.status(uploadId);
+        } finally {
+            upload.lock.unlock();
+        }
+    }
+
+    /**
+     * Abandons the upload and deletes what was received; a completed upload is left as it is.
+     *
+     * @throws UploadRejectedException if the user has no such upload open
+     */
+    public void cancel(UUID userId, UUID uploadId) {
+        PendingUpload upload = find(userId, uploadId);
+        upload.lock.lock();
+        try {
+            if (!upload.cancelled && upload.imageUrl == null) {
+                upload.cancelled = true;
+                uploads.invalidate(uploadId);
+                imageStore.discard(imageStore.stagingFile(uploadId));
+            }
+        } finally {
+            upload.lock.unlock();
+        }
+    }
+
+    // Publishes the image; a failed upload is forgotten, a completed one is kept until it expires
+    // so that a client that missed the last response can still learn the outcome
+    private void complete(UUID uploadId, PendingUpload upload, String sha256) {
+        try {
+            ImageStore.StagedImage image = imageStore.staged(
+                uploadId, upload.contentType, sha256, upload.size, upload.expectedSha256);
+            Item item = itemService.attachImage(upload.itemId, image);
+            upload.imageUrl = item.getImageUrl();
+        } catch (RuntimeException e) {
+            upload.cancelled = true;
+            uploads.invalidate(uploadId);
+            throw e;
+        }
+    }
+
+    // Appends the chunk; returns the digest if that completed the upload, otherwise null
+    private String write(UUID uploadId, PendingUpload upload, InputStream chunk) throws IOException {
+        try (DigestingFileWriter writer = imageStore.resumeStaged(uploadId, upload.digest, upload.size)) {
+            try {
+                writer.append(chunk, upload.totalSize, imageStore.newBuffer());
+            } catch (SizeLimitExceededException e) {
+                throw new UploadRejectedException(UploadRejectedException.Reason.TOO_LARGE,
+                    "Chunk runs past the upload's size of " + upload.totalSize + " bytes");
+            } finally {
+                upload.size = writer.size();
+            }
+            return upload.size == upload.totalSize ? writer.finish() : null;
+        }
+    }
+
+    private PendingUpload find(UUID userId, UUID uploadId) {
+        PendingUpload upload = uploads.getIfPresent(uploadId);
+        if (upload == null || !upload.userId.equals(userId)) {
+            throw new UploadRejectedException(UploadRejectedException.Reason.NOT_FOUND, "Upload not found");
+        }
+        return upload;
+    }
+
+    /**
+     * An open or completed upload. Changes are made under the lock; the status is read without it.
+     */
+    private static final class PendingUpload {
+        private final UUID userId;
+        private final UUID itemId;
+        private final String contentType;
+        private final long totalSize;
+        private final String expectedSha256;
+        // Hash of the bytes received so far
+        private final MessageDigest digest;
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile long size;
+        // Set once the upload is complete
+        private volatile String imageUrl;
+        private boolean cancelled;
+
+        PendingUpload(UUID userId, UUID itemId, String contentType, long totalSize, String expectedSha256, MessageDigest digest) {
+            this.userId = userId;
+            this.itemId = itemId;
+            this.contentType = contentType;
+            this.totalSize = totalSize;
+            this.expectedSha256 = expectedSha256;
+            this.digest = digest;
+        }
+
+        UploadStatusResponse status(UUID uploadId) {
+            String url = imageUrl;
+            return new UploadStatusResponse(uploadId, itemId, size, totalSize, url != null, url);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.heartrate.service;
+
+import com.heartrate.model.Item;
+
+import jakarta.persistence.PostRemove;
+
+/**
+ * Drops a deleted item's reference to its image in {@link ImageStore}, so that the image file goes
+ * once no item uses it.
+ */
+public class ItemImageListener extends ServiceEntityListener<ImageStore> {
+
+    @PostRemove
+    public void afterRemove(Item item) {
+        // The store defers the release itself, as saving an item with a new image does too
+        String imageUrl = item.getImageUrl();
+        now(store -> store.releaseAfterCommit(imageUrl));
+    }
+}
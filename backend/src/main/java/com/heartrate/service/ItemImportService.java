@@ -0,0 +1,206 @@
+package com.heartrate.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.heartrate.config.ItemImportConfig;
+import com.heartrate.controller.dto.ItemFromUrlRequest;
+import com.heartrate.controller.dto.ItemImportResult;
+import com.heartrate.importer.FeedFormatException;
+import com.heartrate.importer.ItemFeedReader;
+import com.heartrate.model.Item;
+import com.heartrate.model.ItemImportCheckpoint;
+import com.heartrate.repository.ItemImportCheckpointRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+/**
+ * Streams item feeds into the catalog.
+ *
+ * Rows are parsed one at a time and grouped into chunks. Each chunk is validated in parallel and
+ * then inserted in a single transaction through Hibernate JDBC batching (see
+ * {@code hibernate.jdbc.batch_size}). The import checkpoint is advanced in that same transaction,
+ * so re-running a failed import with the same id skips exactly the rows that were committed.
+ */
+@Service
+public class ItemImportService {
+    private static final Logger logger = LoggerFactory.getLogger(ItemImportService.class);
+    private static final int PROGRESS_LOG_INTERVAL_CHUNKS = 50;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ItemImportCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ItemImportConfig config;
+
+    public ItemImportService(ItemImportCheckpointRepository checkpointRepository,
+                             PlatformTransactionManager transactionManager,
+                             Validator validator,
+                             ItemImportConfig config) {
+        this.checkpointRepository = checkpointRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.config = config;
+    }
+
+    /**
+     * Imports every row of the feed, resuming after the last checkpoint if {@code importId} was
+     * used before.
+     *
+     * @param format "csv" or "ndjson"
+     * @throws FeedFormatException if the feed header is invalid
+     */
+    public ItemImportResult importItems(InputStream input, String format, UUID importId) throws IOException {
+        long startNanos = System.nanoTime();
+        ItemImportCheckpoint checkpoint = inBulkTransaction(status -> checkpointRepository.findById(importId)
+            .orElseGet(() -> new ItemImportCheckpoint(importId)));
+        long resumeAfter = checkpoint.getRowsProcessed();
+        if (resumeAfter > 0) {
+            logger.info("Resuming item import {} after row {}", importId, resumeAfter);
+        }
+
+        List<String> errors = new ArrayList<>();
+        List<Row> chunk = new ArrayList<>(config.getChunkSize());
+        long rowNumber = 0;
+        long chunks = 0;
+
+        try (ItemFeedReader reader = ItemFeedReader.open(input, format)) {
+            while (true) {
+                Row row;
+                rowNumber++;
+                try {
+                    ItemFromUrlRequest request = reader.next();
+                    if (request == null) {
+                        break;
+                    }
+                    row = new Row(rowNumber, request, null);
+                } catch (FeedFormatException e) {
+                    row = new Row(rowNumber, null, e.getMessage());
+                }
+
+                if (rowNumber <= resumeAfter) {
+                    continue;
+                }
+                chunk.add(row);
+                if (chunk.size() == config.getChunkSize()) {
+                    checkpoint = commitChunk(chunk, checkpoint, errors);
+                    chunk.clear();
+                    if (++chunks % PROGRESS_LOG_INTERVAL_CHUNKS == 0) {
+                        logger.info("Item import {}: {} rows processed, {} rows/s", importId,
+                            checkpoint.getRowsProcessed(), rowsPerSecond(checkpoint.getRowsProcessed() - resumeAfter, startNanos));
+                    }
+                }
+            }
+            if (!chunk.isEmpty()) {
+                checkpoint = commitChunk(chunk, checkpoint, errors);
+            }
+        }
+
+        long elapsedNanos = System.nanoTime() - startNanos;
+        long processedNow = checkpoint.getRowsProcessed() - resumeAfter;
+        ItemImportResult result = new ItemImportResult(
+            importId,
+            checkpoint.getRowsProcessed(),
+            checkpoint.getRowsImported(),
+            checkpoint.getRowsRejected(),
+            Math.min(resumeAfter, rowNumber - 1),
+            elapsedNanos / 1_000_000,
+            rowsPerSecond(processedNow, startNanos),
+            errors
+        );
+        logger.info("Item import {} finished: {} imported, {} rejected, {} rows/s", importId,
+            result.rowsImported(), result.rowsRejected(), result.rowsPerSecond());
+        return result;
+    }
+
+    private ItemImportCheckpoint commitChunk(List<Row> chunk, ItemImportCheckpoint checkpoint, List<String> errors) {
+        // Bean validation is CPU bound and independent per row, so spread it over the common pool
+        List<String> violations = chunk.parallelStream().map(this::validate).toList();
+
+        return inBulkTransaction(status -> {
+            long imported = 0;
+            long rejected = 0;
+            for (int i = 0; i < chunk.size(); i++) {
+                Row row = chunk.get(i);
+                String violation = violations.get(i);
+                if (violation != null) {
+                    rejected++;
+                    if (errors.size() < config.getMaxReportedErrors()) {
+                        errors.add("row " + row.number() + ": " + violation);
+                    }
+                    continue;
+                }
+                Item item = new Item();
+                item.setName(row.request().getName());
+                item.setDescription(row.request().getDescription());
+                item.setImageUrl(row.request().getImageUrl());
+                entityManager.persist(item);
+                imported++;
+            }
+            // Send the batched inserts, then drop the persisted items from the persistence context
+            entityManager.flush();
+            entityManager.clear();
+
+            checkpoint.setRowsProcessed(checkpoint.getRowsProcessed() + chunk.size());
+            checkpoint.setRowsImported(checkpoint.getRowsImported() + imported);
+            checkpoint.setRowsRejected(checkpoint.getRowsRejected() + rejected);
+            checkpoint.setUpdatedAt(LocalDateTime.now());
+            return checkpointRepository.save(checkpoint);
+        });
+    }
+
+    // Runs the action in its own transaction with the cache mode set before anything is read.
+    // Bulk rows would only churn the second-level cache; writes still invalidate cached queries.
+    private <T> T inBulkTransaction(TransactionCallback<T> action) {
+        return transactionTemplate.execute(status -> {
+            entityManager.unwrap(Session.class).setCacheMode(CacheMode.IGNORE);
+            return action.doInTransaction(status);
+        });
+    }
+
+    private String validate(Row row) {
+        if (row.error() != null) {
+            return row.error();
+        }
+        Set<ConstraintViolation<ItemFromUrlRequest>> violations = validator.validate(row.request());
+        if (violations.isEmpty()) {
+            return ImageStore.isStoreUrl(row.request().getImageUrl())
+                ? "Image URL must not point to an uploaded image" : null;
+        }
+        StringBuilder message = new StringBuilder();
+        for (ConstraintViolation<ItemFromUrlRequest> violation : violations) {
+            if (message.length() > 0) {
+                message.append("; ");
+            }
+            message.append(violation.getMessage());
+        }
+        return message.toString();
+    }
+
+    private static double rowsPerSecond(long rows, long startNanos) {
+        long elapsedNanos = Math.max(1, System.nanoTime() - startNanos);
+        return Math.round(rows * 1_000_000_000d / elapsedNanos * 10) / 10.0;
+    }
+
+    private record Row(long number, ItemFromUrlRequest request, String error) {
+    }
+}
@@ -0,0 +1,155 @@
+package com.heartrate.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.heartrate.config.NearbyConfig;
+import com.heartrate.controller.dto.NearbyItemResponse;
+import com.heartrate.geo.GeoQuadTree;
+import com.heartrate.model.Item;
+import com.heartrate.repository.ItemRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Item locations in a {@link GeoQuadTree}, for nearby queries without a spatial database.
+ *
+ * The tree is filled from the database on a background thread once the application has started;
+ * until then {@link #isReady()} is false. A failed load is retried with exponential backoff, from
+ * {@code app.nearby.load-retry-initial-ms} up to {@code app.nearby.load-retry-max-ms}. Every item
+ * write through JPA updates it through {@link ItemLocationListener} once the writing transaction
+ * commits, so rolled-back writes never reach it; writes committed while it is loading are held
+ * back and replayed on top of the loaded tree, so the load never overwrites them with the
+ * locations it read before. Results are still resolved against the database (through the
+ * second-level cache), which drops items deleted in the meantime.
+ */
+@Component
+public class ItemLocationIndex {
+    private static final Logger logger = LoggerFactory.getLogger(ItemLocationIndex.class);
+
+    private final ItemRepository itemRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final NearbyConfig config;
+    private final Object loadLock = new Object();
+    // Writes seen while loading, in order; null once the tree is live
+    private List<Runnable> heldBack = new ArrayList<>();
+    private volatile GeoQuadTree tree = new GeoQuadTree();
+    private final ScheduledExecutorService loadThread;
+    private volatile boolean ready;
+
+    public ItemLocationIndex(ItemRepository itemRepository, PlatformTransactionManager transactionManager, NearbyConfig config) {
+        this.itemRepository = itemRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.config = config;
+        this.loadThread = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("item-location-load").factory());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        loadThread.execute(() -> load(config.getLoadRetryInitialMs()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loadThread.shutdownNow();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Up to {@code limit} items within {@code radiusMeters} of the location, nearest first.
+     *
+     * @throws IllegalArgumentException if a parameter is out of range
+     */
+    public List<NearbyItemResponse> nearby(double latitude, double longitude, double radiusMeters, int limit) {
+        if (!(latitude >= -90 && latitude <= 90) || !(longitude >= -180 && longitude <= 180)) {
+            throw new IllegalArgumentException("Latitude must be between -90 and 90 and longitude between -180 and 180");
+        }
+        if (!(radiusMeters > 0 && radiusMeters <= config.getMaxRadiusMeters())) {
+            throw new IllegalArgumentException("Radius must be between 0 and " + (long) config.getMaxRadiusMeters() + " metres");
+        }
+        if (limit < 1 || limit > config.getMaxLimit()) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + config.getMaxLimit());
+        }
+
+        List<GeoQuadTree.Neighbor> neighbors = tree.nearest(latitude, longitude, radiusMeters, limit);
+        if (neighbors.isEmpty()) {
+            return List.of();
+        }
+        Map<UUID, Item> items = itemRepository.findAllById(neighbors.stream().map(GeoQuadTree.Neighbor::id).toList())
+            .stream()
+            .collect(Collectors.toMap(Item::getId, Function.identity()));
+        List<NearbyItemResponse> results = new ArrayList<>(neighbors.size());
+        for (GeoQuadTree.Neighbor neighbor : neighbors) {
+            Item item = items.get(neighbor.id());
+            if (item != null) {
+                results.add(NearbyItemResponse.from(item, neighbor.distanceMeters()));
+            }
+        }
+        return results;
+    }
+
+    // Called from the entity listener with the item's current location, or nulls once removed
+    void update(UUID itemId, Double latitude, Double longitude) {
+        if (itemId == null) {
+            return;
+        }
+        Runnable write = latitude == null || longitude == null
+            ? () -> tree.remove(itemId)
+            : () -> tree.put(itemId, latitude, longitude);
+        synchronized (loadLock) {
+            if (heldBack != null) {
+                heldBack.add(write);
+                return;
+            }
+        }
+        write.run();
+    }
+
+    private void load(long retryDelayMs) {
+        long startNanos = System.nanoTime();
+        try {
+            GeoQuadTree loaded = new GeoQuadTree();
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<Object[]> locations = itemRepository.streamLocations()) {
+                    locations.forEach(row -> loaded.put((UUID) row[0], (Double) row[1], (Double) row[2]));
+                }
+            });
+            synchronized (loadLock) {
+                tree = loaded;
+                heldBack.forEach(Runnable::run);
+                heldBack = null;
+            }
+            ready = true;
+            logger.info("Item location index loaded {} items in {} ms",
+                loaded.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        } catch (RuntimeException e) {
+            logger.error("Item location index failed to load; nearby queries are unavailable, retrying in {} ms", retryDelayMs, e);
+            // Held-back writes have committed, so the retry reads them from the database
+            synchronized (loadLock) {
+                heldBack.clear();
+            }
+            long nextDelayMs = Math.min(retryDelayMs * 2, config.getLoadRetryMaxMs());
+            loadThread.schedule(() -> load(nextDelayMs), retryDelayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+}
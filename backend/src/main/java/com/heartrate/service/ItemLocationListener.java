@@ -0,0 +1,30 @@
+package com.heartrate.service;
+
+import java.util.UUID;
+
+import com.heartrate.model.Item;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * Keeps {@link ItemLocationIndex} current; a rolled-back write must not move or drop an item.
+ */
+public class ItemLocationListener extends ServiceEntityListener<ItemLocationIndex> {
+
+    @PostPersist
+    @PostUpdate
+    public void afterWrite(Item item) {
+        UUID itemId = item.getId();
+        Double latitude = item.getLatitude();
+        Double longitude = item.getLongitude();
+        afterCommit(index -> index.update(itemId, latitude, longitude));
+    }
+
+    @PostRemove
+    public void afterRemove(Item item) {
+        UUID itemId = item.getId();
+        afterCommit(index -> index.update(itemId, null, null));
+    }
+}
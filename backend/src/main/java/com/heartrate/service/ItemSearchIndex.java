@@ -0,0 +1,175 @@
+package com.heartrate.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.heartrate.config.SearchConfig;
+import com.heartrate.controller.dto.SearchHitResponse;
+import com.heartrate.controller.dto.SearchResponse;
+import com.heartrate.model.Item;
+import com.heartrate.repository.ItemRepository;
+import com.heartrate.search.InvertedIndex;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Full-text search over item names and descriptions, from an in-memory {@link InvertedIndex}.
+ *
+ * The index is built from the database on a background thread once the application has started,
+ * analysing items on {@code app.search.build-threads} threads; until then {@link #isReady()} is
+ * false. A failed build is retried with exponential backoff, from
+ * {@code app.search.build-retry-initial-ms} up to {@code app.search.build-retry-max-ms}. Item
+ * writes through JPA reach it through {@link ItemSearchListener} once they have committed; writes
+ * committed while it is being built are held back and replayed on top of it. Results are resolved
+ * against the database (through the second-level cache), which drops items deleted since.
+ */
+@Component
+public class ItemSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(ItemSearchIndex.class);
+
+    private final ItemRepository itemRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final SearchConfig config;
+    private final Object buildLock = new Object();
+    // Writes seen while building, in order; null once the index is live
+    private List<Runnable> heldBack = new ArrayList<>();
+    private volatile InvertedIndex index = new InvertedIndex();
+    private final ScheduledExecutorService buildThread;
+    private volatile boolean ready;
+
+    public ItemSearchIndex(ItemRepository itemRepository, PlatformTransactionManager transactionManager, SearchConfig config) {
+        this.itemRepository = itemRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.config = config;
+        this.buildThread = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("item-search-build").factory());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        buildThread.execute(() -> build(config.getBuildRetryInitialMs()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        buildThread.shutdownNow();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * One page of the items matching the query, ranked by BM25 over name and description with
+     * the given field boosts, or the configured ones where null.
+     *
+     * @throws IllegalArgumentException if a parameter is out of range
+     */
+    public SearchResponse search(String query, int offset, int limit, Double nameBoost, Double descriptionBoost) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Query must not be empty");
+        }
+        if (offset < 0 || offset > config.getMaxOffset()) {
+            throw new IllegalArgumentException("Offset must be between 0 and " + config.getMaxOffset());
+        }
+        if (limit < 1 || limit > config.getMaxLimit()) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + config.getMaxLimit());
+        }
+        double[] boosts = new double[InvertedIndex.Field.values().length];
+        boosts[InvertedIndex.Field.NAME.ordinal()] = boost(nameBoost, config.getNameBoost());
+        boosts[InvertedIndex.Field.DESCRIPTION.ordinal()] = boost(descriptionBoost, config.getDescriptionBoost());
+
+        InvertedIndex.Result result = index.search(query, boosts, offset, limit);
+        if (result.hits().isEmpty()) {
+            return new SearchResponse(List.of(), result.total(), offset, limit);
+        }
+        Map<UUID, Item> items = itemRepository.findAllById(result.hits().stream().map(InvertedIndex.Hit::id).toList())
+            .stream()
+            .collect(Collectors.toMap(Item::getId, Function.identity()));
+        List<SearchHitResponse> hits = new ArrayList<>(result.hits().size());
+        for (InvertedIndex.Hit hit : result.hits()) {
+            Item item = items.get(hit.id());
+            if (item != null) {
+                hits.add(SearchHitResponse.from(item, hit.score()));
+            }
+        }
+        return new SearchResponse(hits, result.total(), offset, limit);
+    }
+
+    // Called from the entity listener with the item's saved text
+    void update(UUID itemId, String name, String description) {
+        if (itemId != null) {
+            apply(() -> index.put(new InvertedIndex.Document(itemId, name, description)));
+        }
+    }
+
+    void remove(UUID itemId) {
+        if (itemId != null) {
+            apply(() -> index.remove(itemId));
+        }
+    }
+
+    private void apply(Runnable write) {
+        synchronized (buildLock) {
+            if (heldBack != null) {
+                heldBack.add(write);
+                return;
+            }
+        }
+        write.run();
+    }
+
+    private void build(long retryDelayMs) {
+        long startNanos = System.nanoTime();
+        try {
+            List<InvertedIndex.Document> documents = new ArrayList<>();
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<Object[]> rows = itemRepository.streamSearchText()) {
+                    rows.forEach(row -> documents.add(new InvertedIndex.Document((UUID) row[0], (String) row[1], (String) row[2])));
+                }
+            });
+            int threads = config.getBuildThreads() > 0 ? config.getBuildThreads() : Runtime.getRuntime().availableProcessors();
+            InvertedIndex built = InvertedIndex.build(documents, threads);
+            synchronized (buildLock) {
+                index = built;
+                heldBack.forEach(Runnable::run);
+                heldBack = null;
+            }
+            ready = true;
+            logger.info("Item search index built from {} items on {} threads in {} ms",
+                documents.size(), threads, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        } catch (RuntimeException e) {
+            logger.error("Item search index failed to build; search is unavailable, retrying in {} ms", retryDelayMs, e);
+            // Held-back writes have committed, so the retry reads them from the database
+            synchronized (buildLock) {
+                heldBack.clear();
+            }
+            long nextDelayMs = Math.min(retryDelayMs * 2, config.getBuildRetryMaxMs());
+            buildThread.schedule(() -> build(nextDelayMs), retryDelayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static double boost(Double requested, double configured) {
+        double boost = requested != null ? requested : configured;
+        if (!(boost >= 0 && boost <= 100)) {
+            throw new IllegalArgumentException("Boosts must be between 0 and 100");
+        }
+        return boost;
+    }
+}
@@ -0,0 +1,30 @@
+package com.heartrate.service;
+
+import java.util.UUID;
+
+import com.heartrate.model.Item;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * Keeps {@link ItemSearchIndex} current; a rolled-back write must not change what searches find.
+ */
+public class ItemSearchListener extends ServiceEntityListener<ItemSearchIndex> {
+
+    @PostPersist
+    @PostUpdate
+    public void afterWrite(Item item) {
+        UUID itemId = item.getId();
+        String name = item.getName();
+        String description = item.getDescription();
+        afterCommit(index -> index.update(itemId, name, description));
+    }
+
+    @PostRemove
+    public void afterRemove(Item item) {
+        UUID itemId = item.getId();
+        afterCommit(index -> index.remove(itemId));
+    }
+}
@@ -1,16 +1,16 @@
 package com.heartrate.service;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.heartrate.controller.dto.ItemFromUrlRequest;
 import com.heartrate.model.Item;
@@ -19,42 +19,59 @@ import com.heartrate.repository.ItemRepository;
 @Service
 public class ItemService {
 
-    private final Path fileStorageLocation;
-
     @Autowired
     private ItemRepository itemRepository;
 
     @Autowired
-    public ItemService() {
-        this.fileStorageLocation = Paths.get("uploads/images")
-                                       .toAbsolutePath().normalize();
-        try {
-            Files.createDirectories(this.fileStorageLocation);
-        } catch (Exception ex) {
-            throw new RuntimeException("Could not create the directory where the uploaded files will be stored.", ex);
-        }
+    private ImageStore imageStore;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public ItemService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Streams the image into the image store and saves the item with it.
+     *
+     * @param expectedSha256 hex digest the image must have, or null
+     * @throws UploadRejectedException if the image cannot be stored, see {@link ImageStore#stage}
+     */
+    public Item saveItem(Item item, InputStream image, String contentType, String expectedSha256) throws IOException {
+        ImageStore.StagedImage staged = imageStore.stage(image, contentType, expectedSha256);
+        return saveWithImage(item, staged);
     }
 
-    public Item saveItem(Item item, MultipartFile imageFile) {
-        String originalFilename = imageFile.getOriginalFilename();
-        String fileExtension = "";
-        if (originalFilename != null && originalFilename.contains(".")) {
-            fileExtension = originalFilename.substring(originalFilename.lastIndexOf("."));
+    /**
+     * Makes a completely received image the item's image.
+     *
+     * @throws UploadRejectedException if the item no longer exists
+     */
+    public Item attachImage(UUID itemId, ImageStore.StagedImage image) {
+        Optional<Item> item = itemRepository.findById(itemId);
+        if (item.isEmpty()) {
+            imageStore.discard(image);
+            throw new UploadRejectedException(UploadRejectedException.Reason.NOT_FOUND, "Item not found");
         }
-        String fileName = UUID.randomUUID().toString() + fileExtension;
+        return saveWithImage(item.get(), image);
+    }
 
+    // The item takes a reference on the new image and drops the one on its old image, which is
+    // deleted once no item uses it; identical images are stored only once
+    private Item saveWithImage(Item item, ImageStore.StagedImage image) {
         try {
-            // Copy file to the target location
-            Path targetLocation = this.fileStorageLocation.resolve(fileName);
-            Files.copy(imageFile.getInputStream(), targetLocation);
-
-            // Store a relative URL or path. This is the abstraction point.
-            // If using cloud storage, you would store the cloud storage URL here.
-            item.setImageUrl("/uploads/images/" + fileName);
-
-            return itemRepository.save(item);
-        } catch (IOException ex) {
-            throw new RuntimeException("Could not store file " + fileName + ". Please try again!", ex);
+            return transactionTemplate.execute(status -> {
+                String previousUrl = item.getId() == null ? null
+                    : itemRepository.findById(item.getId()).map(Item::getImageUrl).orElse(null);
+                // Store a relative URL or path. This is the abstraction point.
+                // If using cloud storage, you would store the cloud storage URL here.
+                item.setImageUrl(imageStore.reference(image));
+                Item saved = itemRepository.save(item);
+                imageStore.releaseAfterCommit(previousUrl);
+                return saved;
+            });
+        } finally {
+            imageStore.discard(image);
         }
     }
 
@@ -62,14 +79,25 @@ public class ItemService {
         Item item = new Item();
         item.setName(itemRequest.getName());
         item.setDescription(itemRequest.getDescription());
+        if (ImageStore.isStoreUrl(itemRequest.getImageUrl())) {
+            throw new IllegalArgumentException("Image URL must not point to an uploaded image");
+        }
         item.setImageUrl(itemRequest.getImageUrl());
+        if ((itemRequest.getLatitude() == null) != (itemRequest.getLongitude() == null)) {
+            throw new IllegalArgumentException("Latitude and longitude must be given together");
+        }
+        item.setLatitude(itemRequest.getLatitude());
+        item.setLongitude(itemRequest.getLongitude());
         return itemRepository.save(item);
     }
 
+    @Transactional(readOnly = true)
     public List<Item> getAllItems() {
         return itemRepository.findAll();
     }
 
+    // Loads through the second-level cache, so repeated item detail reads skip the database
+    @Transactional(readOnly = true)
     public Optional<Item> findById(UUID id) {
         return itemRepository.findById(id);
     }
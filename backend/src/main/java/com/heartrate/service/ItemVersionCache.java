@@ -0,0 +1,54 @@
+package com.heartrate.service;
+
+import java.util.UUID;
+
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.heartrate.config.CatalogCacheConfig;
+
+/**
+ * Last known version of recently read or written items, so conditional item reads can be
+ * answered with 304 Not Modified without loading the item.
+ *
+ * Versions only ever move forward: a reader that loaded an older version cannot overwrite the
+ * version recorded by a concurrent update. An unknown item is simply loaded, so a missing or
+ * evicted entry costs one lookup and never a wrong answer.
+ */
+@Component
+public class ItemVersionCache {
+    // Recorded for deleted items so that no ETag ever matches them again
+    private static final long DELETED = Long.MAX_VALUE;
+
+    private final Cache<UUID, Long> versions;
+
+    public ItemVersionCache(CatalogCacheConfig config) {
+        this.versions = Caffeine.newBuilder()
+            .maximumSize(config.getVersions().getMaxSize())
+            .expireAfterWrite(config.getVersions().getTtl())
+            .build();
+    }
+
+    /**
+     * @return the last known version, or null if the item is not tracked
+     */
+    public Long get(UUID itemId) {
+        return versions.getIfPresent(itemId);
+    }
+
+    public void record(UUID itemId, long version) {
+        versions.asMap().merge(itemId, version, Math::max);
+    }
+
+    public void recordDeleted(UUID itemId) {
+        versions.put(itemId, DELETED);
+    }
+
+    /**
+     * Strong ETag for an item version.
+     */
+    public static String etag(long version) {
+        return "\"" + version + "\"";
+    }
+}
@@ -0,0 +1,30 @@
+package com.heartrate.service;
+
+import java.util.UUID;
+
+import com.heartrate.model.Item;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * Keeps {@link ItemVersionCache} current; a rolled-back write must not leave a version that no
+ * reader can ever load.
+ */
+public class ItemVersionListener extends ServiceEntityListener<ItemVersionCache> {
+
+    @PostPersist
+    @PostUpdate
+    public void afterWrite(Item item) {
+        UUID itemId = item.getId();
+        long version = item.getVersion();
+        afterCommit(cache -> cache.record(itemId, version));
+    }
+
+    @PostRemove
+    public void afterRemove(Item item) {
+        UUID itemId = item.getId();
+        afterCommit(cache -> cache.recordDeleted(itemId));
+    }
+}
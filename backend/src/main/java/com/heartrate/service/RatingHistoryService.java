@@ -0,0 +1,149 @@
+package com.heartrate.service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.heartrate.config.RatingHistoryConfig;
+import com.heartrate.controller.dto.RatingPage;
+import com.heartrate.controller.dto.RatingResponse;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+/**
+ * Reads a user's own rating history, newest first.
+ *
+ * Pages are found by keyset on (timestamp, id) rather than by offset, so every page is a range
+ * scan of idx_ratings_user_timestamp no matter how deep the client has paged. Rows are projected
+ * straight to {@link RatingResponse}; no Rating or Item entities are loaded. Exports walk the same
+ * keyset in fixed-size batches and write each batch out before fetching the next, so memory use
+ * does not grow with the number of ratings. Each batch is read in its own short transaction, so a
+ * slow client does not hold a connection for the whole export.
+ */
+@Service
+public class RatingHistoryService {
+    private static final String SELECT =
+        "select new com.heartrate.controller.dto.RatingResponse(r.id, r.user.id, r.item.id, r.rating, r.status, r.timestamp)"
+        + " from Rating r where r.user.id = :userId";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final RatingHistoryConfig config;
+    private final ObjectWriter writer;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public RatingHistoryService(RatingHistoryConfig config, ObjectMapper objectMapper,
+                                PlatformTransactionManager transactionManager) {
+        this.config = config;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // Keep the response stream open between rows
+        this.writer = objectMapper.writerFor(RatingResponse.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    /**
+     * Returns up to {@code limit} ratings after {@code cursor}.
+     *
+     * @param statuses only ratings with one of these statuses; all when null or empty
+     * @param cursor nextCursor of the previous page, or null for the first page
+     * @throws IllegalArgumentException if the limit is out of range or the cursor is malformed
+     */
+    @Transactional(readOnly = true)
+    public RatingPage page(UUID userId, Collection<String> statuses, String cursor, int limit) {
+        if (limit < 1 || limit > config.getMaxLimit()) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + config.getMaxLimit());
+        }
+        // One extra row tells whether another page follows
+        List<RatingResponse> rows = fetch(userId, statuses, cursor != null ? Cursor.decode(cursor) : null, limit + 1);
+        if (rows.size() <= limit) {
+            return new RatingPage(rows, null);
+        }
+        List<RatingResponse> ratings = rows.subList(0, limit);
+        return new RatingPage(List.copyOf(ratings), Cursor.after(ratings.get(limit - 1)).encode());
+    }
+
+    /**
+     * Writes every matching rating to {@code output} as newline-delimited JSON. Not transactional:
+     * the connection is released before each batch is written to the client.
+     */
+    public void exportNdjson(UUID userId, Collection<String> statuses, OutputStream output) throws IOException {
+        OutputStream out = new BufferedOutputStream(output);
+        Cursor after = null;
+        while (true) {
+            Cursor cursor = after;
+            List<RatingResponse> batch = readOnlyTransaction.execute(
+                status -> fetch(userId, statuses, cursor, config.getExportBatchSize()));
+            for (RatingResponse rating : batch) {
+                writer.writeValue(out, rating);
+                out.write('\n');
+            }
+            out.flush();
+            if (batch.size() < config.getExportBatchSize()) {
+                return;
+            }
+            after = Cursor.after(batch.get(batch.size() - 1));
+        }
+    }
+
+    private List<RatingResponse> fetch(UUID userId, Collection<String> statuses, Cursor after, int limit) {
+        boolean filterStatus = statuses != null && !statuses.isEmpty();
+        StringBuilder jpql = new StringBuilder(SELECT);
+        if (filterStatus) {
+            jpql.append(" and r.status in :statuses");
+        }
+        if (after != null) {
+            jpql.append(" and (r.timestamp < :timestamp or (r.timestamp = :timestamp and r.id < :id))");
+        }
+        jpql.append(" order by r.timestamp desc, r.id desc");
+
+        TypedQuery<RatingResponse> query = entityManager.createQuery(jpql.toString(), RatingResponse.class)
+            .setParameter("userId", userId)
+            .setMaxResults(limit);
+        if (filterStatus) {
+            query.setParameter("statuses", statuses);
+        }
+        if (after != null) {
+            query.setParameter("timestamp", after.timestamp()).setParameter("id", after.id());
+        }
+        return query.getResultList();
+    }
+
+    // Position of the last row of a page; opaque to clients
+    private record Cursor(LocalDateTime timestamp, UUID id) {
+        static Cursor after(RatingResponse rating) {
+            return new Cursor(rating.timestamp(), rating.id());
+        }
+
+        String encode() {
+            String raw = timestamp + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.indexOf('|');
+                return new Cursor(LocalDateTime.parse(raw.substring(0, separator)), UUID.fromString(raw.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+    }
+}
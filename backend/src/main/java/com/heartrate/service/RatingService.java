@@ -1,12 +1,17 @@
 package com.heartrate.service;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.heartrate.journal.RatingEvent;
+import com.heartrate.journal.RatingJournal;
 import com.heartrate.model.Item;
 import com.heartrate.model.Rating;
 import com.heartrate.model.User;
@@ -26,42 +31,72 @@ public class RatingService {
     @Autowired
     private ItemRepository itemRepository;
 
+    @Autowired(required = false)
+    private RatingJournal ratingJournal;
+
+    @Autowired
+    private RecommendationCache recommendationCache;
+
+    @Autowired
+    private SeenItemService seenItemService;
+
+    @Autowired
+    private CategorySampler categorySampler;
+
     /**
      * Saves or updates a user's interaction status with an item.
      *
+     * Runs a fixed number of statements: one lookup of the existing rating by foreign keys, then
+     * either an update, or an item existence check followed by an insert. The item joins the
+     * user's seen-item filter after commit (see {@link SeenItemService#addToFilter}). The user is referenced
+     * by id only, so callers must pass the id of an existing user (normally the authenticated principal).
+     *
      * @param userId The UUID of the user.
      * @param itemId The UUID of the item.
      * @param ratingValue The rating value (0-5) if status is RATED, otherwise null.
+     * @throws IllegalArgumentException if the rating is outside 0-5
      * @param status The status of the interaction (e.g., "RATED", "DONT_CARE", "DELETED", "DONT_KNOW").
-     * @return The saved or updated Rating object.
+     * @return The saved or updated Rating object. Its user and item are uninitialized references.
      */
+    @Transactional
     public Rating saveRating(UUID userId, UUID itemId, Integer ratingValue, String status) {
-        Optional<User> userOptional = userRepository.findById(userId);
-        Optional<Item> itemOptional = itemRepository.findById(itemId);
-
-        if (userOptional.isPresent() && itemOptional.isPresent()) {
-            User user = userOptional.get();
-            Item item = itemOptional.get();
-
-            // Check if a rating already exists for this user and item
-            Optional<Rating> existingRatingOptional = ratingRepository.findByUserAndItem(user, item);
+        Integer value = status.equals("RATED") ? ratingValue : null; // Set rating only if status is RATED
+        // Checked before anything is written, as the journal could not store it after commit
+        RatingEvent.ratingCode(value);
+        // Check if a rating already exists for this user and item
+        Optional<Rating> existingRatingOptional = ratingRepository.findByUserIdAndItemId(userId, itemId);
 
-            Rating ratingToSave;
-            if (existingRatingOptional.isPresent()) {
-                // Update the existing rating
-                ratingToSave = existingRatingOptional.get();
-                ratingToSave.setRating(status.equals("RATED") ? ratingValue : null); // Set rating only if status is RATED
-                ratingToSave.setStatus(status);
-                ratingToSave.setTimestamp(LocalDateTime.now()); // Update timestamp on interaction
-            } else {
-                // Create a new rating
-                ratingToSave = new Rating(user, item, status.equals("RATED") ? ratingValue : null, status); // Set rating only if status is RATED
-            }
-
-            return ratingRepository.save(ratingToSave);
+        Rating ratingToSave;
+        Integer previousValue = null;
+        if (existingRatingOptional.isPresent()) {
+            // Update the existing rating
+            ratingToSave = existingRatingOptional.get();
+            previousValue = ratingToSave.getRating();
+            ratingToSave.setRating(value);
+            ratingToSave.setStatus(status);
+            ratingToSave.setTimestamp(LocalDateTime.now()); // Update timestamp on interaction
+        } else if (itemRepository.existsById(itemId)) {
+            // Create a new rating against references, without loading the user or item rows
+            User user = userRepository.getReferenceById(userId);
+            Item item = itemRepository.getReferenceById(itemId);
+            ratingToSave = new Rating(user, item, value, status);
         } else {
-            // Handle case where user or item is not found
+            // Handle case where item is not found
             throw new RuntimeException("User or Item not found");
         }
+
+        Rating savedRating = ratingRepository.save(ratingToSave);
+        if (ratingJournal != null) {
+            // The table only keeps the latest interaction; the journal keeps the full history, of
+            // committed interactions only so that replay never applies a rolled-back one
+            Integer rating = savedRating.getRating();
+            long timestamp = savedRating.getTimestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            AfterCommit.run(() -> ratingJournal.append(userId, itemId, status, rating, timestamp));
+        }
+        // The rating itself keeps the item out of the feed query; the filter is for in-memory checks
+        seenItemService.addToFilter(userId, List.of(itemId));
+        recommendationCache.onItemSeen(userId, itemId);
+        categorySampler.onRatingChanged(userId, itemId, previousValue, savedRating.getRating());
+        return savedRating;
     }
-} 
\ No newline at end of file
+}
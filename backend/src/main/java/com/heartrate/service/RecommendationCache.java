@@ -0,0 +1,157 @@
+package com.heartrate.service;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.heartrate.config.RecommendationConfig;
+import com.heartrate.controller.dto.RecommendationResponse;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Each user's ranked recommendation list, computed by {@link RecommendationService}.
+ *
+ * A miss computes the list on the caller's thread. Once an entry is older than
+ * {@code refreshAfter} it is still served, and the next read starts a recomputation on a small
+ * background pool (stale-while-revalidate). A rating or dismissal patches the user's entry after
+ * commit by dropping the item, then refreshes it in the background because a rating may shift
+ * other scores. The cache is bounded by the approximate heap size of the lists, not by users.
+ *
+ * Metrics: {@code cache.gets} and friends tagged {@code cache=recommendations},
+ * {@code recommendations.cache.hit.ratio}, {@code recommendations.cache.weight} in bytes, and
+ * {@code recommendations.refresh} timing every computation, tagged {@code mode=sync|background}.
+ */
+@Component
+public class RecommendationCache {
+    private static final Logger logger = LoggerFactory.getLogger(RecommendationCache.class);
+    private static final String CACHE_NAME = "recommendations";
+    // Rough heap cost of a cache entry and of one recommendation before its strings
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+    private static final int ITEM_OVERHEAD_BYTES = 120;
+
+    private final RecommendationConfig config;
+    private final ThreadPoolExecutor refreshExecutor;
+    private final LoadingCache<UUID, Recommendations> cache;
+
+    public RecommendationCache(RecommendationService recommendationService, RecommendationConfig config, MeterRegistry registry) {
+        this.config = config;
+        AtomicInteger threadCount = new AtomicInteger();
+        // A full queue rejects the refresh and the stale list stays until the next read retries
+        this.refreshExecutor = new ThreadPoolExecutor(
+            config.getRefreshThreads(),
+            config.getRefreshThreads(),
+            0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(config.getRefreshQueueSize()),
+            runnable -> {
+                Thread thread = new Thread(runnable, "recommendation-refresh-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy()
+        );
+
+        Timer syncTimer = Timer.builder("recommendations.refresh").tag("mode", "sync").register(registry);
+        Timer backgroundTimer = Timer.builder("recommendations.refresh").tag("mode", "background").register(registry);
+        this.cache = Caffeine.newBuilder()
+            .maximumWeight(config.getCacheMaxBytes())
+            .weigher((UUID userId, Recommendations recommendations) -> recommendations.weight())
+            .refreshAfterWrite(config.getRefreshAfter())
+            .expireAfterWrite(config.getExpireAfter())
+            .executor(refreshExecutor)
+            .recordStats()
+            .build(new CacheLoader<UUID, Recommendations>() {
+                @Override
+                public Recommendations load(UUID userId) {
+                    return syncTimer.record(() -> Recommendations.of(recommendationService.recommend(userId)));
+                }
+
+                @Override
+                public Recommendations reload(UUID userId, Recommendations oldValue) {
+                    return backgroundTimer.record(() -> Recommendations.of(recommendationService.recommend(userId)));
+                }
+            });
+
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+        Gauge.builder("recommendations.cache.hit.ratio", cache, c -> c.stats().hitRate()).register(registry);
+        Gauge.builder("recommendations.cache.weight", cache, c -> c.policy().eviction().orElseThrow().weightedSize().orElse(0))
+            .baseUnit("bytes")
+            .register(registry);
+    }
+
+    /**
+     * The user's top {@code limit} recommendations, best first.
+     *
+     * @throws IllegalArgumentException if the limit is out of range
+     */
+    public List<RecommendationResponse> get(UUID userId, int limit) {
+        if (limit < 1 || limit > config.getMaxItems()) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + config.getMaxItems());
+        }
+        List<RecommendationResponse> items = cache.get(userId).items();
+        return items.subList(0, Math.min(limit, items.size()));
+    }
+
+    /**
+     * Patches and refreshes the user's cached list after they rated or dismissed an item, once the
+     * current transaction commits, or at once outside a transaction. Nothing happens if the user
+     * has no cached list.
+     */
+    public void onItemSeen(UUID userId, UUID itemId) {
+        AfterCommit.run(() -> patch(userId, itemId));
+    }
+
+    public void invalidate(UUID userId) {
+        cache.invalidate(userId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private void patch(UUID userId, UUID itemId) {
+        if (cache.asMap().computeIfPresent(userId, (id, recommendations) -> recommendations.without(itemId)) == null) {
+            return;
+        }
+        try {
+            cache.refresh(userId);
+        } catch (RejectedExecutionException e) {
+            logger.debug("Recommendation refresh for user {} rejected: {}", userId, e.getMessage());
+        }
+    }
+
+    private record Recommendations(List<RecommendationResponse> items, int weight) {
+
+        static Recommendations of(List<RecommendationResponse> items) {
+            long bytes = ENTRY_OVERHEAD_BYTES;
+            for (RecommendationResponse item : items) {
+                bytes += ITEM_OVERHEAD_BYTES + 2L * (length(item.name()) + length(item.description()) + length(item.imageUrl()));
+            }
+            return new Recommendations(List.copyOf(items), (int) Math.min(bytes, Integer.MAX_VALUE));
+        }
+
+        Recommendations without(UUID itemId) {
+            return of(items.stream().filter(item -> !item.id().equals(itemId)).toList());
+        }
+
+        private static int length(String value) {
+            return value == null ? 0 : value.length();
+        }
+    }
+}
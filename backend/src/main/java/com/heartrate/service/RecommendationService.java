@@ -0,0 +1,123 @@
+package com.heartrate.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.heartrate.bloom.ScalableBloomFilter;
+import com.heartrate.config.RecommendationConfig;
+import com.heartrate.controller.dto.ItemResponse;
+import com.heartrate.controller.dto.RecommendationResponse;
+import com.heartrate.model.Item;
+import com.heartrate.repository.ItemRepository;
+import com.heartrate.repository.RatingRepository;
+import com.heartrate.repository.TypeOfRepository;
+
+/**
+ * Ranks the items a user has not rated, dismissed or been shown yet for the Recommendation Screen.
+ *
+ * An item scores for sharing a category with items the user liked, for being liked by other
+ * users who liked the same items and, with a small weight, for being liked overall, so that new
+ * users still get a list. Scoring runs several aggregate queries; callers go through
+ * {@link RecommendationCache}.
+ *
+ * Deliberately not transactional: each repository call runs in its own implicit transaction,
+ * which {@link com.heartrate.datasource.ReplicaRoutingDataSource} keeps on the primary, so a
+ * refresh triggered by a rating sees that rating even with read replicas enabled.
+ */
+@Service
+public class RecommendationService {
+    private static final double CATEGORY_WEIGHT = 1.0;
+    private static final double CO_LIKE_WEIGHT = 2.0;
+    private static final double POPULARITY_WEIGHT = 0.5;
+
+    private final RatingRepository ratingRepository;
+    private final TypeOfRepository typeOfRepository;
+    private final ItemRepository itemRepository;
+    private final SeenItemService seenItemService;
+    private final RecommendationConfig config;
+
+    public RecommendationService(RatingRepository ratingRepository,
+                                 TypeOfRepository typeOfRepository,
+                                 ItemRepository itemRepository,
+                                 SeenItemService seenItemService,
+                                 RecommendationConfig config) {
+        this.ratingRepository = ratingRepository;
+        this.typeOfRepository = typeOfRepository;
+        this.itemRepository = itemRepository;
+        this.seenItemService = seenItemService;
+        this.config = config;
+    }
+
+    /**
+     * Computes the user's ranked list of up to {@code maxItems} recommendations, best first.
+     */
+    public List<RecommendationResponse> recommend(UUID userId) {
+        int threshold = config.getLikeThreshold();
+        Set<UUID> seen = new HashSet<>();
+        Map<UUID, Integer> likes = new HashMap<>();
+        for (Object[] row : ratingRepository.findItemRatingsByUserId(userId)) {
+            UUID itemId = (UUID) row[0];
+            Integer rating = (Integer) row[1];
+            seen.add(itemId);
+            if (rating != null && rating >= threshold) {
+                likes.put(itemId, rating);
+            }
+        }
+        List<UUID> seeds = likes.entrySet().stream()
+            .sorted(Map.Entry.<UUID, Integer>comparingByValue().reversed())
+            .limit(config.getMaxSeeds())
+            .map(Map.Entry::getKey)
+            .toList();
+
+        Map<UUID, Double> scores = new HashMap<>();
+        // Seen items take up candidate slots, so ask for more than the list will hold
+        PageRequest candidates = PageRequest.ofSize(config.getMaxItems() * 4);
+        if (!seeds.isEmpty()) {
+            // A 5 counts twice as much as a 4
+            for (Object[] row : typeOfRepository.findCoCategoryItems(userId, seeds, threshold, candidates)) {
+                scores.merge((UUID) row[0], CATEGORY_WEIGHT * ((Number) row[1]).doubleValue(), Double::sum);
+            }
+            addNormalized(scores, ratingRepository.findCoLikedItems(userId, seeds, threshold, candidates), CO_LIKE_WEIGHT);
+        }
+        addNormalized(scores, ratingRepository.findMostLikedItems(threshold, candidates), POPULARITY_WEIGHT);
+        scores.keySet().removeAll(seen);
+        // Also drops dismissed items and items already shown in the feed
+        ScalableBloomFilter seenFilter = seenItemService.load(userId);
+        scores.keySet().removeIf(seenFilter::mightContain);
+
+        List<Map.Entry<UUID, Double>> ranked = scores.entrySet().stream()
+            .sorted(Map.Entry.<UUID, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+            .limit(config.getMaxItems())
+            .toList();
+        Map<UUID, ItemResponse> items = new HashMap<>();
+        for (Item item : itemRepository.findAllById(ranked.stream().map(Map.Entry::getKey).toList())) {
+            items.put(item.getId(), ItemResponse.from(item));
+        }
+
+        List<RecommendationResponse> recommendations = new ArrayList<>(ranked.size());
+        for (Map.Entry<UUID, Double> entry : ranked) {
+            ItemResponse item = items.get(entry.getKey());
+            // Relationships can outlive a deleted item
+            if (item != null) {
+                recommendations.add(RecommendationResponse.from(item, entry.getValue()));
+            }
+        }
+        return recommendations;
+    }
+
+    // Adds (itemId, count) rows scaled so that the highest count contributes the full weight
+    private static void addNormalized(Map<UUID, Double> scores, List<Object[]> counts, double weight) {
+        long max = counts.stream().mapToLong(row -> (Long) row[1]).max().orElse(0);
+        for (Object[] row : counts) {
+            scores.merge((UUID) row[0], weight * (Long) row[1] / max, Double::sum);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.heartrate.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.heartrate.config.ItemImportConfig;
+import com.heartrate.controller.dto.RelationshipImportResult;
+import com.heartrate.importer.FeedFormatException;
+import com.heartrate.importer.RelationshipCycleException;
+import com.heartrate.importer.RelationshipEdge;
+import com.heartrate.importer.RelationshipFeedReader;
+import com.heartrate.importer.RelationshipGraph;
+import com.heartrate.model.ChildOf;
+import com.heartrate.model.TypeOf;
+import com.heartrate.repository.ChildOfRepository;
+import com.heartrate.repository.TypeOfRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Loads TypeOf and ChildOf relationships in bulk.
+ *
+ * The feed is parsed into a {@link RelationshipGraph} first, outside any transaction. In a single
+ * transaction the stored pairs are then streamed into the same graph, which drops edges that
+ * repeat within the feed or already exist, the combined ChildOf hierarchy is checked for cycles,
+ * and the remaining edges are inserted through Hibernate JDBC batching. Either every new edge is
+ * stored or none is.
+ *
+ * The transaction is serializable: two imports each checking the hierarchy without the other's
+ * edges could otherwise together add a cycle that neither sees. The one that loses the conflict
+ * is retried from the parsed feed, up to {@value #MAX_ATTEMPTS} attempts in all.
+ */
+@Service
+public class RelationshipImportService {
+    private static final Logger logger = LoggerFactory.getLogger(RelationshipImportService.class);
+    // Persistence context size between flushes; a multiple of hibernate.jdbc.batch_size
+    private static final int FLUSH_INTERVAL = 1000;
+    private static final int MAX_ATTEMPTS = 3;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TypeOfRepository typeOfRepository;
+    private final ChildOfRepository childOfRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ItemImportConfig config;
+
+    public RelationshipImportService(TypeOfRepository typeOfRepository,
+                                     ChildOfRepository childOfRepository,
+                                     PlatformTransactionManager transactionManager,
+                                     ItemImportConfig config) {
+        this.typeOfRepository = typeOfRepository;
+        this.childOfRepository = childOfRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);
+        this.config = config;
+    }
+
+    /**
+     * @param format "csv" or "ndjson"
+     * @throws FeedFormatException if the feed header is invalid
+     * @throws RelationshipCycleException if the ChildOf edges would form a cycle; nothing is stored
+     */
+    public RelationshipImportResult importRelationships(InputStream input, String format) throws IOException {
+        long startNanos = System.nanoTime();
+        RelationshipGraph graph = new RelationshipGraph();
+        List<String> errors = new ArrayList<>();
+        long rowNumber = 0;
+        long rejected = 0;
+        long duplicates = 0;
+
+        try (RelationshipFeedReader reader = new RelationshipFeedReader(input, format)) {
+            while (true) {
+                RelationshipEdge edge;
+                try {
+                    edge = reader.next();
+                } catch (FeedFormatException e) {
+                    rowNumber++;
+                    rejected++;
+                    if (errors.size() < config.getMaxReportedErrors()) {
+                        errors.add(e.getMessage());
+                    }
+                    continue;
+                }
+                if (edge == null) {
+                    break;
+                }
+                rowNumber++;
+                if (!graph.addNew(edge)) {
+                    duplicates++;
+                }
+            }
+        }
+
+        long rowsProcessed = rowNumber;
+        long rowsRejected = rejected;
+        long feedDuplicates = duplicates;
+        RelationshipImportResult result = null;
+        for (int attempt = 1; result == null; attempt++) {
+            RelationshipGraph attemptGraph = graph.copy();
+            try {
+                result = transactionTemplate.execute(status -> {
+                    // Bulk rows would only churn the second-level cache; writes still invalidate cached queries
+                    entityManager.unwrap(Session.class).setCacheMode(CacheMode.IGNORE);
+                    long stored = addExisting(attemptGraph, RelationshipEdge.TYPE_OF, typeOfRepository.streamAllPairs())
+                                + addExisting(attemptGraph, RelationshipEdge.CHILD_OF, childOfRepository.streamAllPairs());
+
+                    List<UUID> cycle = attemptGraph.findChildOfCycle();
+                    if (cycle != null) {
+                        throw new RelationshipCycleException(cycle);
+                    }
+
+                    long typeOfInserted = insert(attemptGraph, RelationshipEdge.TYPE_OF);
+                    long childOfInserted = insert(attemptGraph, RelationshipEdge.CHILD_OF);
+                    return new RelationshipImportResult(
+                        rowsProcessed,
+                        rowsRejected,
+                        typeOfInserted,
+                        childOfInserted,
+                        feedDuplicates + stored,
+                        (System.nanoTime() - startNanos) / 1_000_000,
+                        rowsPerSecond(rowsProcessed, startNanos),
+                        errors
+                    );
+                });
+            } catch (RuntimeException e) {
+                if (attempt == MAX_ATTEMPTS || !isSerializationFailure(e)) {
+                    throw e;
+                }
+                logger.info("Relationship import conflicted with a concurrent write, retrying: {}", e.getMessage());
+            }
+        }
+
+        logger.info("Relationship import finished: {} rows, {} TypeOf and {} ChildOf inserted, {} duplicates, {} rows/s",
+            result.rowsProcessed(), result.typeOfInserted(), result.childOfInserted(),
+            result.duplicatesSkipped(), result.rowsPerSecond());
+        return result;
+    }
+
+    /**
+     * @return how many stored pairs were also in the feed
+     */
+    private static long addExisting(RelationshipGraph graph, String type, Stream<Object[]> pairs) {
+        long duplicates = 0;
+        try (pairs) {
+            Iterator<Object[]> iterator = pairs.iterator();
+            while (iterator.hasNext()) {
+                Object[] pair = iterator.next();
+                if (!graph.addExisting(type, (UUID) pair[0], (UUID) pair[1])) {
+                    duplicates++;
+                }
+            }
+        }
+        return duplicates;
+    }
+
+    private long insert(RelationshipGraph graph, String type) {
+        long[] inserted = new long[1];
+        graph.forEachNew(type, (source, target) -> {
+            entityManager.persist(RelationshipEdge.CHILD_OF.equals(type)
+                ? new ChildOf(source, target)
+                : new TypeOf(source, target));
+            if (++inserted[0] % FLUSH_INTERVAL == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        });
+        entityManager.flush();
+        entityManager.clear();
+        return inserted[0];
+    }
+
+    // Translated when the commit fails, but not when a flush inside the transaction does
+    private static boolean isSerializationFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConcurrencyFailureException
+                    || cause instanceof SQLException sqlException && "40001".equals(sqlException.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static double rowsPerSecond(long rows, long startNanos) {
+        long elapsedNanos = Math.max(1, System.nanoTime() - startNanos);
+        return Math.round(rows * 1_000_000_000d / elapsedNanos * 10) / 10.0;
+    }
+}
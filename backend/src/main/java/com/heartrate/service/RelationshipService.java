@@ -5,7 +5,10 @@ import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.heartrate.controller.dto.ChildOfResponse;
+import com.heartrate.controller.dto.TypeOfResponse;
 import com.heartrate.model.ChildOf;
 import com.heartrate.model.TypeOf;
 import com.heartrate.repository.ChildOfRepository;
@@ -27,13 +30,15 @@ public class RelationshipService {
     }
 
     // Find TypeOf relationships by item ID
-    public List<TypeOf> findTypeOfRelationshipsByItemId(UUID itemId) {
-        return typeOfRepository.findByItemId(itemId);
+    @Transactional(readOnly = true)
+    public List<TypeOfResponse> findTypeOfRelationshipsByItemId(UUID itemId) {
+        return typeOfRepository.findResponsesByItemId(itemId);
     }
 
     // Find TypeOf relationships by category ID
-    public List<TypeOf> findTypeOfRelationshipsByCategoryId(UUID categoryId) {
-        return typeOfRepository.findByCategoryId(categoryId);
+    @Transactional(readOnly = true)
+    public List<TypeOfResponse> findTypeOfRelationshipsByCategoryId(UUID categoryId) {
+        return typeOfRepository.findResponsesByCategoryId(categoryId);
     }
 
     // Create a ChildOf relationship
@@ -43,12 +48,14 @@ public class RelationshipService {
     }
 
     // Find ChildOf relationships by child ID
-    public List<ChildOf> findChildOfRelationshipsByChildId(UUID childId) {
-        return childOfRepository.findByChildId(childId);
+    @Transactional(readOnly = true)
+    public List<ChildOfResponse> findChildOfRelationshipsByChildId(UUID childId) {
+        return childOfRepository.findResponsesByChildId(childId);
     }
 
     // Find ChildOf relationships by parent ID
-    public List<ChildOf> findChildOfRelationshipsByParentId(UUID parentId) {
-        return childOfRepository.findByParentId(parentId);
+    @Transactional(readOnly = true)
+    public List<ChildOfResponse> findChildOfRelationshipsByParentId(UUID parentId) {
+        return childOfRepository.findResponsesByParentId(parentId);
     }
 } 
\ No newline at end of file
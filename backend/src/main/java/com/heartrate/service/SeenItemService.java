@@ -0,0 +1,182 @@
+package com.heartrate.service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.heartrate.bloom.ScalableBloomFilter;
+import com.heartrate.config.SeenItemsConfig;
+import com.heartrate.model.SeenItemFilter;
+import com.heartrate.repository.RatingRepository;
+import com.heartrate.repository.SeenItemFilterRepository;
+import com.heartrate.repository.UserRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Tracks the items a user has been shown, has rated or has dismissed.
+ *
+ * Each user has a Bloom filter of all three kinds, which the feed and recommendations check
+ * candidates against in memory instead of asking the database about each one. A filter never
+ * forgets an item but may, at about the configured false-positive rate, claim an item it has not
+ * seen; such an item is not offered. Rated and reserved items are also excluded in SQL, so the
+ * false positives only ever hide items the user was never shown.
+ *
+ * Filter updates are not written per interaction. They are queued once the interaction commits
+ * and folded into the stored filter by a background flush, one write per user per interval.
+ * {@link #load} includes this instance's queued updates; other instances see them after the next
+ * flush. A user without a stored filter gets one built from their ratings by the flush, never by
+ * {@link #load}.
+ */
+@Service
+public class SeenItemService {
+    private static final Logger logger = LoggerFactory.getLogger(SeenItemService.class);
+
+    private final SeenItemFilterRepository filterRepository;
+    private final UserRepository userRepository;
+    private final RatingRepository ratingRepository;
+    private final SeenItemsConfig config;
+    private final TransactionTemplate transaction;
+    // Committed additions not yet written to the stored filters, per user
+    private final Map<UUID, Set<UUID>> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+
+    public SeenItemService(SeenItemFilterRepository filterRepository,
+                           UserRepository userRepository,
+                           RatingRepository ratingRepository,
+                           SeenItemsConfig config,
+                           PlatformTransactionManager transactionManager) {
+        this.filterRepository = filterRepository;
+        this.userRepository = userRepository;
+        this.ratingRepository = ratingRepository;
+        this.config = config;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("seen-items-flush").factory());
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher.scheduleWithFixedDelay(this::flush,
+            config.getFlushIntervalMs(), config.getFlushIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdownNow();
+        flush();
+    }
+
+    /**
+     * The user's current filter, including additions not yet flushed on this instance. Changes to
+     * the returned filter are not saved.
+     *
+     * Not transactional on its own, so that outside a caller's transaction the read stays on the
+     * primary even with read replicas enabled.
+     */
+    public ScalableBloomFilter load(UUID userId) {
+        ScalableBloomFilter filter = filterRepository.findById(userId).map(this::deserialize).orElse(null);
+        if (filter == null) {
+            // Rebuilding from the whole rating history is left to the flush; until then rated items
+            // are only kept out by the callers' own rating checks
+            filter = ScalableBloomFilter.create(config.getInitialCapacity(), config.getFalsePositiveRate());
+            enqueue(userId, List.of());
+        }
+        Set<UUID> queued = pending.get(userId);
+        if (queued != null) {
+            for (UUID itemId : queued) {
+                filter.add(itemId);
+            }
+        }
+        return filter;
+    }
+
+    /**
+     * Adds items shown, rated or dismissed to the user's filter once the current transaction
+     * commits, or at once outside a transaction. Takes no lock.
+     */
+    public void addToFilter(UUID userId, Collection<UUID> itemIds) {
+        List<UUID> added = List.copyOf(itemIds);
+        AfterCommit.run(() -> enqueue(userId, added));
+    }
+
+    /**
+     * Writes every queued addition to the stored filters now, one transaction per user, instead of
+     * at the next flush interval. Also builds the stored filter of users who have none yet.
+     */
+    public synchronized void flush() {
+        for (Map.Entry<UUID, Set<UUID>> entry : pending.entrySet()) {
+            UUID userId = entry.getKey();
+            Set<UUID> itemIds = Set.copyOf(entry.getValue());
+            try {
+                transaction.executeWithoutResult(status -> write(userId, itemIds));
+            } catch (RuntimeException e) {
+                logger.warn("Could not write the seen-item filter of user {}, will retry: {}", userId, e.getMessage());
+                continue;
+            }
+            // Only once written, so that load never misses them in between
+            pending.computeIfPresent(userId, (id, queued) -> {
+                queued.removeAll(itemIds);
+                return queued.isEmpty() ? null : queued;
+            });
+        }
+    }
+
+    // Atomic against flush dropping written items, so an addition is never lost with an emptied set
+    private void enqueue(UUID userId, Collection<UUID> itemIds) {
+        pending.compute(userId, (id, queued) -> {
+            Set<UUID> set = queued != null ? queued : ConcurrentHashMap.newKeySet();
+            set.addAll(itemIds);
+            return set;
+        });
+    }
+
+    // The row lock keeps flushes on different instances from overwriting each other's additions
+    private void write(UUID userId, Set<UUID> itemIds) {
+        if (userRepository.findLockedById(userId).isEmpty()) {
+            return;
+        }
+        SeenItemFilter stored = filterRepository.findById(userId).orElse(null);
+        ScalableBloomFilter filter = stored != null ? deserialize(stored) : fromHistory(userId);
+
+        boolean changed = stored == null;
+        for (UUID itemId : itemIds) {
+            changed |= filter.add(itemId);
+        }
+        if (!changed) {
+            return;
+        }
+        if (stored == null) {
+            stored = new SeenItemFilter(userId);
+        }
+        stored.setData(filter.toBytes());
+        stored.setItemCount(filter.count());
+        stored.setUpdatedAt(LocalDateTime.now());
+        filterRepository.save(stored);
+    }
+
+    private ScalableBloomFilter deserialize(SeenItemFilter stored) {
+        return ScalableBloomFilter.fromBytes(stored.getData(), config.getInitialCapacity(), config.getFalsePositiveRate());
+    }
+
+    private ScalableBloomFilter fromHistory(UUID userId) {
+        ScalableBloomFilter filter = ScalableBloomFilter.create(config.getInitialCapacity(), config.getFalsePositiveRate());
+        for (Object[] row : ratingRepository.findItemRatingsByUserId(userId)) {
+            filter.add((UUID) row[0]);
+        }
+        return filter;
+    }
+}
@@ -0,0 +1,42 @@
+package com.heartrate.service;
+
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Base of the JPA entity listeners that mirror entity writes into a service, whichever code path
+ * performs them, bulk imports included.
+ *
+ * Listeners are instantiated by Hibernate through Spring's bean container while the entity
+ * manager factory is built, before the services that depend on it, and JPA test slices have no
+ * such services at all; so the service is looked up per event, and without one the event is
+ * ignored. The hooks run at flush, before the transaction commits, so changes are handed to the
+ * service through {@link #afterCommit}: a rolled-back write must not reach it.
+ *
+ * @param <S> the service kept current
+ */
+abstract class ServiceEntityListener<S> {
+
+    @Autowired
+    private ObjectProvider<S> service;
+
+    /**
+     * Applies the change to the service once the current transaction commits. Read what the
+     * change needs from the entity before, as the entity may have changed again by then.
+     */
+    protected void afterCommit(Consumer<S> change) {
+        S target = service.getIfAvailable();
+        if (target != null) {
+            AfterCommit.run(() -> change.accept(target));
+        }
+    }
+
+    /**
+     * Passes the service to the action at once, if there is one.
+     */
+    protected void now(Consumer<S> action) {
+        service.ifAvailable(action);
+    }
+}
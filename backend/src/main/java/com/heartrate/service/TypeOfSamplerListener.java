@@ -0,0 +1,29 @@
+package com.heartrate.service;
+
+import java.util.UUID;
+
+import com.heartrate.model.TypeOf;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+
+/**
+ * Feeds every relationship written through JPA to {@link CategorySampler}; a rolled-back write
+ * must not leave the feed sampling a category that does not exist.
+ */
+public class TypeOfSamplerListener extends ServiceEntityListener<CategorySampler> {
+
+    @PostPersist
+    public void afterPersist(TypeOf typeOf) {
+        UUID itemId = typeOf.getItemId();
+        UUID categoryId = typeOf.getCategoryId();
+        afterCommit(sampler -> sampler.onTypeOfAdded(itemId, categoryId));
+    }
+
+    @PostRemove
+    public void afterRemove(TypeOf typeOf) {
+        UUID itemId = typeOf.getItemId();
+        UUID categoryId = typeOf.getCategoryId();
+        afterCommit(sampler -> sampler.onTypeOfRemoved(itemId, categoryId));
+    }
+}
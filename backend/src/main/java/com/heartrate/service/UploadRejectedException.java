@@ -0,0 +1,30 @@
+package com.heartrate.service;
+
+/**
+ * Thrown when an image upload is refused; the reason decides the response status.
+ */
+public class UploadRejectedException extends RuntimeException {
+
+    public enum Reason {
+        // The item or the resumable upload does not exist
+        NOT_FOUND,
+        UNSUPPORTED_TYPE,
+        TOO_LARGE,
+        // No write slot came free in time, or too many resumable uploads are open
+        BUSY,
+        // A chunk was sent for the wrong offset, or while another chunk was being written
+        CONFLICT,
+        DIGEST_MISMATCH
+    }
+
+    private final Reason reason;
+
+    public UploadRejectedException(Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
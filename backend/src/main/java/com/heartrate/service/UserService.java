@@ -14,6 +14,7 @@ import com.heartrate.config.PasswordResetConfig;
 import com.heartrate.model.User;
 import com.heartrate.repository.UserRepository;
 import com.heartrate.security.JwtTokenProvider;
+import com.heartrate.security.PasswordHashingRejectedException;
 
 @Service
 public class UserService {
@@ -84,6 +85,8 @@ public class UserService {
             }
             user.setPassword(passwordEncoder.encode(newPassword));
             userRepository.save(user);
+        } catch (PasswordHashingRejectedException e) {
+            throw e;
         } catch (Exception e) {
             throw new IllegalArgumentException("Invalid or expired reset token");
         }
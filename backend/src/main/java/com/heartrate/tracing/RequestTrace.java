@@ -0,0 +1,129 @@
+package com.heartrate.tracing;
+
+/**
+ * Span timings for a single sampled request, bound to the request thread.
+ *
+ * Unsampled requests never create an instance: {@link #startSpan(String)} then returns a shared
+ * no-op span, so instrumented code pays only for a thread-local lookup.
+ */
+public final class RequestTrace {
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+    private static final int MAX_SPANS = 64;
+
+    private final String requestId;
+    private final long startNanos;
+    private final String[] names = new String[MAX_SPANS];
+    private final int[] depths = new int[MAX_SPANS];
+    private final long[] durations = new long[MAX_SPANS];
+    private final String[] errors = new String[MAX_SPANS];
+    private int spanCount;
+    private int depth;
+    private int dropped;
+
+    private RequestTrace(String requestId) {
+        this.requestId = requestId;
+        this.startNanos = System.nanoTime();
+    }
+
+    static RequestTrace begin(String requestId) {
+        RequestTrace trace = new RequestTrace(requestId);
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    public static boolean isSampled() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Opens a span on the current request. Use with try-with-resources.
+     */
+    public static Span startSpan(String name) {
+        RequestTrace trace = CURRENT.get();
+        if (trace == null) {
+            return Span.NOOP;
+        }
+        return trace.open(name);
+    }
+
+    private Span open(String name) {
+        if (spanCount == MAX_SPANS) {
+            dropped++;
+            return Span.NOOP;
+        }
+        int index = spanCount++;
+        names[index] = name;
+        depths[index] = depth++;
+        return new Span(this, index, System.nanoTime());
+    }
+
+    private void close(int index, long durationNanos) {
+        durations[index] = durationNanos;
+        depth--;
+    }
+
+    private void fail(int index, Throwable error) {
+        errors[index] = error.getClass().getSimpleName();
+    }
+
+    String getRequestId() {
+        return requestId;
+    }
+
+    String summary() {
+        StringBuilder sb = new StringBuilder(64 + spanCount * 48);
+        sb.append("total=").append(micros(System.nanoTime() - startNanos)).append("us");
+        for (int i = 0; i < spanCount; i++) {
+            sb.append(" | ");
+            for (int d = 0; d < depths[i]; d++) {
+                sb.append('>');
+            }
+            sb.append(names[i]).append('=').append(micros(durations[i])).append("us");
+            if (errors[i] != null) {
+                sb.append('!').append(errors[i]);
+            }
+        }
+        if (dropped > 0) {
+            sb.append(" | dropped=").append(dropped);
+        }
+        return sb.toString();
+    }
+
+    private static long micros(long nanos) {
+        return nanos / 1_000;
+    }
+
+    public static final class Span implements AutoCloseable {
+        static final Span NOOP = new Span(null, -1, 0);
+
+        private final RequestTrace trace;
+        private final int index;
+        private final long startNanos;
+
+        private Span(RequestTrace trace, int index, long startNanos) {
+            this.trace = trace;
+            this.index = index;
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * Marks the span as having ended with the given exception; shown after its duration.
+         */
+        public void fail(Throwable error) {
+            if (trace != null) {
+                trace.fail(index, error);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (trace != null) {
+                trace.close(index, System.nanoTime() - startNanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.heartrate.tracing;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.heartrate.config.TracingConfig;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Assigns a correlation id to every request and records span timings for a sampled fraction.
+ *
+ * The id is taken from the incoming request id header when it is at most
+ * {@value #MAX_REQUEST_ID_LENGTH} letters, digits, dots, underscores and dashes, so a client
+ * cannot forge log lines through it; otherwise one is generated. It is echoed back on the
+ * response and exposed to log lines through the {@code requestId} MDC key. Sampled requests emit a single
+ * summary line on the {@code com.heartrate.tracing} logger when they complete.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestTracingFilter extends OncePerRequestFilter {
+    public static final String MDC_REQUEST_ID = "requestId";
+    private static final Logger logger = LoggerFactory.getLogger(RequestTracingFilter.class);
+    private static final int MAX_REQUEST_ID_LENGTH = 64;
+
+    private final TracingConfig tracingConfig;
+
+    public RequestTracingFilter(TracingConfig tracingConfig) {
+        this.tracingConfig = tracingConfig;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String requestId = resolveRequestId(request);
+        response.setHeader(tracingConfig.getRequestIdHeader(), requestId);
+        MDC.put(MDC_REQUEST_ID, requestId);
+
+        boolean sampled = ThreadLocalRandom.current().nextDouble() < tracingConfig.getSampleRate();
+        RequestTrace trace = sampled ? RequestTrace.begin(requestId) : null;
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (trace != null) {
+                RequestTrace.end();
+                logger.info("{} {} {} {}", request.getMethod(), request.getRequestURI(), response.getStatus(),
+                    trace.summary());
+            }
+            MDC.remove(MDC_REQUEST_ID);
+        }
+    }
+
+    private String resolveRequestId(HttpServletRequest request) {
+        String incoming = request.getHeader(tracingConfig.getRequestIdHeader());
+        if (isValidRequestId(incoming)) {
+            return incoming;
+        }
+        // Cheaper than UUID.randomUUID(), which goes through SecureRandom
+        return Long.toHexString(ThreadLocalRandom.current().nextLong() | Long.MIN_VALUE);
+    }
+
+    // [A-Za-z0-9._-]{1,64}
+    static boolean isValidRequestId(String requestId) {
+        if (requestId == null || requestId.isEmpty() || requestId.length() > MAX_REQUEST_ID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < requestId.length(); i++) {
+            char c = requestId.charAt(i);
+            boolean allowed = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '.' || c == '_' || c == '-';
+            if (!allowed) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
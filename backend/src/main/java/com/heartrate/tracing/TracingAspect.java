@@ -0,0 +1,57 @@
+package com.heartrate.tracing;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records controller, service and repository spans for sampled requests. Unsampled requests
+ * go straight to {@code proceed()} after a single thread-local check.
+ */
+@Aspect
+@Component
+public class TracingAspect {
+
+    @Around("within(com.heartrate.controller..*)")
+    public Object traceController(ProceedingJoinPoint joinPoint) throws Throwable {
+        return trace(joinPoint, "controller");
+    }
+
+    @Around("within(com.heartrate.service..*)")
+    public Object traceService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return trace(joinPoint, "service");
+    }
+
+    @Around("this(org.springframework.data.repository.Repository)")
+    public Object traceRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return trace(joinPoint, "repository");
+    }
+
+    private Object trace(ProceedingJoinPoint joinPoint, String layer) throws Throwable {
+        if (!RequestTrace.isSampled()) {
+            return joinPoint.proceed();
+        }
+        try (RequestTrace.Span span = RequestTrace.startSpan(spanName(joinPoint, layer))) {
+            try {
+                return joinPoint.proceed();
+            } catch (Throwable e) {
+                span.fail(e);
+                throw e;
+            }
+        }
+    }
+
+    private static String spanName(ProceedingJoinPoint joinPoint, String layer) {
+        String type = joinPoint.getSignature().getDeclaringType().getSimpleName();
+        if ("repository".equals(layer)) {
+            // Inherited methods like findById are declared on CrudRepository, so name the repository instead
+            Class<?>[] interfaces = AopProxyUtils.proxiedUserInterfaces(joinPoint.getThis());
+            if (interfaces.length > 0) {
+                type = interfaces[0].getSimpleName();
+            }
+        }
+        return layer + ":" + type + "." + joinPoint.getSignature().getName();
+    }
+}
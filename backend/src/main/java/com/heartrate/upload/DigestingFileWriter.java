@@ -0,0 +1,180 @@
+package com.heartrate.upload;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Appends streams to a file while computing its SHA-256 digest, in a single pass through a buffer
+ * supplied by the caller, so the memory an upload takes does not depend on its size.
+ *
+ * The digest and {@link #size()} always describe exactly the bytes in the file: bytes are hashed
+ * only once they are written, and a failed write is cut off again. An append that stops part way,
+ * because the client went away or sent too much, can therefore be continued from {@link #size()}
+ * by a later writer over the same file and digest, see {@link #resume}.
+ *
+ * Disk access can be limited by a {@link WriteGate}, which is passed only around each buffer's
+ * write and the final force: a writer waiting on a slow client holds no slot.
+ *
+ * Not thread-safe.
+ */
+public class DigestingFileWriter implements Closeable {
+    private final FileChannel channel;
+    private final MessageDigest digest;
+    private final WriteGate gate;
+    private long size;
+
+    private DigestingFileWriter(FileChannel channel, MessageDigest digest, long size, WriteGate gate) {
+        this.channel = channel;
+        this.digest = digest;
+        this.size = size;
+        this.gate = gate;
+    }
+
+    /**
+     * Limits how many writers use the disk at once.
+     */
+    public interface WriteGate {
+        WriteGate NONE = new WriteGate() {
+            @Override
+            public void enter() {
+            }
+
+            @Override
+            public void exit() {
+            }
+        };
+
+        /**
+         * Waits for a slot; may throw if none comes free, failing the write before it starts.
+         */
+        void enter();
+
+        void exit();
+    }
+
+    /**
+     * Starts a new file, which must not exist yet.
+     */
+    public static DigestingFileWriter create(Path file) throws IOException {
+        return create(file, WriteGate.NONE);
+    }
+
+    public static DigestingFileWriter create(Path file, WriteGate gate) throws IOException {
+        return new DigestingFileWriter(
+            FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE), newDigest(), 0, gate);
+    }
+
+    /**
+     * Continues a file of which {@code digest} has hashed the first {@code size} bytes. Anything
+     * beyond them, such as the tail of a torn write, is discarded.
+     */
+    public static DigestingFileWriter resume(Path file, MessageDigest digest, long size) throws IOException {
+        return resume(file, digest, size, WriteGate.NONE);
+    }
+
+    public static DigestingFileWriter resume(Path file, MessageDigest digest, long size, WriteGate gate) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() < size) {
+                throw new IOException(file + " is shorter than the " + size + " bytes written to it");
+            }
+            channel.truncate(size);
+            channel.position(size);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new DigestingFileWriter(channel, digest, size, gate);
+    }
+
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Appends the stream up to its end.
+     *
+     * @param maxSize the most bytes the file may hold
+     * @return the number of bytes appended
+     * @throws SizeLimitExceededException if the stream would take the file past {@code maxSize};
+     *         the bytes read before the one that did are kept
+     */
+    public long append(InputStream input, long maxSize, byte[] buffer) throws IOException {
+        long start = size;
+        while (true) {
+            // One byte more than fits tells a stream that ends exactly at the limit from a longer one
+            int read = input.read(buffer, 0, (int) Math.min(buffer.length, maxSize - size + 1));
+            if (read < 0) {
+                return size - start;
+            }
+            if (size + read > maxSize) {
+                throw new SizeLimitExceededException(maxSize);
+            }
+            write(buffer, read);
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * The digest of the bytes written so far, to hand to {@link #resume} later.
+     */
+    public MessageDigest digest() {
+        return digest;
+    }
+
+    /**
+     * Forces the file to disk and completes the digest; the writer must not be appended to after.
+     *
+     * @return the SHA-256 digest of the file, in lower-case hex
+     */
+    public String finish() throws IOException {
+        gate.enter();
+        try {
+            channel.force(false);
+        } finally {
+            gate.exit();
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void write(byte[] buffer, int length) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, length);
+        gate.enter();
+        try {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        } catch (IOException e) {
+            try {
+                channel.truncate(size);
+            } catch (IOException truncateFailure) {
+                e.addSuppressed(truncateFailure);
+            }
+            throw e;
+        } finally {
+            gate.exit();
+        }
+        digest.update(buffer, 0, length);
+        size += length;
+    }
+}
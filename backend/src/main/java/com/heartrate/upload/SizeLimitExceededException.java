@@ -0,0 +1,19 @@
+package com.heartrate.upload;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a stream is longer than the file it is written to may be.
+ */
+public class SizeLimitExceededException extends IOException {
+    private final long maxSize;
+
+    public SizeLimitExceededException(long maxSize) {
+        super("File is larger than " + maxSize + " bytes");
+        this.maxSize = maxSize;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+}
@@ -0,0 +1,2 @@
+-- Where the id-ordered part of each user's feed continues (see FeedService)
+alter table users add column if not exists feed_scan_position uuid;
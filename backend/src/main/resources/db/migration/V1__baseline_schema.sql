@@ -0,0 +1,51 @@
+-- Baseline schema, matching what hibernate ddl-auto=update produced before migrations were introduced.
+-- Databases that were created by Hibernate are baselined at this version and skip this script.
+
+create table if not exists users (
+    id uuid not null,
+    first_name varchar(255),
+    last_name varchar(255),
+    email varchar(255) not null,
+    password varchar(255) not null,
+    date_of_birth date,
+    zip_code varchar(255),
+    gender varchar(255),
+    reset_token varchar(255),
+    reset_token_expiry timestamp(6),
+    primary key (id),
+    constraint uk_users_email unique (email)
+);
+
+create table if not exists items (
+    id uuid not null,
+    name varchar(255),
+    description varchar(255),
+    image_url varchar(255),
+    primary key (id)
+);
+
+create table if not exists ratings (
+    id uuid not null,
+    user_id uuid not null,
+    item_id uuid not null,
+    rating integer,
+    status varchar(255),
+    timestamp timestamp(6),
+    primary key (id),
+    constraint fk_ratings_user foreign key (user_id) references users (id),
+    constraint fk_ratings_item foreign key (item_id) references items (id)
+);
+
+create table if not exists type_of (
+    id uuid not null,
+    item_id uuid,
+    category_id uuid,
+    primary key (id)
+);
+
+create table if not exists child_of (
+    id uuid not null,
+    child_id uuid,
+    parent_id uuid,
+    primary key (id)
+);
@@ -0,0 +1,8 @@
+create table if not exists item_import_checkpoints (
+    import_id uuid not null,
+    rows_processed bigint not null,
+    rows_imported bigint not null,
+    rows_rejected bigint not null,
+    updated_at timestamp(6),
+    primary key (import_id)
+);
@@ -0,0 +1 @@
+alter table items add column version bigint not null default 0;
@@ -0,0 +1,10 @@
+create table if not exists feed_reservations (
+    id uuid not null,
+    user_id uuid,
+    item_id uuid,
+    reserved_until timestamp(6),
+    primary key (id),
+    constraint uk_feed_reservations_user_item unique (user_id, item_id)
+);
+
+create index if not exists idx_ratings_user_item on ratings (user_id, item_id);
@@ -0,0 +1,2 @@
+-- Keyset pagination of a user's rating history (GET /api/users/me/ratings)
+create index if not exists idx_ratings_user_timestamp on ratings (user_id, timestamp, id);
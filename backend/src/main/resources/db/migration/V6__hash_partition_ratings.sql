@@ -0,0 +1,41 @@
+-- Optional hash partitioning of ratings by user_id (PostgreSQL declarative partitioning).
+-- Controlled by spring.flyway.placeholders.ratings_partitions; values of 1 or less keep the
+-- plain table. PostgreSQL routes every row to its partition, and queries that filter on
+-- user_id (saveRating, the feed anti-join, rating history) touch a single partition.
+-- The primary key must contain the partition key, so it becomes (id, user_id). The foreign keys
+-- to users and items are declared on the partitioned parent and apply to every partition.
+do $$
+declare
+    partitions integer := ${ratings_partitions};
+begin
+    if partitions > 1 and not exists (
+        select 1 from pg_partitioned_table where partrelid = 'ratings'::regclass
+    ) then
+        create table ratings_partitioned (
+            id uuid not null,
+            user_id uuid not null,
+            item_id uuid not null,
+            rating integer,
+            status varchar(255),
+            timestamp timestamp(6),
+            primary key (id, user_id)
+        ) partition by hash (user_id);
+
+        for i in 0 .. partitions - 1 loop
+            execute format(
+                'create table ratings_p%s partition of ratings_partitioned for values with (modulus %s, remainder %s)',
+                i, partitions, i);
+        end loop;
+
+        insert into ratings_partitioned (id, user_id, item_id, rating, status, timestamp)
+            select id, user_id, item_id, rating, status, timestamp from ratings;
+        drop table ratings;
+        alter table ratings_partitioned rename to ratings;
+
+        create index idx_ratings_user_item on ratings (user_id, item_id);
+        create index idx_ratings_user_timestamp on ratings (user_id, timestamp, id);
+
+        alter table ratings add constraint fk_ratings_user foreign key (user_id) references users (id);
+        alter table ratings add constraint fk_ratings_item foreign key (item_id) references items (id);
+    end if;
+end $$;
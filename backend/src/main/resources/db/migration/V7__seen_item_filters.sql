@@ -0,0 +1,8 @@
+-- Per-user Bloom filter of items shown, rated or dismissed (see SeenItemService)
+create table if not exists seen_item_filters (
+    user_id uuid not null,
+    item_count bigint not null,
+    data bytea not null,
+    updated_at timestamp(6),
+    primary key (user_id)
+);
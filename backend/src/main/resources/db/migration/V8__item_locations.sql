@@ -0,0 +1,3 @@
+-- Optional item location; nearby queries are answered by the in-memory ItemLocationIndex
+alter table items add column latitude double precision;
+alter table items add column longitude double precision;
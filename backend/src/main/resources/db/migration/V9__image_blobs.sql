@@ -0,0 +1,9 @@
+-- Item images stored once per content, with the number of items using each (see ImageStore)
+create table if not exists image_blobs (
+    sha256 varchar(64) not null,
+    size bigint not null,
+    content_type varchar(255),
+    reference_count integer not null,
+    created_at timestamp(6),
+    primary key (sha256)
+);
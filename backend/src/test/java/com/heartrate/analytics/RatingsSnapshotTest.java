@@ -0,0 +1,139 @@
+package com.heartrate.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.heartrate.config.RatingsSnapshotConfig;
+import com.heartrate.journal.RatingEvent;
+
+public class RatingsSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testWriteAndScan() throws IOException {
+        List<UUID> users = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        List<UUID> items = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            items.add(UUID.randomUUID());
+        }
+
+        Path file = directory.resolve("ratings.snapshot");
+        try (RatingsSnapshotWriter writer = new RatingsSnapshotWriter(file)) {
+            for (int row = 0; row < 1000; row++) {
+                int rating = row % 7 == 6 ? -1 : row % 6;
+                writer.add(users.get(row % 3), items.get(row % 50), rating,
+                    RatingEvent.statusCode(rating < 0 ? "DONT_CARE" : "RATED"), 1_700_000_000L + row);
+            }
+            writer.finish();
+        }
+        // Only the snapshot itself is left behind
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(List.of(file), files.toList());
+        }
+
+        RatingsSnapshot snapshot = RatingsSnapshot.open(file);
+        assertEquals(1000, snapshot.rowCount());
+        assertEquals(3, snapshot.userCount());
+        assertEquals(50, snapshot.itemCount());
+
+        assertEquals(users.get(1), snapshot.userId(snapshot.userOrdinal(1)));
+        assertEquals(items.get(17), snapshot.itemId(snapshot.itemOrdinal(17)));
+        assertEquals(snapshot.userOrdinal(4), snapshot.userOrdinal(users.get(1)));
+        assertEquals(-1, snapshot.userOrdinal(UUID.randomUUID()));
+        assertEquals(-1, snapshot.rating(6));
+        assertEquals(RatingEvent.statusCode("DONT_CARE"), snapshot.status(6));
+        assertEquals(1_700_000_999L, snapshot.epochSecond(999));
+
+        long[] totals = new long[2];
+        snapshot.scan((row, user, item, rating, status, epochSecond) -> {
+            if (rating >= 0) {
+                totals[0] += rating;
+                totals[1]++;
+            }
+        });
+        long expectedSum = 0;
+        long expectedCount = 0;
+        for (int row = 0; row < 1000; row++) {
+            if (row % 7 != 6) {
+                expectedSum += row % 6;
+                expectedCount++;
+            }
+        }
+        assertEquals(expectedSum, totals[0]);
+        assertEquals(expectedCount, totals[1]);
+
+        // Column views scan the same data
+        IntBuffer userColumn = snapshot.userOrdinals();
+        int firstUserRows = 0;
+        while (userColumn.hasRemaining()) {
+            if (userColumn.get() == 0) {
+                firstUserRows++;
+            }
+        }
+        assertEquals(334, firstUserRows);
+        assertThrows(IndexOutOfBoundsException.class, () -> snapshot.scan(0, 1001, (r, u, i, ra, s, e) -> { }));
+    }
+
+    @Test
+    void testRatingOutOfRangeIsRejected() throws IOException {
+        try (RatingsSnapshotWriter writer = new RatingsSnapshotWriter(directory.resolve("ratings.snapshot"))) {
+            byte rated = RatingEvent.statusCode("RATED");
+            assertThrows(IllegalArgumentException.class,
+                () -> writer.add(UUID.randomUUID(), UUID.randomUUID(), 255, rated, 1_700_000_000L));
+            assertThrows(IllegalArgumentException.class,
+                () -> writer.add(UUID.randomUUID(), UUID.randomUUID(), -2, rated, 1_700_000_000L));
+            assertEquals(0, writer.getRowCount());
+            assertEquals(0, writer.getUserCount());
+        }
+    }
+
+    @Test
+    void testExportFromRatingsTable() throws IOException {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:snapshot;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table ratings (id uuid primary key, user_id uuid, item_id uuid, rating integer,"
+            + " status varchar(255), timestamp timestamp(6))");
+        UUID user = UUID.randomUUID();
+        UUID item = UUID.randomUUID();
+        LocalDateTime ratedAt = LocalDateTime.of(2024, 5, 1, 12, 30);
+        jdbc.update("insert into ratings values (?, ?, ?, ?, ?, ?)",
+            UUID.randomUUID(), user, item, 4, "RATED", Timestamp.valueOf(ratedAt));
+        jdbc.update("insert into ratings values (?, ?, ?, ?, ?, ?)",
+            UUID.randomUUID(), user, UUID.randomUUID(), null, "DONT_KNOW", Timestamp.valueOf(ratedAt));
+
+        Path file = directory.resolve("export.snapshot");
+        RatingsSnapshotExporter exporter = new RatingsSnapshotExporter(
+            dataSource, new DataSourceTransactionManager(dataSource), new RatingsSnapshotConfig());
+        assertEquals(2, exporter.export(file));
+
+        RatingsSnapshot snapshot = RatingsSnapshot.open(file);
+        assertEquals(2, snapshot.rowCount());
+        assertEquals(1, snapshot.userCount());
+        assertEquals(user, snapshot.userId(0));
+        int row = snapshot.itemId(snapshot.itemOrdinal(0)).equals(item) ? 0 : 1;
+        assertEquals(4, snapshot.rating(row));
+        assertEquals(RatingEvent.statusCode("RATED"), snapshot.status(row));
+        assertEquals(ratedAt.atZone(ZoneId.systemDefault()).toEpochSecond(), snapshot.epochSecond(row));
+        assertEquals(-1, snapshot.rating(1 - row));
+    }
+}
@@ -0,0 +1,79 @@
+package com.heartrate.blob;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BlobStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testPutGetDelete() throws Exception {
+        for (String type : new String[] {"filesystem", "packed", "memory"}) {
+            try (BlobStore store = open(type)) {
+                checkPutGetDelete(store);
+            }
+        }
+    }
+
+    private void checkPutGetDelete(BlobStore store) throws Exception {
+        byte[] content = randomBytes(5_000, 1);
+        Path source = source("a", content);
+        assertTrue(store.put("ab01", source));
+        assertFalse(Files.exists(source));
+        assertTrue(store.contains("ab01"));
+        assertArrayEquals(content, bytes(store.get("ab01")));
+        assertTrue(store.get("ab01").isReadOnly());
+
+        // The same key again is not stored twice, and the source is consumed either way
+        Path again = source("b", content);
+        assertFalse(store.put("ab01", again));
+        assertFalse(Files.exists(again));
+
+        byte[] empty = new byte[0];
+        assertTrue(store.put("cd02", source("c", empty)));
+        assertArrayEquals(empty, bytes(store.get("cd02")));
+
+        assertTrue(store.delete("ab01"));
+        assertFalse(store.delete("ab01"));
+        assertFalse(store.contains("ab01"));
+        assertNull(store.get("ab01"));
+        assertNull(store.get("ef03"));
+
+        // Deleted keys can be stored again
+        assertTrue(store.put("ab01", source("d", content)));
+        assertArrayEquals(content, bytes(store.get("ab01")));
+    }
+
+    private BlobStore open(String type) throws Exception {
+        return switch (type) {
+            case "filesystem" -> new FileSystemBlobStore(directory.resolve("files"));
+            case "packed" -> new PackedBlobStore(directory.resolve("packs"), 1024 * 1024, 0.5);
+            default -> new InMemoryBlobStore();
+        };
+    }
+
+    private Path source(String name, byte[] content) throws Exception {
+        return Files.write(directory.resolve(name), content);
+    }
+
+    static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    static byte[] randomBytes(int length, long seed) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+}
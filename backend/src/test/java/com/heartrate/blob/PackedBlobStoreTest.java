@@ -0,0 +1,162 @@
+package com.heartrate.blob;
+
+import static com.heartrate.blob.BlobStoreTest.bytes;
+import static com.heartrate.blob.BlobStoreTest.randomBytes;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PackedBlobStoreTest {
+    // Three 1,000-byte blobs with their headers fit in a segment
+    private static final long SEGMENT_SIZE = 4096;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testReopenRebuildsIndexAndDropsTornTail() throws Exception {
+        Path packs = directory.resolve("packs");
+        Map<String, byte[]> blobs = new HashMap<>();
+        try (PackedBlobStore store = new PackedBlobStore(packs, SEGMENT_SIZE, 0.9)) {
+            for (int i = 0; i < 10; i++) {
+                blobs.put(key(i), randomBytes(1_000, i));
+                store.put(key(i), source(blobs.get(key(i))));
+            }
+            assertEquals(4, store.segmentCount());
+            store.delete(key(4));
+            blobs.remove(key(4));
+        }
+        // A crash in the middle of the next record
+        Path last;
+        try (Stream<Path> files = Files.list(packs)) {
+            last = files.sorted().reduce((first, second) -> second).orElseThrow();
+        }
+        long size = Files.size(last);
+        byte[] torn = new byte[40];
+        torn[0] = 1;
+        Files.write(last, torn, StandardOpenOption.APPEND);
+
+        try (PackedBlobStore store = new PackedBlobStore(packs, SEGMENT_SIZE, 0.9)) {
+            assertEquals(size, Files.size(last));
+            for (int i = 0; i < 10; i++) {
+                assertEquals(blobs.containsKey(key(i)), store.contains(key(i)), key(i));
+                if (blobs.containsKey(key(i))) {
+                    assertArrayEquals(blobs.get(key(i)), bytes(store.get(key(i))));
+                }
+            }
+            byte[] content = randomBytes(500, 99);
+            assertTrue(store.put(key(4), source(content)));
+            assertArrayEquals(content, bytes(store.get(key(4))));
+        }
+    }
+
+    @Test
+    void testCompactionKeepsLiveBlobsAndDeletions() throws Exception {
+        Path packs = directory.resolve("packs");
+        Map<String, byte[]> blobs = new HashMap<>();
+        ByteBuffer survivor;
+        try (PackedBlobStore store = new PackedBlobStore(packs, SEGMENT_SIZE, 0.5)) {
+            for (int i = 0; i < 12; i++) {
+                blobs.put(key(i), randomBytes(1_000, i));
+                store.put(key(i), source(blobs.get(key(i))));
+            }
+            survivor = store.get(key(2));
+            // Two thirds of the first segment, and one blob of the second whose tombstone must
+            // outlive the second segment while the first remains
+            for (String key : List.of(key(0), key(1), key(4))) {
+                store.delete(key);
+                blobs.remove(key);
+            }
+            store.compact();
+            assertFalse(Files.exists(packs.resolve(String.format("%020d.pack", 1))));
+            assertEquals(4, store.segmentCount());
+            // Slices handed out before are still readable
+            assertArrayEquals(blobs.get(key(2)), bytes(survivor));
+            assertArrayEquals(blobs.get(key(2)), bytes(store.get(key(2))));
+        }
+
+        try (PackedBlobStore store = new PackedBlobStore(packs, SEGMENT_SIZE, 0.5)) {
+            for (int i = 0; i < 12; i++) {
+                assertEquals(blobs.containsKey(key(i)), store.contains(key(i)), key(i));
+                if (blobs.containsKey(key(i))) {
+                    assertArrayEquals(blobs.get(key(i)), bytes(store.get(key(i))));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testCompactionCarriesOnlyTombstonesOfOlderBlobs() throws Exception {
+        Path packs = directory.resolve("packs");
+        long blobRecord = 24 + 4 + 1_000;
+        long tombstoneRecord = 24 + 4;
+        try (PackedBlobStore store = new PackedBlobStore(packs, SEGMENT_SIZE, 0.5)) {
+            for (int i = 0; i < 4; i++) {
+                store.put(key(i), source(randomBytes(1_000, i)));
+            }
+            // Segment 2 gets a tombstone of a blob in segment 1 and one of its own blob
+            store.delete(key(0));
+            store.delete(key(3));
+            store.put(key(4), source(randomBytes(1_000, 4)));
+            store.put(key(5), source(randomBytes(1_000, 5)));
+            store.put(key(6), source(randomBytes(1_000, 6)));
+            store.delete(key(4));
+            store.compact();
+            assertFalse(Files.exists(packs.resolve(String.format("%020d.pack", 2))));
+            assertTrue(Files.exists(packs.resolve(String.format("%020d.pack", 1))));
+            // Key 6 and the tombstone of key 4, then the moved key 5 and only the tombstone of key 0
+            assertEquals(2 * blobRecord + 2 * tombstoneRecord, Files.size(packs.resolve(String.format("%020d.pack", 3))));
+        }
+
+        try (PackedBlobStore store = new PackedBlobStore(packs, SEGMENT_SIZE, 0.5)) {
+            for (int i = 0; i < 7; i++) {
+                assertEquals(i != 0 && i != 3 && i != 4, store.contains(key(i)), key(i));
+            }
+            assertArrayEquals(randomBytes(1_000, 5), bytes(store.get(key(5))));
+        }
+    }
+
+    @Test
+    void testCorruptBlobIsNotServed() throws Exception {
+        Path packs = directory.resolve("packs");
+        try (PackedBlobStore store = new PackedBlobStore(packs, SEGMENT_SIZE, 0.9)) {
+            for (int i = 0; i < 4; i++) {
+                store.put(key(i), source(randomBytes(1_000, i)));
+            }
+        }
+        // One flipped bit in the first blob of each segment: key 0 in the sealed one, key 3 in the
+        // active one; the headers stay intact
+        for (int segment = 1; segment <= 2; segment++) {
+            Path file = packs.resolve(String.format("%020d.pack", segment));
+            byte[] content = Files.readAllBytes(file);
+            content[24 + 4 + 500] ^= 1;
+            Files.write(file, content);
+        }
+
+        try (PackedBlobStore store = new PackedBlobStore(packs, SEGMENT_SIZE, 0.9)) {
+            assertTrue(store.contains(key(0)));
+            assertThrows(IOException.class, () -> store.get(key(0)));
+            assertThrows(IOException.class, () -> store.get(key(3)));
+            assertArrayEquals(randomBytes(1_000, 1), bytes(store.get(key(1))));
+        }
+    }
+
+    private static String key(int i) {
+        return String.format("%04x", i);
+    }
+
+    private Path source(byte[] content) throws Exception {
+        return Files.write(Files.createTempFile(directory, "blob", ".part"), content);
+    }
+}
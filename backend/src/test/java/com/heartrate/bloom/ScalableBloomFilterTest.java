@@ -0,0 +1,66 @@
+package com.heartrate.bloom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.heartrate.model.UuidV7Generator;
+
+public class ScalableBloomFilterTest {
+
+    @Test
+    void testGrowsAndKeepsFalsePositiveRate() {
+        ScalableBloomFilter filter = ScalableBloomFilter.create(100, 0.01);
+        List<UUID> added = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            UUID id = UuidV7Generator.generate();
+            added.add(id);
+            filter.add(id);
+        }
+        // 100, 200, 400, ... so 50,000 ids need nine slices
+        assertEquals(9, filter.sliceCount());
+        assertTrue(filter.count() > 49_000);
+        for (UUID id : added) {
+            assertTrue(filter.mightContain(id));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(UUID.randomUUID())) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 1000, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void testSerializationRoundTrip() {
+        ScalableBloomFilter filter = ScalableBloomFilter.create(16, 0.01);
+        List<UUID> added = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            UUID id = UUID.randomUUID();
+            added.add(id);
+            filter.add(id);
+        }
+        byte[] data = filter.toBytes();
+
+        ScalableBloomFilter restored = ScalableBloomFilter.fromBytes(data, 16, 0.01);
+        assertEquals(filter.count(), restored.count());
+        assertEquals(filter.sliceCount(), restored.sliceCount());
+        for (UUID id : added) {
+            assertTrue(restored.mightContain(id));
+            assertFalse(restored.add(id));
+        }
+        assertEquals(data.length, restored.toBytes().length);
+
+        assertThrows(IllegalArgumentException.class, () -> ScalableBloomFilter.fromBytes(new byte[] {1, 0, 0, 0, 2}, 16, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> ScalableBloomFilter.fromBytes(new byte[] {9}, 16, 0.01));
+    }
+}
@@ -0,0 +1,217 @@
+package com.heartrate.controller;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.heartrate.config.CatalogCacheConfig;
+import com.heartrate.controller.dto.ChildOfResponse;
+import com.heartrate.controller.dto.ItemResponse;
+import com.heartrate.model.ChildOf;
+import com.heartrate.model.Item;
+import com.heartrate.model.User;
+import com.heartrate.repository.ChildOfRepository;
+import com.heartrate.repository.ItemRepository;
+import com.heartrate.repository.RatingRepository;
+import com.heartrate.repository.UserRepository;
+import com.heartrate.service.UserService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Measures database round trips on the item detail path with and without the second-level
+ * cache, and checks that writes invalidate cached entities and query results.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class CatalogCacheBenchmarkTest {
+    private static final Logger logger = LoggerFactory.getLogger(CatalogCacheBenchmarkTest.class);
+    // Raise with -Dcatalog.benchmark.requests=200 for steadier timings
+    private static final int REQUESTS = Integer.getInteger("catalog.benchmark.requests", 20);
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ChildOfRepository childOfRepository;
+
+    @Autowired
+    private RatingRepository ratingRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private HttpHeaders headers;
+    private SessionFactory sessionFactory;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        ratingRepository.deleteAll();
+        childOfRepository.deleteAll();
+        itemRepository.deleteAll();
+        userRepository.deleteAll();
+
+        User user = new User();
+        user.setFirstName("Cache");
+        user.setLastName("User");
+        user.setEmail("cache@example.com");
+        user.setPassword("password123");
+        user.setDateOfBirth(LocalDate.of(1990, 1, 1));
+        userService.signup(user);
+        Map<String, Object> signinResult = userService.signin("cache@example.com", "password123");
+        headers = new HttpHeaders();
+        headers.setBearerAuth((String) signinResult.get("token"));
+
+        sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        statistics = sessionFactory.getStatistics();
+    }
+
+    @Test
+    void testItemDetailIsServedFromCache() {
+        Item item = new Item();
+        item.setName("Cached Item");
+        item = itemRepository.save(item);
+
+        // Baseline: the entity is evicted before every request, as if there were no cache
+        statistics.clear();
+        long start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            sessionFactory.getCache().evictEntityData(Item.class);
+            assertEquals(HttpStatus.OK, getItem(item).getStatusCode());
+        }
+        long uncachedNanos = System.nanoTime() - start;
+        long uncachedStatements = statistics.getPrepareStatementCount();
+        long uncachedItemLoads = itemLoads();
+
+        statistics.clear();
+        start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            assertEquals(HttpStatus.OK, getItem(item).getStatusCode());
+        }
+        long cachedNanos = System.nanoTime() - start;
+        long cachedStatements = statistics.getPrepareStatementCount();
+        long cachedItemLoads = itemLoads();
+
+        // Every request also loads the authenticated user, which is not a catalog entity
+        logger.info("Item detail, {} requests: without cache {} item queries ({} total) in {} ms, "
+                + "with cache {} item queries ({} total) in {} ms",
+            REQUESTS, uncachedItemLoads, uncachedStatements, uncachedNanos / 1_000_000,
+            cachedItemLoads, cachedStatements, cachedNanos / 1_000_000);
+        assertEquals(REQUESTS, uncachedItemLoads);
+        assertTrue(cachedItemLoads <= 1, "expected at most one item query to warm the cache, got " + cachedItemLoads);
+        assertTrue(cachedStatements <= uncachedStatements - REQUESTS + 1);
+        assertTrue(statistics.getDomainDataRegionStatistics(CatalogCacheConfig.ITEMS_REGION).getHitCount() >= REQUESTS - 1);
+
+        // Cache statistics are published as meters
+        assertNotNull(meterRegistry.find("hibernate.second.level.cache.requests")
+            .tag("region", CatalogCacheConfig.ITEMS_REGION).tag("result", "hit").functionCounter());
+    }
+
+    @Test
+    void testConditionalItemReadSkipsLookup() {
+        Item item = new Item();
+        item.setName("Conditional Item");
+        item = itemRepository.save(item);
+        String etag = getItem(item).getHeaders().getETag();
+
+        statistics.clear();
+        HttpHeaders conditional = new HttpHeaders();
+        conditional.putAll(headers);
+        conditional.setIfNoneMatch(etag);
+        for (int i = 0; i < REQUESTS; i++) {
+            ResponseEntity<ItemResponse> response = restTemplate.exchange("/api/items/{itemId}", HttpMethod.GET,
+                new HttpEntity<>(conditional), ItemResponse.class, item.getId());
+            assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        }
+        // Neither the database nor the second-level cache is consulted for the item
+        assertEquals(0, itemLoads());
+        assertEquals(0, statistics.getDomainDataRegionStatistics(CatalogCacheConfig.ITEMS_REGION).getHitCount());
+    }
+
+    @Test
+    void testItemUpdateInvalidatesCachedEntity() {
+        Item item = new Item();
+        item.setName("Before");
+        item = itemRepository.save(item);
+        assertEquals("Before", getItem(item).getBody().name());
+
+        item.setName("After");
+        itemRepository.save(item);
+
+        assertEquals("After", getItem(item).getBody().name());
+    }
+
+    @Test
+    void testRelationshipQueryCacheIsInvalidatedOnInsert() {
+        Item parent = new Item();
+        parent.setName("Parent");
+        parent = itemRepository.save(parent);
+        Item child = new Item();
+        child.setName("Child");
+        child = itemRepository.save(child);
+        childOfRepository.save(new ChildOf(child.getId(), parent.getId()));
+
+        assertEquals(1, getChildren(parent).size());
+        statistics.clear();
+        assertEquals(1, getChildren(parent).size());
+        assertEquals(0, statistics.getQueryCacheMissCount());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+
+        Item secondChild = new Item();
+        secondChild.setName("Second Child");
+        secondChild = itemRepository.save(secondChild);
+        childOfRepository.save(new ChildOf(secondChild.getId(), parent.getId()));
+
+        List<ChildOfResponse> children = getChildren(parent);
+        assertEquals(2, children.size());
+        assertTrue(children.stream().anyMatch(c -> "Second Child".equals(c.childName())));
+    }
+
+    private long itemLoads() {
+        return statistics.getEntityStatistics(Item.class.getName()).getLoadCount();
+    }
+
+    private ResponseEntity<ItemResponse> getItem(Item item) {
+        return restTemplate.exchange("/api/items/{itemId}", HttpMethod.GET, new HttpEntity<>(headers),
+            ItemResponse.class, item.getId());
+    }
+
+    private List<ChildOfResponse> getChildren(Item parent) {
+        ResponseEntity<ChildOfResponse[]> response = restTemplate.exchange("/api/relationships/childof/parent/{parentId}",
+            HttpMethod.GET, new HttpEntity<>(headers), ChildOfResponse[].class, parent.getId());
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return List.of(response.getBody());
+    }
+}
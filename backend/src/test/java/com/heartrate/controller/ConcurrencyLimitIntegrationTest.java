@@ -0,0 +1,92 @@
+package com.heartrate.controller;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.heartrate.model.User;
+import com.heartrate.repository.UserRepository;
+import com.heartrate.security.CustomUserDetailsService;
+import com.heartrate.service.UserService;
+
+/**
+ * The concurrency limiter with room for a single request, to show where in the filter chain it
+ * sheds load.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "app.concurrency-limit.initial-limit=1",
+    "app.concurrency-limit.min-limit=1",
+    "app.concurrency-limit.max-limit=1"
+})
+@ActiveProfiles("test")
+public class ConcurrencyLimitIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @SpyBean
+    private CustomUserDetailsService userDetailsService;
+
+    @Test
+    void testRejectsBeforeUserLookup() throws Exception {
+        userRepository.deleteAll();
+        User user = new User();
+        user.setFirstName("Limit");
+        user.setLastName("User");
+        user.setEmail("limit@example.com");
+        user.setPassword("password123");
+        user.setDateOfBirth(LocalDate.of(1995, 5, 15));
+        userService.signup(user);
+        Map<String, Object> signinResult = userService.signin("limit@example.com", "password123");
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth((String) signinResult.get("token"));
+
+        // The first request stalls in its user lookup, as it would on a slow database
+        CountDownLatch lookingUp = new CountDownLatch(1);
+        CountDownLatch databaseBack = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            lookingUp.countDown();
+            databaseBack.await(5, TimeUnit.SECONDS);
+            return invocation.callRealMethod();
+        }).when(userDetailsService).loadUserByUsername(any());
+        String path = "/api/items/" + UUID.randomUUID();
+        CompletableFuture<ResponseEntity<String>> first = CompletableFuture.supplyAsync(() ->
+            restTemplate.exchange(path, HttpMethod.GET, new HttpEntity<>(headers), String.class));
+        assertTrue(lookingUp.await(5, TimeUnit.SECONDS));
+
+        ResponseEntity<String> second = restTemplate.exchange(path, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, second.getStatusCode());
+        assertNotNull(second.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        verify(userDetailsService, times(1)).loadUserByUsername(any());
+
+        databaseBack.countDown();
+        assertEquals(HttpStatus.NOT_FOUND, first.get(5, TimeUnit.SECONDS).getStatusCode());
+    }
+}
@@ -2,12 +2,33 @@ package com.heartrate.controller;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -21,19 +42,45 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.core.io.ByteArrayResource;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.heartrate.bloom.ScalableBloomFilter;
+import com.heartrate.controller.dto.FeedResponse;
+import com.heartrate.controller.dto.ItemImportResult;
+import com.heartrate.controller.dto.ItemResponse;
+import com.heartrate.controller.dto.NearbyItemResponse;
+import com.heartrate.controller.dto.RatingResponse;
+import com.heartrate.controller.dto.RecommendationResponse;
+import com.heartrate.controller.dto.SearchHitResponse;
+import com.heartrate.controller.dto.SearchResponse;
+import com.heartrate.controller.dto.UploadStatusResponse;
+import com.heartrate.journal.RatingJournal;
 import com.heartrate.model.Item;
 import com.heartrate.model.Rating;
+import com.heartrate.model.TypeOf;
 import com.heartrate.model.User;
+import com.heartrate.repository.FeedReservationRepository;
+import com.heartrate.repository.ImageBlobRepository;
 import com.heartrate.repository.ItemRepository;
 import com.heartrate.repository.RatingRepository;
+import com.heartrate.repository.SeenItemFilterRepository;
+import com.heartrate.repository.TypeOfRepository;
 import com.heartrate.repository.UserRepository;
+import com.heartrate.service.CategorySampler;
+import com.heartrate.service.ImageStore;
+import com.heartrate.service.ItemLocationIndex;
+import com.heartrate.service.ItemSearchIndex;
+import com.heartrate.service.RatingService;
+import com.heartrate.service.SeenItemService;
 import com.heartrate.service.UserService;
+
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Disabled;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -55,9 +102,48 @@ public class ItemControllerIntegrationTest {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private TypeOfRepository typeOfRepository;
+
+    @Autowired
+    private CategorySampler categorySampler;
+
+    @Autowired
+    private ItemLocationIndex itemLocationIndex;
+
+    @Autowired
+    private ItemSearchIndex itemSearchIndex;
+
+    @Autowired
+    private ImageStore imageStore;
+
+    @Autowired
+    private ImageBlobRepository imageBlobRepository;
+
+    @Autowired
+    private FeedReservationRepository feedReservationRepository;
+
+    @Autowired
+    private RatingService ratingService;
+
+    @Autowired
+    private RatingJournal ratingJournal;
+
+    @Autowired
+    private SeenItemService seenItemService;
+
+    @Autowired
+    private SeenItemFilterRepository seenItemFilterRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private User testUser;
     private String jwtToken;
 
@@ -65,6 +151,7 @@ public class ItemControllerIntegrationTest {
     void setUp() {
         // Clear repositories before each test
         ratingRepository.deleteAll();
+        typeOfRepository.deleteAll();
         itemRepository.deleteAll();
         userRepository.deleteAll();
 
@@ -193,7 +280,6 @@ public class ItemControllerIntegrationTest {
     }
 
     @Test
-    @Disabled("Disabled to focus on specific test")
     void testRateItem_Success() throws Exception {
         // Create an item and a user
         Item item = new Item();
@@ -201,7 +287,7 @@ public class ItemControllerIntegrationTest {
         item.setDescription("This item can be rated.");
         item.setImageUrl("/uploads/images/rateable.jpg");
         item.setId(UUID.randomUUID());
-        itemRepository.save(item);
+        item = itemRepository.save(item);
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
@@ -210,19 +296,19 @@ public class ItemControllerIntegrationTest {
         Integer ratingValue = 5;
         HttpEntity<Integer> requestEntity = new HttpEntity<>(ratingValue, headers);
 
-        ResponseEntity<Rating> response = restTemplate.exchange(
+        ResponseEntity<RatingResponse> response = restTemplate.exchange(
                 "/api/items/" + item.getId() + "/rate",
                 HttpMethod.POST,
                 requestEntity,
-                Rating.class
+                RatingResponse.class
         );
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
-        assertEquals(ratingValue, response.getBody().getRating());
-        assertEquals("RATED", response.getBody().getStatus());
-        assertEquals(item.getId(), response.getBody().getItem().getId());
-        assertEquals(testUser.getId(), response.getBody().getUser().getId());
+        assertEquals(ratingValue, response.getBody().rating());
+        assertEquals("RATED", response.getBody().status());
+        assertEquals(item.getId(), response.getBody().itemId());
+        assertEquals(testUser.getId(), response.getBody().userId());
 
         // Verify rating is saved in the database
         Optional<Rating> savedRatingOptional = ratingRepository.findByUserAndItem(testUser, item);
@@ -245,7 +331,24 @@ public class ItemControllerIntegrationTest {
     }
 
     @Test
-    @Disabled("Disabled to focus on specific test")
+    void testRateItem_JournalsOnlyCommittedRatings() {
+        Item item = new Item();
+        item.setName("Journaled Item");
+        UUID itemId = itemRepository.save(item).getId();
+        long journaled = ratingJournal.size();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            ratingService.saveRating(testUser.getId(), itemId, 4, "RATED");
+            status.setRollbackOnly();
+        });
+        assertTrue(ratingRepository.findByUserIdAndItemId(testUser.getId(), itemId).isEmpty());
+        assertEquals(journaled, ratingJournal.size());
+
+        ratingService.saveRating(testUser.getId(), itemId, 5, "RATED");
+        assertEquals(journaled + 1, ratingJournal.size());
+    }
+
+    @Test
     void testDontKnowItem_Success() throws Exception {
         // Create an item and a user
         Item item = new Item();
@@ -253,26 +356,26 @@ public class ItemControllerIntegrationTest {
         item.setDescription("This item can be marked as don't know.");
         item.setImageUrl("/uploads/images/dontknow.jpg");
         item.setId(UUID.randomUUID());
-        itemRepository.save(item);
+        item = itemRepository.save(item);
 
         HttpHeaders headers = new HttpHeaders();
         headers.setBearerAuth(jwtToken);
         // No request body needed for this endpoint
         HttpEntity<Void> requestEntity = new HttpEntity<>(headers);
 
-        ResponseEntity<Rating> response = restTemplate.exchange(
+        ResponseEntity<RatingResponse> response = restTemplate.exchange(
                 "/api/items/" + item.getId() + "/dont-know",
                 HttpMethod.POST,
                 requestEntity,
-                Rating.class
+                RatingResponse.class
         );
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
-        assertNull(response.getBody().getRating()); // Rating should be null for DONT_KNOW
-        assertEquals("DONT_KNOW", response.getBody().getStatus());
-        assertEquals(item.getId(), response.getBody().getItem().getId());
-        assertEquals(testUser.getId(), response.getBody().getUser().getId());
+        assertNull(response.getBody().rating()); // Rating should be null for DONT_KNOW
+        assertEquals("DONT_KNOW", response.getBody().status());
+        assertEquals(item.getId(), response.getBody().itemId());
+        assertEquals(testUser.getId(), response.getBody().userId());
 
         // Verify rating is saved in the database
         Optional<Rating> savedRatingOptional = ratingRepository.findByUserAndItem(testUser, item);
@@ -295,7 +398,6 @@ public class ItemControllerIntegrationTest {
     }
 
     @Test
-    @Disabled("Disabled to focus on specific test")
     void testDontCareItem_Success() throws Exception {
          // Create an item and a user
         Item item = new Item();
@@ -303,26 +405,26 @@ public class ItemControllerIntegrationTest {
         item.setDescription("This item can be marked as don't care.");
         item.setImageUrl("/uploads/images/dontcare.jpg");
         item.setId(UUID.randomUUID());
-        itemRepository.save(item);
+        item = itemRepository.save(item);
 
         HttpHeaders headers = new HttpHeaders();
         headers.setBearerAuth(jwtToken);
         // No request body needed for this endpoint
         HttpEntity<Void> requestEntity = new HttpEntity<>(headers);
 
-        ResponseEntity<Rating> response = restTemplate.exchange(
+        ResponseEntity<RatingResponse> response = restTemplate.exchange(
                 "/api/items/" + item.getId() + "/dont-care",
                 HttpMethod.POST,
                 requestEntity,
-                Rating.class
+                RatingResponse.class
         );
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
-        assertNull(response.getBody().getRating()); // Rating should be null for DONT_CARE
-        assertEquals("DONT_CARE", response.getBody().getStatus());
-        assertEquals(item.getId(), response.getBody().getItem().getId());
-        assertEquals(testUser.getId(), response.getBody().getUser().getId());
+        assertNull(response.getBody().rating()); // Rating should be null for DONT_CARE
+        assertEquals("DONT_CARE", response.getBody().status());
+        assertEquals(item.getId(), response.getBody().itemId());
+        assertEquals(testUser.getId(), response.getBody().userId());
 
         // Verify rating is saved in the database
         Optional<Rating> savedRatingOptional = ratingRepository.findByUserAndItem(testUser, item);
@@ -645,7 +747,6 @@ public class ItemControllerIntegrationTest {
 
     // Test cases for non-existent items
      @Test
-    @Disabled("Disabled to focus on specific test")
     void testRateItem_NotFound() {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
@@ -706,6 +807,801 @@ public class ItemControllerIntegrationTest {
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
 
+    @Test
+    void testGetItem_ConditionalGet() {
+        Item item = new Item();
+        item.setName("Versioned Item");
+        item = itemRepository.save(item);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(jwtToken);
+        ResponseEntity<ItemResponse> first = restTemplate.exchange(
+                "/api/items/{itemId}", HttpMethod.GET, new HttpEntity<>(headers), ItemResponse.class, item.getId());
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        String etag = first.getHeaders().getETag();
+        assertNotNull(etag);
+
+        headers.setIfNoneMatch(etag);
+        ResponseEntity<ItemResponse> notModified = restTemplate.exchange(
+                "/api/items/{itemId}", HttpMethod.GET, new HttpEntity<>(headers), ItemResponse.class, item.getId());
+        assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+        assertNull(notModified.getBody());
+        assertEquals(etag, notModified.getHeaders().getETag());
+
+        // Updating the item changes its ETag
+        item.setName("Renamed Item");
+        itemRepository.save(item);
+        ResponseEntity<ItemResponse> changed = restTemplate.exchange(
+                "/api/items/{itemId}", HttpMethod.GET, new HttpEntity<>(headers), ItemResponse.class, item.getId());
+        assertEquals(HttpStatus.OK, changed.getStatusCode());
+        assertEquals("Renamed Item", changed.getBody().name());
+        assertNotEquals(etag, changed.getHeaders().getETag());
+    }
+
+    @Test
+    void testGetItem_RolledBackUpdateKeepsETag() {
+        Item item = new Item();
+        item.setName("Versioned Item");
+        UUID itemId = itemRepository.save(item).getId();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(jwtToken);
+        String etag = restTemplate.exchange(
+                "/api/items/{itemId}", HttpMethod.GET, new HttpEntity<>(headers), ItemResponse.class, itemId)
+            .getHeaders().getETag();
+
+        // The update is flushed, so the entity listeners run, but never committed
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Item loaded = itemRepository.findById(itemId).orElseThrow();
+            loaded.setName("Rolled Back Name");
+            itemRepository.saveAndFlush(loaded);
+            status.setRollbackOnly();
+        });
+
+        headers.setIfNoneMatch(etag);
+        ResponseEntity<ItemResponse> response = restTemplate.exchange(
+                "/api/items/{itemId}", HttpMethod.GET, new HttpEntity<>(headers), ItemResponse.class, itemId);
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+    }
+
+    @Test
+    void testGetFeed_ReservesUnseenItems() throws Exception {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Item item = new Item();
+            item.setName("Feed Item " + i);
+            items.add(itemRepository.save(item));
+        }
+        Rating rated = new Rating();
+        rated.setUser(testUser);
+        rated.setItem(items.get(0));
+        rated.setRating(4);
+        rated.setStatus("RATED");
+        ratingRepository.save(rated);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(jwtToken);
+        HttpEntity<Void> requestEntity = new HttpEntity<>(headers);
+
+        // Three devices ask for a page at the same time
+        ExecutorService devices = Executors.newFixedThreadPool(3);
+        List<Future<ResponseEntity<FeedResponse>>> pages = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            pages.add(devices.submit(() -> restTemplate.exchange(
+                    "/api/items/feed?size=2", HttpMethod.GET, requestEntity, FeedResponse.class)));
+        }
+        Set<UUID> seen = new HashSet<>();
+        for (Future<ResponseEntity<FeedResponse>> page : pages) {
+            ResponseEntity<FeedResponse> response = page.get();
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            assertEquals(2, response.getBody().items().size());
+            assertNotNull(response.getBody().reservedUntil());
+            for (ItemResponse item : response.getBody().items()) {
+                assertNotNull(item.name());
+                assertTrue(seen.add(item.id()), "item handed out twice: " + item.id());
+            }
+        }
+        devices.shutdown();
+        assertFalse(seen.contains(items.get(0).getId()));
+
+        // Only the one remaining unseen item is left
+        ResponseEntity<FeedResponse> last = restTemplate.exchange(
+                "/api/items/feed?size=5", HttpMethod.GET, requestEntity, FeedResponse.class);
+        assertEquals(1, last.getBody().items().size());
+
+        ResponseEntity<String> tooLarge = restTemplate.exchange(
+                "/api/items/feed?size=1000", HttpMethod.GET, requestEntity, String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, tooLarge.getStatusCode());
+    }
+
+    @Test
+    void testGetRecommendations_CachedAndPatchedOnRating() throws Exception {
+        Item category = new Item();
+        category.setName("Category");
+        category = itemRepository.save(category);
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Item item = new Item();
+            item.setName("Recommended Item " + i);
+            item = itemRepository.save(item);
+            typeOfRepository.save(new TypeOf(item.getId(), category.getId()));
+            items.add(item);
+        }
+        Item unrelated = new Item();
+        unrelated.setName("Unrelated Item");
+        itemRepository.save(unrelated);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(jwtToken);
+        restTemplate.exchange("/api/items/" + items.get(0).getId() + "/rate", HttpMethod.POST,
+                new HttpEntity<>(5, headers), RatingResponse.class);
+
+        // Liking one item of the category recommends the rest of it, but not the liked item
+        List<RecommendationResponse> first = getRecommendations(headers);
+        assertEquals(List.of(items.get(1).getId(), items.get(2).getId()),
+                first.stream().map(RecommendationResponse::id).toList());
+
+        double hits = meterRegistry.get("cache.gets").tag("cache", "recommendations").tag("result", "hit").functionCounter().count();
+        assertEquals(first, getRecommendations(headers));
+        assertEquals(hits + 1, meterRegistry.get("cache.gets").tag("cache", "recommendations").tag("result", "hit").functionCounter().count());
+
+        // A rating removes the item from the cached list straight away
+        restTemplate.exchange("/api/items/" + items.get(1).getId() + "/dont-care", HttpMethod.POST,
+                new HttpEntity<>(headers), RatingResponse.class);
+        List<RecommendationResponse> patched = getRecommendations(headers);
+        assertEquals(List.of(items.get(2).getId()), patched.stream().map(RecommendationResponse::id).toList());
+        assertTrue(meterRegistry.get("recommendations.refresh").tag("mode", "sync").timer().count() > 0);
+
+        ResponseEntity<String> tooLarge = restTemplate.exchange(
+                "/api/items/recommendations?limit=1000", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, tooLarge.getStatusCode());
+    }
+
+    @Test
+    void testDismissItem_NeverOfferedAgain() throws Exception {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Item item = new Item();
+            item.setName("Dismissable Item " + i);
+            items.add(itemRepository.save(item));
+        }
+        // Popular with another user, so it is recommended
+        User other = new User();
+        other.setEmail("other-dismiss@example.com");
+        other.setPassword("password123");
+        other = userRepository.save(other);
+        for (Item item : items) {
+            Rating rating = new Rating(other, item, 5, "RATED");
+            ratingRepository.save(rating);
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(jwtToken);
+        assertEquals(3, getRecommendations(headers).size());
+
+        ResponseEntity<Void> dismissed = restTemplate.exchange("/api/items/" + items.get(0).getId() + "/dismiss",
+                HttpMethod.POST, new HttpEntity<>(headers), Void.class);
+        assertEquals(HttpStatus.NO_CONTENT, dismissed.getStatusCode());
+        assertFalse(getRecommendations(headers).stream().anyMatch(r -> r.id().equals(items.get(0).getId())));
+
+        // The feed skips the dismissed item, and items once shown do not come back after their reservation
+        ResponseEntity<FeedResponse> page = restTemplate.exchange(
+                "/api/items/feed?size=10", HttpMethod.GET, new HttpEntity<>(headers), FeedResponse.class);
+        assertEquals(Set.of(items.get(1).getId(), items.get(2).getId()),
+                page.getBody().items().stream().map(ItemResponse::id).collect(Collectors.toSet()));
+        feedReservationRepository.deleteAll();
+        ResponseEntity<FeedResponse> again = restTemplate.exchange(
+                "/api/items/feed?size=10", HttpMethod.GET, new HttpEntity<>(headers), FeedResponse.class);
+        assertTrue(again.getBody().items().isEmpty());
+
+        ResponseEntity<Void> missing = restTemplate.exchange("/api/items/" + UUID.randomUUID() + "/dismiss",
+                HttpMethod.POST, new HttpEntity<>(headers), Void.class);
+        assertEquals(HttpStatus.NOT_FOUND, missing.getStatusCode());
+    }
+
+    @Test
+    void testGetFeed_SkipsSeenItems() throws Exception {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            Item item = new Item();
+            item.setName("Seen Item " + i);
+            items.add(itemRepository.save(item));
+        }
+        // Everything but the last item in id order was shown before and is no longer reserved
+        List<UUID> ids = items.stream().map(Item::getId).sorted().toList();
+        seenItemService.addToFilter(testUser.getId(), ids.subList(0, ids.size() - 1));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(jwtToken);
+        ResponseEntity<FeedResponse> page = restTemplate.exchange(
+                "/api/items/feed?size=1", HttpMethod.GET, new HttpEntity<>(headers), FeedResponse.class);
+        assertEquals(List.of(ids.get(ids.size() - 1)), page.getBody().items().stream().map(ItemResponse::id).toList());
+
+        // Ratings and feed pages reach the stored filter in one write per user
+        ratingService.saveRating(testUser.getId(), ids.get(0), 4, "RATED");
+        seenItemService.flush();
+        assertTrue(seenItemFilterRepository.findById(testUser.getId()).isPresent());
+        assertTrue(seenItemService.load(testUser.getId()).mightContain(ids.get(ids.size() - 1)));
+    }
+
+    @Test
+    void testGetFeed_ContinuesFromScanPositionAndWrapsAround() throws Exception {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Item item = new Item();
+            item.setName("Scanned Item " + i);
+            ids.add(itemRepository.save(item).getId());
+        }
+        ids.sort(null);
+        User user = userRepository.findById(testUser.getId()).orElseThrow();
+        user.setFeedScanPosition(ids.get(1));
+        userRepository.save(user);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(jwtToken);
+        ResponseEntity<FeedResponse> first = restTemplate.exchange(
+                "/api/items/feed?size=1", HttpMethod.GET, new HttpEntity<>(headers), FeedResponse.class);
+        assertEquals(List.of(ids.get(2)), first.getBody().items().stream().map(ItemResponse::id).toList());
+
+        // Nothing unseen after the position any more, so the scan starts over from the first item
+        ResponseEntity<FeedResponse> second = restTemplate.exchange(
+                "/api/items/feed?size=1", HttpMethod.GET, new HttpEntity<>(headers), FeedResponse.class);
+        assertEquals(List.of(ids.get(0)), second.getBody().items().stream().map(ItemResponse::id).toList());
+        assertEquals(ids.get(0), userRepository.findById(testUser.getId()).orElseThrow().getFeedScanPosition());
+    }
+
+    @Test
+    void testGetFeed_MixesCategories() throws Exception {
+        Map<UUID, UUID> categoryOf = new HashMap<>();
+        for (String name : List.of("First Category", "Second Category")) {
+            Item category = new Item();
+            category.setName(name);
+            category = itemRepository.save(category);
+            for (int i = 0; i < 20; i++) {
+                Item item = new Item();
+                item.setName(name + " Item " + i);
+                item = itemRepository.save(item);
+                typeOfRepository.save(new TypeOf(item.getId(), category.getId()));
+                categoryOf.put(item.getId(), category.getId());
+            }
+        }
+        categorySampler.flush();
+        assertTrue(categorySampler.isReady());
+
+        // In id order the page would hold only the first category's items
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(jwtToken);
+        ResponseEntity<FeedResponse> page = restTemplate.exchange(
+                "/api/items/feed?size=20", HttpMethod.GET, new HttpEntity<>(headers), FeedResponse.class);
+        assertEquals(HttpStatus.OK, page.getStatusCode());
+        assertEquals(20, page.getBody().items().size());
+        assertEquals(20, page.getBody().items().stream().map(ItemResponse::id).distinct().count());
+        assertEquals(2, page.getBody().items().stream()
+                .map(item -> categoryOf.get(item.id())).filter(Objects::nonNull).distinct().count());
+    }
+
+    @Test
+    void testCategorySampler_IgnoresRolledBackRelationships() {
+        Item category = new Item();
+        category.setName("Only Category");
+        UUID categoryId = itemRepository.save(category).getId();
+        Item item = new Item();
+        item.setName("Only Item");
+        UUID itemId = itemRepository.save(item).getId();
+        ScalableBloomFilter nothingSeen = ScalableBloomFilter.create(100, 0.01);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            typeOfRepository.saveAndFlush(new TypeOf(itemId, categoryId));
+            status.setRollbackOnly();
+        });
+        categorySampler.flush();
+        assertTrue(categorySampler.isReady());
+        assertEquals(List.of(), categorySampler.sample(testUser.getId(), nothingSeen, 5));
+
+        typeOfRepository.save(new TypeOf(itemId, categoryId));
+        categorySampler.flush();
+        assertEquals(List.of(itemId), categorySampler.sample(testUser.getId(), nothingSeen, 5));
+    }
+
+    @Test
+    void testGetNearbyItems() throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(jwtToken);
+        // Eiffel Tower, Louvre, Notre-Dame, and the Colosseum far away
+        double[][] places = {{48.8584, 2.2945}, {48.8606, 2.3376}, {48.8530, 2.3499}, {41.8902, 12.4922}};
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < places.length; i++) {
+            Map<String, Object> requestBody = Map.of("name", "Place " + i, "latitude", places[i][0], "longitude", places[i][1]);
+            ResponseEntity<ItemResponse> created = restTemplate.exchange("/api/items/from-url", HttpMethod.POST,
+                    new HttpEntity<>(requestBody, headers), ItemResponse.class);
+            assertEquals(HttpStatus.CREATED, created.getStatusCode());
+            assertEquals(places[i][0], created.getBody().latitude());
+            ids.add(created.getBody().id());
+        }
+        Item unlocated = new Item();
+        unlocated.setName("Nowhere");
+        itemRepository.save(unlocated);
+
+        for (int i = 0; i < 50 && !itemLocationIndex.isReady(); i++) {
+            Thread.sleep(100);
+        }
+        // From the Louvre: itself, then Notre-Dame, then the Eiffel Tower; Rome is out of range
+        ResponseEntity<String> response = restTemplate.exchange(
+                "/api/items/nearby?lat=48.8606&lon=2.3376&radius=10000", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        List<NearbyItemResponse> nearby = objectMapper.readValue(response.getBody(), new TypeReference<List<NearbyItemResponse>>() {});
+        assertEquals(List.of(ids.get(1), ids.get(2), ids.get(0)), nearby.stream().map(NearbyItemResponse::id).toList());
+        assertEquals(0, nearby.get(0).distanceMeters(), 1);
+        assertEquals(1_234, nearby.get(1).distanceMeters(), 10);
+
+        // k-nearest within a wide radius
+        response = restTemplate.exchange(
+                "/api/items/nearby?lat=44&lon=10&radius=500000&limit=1", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        nearby = objectMapper.readValue(response.getBody(), new TypeReference<List<NearbyItemResponse>>() {});
+        assertEquals(List.of(ids.get(3)), nearby.stream().map(NearbyItemResponse::id).toList());
+
+        // A move that rolls back never reaches the index
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Item eiffel = itemRepository.findById(ids.get(0)).orElseThrow();
+            eiffel.setLatitude(41.8902);
+            eiffel.setLongitude(12.4922);
+            itemRepository.saveAndFlush(eiffel);
+            status.setRollbackOnly();
+        });
+        response = restTemplate.exchange(
+                "/api/items/nearby?lat=41.8902&lon=12.4922&radius=10000", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        nearby = objectMapper.readValue(response.getBody(), new TypeReference<List<NearbyItemResponse>>() {});
+        assertEquals(List.of(ids.get(3)), nearby.stream().map(NearbyItemResponse::id).toList());
+
+        ResponseEntity<String> tooFar = restTemplate.exchange(
+                "/api/items/nearby?lat=45&lon=8&radius=10000000", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, tooFar.getStatusCode());
+        ResponseEntity<String> halfLocated = restTemplate.exchange("/api/items/from-url", HttpMethod.POST,
+                new HttpEntity<>(Map.of("name", "Half", "latitude", 10.0), headers), String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, halfLocated.getStatusCode());
+    }
+
+    @Test
+    void testSearchItems() throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(jwtToken);
+        List<UUID> ids = new ArrayList<>();
+        String[][] texts = {
+            {"Quokka Pizza", "Thin crust"},
+            {"Pasta", "Goes well with quokka pizzas"},
+            {"Garlic Bread", "Baked fresh"}
+        };
+        for (String[] text : texts) {
+            Item item = new Item();
+            item.setName(text[0]);
+            item.setDescription(text[1]);
+            ids.add(itemRepository.save(item).getId());
+        }
+        for (int i = 0; i < 50 && !itemSearchIndex.isReady(); i++) {
+            Thread.sleep(100);
+        }
+
+        // A match in the name outweighs the same match in the description
+        SearchResponse results = search("q=quokka+pizza", headers);
+        assertEquals(2, results.total());
+        assertEquals(List.of(ids.get(0), ids.get(1)), results.items().stream().map(SearchHitResponse::id).toList());
+        assertEquals("Quokka Pizza", results.items().get(0).name());
+
+        results = search("q=quokka+pizza&offset=1&limit=1", headers);
+        assertEquals(2, results.total());
+        assertEquals(List.of(ids.get(1)), results.items().stream().map(SearchHitResponse::id).toList());
+
+        results = search("q=quokka&nameBoost=0", headers);
+        assertEquals(List.of(ids.get(1)), results.items().stream().map(SearchHitResponse::id).toList());
+
+        // Saves and deletes reach the index
+        Item bread = itemRepository.findById(ids.get(2)).orElseThrow();
+        bread.setDescription("Perfect with quokka soup");
+        itemRepository.save(bread);
+        itemRepository.deleteById(ids.get(0));
+        results = search("q=quokka", headers);
+        assertEquals(Set.of(ids.get(1), ids.get(2)), results.items().stream().map(SearchHitResponse::id).collect(Collectors.toSet()));
+
+        // A rename that rolls back never reaches the index
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Item pasta = itemRepository.findById(ids.get(1)).orElseThrow();
+            pasta.setName("Zucchini");
+            pasta.setDescription(null);
+            itemRepository.saveAndFlush(pasta);
+            status.setRollbackOnly();
+        });
+        assertEquals(0, search("q=zucchini", headers).total());
+        assertEquals(2, search("q=quokka", headers).total());
+
+        ResponseEntity<String> empty = restTemplate.exchange(
+                "/api/items/search?q=+", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, empty.getStatusCode());
+        ResponseEntity<String> tooMany = restTemplate.exchange(
+                "/api/items/search?q=pizza&limit=1000", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, tooMany.getStatusCode());
+    }
+
+    private SearchResponse search(String query, HttpHeaders headers) throws Exception {
+        ResponseEntity<String> response = restTemplate.exchange(
+                "/api/items/search?" + query, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return objectMapper.readValue(response.getBody(), SearchResponse.class);
+    }
+
+    @Test
+    void testUploadItemImage() throws Exception {
+        Item item = new Item();
+        item.setName("Photographed");
+        UUID itemId = itemRepository.save(item).getId();
+        byte[] image = new byte[3_000];
+        new Random(7).nextBytes(image);
+        HttpClient client = HttpClient.newHttpClient();
+
+        HttpResponse<String> response = client.send(imageUpload("/api/items/" + itemId + "/image", "image/png", image)
+                .header("X-Content-SHA256", sha256(image)).build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        ItemResponse saved = objectMapper.readValue(response.body(), ItemResponse.class);
+        assertTrue(saved.imageUrl().startsWith("/uploads/images/") && saved.imageUrl().endsWith(".png"));
+        assertArrayEquals(image, storedImage(saved.imageUrl()));
+        assertEquals(saved.imageUrl(), itemRepository.findById(itemId).orElseThrow().getImageUrl());
+
+        // Served without a token, cached for good and revalidated by digest
+        HttpResponse<byte[]> served = client.send(HttpRequest.newBuilder(URI.create(restTemplate.getRootUri() + saved.imageUrl())).build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, served.statusCode());
+        assertArrayEquals(image, served.body());
+        assertEquals("image/png", served.headers().firstValue(HttpHeaders.CONTENT_TYPE).orElseThrow());
+        assertTrue(served.headers().firstValue(HttpHeaders.CACHE_CONTROL).orElseThrow().contains("immutable"));
+        String etag = served.headers().firstValue(HttpHeaders.ETAG).orElseThrow();
+        served = client.send(HttpRequest.newBuilder(URI.create(restTemplate.getRootUri() + saved.imageUrl()))
+                .header(HttpHeaders.IF_NONE_MATCH, etag).build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(304, served.statusCode());
+        served = client.send(HttpRequest.newBuilder(URI.create(restTemplate.getRootUri() + "/uploads/images/" + sha256(new byte[1]) + ".png")).build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(404, served.statusCode());
+
+        // Larger than app.uploads.max-file-size, wrong digest, not an image, unknown item
+        response = client.send(imageUpload("/api/items/" + itemId + "/image", "image/png", new byte[5_000]).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(413, response.statusCode());
+        response = client.send(imageUpload("/api/items/" + itemId + "/image", "image/png", image)
+                .header("X-Content-SHA256", sha256(new byte[1])).build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, response.statusCode());
+        response = client.send(imageUpload("/api/items/" + itemId + "/image", "text/plain", image).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(415, response.statusCode());
+        response = client.send(imageUpload("/api/items/" + UUID.randomUUID() + "/image", "image/png", image).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(404, response.statusCode());
+        assertEquals(saved.imageUrl(), itemRepository.findById(itemId).orElseThrow().getImageUrl());
+    }
+
+    @Test
+    void testResumableImageUpload() throws Exception {
+        Item item = new Item();
+        item.setName("Uploaded in pieces");
+        UUID itemId = itemRepository.save(item).getId();
+        byte[] image = new byte[2_500];
+        new Random(11).nextBytes(image);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(jwtToken);
+
+        Map<String, Object> request = Map.of("itemId", itemId, "contentType", "image/jpeg", "size", image.length, "sha256", sha256(image));
+        ResponseEntity<UploadStatusResponse> created = restTemplate.exchange("/api/uploads", HttpMethod.POST,
+                new HttpEntity<>(request, headers), UploadStatusResponse.class);
+        assertEquals(HttpStatus.CREATED, created.getStatusCode());
+        UUID uploadId = created.getBody().uploadId();
+        assertEquals(0, created.getBody().offset());
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpResponse<String> response = client.send(chunk(uploadId, 0, image, 0, 1_000), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        assertEquals("1000", response.headers().firstValue("Upload-Offset").orElseThrow());
+
+        // A resent chunk is refused with the offset to continue from
+        response = client.send(chunk(uploadId, 0, image, 0, 1_000), HttpResponse.BodyHandlers.ofString());
+        assertEquals(409, response.statusCode());
+        assertEquals("1000", response.headers().firstValue("Upload-Offset").orElseThrow());
+        ResponseEntity<UploadStatusResponse> status = restTemplate.exchange("/api/uploads/" + uploadId, HttpMethod.GET,
+                new HttpEntity<>(headers), UploadStatusResponse.class);
+        assertEquals(1_000, status.getBody().offset());
+        assertFalse(status.getBody().complete());
+
+        response = client.send(chunk(uploadId, 1_000, image, 1_000, image.length), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        UploadStatusResponse completed = objectMapper.readValue(response.body(), UploadStatusResponse.class);
+        assertTrue(completed.complete());
+        assertEquals(image.length, completed.offset());
+        assertEquals(completed.imageUrl(), itemRepository.findById(itemId).orElseThrow().getImageUrl());
+        assertArrayEquals(image, storedImage(completed.imageUrl()));
+
+        // Too large for app.uploads.max-file-size, and uploads of unknown items
+        request = Map.of("itemId", itemId, "contentType", "image/jpeg", "size", 5_000);
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, restTemplate.exchange("/api/uploads", HttpMethod.POST,
+                new HttpEntity<>(request, headers), String.class).getStatusCode());
+        request = Map.of("itemId", UUID.randomUUID(), "contentType", "image/jpeg", "size", 100);
+        assertEquals(HttpStatus.NOT_FOUND, restTemplate.exchange("/api/uploads", HttpMethod.POST,
+                new HttpEntity<>(request, headers), String.class).getStatusCode());
+    }
+
+    @Test
+    void testDuplicateImagesAreStoredOnce() throws Exception {
+        List<UUID> itemIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Item item = new Item();
+            item.setName("Same Photo " + i);
+            itemIds.add(itemRepository.save(item).getId());
+        }
+        byte[] photo = new byte[2_000];
+        new Random(3).nextBytes(photo);
+        byte[] otherPhoto = new byte[1_000];
+        new Random(4).nextBytes(otherPhoto);
+        HttpClient client = HttpClient.newHttpClient();
+
+        Set<String> urls = new HashSet<>();
+        for (UUID itemId : itemIds) {
+            HttpResponse<String> response = client.send(imageUpload("/api/items/" + itemId + "/image", "image/jpeg", photo).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            urls.add(objectMapper.readValue(response.body(), ItemResponse.class).imageUrl());
+        }
+        assertEquals(1, urls.size());
+        String url = urls.iterator().next();
+        String sha256 = ImageStore.digestOf(url);
+        assertEquals(sha256(photo), sha256);
+        assertEquals(3, imageBlobRepository.findById(sha256).orElseThrow().getReferenceCount());
+        double duplicates = meterRegistry.get("images.stored").tag("result", "duplicate").counter().count();
+        assertTrue(duplicates >= 2);
+
+        // Deleting an item or replacing its image keeps the file while other items use it
+        itemRepository.deleteById(itemIds.get(0));
+        client.send(imageUpload("/api/items/" + itemIds.get(1) + "/image", "image/jpeg", otherPhoto).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(1, imageBlobRepository.findById(sha256).orElseThrow().getReferenceCount());
+        assertArrayEquals(photo, storedImage(url));
+
+        // Re-uploading an item's own image leaves its count unchanged; the last reference deletes it
+        client.send(imageUpload("/api/items/" + itemIds.get(2) + "/image", "image/jpeg", photo).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(1, imageBlobRepository.findById(sha256).orElseThrow().getReferenceCount());
+        itemRepository.deleteById(itemIds.get(2));
+        assertTrue(imageBlobRepository.findById(sha256).isEmpty());
+        assertNull(storedImage(url));
+        assertEquals(1, imageBlobRepository.findById(sha256(otherPhoto)).orElseThrow().getReferenceCount());
+    }
+
+    @Test
+    void testStoredImageUrlCannotBeCopied() throws Exception {
+        Item item = new Item();
+        item.setName("Owner");
+        UUID itemId = itemRepository.save(item).getId();
+        byte[] photo = new byte[1_000];
+        new Random(5).nextBytes(photo);
+        HttpResponse<String> uploaded = HttpClient.newHttpClient().send(
+                imageUpload("/api/items/" + itemId + "/image", "image/jpeg", photo).build(), HttpResponse.BodyHandlers.ofString());
+        String url = objectMapper.readValue(uploaded.body(), ItemResponse.class).imageUrl();
+
+        // An item pointing at the image without a reference would outlive the file
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(jwtToken);
+        ResponseEntity<String> copied = restTemplate.exchange("/api/items/from-url", HttpMethod.POST,
+                new HttpEntity<>(Map.of("name", "Copy", "imageUrl", url), headers), String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, copied.getStatusCode());
+        ResponseEntity<ItemImportResult> imported = importFeed(
+                "{\"name\":\"Imported copy\",\"imageUrl\":\"" + url + "\"}\n", "application/x-ndjson", null);
+        assertEquals(1, imported.getBody().rowsRejected());
+
+        assertEquals(1, itemRepository.count());
+        itemRepository.deleteById(itemId);
+        assertNull(storedImage(url));
+    }
+
+    private HttpRequest.Builder imageUpload(String path, String contentType, byte[] body) {
+        return HttpRequest.newBuilder(URI.create(restTemplate.getRootUri() + path))
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + jwtToken)
+                .header(HttpHeaders.CONTENT_TYPE, contentType)
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(body));
+    }
+
+    private HttpRequest chunk(UUID uploadId, long offset, byte[] content, int from, int to) {
+        return HttpRequest.newBuilder(URI.create(restTemplate.getRootUri() + "/api/uploads/" + uploadId))
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + jwtToken)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_OCTET_STREAM_VALUE)
+                .header("Upload-Offset", String.valueOf(offset))
+                .method("PATCH", HttpRequest.BodyPublishers.ofByteArray(content, from, to - from))
+                .build();
+    }
+
+    private byte[] storedImage(String imageUrl) throws Exception {
+        ByteBuffer stored = imageStore.read(imageUrl);
+        if (stored == null) {
+            return null;
+        }
+        byte[] bytes = new byte[stored.remaining()];
+        stored.get(bytes);
+        return bytes;
+    }
+
+    private static String sha256(byte[] content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+
+    private List<RecommendationResponse> getRecommendations(HttpHeaders headers) throws Exception {
+        ResponseEntity<String> response = restTemplate.exchange(
+                "/api/items/recommendations", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return objectMapper.readValue(response.getBody(), new TypeReference<List<RecommendationResponse>>() {});
+    }
+
+    @Test
+    void testStreamFeed_AcknowledgementsGrantMoreItems() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            Item item = new Item();
+            item.setName("Stream Item " + i);
+            itemRepository.save(item);
+        }
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpResponse<Stream<String>> response = client.send(
+                streamRequest("/api/items/feed/stream?window=2"), HttpResponse.BodyHandlers.ofLines());
+        assertEquals(200, response.statusCode());
+        BlockingQueue<String[]> events = new LinkedBlockingQueue<>();
+        Thread reader = Thread.ofVirtual().start(() -> readEvents(response.body(), events));
+
+        String[] ready = events.poll(5, TimeUnit.SECONDS);
+        assertEquals("ready", ready[0]);
+        String streamId = objectMapper.readTree(ready[1]).get("streamId").asText();
+
+        Set<UUID> seen = new HashSet<>();
+        for (int i = 0; i < 2; i++) {
+            String[] event = events.poll(5, TimeUnit.SECONDS);
+            assertEquals("item", event[0]);
+            assertTrue(seen.add(objectMapper.readValue(event[1], ItemResponse.class).id()));
+        }
+        // The window is full until the client acknowledges
+        assertNull(events.poll(300, TimeUnit.MILLISECONDS));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(jwtToken);
+        ResponseEntity<Void> ack = restTemplate.exchange(
+                "/api/items/feed/stream/" + streamId + "/ack?count=2", HttpMethod.POST, new HttpEntity<>(headers), Void.class);
+        assertEquals(HttpStatus.ACCEPTED, ack.getStatusCode());
+        for (int i = 0; i < 2; i++) {
+            String[] event = events.poll(5, TimeUnit.SECONDS);
+            assertEquals("item", event[0]);
+            assertTrue(seen.add(objectMapper.readValue(event[1], ItemResponse.class).id()));
+        }
+
+        restTemplate.exchange("/api/items/feed/stream/" + streamId + "/ack?count=2", HttpMethod.POST, new HttpEntity<>(headers), Void.class);
+        assertEquals("item", events.poll(5, TimeUnit.SECONDS)[0]);
+        assertEquals("exhausted", events.poll(5, TimeUnit.SECONDS)[0]);
+
+        ResponseEntity<Void> unknown = restTemplate.exchange(
+                "/api/items/feed/stream/" + UUID.randomUUID() + "/ack", HttpMethod.POST, new HttpEntity<>(headers), Void.class);
+        assertEquals(HttpStatus.NOT_FOUND, unknown.getStatusCode());
+
+        response.body().close();
+        reader.join(5000);
+    }
+
+    @Test
+    void testStreamFeed_PerUserConnectionLimit() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        List<HttpResponse<Stream<String>>> open = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            HttpResponse<Stream<String>> response = client.send(
+                    streamRequest("/api/items/feed/stream?window=1"), HttpResponse.BodyHandlers.ofLines());
+            assertEquals(200, response.statusCode());
+            open.add(response);
+        }
+
+        HttpResponse<String> rejected = client.send(
+                streamRequest("/api/items/feed/stream?window=1"), HttpResponse.BodyHandlers.ofString());
+        assertEquals(429, rejected.statusCode());
+        assertTrue(rejected.headers().firstValue(HttpHeaders.RETRY_AFTER).isPresent());
+
+        HttpResponse<String> badWindow = client.send(
+                streamRequest("/api/items/feed/stream?window=0"), HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, badWindow.statusCode());
+
+        open.forEach(response -> response.body().close());
+    }
+
+    private HttpRequest streamRequest(String path) {
+        return HttpRequest.newBuilder(URI.create(restTemplate.getRootUri() + path))
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + jwtToken)
+                .header(HttpHeaders.ACCEPT, MediaType.TEXT_EVENT_STREAM_VALUE)
+                .build();
+    }
+
+    // Collects {event name, data} pairs from a server-sent event stream
+    private static void readEvents(Stream<String> lines, BlockingQueue<String[]> events) {
+        String[] event = new String[2];
+        try {
+            for (String line : (Iterable<String>) lines::iterator) {
+                if (line.isEmpty()) {
+                    if (event[0] != null) {
+                        events.add(event);
+                    }
+                    event = new String[2];
+                } else if (line.startsWith("event:")) {
+                    event[0] = line.substring(6).trim();
+                } else if (line.startsWith("data:")) {
+                    event[1] = line.substring(5);
+                }
+            }
+        } catch (UncheckedIOException e) {
+            // Stream closed by the test
+        }
+    }
+
+    @Test
+    void testImportItems_Csv() {
+        String csv = "name,description,imageUrl\n"
+                + "Imported 1,First,http://example.com/1.jpg\n"
+                + "\"Imported, 2\",\"Multi\nline \"\"quoted\"\"\",\n"
+                + ",Missing name,\n"
+                + "Imported 3,,\n"
+                + "Imported 4,,\n"
+                + "Imported 5,,\n";
+
+        ResponseEntity<ItemImportResult> response = importFeed(csv, "text/csv", null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        ItemImportResult result = response.getBody();
+        assertNotNull(result);
+        assertEquals(6, result.rowsProcessed());
+        assertEquals(5, result.rowsImported());
+        assertEquals(1, result.rowsRejected());
+        assertEquals(1, result.errors().size());
+        assertTrue(result.errors().get(0).startsWith("row 3:"));
+        assertEquals(5, itemRepository.count());
+        assertTrue(itemRepository.findAll().stream()
+                .anyMatch(item -> item.getName().equals("Imported, 2")
+                        && item.getDescription().equals("Multi\nline \"quoted\"")));
+    }
+
+    @Test
+    void testImportItems_ResumesFromCheckpoint() {
+        UUID importId = UUID.randomUUID();
+        StringBuilder feed = new StringBuilder();
+        for (int i = 1; i <= 6; i++) {
+            feed.append("{\"name\":\"Row ").append(i).append("\"}\n");
+        }
+        ResponseEntity<ItemImportResult> first = importFeed(feed.toString(), "application/x-ndjson", importId);
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertEquals(6, first.getBody().rowsImported());
+
+        // Re-running the same import with a longer feed only imports the new rows
+        for (int i = 7; i <= 9; i++) {
+            feed.append("{\"name\":\"Row ").append(i).append("\"}\n");
+        }
+        ResponseEntity<ItemImportResult> second = importFeed(feed.toString(), "application/x-ndjson", importId);
+        assertEquals(HttpStatus.OK, second.getStatusCode());
+        assertEquals(6, second.getBody().rowsSkipped());
+        assertEquals(9, second.getBody().rowsProcessed());
+        assertEquals(9, second.getBody().rowsImported());
+        assertEquals(9, itemRepository.count());
+    }
+
+    @Test
+    void testImportItems_MissingNameColumn() {
+        ResponseEntity<ItemImportResult> response = importFeed("title\nSomething\n", "text/csv", null);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(0, itemRepository.count());
+    }
+
+    private ResponseEntity<ItemImportResult> importFeed(String body, String contentType, UUID importId) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(jwtToken);
+        headers.setContentType(MediaType.parseMediaType(contentType));
+        String url = importId == null ? "/api/items/import" : "/api/items/import?importId=" + importId;
+        return restTemplate.exchange(url, HttpMethod.POST, new HttpEntity<>(body, headers), ItemImportResult.class);
+    }
+
     // Helper method for ParameterizedTypeReference for List<Item>
     private static class ParameterizedTypeReference<T> extends org.springframework.core.ParameterizedTypeReference<T> {}
 } 
\ No newline at end of file
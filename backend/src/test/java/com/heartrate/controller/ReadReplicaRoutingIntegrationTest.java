@@ -0,0 +1,141 @@
+package com.heartrate.controller;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.heartrate.controller.dto.ItemResponse;
+import com.heartrate.controller.dto.RatingPage;
+import com.heartrate.model.Item;
+import com.heartrate.model.User;
+import com.heartrate.repository.ItemRepository;
+import com.heartrate.repository.RatingRepository;
+import com.heartrate.repository.UserRepository;
+import com.heartrate.service.UserService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Runs against two H2 databases, a primary and a replica. Replication is simulated by copying the
+ * primary into the replica, so everything written after the last copy is "lag".
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=" + ReadReplicaRoutingIntegrationTest.PRIMARY_URL,
+    "app.read-replicas.enabled=true",
+    "app.read-replicas.replicas[0].url=" + ReadReplicaRoutingIntegrationTest.REPLICA_URL,
+    "app.read-replicas.read-your-writes-window=500ms"
+})
+@ActiveProfiles("test")
+public class ReadReplicaRoutingIntegrationTest {
+    static final String PRIMARY_URL = "jdbc:h2:mem:replication-primary;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:replication-replica;DB_CLOSE_DELAY=-1";
+
+    private final JdbcTemplate primary = new JdbcTemplate(new DriverManagerDataSource(PRIMARY_URL, "sa", ""));
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private RatingRepository ratingRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private String jwtToken;
+
+    @BeforeEach
+    void setUp() {
+        ratingRepository.deleteAll();
+        itemRepository.deleteAll();
+        userRepository.deleteAll();
+
+        User user = new User();
+        user.setFirstName("Replica");
+        user.setLastName("User");
+        user.setEmail("replica@example.com");
+        user.setPassword("password123");
+        user.setDateOfBirth(LocalDate.of(1990, 1, 1));
+        userService.signup(user);
+        // Sign-in reads through a repository default transaction, which always uses the primary
+        jwtToken = (String) userService.signin("replica@example.com", "password123").get("token");
+    }
+
+    @Test
+    void testReadOnlyServiceReadsUseReplicaExceptAfterOwnWrite() throws Exception {
+        Item item = new Item();
+        item.setName("Replicated");
+        item = itemRepository.save(item);
+        replicate();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(jwtToken);
+        HttpEntity<Void> request = new HttpEntity<>(headers);
+
+        // Not yet replicated, so the replica answers 404
+        Item lagging = new Item();
+        lagging.setName("Lagging");
+        lagging = itemRepository.save(lagging);
+        // Saving also put it into the second-level cache, which would answer without any database
+        entityManagerFactory.getCache().evictAll();
+        assertEquals(HttpStatus.NOT_FOUND, restTemplate.exchange(
+                "/api/items/" + lagging.getId(), HttpMethod.GET, request, ItemResponse.class).getStatusCode());
+
+        // The user's own rating is visible right away, read from the primary
+        HttpHeaders jsonHeaders = new HttpHeaders();
+        jsonHeaders.setBearerAuth(jwtToken);
+        jsonHeaders.setContentType(MediaType.APPLICATION_JSON);
+        ResponseEntity<String> rated = restTemplate.exchange(
+                "/api/items/" + item.getId() + "/rate", HttpMethod.POST, new HttpEntity<>(5, jsonHeaders), String.class);
+        assertEquals(HttpStatus.OK, rated.getStatusCode());
+        assertEquals(1, history(request).ratings().size());
+
+        // Once the window has passed the replica is used again, and it has not caught up
+        Thread.sleep(700);
+        assertEquals(0, history(request).ratings().size());
+
+        replicate();
+        assertEquals(1, history(request).ratings().size());
+        assertEquals(HttpStatus.OK, restTemplate.exchange(
+                "/api/items/" + lagging.getId(), HttpMethod.GET, request, ItemResponse.class).getStatusCode());
+    }
+
+    private RatingPage history(HttpEntity<Void> request) {
+        ResponseEntity<RatingPage> response = restTemplate.exchange(
+                "/api/users/me/ratings", HttpMethod.GET, request, RatingPage.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return response.getBody();
+    }
+
+    // Replaces the replica with a copy of the primary's schema and data
+    private void replicate() {
+        List<String> script = primary.queryForList("SCRIPT", String.class);
+        replica.execute("DROP ALL OBJECTS");
+        script.forEach(replica::execute);
+    }
+}
@@ -0,0 +1,160 @@
+package com.heartrate.controller;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.heartrate.controller.dto.RelationshipImportResult;
+import com.heartrate.model.ChildOf;
+import com.heartrate.model.User;
+import com.heartrate.repository.ChildOfRepository;
+import com.heartrate.repository.TypeOfRepository;
+import com.heartrate.repository.UserRepository;
+import com.heartrate.service.UserService;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class RelationshipImportIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private TypeOfRepository typeOfRepository;
+
+    @SpyBean
+    private ChildOfRepository childOfRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    private String jwtToken;
+
+    @BeforeEach
+    void setUp() {
+        typeOfRepository.deleteAll();
+        childOfRepository.deleteAll();
+        userRepository.deleteAll();
+
+        User user = new User();
+        user.setFirstName("Import");
+        user.setLastName("User");
+        user.setEmail("import@example.com");
+        user.setPassword("password123");
+        user.setDateOfBirth(LocalDate.of(1990, 1, 1));
+        userService.signup(user);
+        Map<String, Object> signinResult = userService.signin("import@example.com", "password123");
+        jwtToken = (String) signinResult.get("token");
+    }
+
+    @Test
+    void testImportRelationships_DeduplicatesAndInserts() {
+        UUID animal = UUID.randomUUID();
+        UUID mammal = UUID.randomUUID();
+        UUID dog = UUID.randomUUID();
+        childOfRepository.save(new ChildOf(mammal, animal));
+
+        String csv = "type,source,target\n"
+                + "childof," + mammal + "," + animal + "\n"
+                + "childof," + dog + "," + mammal + "\n"
+                + "childof," + dog + "," + mammal + "\n"
+                + "typeof," + dog + "," + mammal + "\n"
+                + "partof," + dog + "," + mammal + "\n"
+                + "typeof,not-a-uuid," + mammal + "\n";
+
+        ResponseEntity<RelationshipImportResult> response = importFeed(csv, RelationshipImportResult.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        RelationshipImportResult result = response.getBody();
+        assertNotNull(result);
+        assertEquals(6, result.rowsProcessed());
+        assertEquals(2, result.rowsRejected());
+        assertEquals(1, result.typeOfInserted());
+        assertEquals(1, result.childOfInserted());
+        assertEquals(2, result.duplicatesSkipped());
+        assertEquals(2, childOfRepository.count());
+        assertEquals(1, typeOfRepository.count());
+    }
+
+    @Test
+    void testImportRelationships_RejectsCycle() {
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        UUID c = UUID.randomUUID();
+        childOfRepository.save(new ChildOf(a, b));
+
+        String csv = "type,source,target\n"
+                + "typeof," + a + "," + c + "\n"
+                + "childof," + b + "," + c + "\n"
+                + "childof," + c + "," + a + "\n";
+
+        ResponseEntity<Map<String, Object>> response = importFeed(csv, new ParameterizedTypeReference<>() { });
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertNotNull(response.getBody().get("cycle"));
+        // Nothing from the feed is stored
+        assertEquals(1, childOfRepository.count());
+        assertEquals(0, typeOfRepository.count());
+    }
+
+    @Test
+    void testImportRelationships_RetriesAfterSerializationFailure() {
+        UUID animal = UUID.randomUUID();
+        UUID mammal = UUID.randomUUID();
+        UUID dog = UUID.randomUUID();
+        childOfRepository.save(new ChildOf(mammal, animal));
+        // The first attempt loses a conflict with a concurrent import; a spied repository proxy
+        // reaches the real repository through its default answer
+        doThrow(new CannotAcquireLockException("could not serialize access"))
+            .doAnswer(mockingDetails(childOfRepository).getMockCreationSettings().getDefaultAnswer())
+            .when(childOfRepository).streamAllPairs();
+
+        String csv = "type,source,target\n"
+                + "childof," + mammal + "," + animal + "\n"
+                + "childof," + dog + "," + mammal + "\n";
+
+        ResponseEntity<RelationshipImportResult> response = importFeed(csv, RelationshipImportResult.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1, response.getBody().childOfInserted());
+        assertEquals(1, response.getBody().duplicatesSkipped());
+        assertEquals(2, childOfRepository.count());
+        verify(childOfRepository, times(2)).streamAllPairs();
+    }
+
+    private <T> ResponseEntity<T> importFeed(String csv, Class<T> responseType) {
+        return importFeed(csv, ParameterizedTypeReference.forType(responseType));
+    }
+
+    private <T> ResponseEntity<T> importFeed(String csv, ParameterizedTypeReference<T> responseType) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(jwtToken);
+        headers.setContentType(MediaType.parseMediaType("text/csv"));
+        return restTemplate.exchange("/api/relationships/import", HttpMethod.POST, new HttpEntity<>(csv, headers), responseType);
+    }
+}
@@ -1,22 +1,45 @@
 package com.heartrate.controller;
 
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.heartrate.config.RateLimitConfig;
+import com.heartrate.controller.dto.RatingPage;
+import com.heartrate.controller.dto.RatingResponse;
+import com.heartrate.model.Item;
 import com.heartrate.model.User;
+import com.heartrate.repository.ItemRepository;
+import com.heartrate.service.RatingHistoryService;
+import com.heartrate.service.RatingService;
 import com.heartrate.service.TestEmailService;
 import com.heartrate.service.UserService;
 
@@ -32,6 +55,21 @@ public class UserControllerIntegrationTest {
     @Autowired
     private TestEmailService testEmailService;
 
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private RatingService ratingService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RatingHistoryService ratingHistoryService;
+
+    @Autowired
+    private RateLimitConfig rateLimitConfig;
+
     @BeforeEach
     void setUp() {
         testEmailService.clear();
@@ -133,4 +171,115 @@ public class UserControllerIntegrationTest {
         User userData = (User) signinResult.get("user");
         assertEquals("Test", userData.getFirstName());
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testSignInRateLimit_KeysOnForwardedClientAddress() throws Exception {
+        // Each attempt for another email, so that only the per-address limit can apply
+        for (int i = 0; i < rateLimitConfig.getLogin().getAttempts(); i++) {
+            assertNotEquals(HttpStatus.TOO_MANY_REQUESTS, signInFrom("203.0.113.7", "nobody" + i + "@example.com"));
+        }
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, signInFrom("203.0.113.7", "another@example.com"));
+        // Another client behind the same proxy still has its own allowance
+        assertNotEquals(HttpStatus.TOO_MANY_REQUESTS, signInFrom("203.0.113.8", "another@example.com"));
+    }
+
+    // Through java.net.http, which unlike the rest template reads the 401 of a failed sign-in
+    private HttpStatus signInFrom(String clientAddress, String email) throws Exception {
+        String credentials = objectMapper.writeValueAsString(Map.of("email", email, "password", "wrong-password"));
+        HttpRequest request = HttpRequest.newBuilder(URI.create(restTemplate.getRootUri() + "/api/users/signin"))
+            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .header("X-Forwarded-For", clientAddress)
+            .POST(HttpRequest.BodyPublishers.ofString(credentials))
+            .build();
+        return HttpStatus.valueOf(HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.discarding()).statusCode());
+    }
+
+    @Test
+    void testRatingHistory_KeysetPagesAndExport() throws Exception {
+        User user = new User();
+        user.setEmail("history@example.com");
+        user.setPassword("password123");
+        user.setFirstName("History");
+        user.setLastName("User");
+        user = userService.signup(user);
+        String token = (String) userService.signin("history@example.com", "password123").get("token");
+
+        for (int i = 0; i < 7; i++) {
+            Item item = new Item();
+            item.setName("History Item " + i);
+            item = itemRepository.save(item);
+            ratingService.saveRating(user.getId(), item.getId(), 4, i < 5 ? "RATED" : "DONT_CARE");
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(token);
+        HttpEntity<Void> request = new HttpEntity<>(headers);
+
+        // Walk the pages; every rating appears exactly once, newest first
+        List<RatingResponse> all = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            String url = "/api/users/me/ratings?limit=3" + (cursor != null ? "&cursor=" + cursor : "");
+            ResponseEntity<RatingPage> page = restTemplate.exchange(url, HttpMethod.GET, request, RatingPage.class);
+            assertEquals(HttpStatus.OK, page.getStatusCode());
+            all.addAll(page.getBody().ratings());
+            cursor = page.getBody().nextCursor();
+            pages++;
+        } while (cursor != null);
+        assertEquals(3, pages);
+        assertEquals(7, all.size());
+        assertEquals(7, all.stream().map(RatingResponse::id).distinct().count());
+        for (int i = 1; i < all.size(); i++) {
+            assertFalse(all.get(i).timestamp().isAfter(all.get(i - 1).timestamp()));
+        }
+
+        ResponseEntity<RatingPage> dontCare = restTemplate.exchange(
+            "/api/users/me/ratings?status=DONT_CARE", HttpMethod.GET, request, RatingPage.class);
+        assertEquals(2, dontCare.getBody().ratings().size());
+        assertNull(dontCare.getBody().nextCursor());
+
+        ResponseEntity<String> badCursor = restTemplate.exchange(
+            "/api/users/me/ratings?cursor=not-a-cursor", HttpMethod.GET, request, String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, badCursor.getStatusCode());
+
+        ResponseEntity<String> export = restTemplate.exchange(
+            "/api/users/me/ratings/export?status=RATED", HttpMethod.GET, request, String.class);
+        assertEquals(HttpStatus.OK, export.getStatusCode());
+        assertEquals(MediaType.APPLICATION_NDJSON, export.getHeaders().getContentType());
+        String[] lines = export.getBody().split("\n");
+        assertEquals(5, lines.length);
+        for (String line : lines) {
+            assertEquals("RATED", objectMapper.readValue(line, RatingResponse.class).status());
+        }
+    }
+
+    @Test
+    void testRatingHistoryExport_WritesOutsideTransaction() throws Exception {
+        User user = new User();
+        user.setEmail("export@example.com");
+        user.setPassword("password123");
+        user = userService.signup(user);
+        for (int i = 0; i < 3; i++) {
+            Item item = new Item();
+            item.setName("Export Item " + i);
+            item = itemRepository.save(item);
+            ratingService.saveRating(user.getId(), item.getId(), 4, "RATED");
+        }
+
+        // A slow client must not keep a transaction (and its connection) open
+        List<Boolean> transactionActive = new ArrayList<>();
+        ByteArrayOutputStream output = new ByteArrayOutputStream() {
+            @Override
+            public synchronized void write(byte[] b, int off, int len) {
+                transactionActive.add(TransactionSynchronizationManager.isActualTransactionActive());
+                super.write(b, off, len);
+            }
+        };
+        ratingHistoryService.exportNdjson(user.getId(), null, output);
+
+        assertEquals(3, output.toString().split("\n").length);
+        assertFalse(transactionActive.isEmpty());
+        assertFalse(transactionActive.contains(true));
+    }
+}
@@ -0,0 +1,65 @@
+package com.heartrate.geo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Nearby query latency over a million points. Timing only, so it runs with the benchmarks
+ * profile: {@code mvn test -Pbenchmarks -Dtest=GeoQuadTreeBenchmarkTest}.
+ */
+@Tag("benchmark")
+public class GeoQuadTreeBenchmarkTest {
+    private static final Logger logger = LoggerFactory.getLogger(GeoQuadTreeBenchmarkTest.class);
+    private static final int POINTS = Integer.getInteger("geo.benchmark.points", 1_000_000);
+    private static final int QUERIES = 20_000;
+
+    @Test
+    void testNearestQueryLatency() {
+        SplittableRandom random = new SplittableRandom(5);
+        // A few dense cities on top of a uniform spread, like a real catalog
+        double[][] cities = {{51.5, -0.1}, {40.7, -74.0}, {35.7, 139.7}, {-33.9, 151.2}, {48.9, 2.3}};
+        GeoQuadTree tree = new GeoQuadTree();
+        long start = System.nanoTime();
+        for (int i = 0; i < POINTS; i++) {
+            if (i % 2 == 0) {
+                double[] city = cities[i / 2 % cities.length];
+                tree.put(new UUID(0, i), city[0] + random.nextDouble(-0.3, 0.3), city[1] + random.nextDouble(-0.3, 0.3));
+            } else {
+                tree.put(new UUID(0, i), random.nextDouble(-90, 90), random.nextDouble(-180, 180));
+            }
+        }
+        assertEquals(POINTS, tree.size());
+        logger.info("Indexed {} points in {} ms", POINTS, (System.nanoTime() - start) / 1_000_000);
+
+        for (int run = 0; run < 2; run++) {
+            long[] nanos = new long[QUERIES];
+            long found = 0;
+            for (int i = 0; i < QUERIES; i++) {
+                double[] city = cities[i % cities.length];
+                // Half the queries in a dense city, half anywhere
+                double lat = i % 2 == 0 ? city[0] + random.nextDouble(-0.2, 0.2) : random.nextDouble(-90, 90);
+                double lon = i % 2 == 0 ? city[1] + random.nextDouble(-0.2, 0.2) : random.nextDouble(-180, 180);
+                long queryStart = System.nanoTime();
+                found += tree.nearest(lat, lon, 10_000, 20).size();
+                nanos[i] = System.nanoTime() - queryStart;
+            }
+            Arrays.sort(nanos);
+            long median = nanos[QUERIES / 2];
+            long p99 = nanos[QUERIES * 99 / 100];
+            logger.info("{} nearest(10 km, 20) queries over {} points: median {} us, p99 {} us, {} results",
+                QUERIES, POINTS, median / 1_000, p99 / 1_000, found);
+            if (run == 1) {
+                assertTrue(p99 < 1_000_000, "p99 " + p99 + " ns");
+            }
+        }
+    }
+}
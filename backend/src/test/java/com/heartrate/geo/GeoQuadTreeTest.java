@@ -0,0 +1,79 @@
+package com.heartrate.geo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+public class GeoQuadTreeTest {
+
+    @Test
+    void testNearestMatchesBruteForce() {
+        SplittableRandom random = new SplittableRandom(11);
+        GeoQuadTree tree = new GeoQuadTree();
+        Map<UUID, double[]> locations = new HashMap<>();
+        // A dense city, the date line and the poles alongside a uniform spread
+        for (int i = 0; i < 20_000; i++) {
+            double lat;
+            double lon;
+            switch (i % 4) {
+                case 0 -> { lat = 51.5 + random.nextDouble(-0.2, 0.2); lon = -0.1 + random.nextDouble(-0.2, 0.2); }
+                case 1 -> { lat = random.nextDouble(-10, 10); lon = random.nextBoolean() ? random.nextDouble(179, 180) : random.nextDouble(-180, -179); }
+                case 2 -> { lat = random.nextBoolean() ? random.nextDouble(88, 90) : random.nextDouble(-90, -88); lon = random.nextDouble(-180, 180); }
+                default -> { lat = random.nextDouble(-90, 90); lon = random.nextDouble(-180, 180); }
+            }
+            UUID id = UUID.randomUUID();
+            tree.put(id, lat, lon);
+            locations.put(id, new double[] {lat, lon});
+        }
+        assertEquals(20_000, tree.size());
+
+        double[][] queries = {{51.5, -0.1, 5_000}, {0, 179.95, 200_000}, {0, -179.95, 200_000}, {89.5, 45, 300_000}, {-30, 20, 500_000}};
+        for (double[] query : queries) {
+            List<GeoQuadTree.Neighbor> expected = locations.entrySet().stream()
+                .map(e -> new GeoQuadTree.Neighbor(e.getKey(), e.getValue()[0], e.getValue()[1],
+                    GeoQuadTree.distanceMeters(query[0], query[1], e.getValue()[0], e.getValue()[1])))
+                .filter(n -> n.distanceMeters() <= query[2])
+                .sorted(Comparator.comparingDouble(GeoQuadTree.Neighbor::distanceMeters))
+                .limit(50)
+                .toList();
+            List<GeoQuadTree.Neighbor> actual = tree.nearest(query[0], query[1], query[2], 50);
+            assertFalse(expected.isEmpty());
+            assertEquals(expected.stream().map(GeoQuadTree.Neighbor::id).toList(),
+                actual.stream().map(GeoQuadTree.Neighbor::id).toList());
+        }
+    }
+
+    @Test
+    void testMoveAndRemove() {
+        GeoQuadTree tree = new GeoQuadTree();
+        UUID id = UUID.randomUUID();
+        tree.put(id, 40.0, -74.0);
+        // Enough neighbours to split the root
+        for (int i = 0; i < 200; i++) {
+            tree.put(UUID.randomUUID(), -40.0 + i * 0.001, 150.0);
+        }
+        assertEquals(id, tree.nearest(40.0, -74.0, 1_000, 1).get(0).id());
+
+        tree.put(id, 48.86, 2.35);
+        assertTrue(tree.nearest(40.0, -74.0, 1_000, 1).isEmpty());
+        GeoQuadTree.Neighbor moved = tree.nearest(48.85, 2.35, 5_000, 1).get(0);
+        assertEquals(id, moved.id());
+        assertEquals(1_112, moved.distanceMeters(), 2);
+
+        assertTrue(tree.remove(id));
+        assertFalse(tree.remove(id));
+        assertTrue(tree.nearest(48.85, 2.35, 5_000, 1).isEmpty());
+        assertEquals(200, tree.size());
+        assertThrows(IllegalArgumentException.class, () -> tree.put(UUID.randomUUID(), 91, 0));
+    }
+}
@@ -0,0 +1,86 @@
+package com.heartrate.importer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+public class RelationshipGraphTest {
+
+    @Test
+    void testDeduplicatesFeedAndStoredEdges() {
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        UUID c = UUID.randomUUID();
+        RelationshipGraph graph = new RelationshipGraph();
+
+        assertTrue(graph.addNew(new RelationshipEdge(RelationshipEdge.CHILD_OF, a, b)));
+        assertFalse(graph.addNew(new RelationshipEdge(RelationshipEdge.CHILD_OF, a, b)));
+        // Same pair, different relationship type
+        assertTrue(graph.addNew(new RelationshipEdge(RelationshipEdge.TYPE_OF, a, b)));
+        assertTrue(graph.addNew(new RelationshipEdge(RelationshipEdge.TYPE_OF, a, c)));
+        assertFalse(graph.addExisting(RelationshipEdge.TYPE_OF, a, c));
+
+        List<UUID[]> newTypeOf = new ArrayList<>();
+        graph.forEachNew(RelationshipEdge.TYPE_OF, (source, target) -> newTypeOf.add(new UUID[] {source, target}));
+        assertEquals(1, newTypeOf.size());
+        assertEquals(a, newTypeOf.get(0)[0]);
+        assertEquals(b, newTypeOf.get(0)[1]);
+        assertEquals(1, graph.size(RelationshipEdge.CHILD_OF));
+    }
+
+    @Test
+    void testFindsCycleThroughStoredEdges() {
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        UUID c = UUID.randomUUID();
+        UUID d = UUID.randomUUID();
+        RelationshipGraph graph = new RelationshipGraph();
+        graph.addExisting(RelationshipEdge.CHILD_OF, a, b);
+        graph.addExisting(RelationshipEdge.CHILD_OF, b, c);
+        graph.addNew(new RelationshipEdge(RelationshipEdge.CHILD_OF, d, a));
+        assertNull(graph.findChildOfCycle());
+
+        graph.addNew(new RelationshipEdge(RelationshipEdge.CHILD_OF, c, a));
+        List<UUID> cycle = graph.findChildOfCycle();
+        assertNotNull(cycle);
+        assertEquals(4, cycle.size());
+        assertEquals(cycle.get(0), cycle.get(cycle.size() - 1));
+        assertTrue(cycle.containsAll(List.of(a, b, c)));
+        assertFalse(cycle.contains(d));
+    }
+
+    @Test
+    void testSelfEdgeIsACycle() {
+        UUID a = UUID.randomUUID();
+        RelationshipGraph graph = new RelationshipGraph();
+        graph.addNew(new RelationshipEdge(RelationshipEdge.CHILD_OF, a, a));
+        assertEquals(List.of(a, a), graph.findChildOfCycle());
+    }
+
+    @Test
+    void testDeepHierarchyDoesNotRecurse() {
+        // A single 1M-deep chain would overflow a recursive search
+        int depth = 1_000_000;
+        RelationshipGraph graph = new RelationshipGraph();
+        UUID first = UUID.randomUUID();
+        UUID previous = first;
+        for (int i = 0; i < depth; i++) {
+            UUID next = UUID.randomUUID();
+            graph.addNew(new RelationshipEdge(RelationshipEdge.CHILD_OF, previous, next));
+            previous = next;
+        }
+        assertEquals(depth, graph.size(RelationshipEdge.CHILD_OF));
+        assertNull(graph.findChildOfCycle());
+
+        graph.addNew(new RelationshipEdge(RelationshipEdge.CHILD_OF, previous, first));
+        assertEquals(depth + 2, graph.findChildOfCycle().size());
+    }
+}
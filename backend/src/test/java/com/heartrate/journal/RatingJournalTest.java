@@ -0,0 +1,160 @@
+package com.heartrate.journal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class RatingJournalTest {
+    private static final Logger logger = LoggerFactory.getLogger(RatingJournalTest.class);
+    // Raise with -Djournal.benchmark.events=10000000 for the full-size numbers
+    private static final int BENCHMARK_EVENTS = Integer.getInteger("journal.benchmark.events", 2_000_000);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testAppendAndReplayAcrossSegments() throws IOException {
+        UUID user = UUID.randomUUID();
+        List<UUID> items = new ArrayList<>();
+
+        // 10 records per segment, so 25 events span three segments
+        try (RatingJournal journal = new RatingJournal(directory, 10L * RatingJournal.RECORD_SIZE, 0)) {
+            for (int i = 0; i < 25; i++) {
+                UUID item = UUID.randomUUID();
+                items.add(item);
+                assertEquals(i, journal.append(user, item, "RATED", i % 6, 1_000L + i));
+            }
+            journal.append(user, items.get(0), "DONT_CARE", null, 2_000L);
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(3, files.count());
+        }
+
+        try (RatingJournal reopened = new RatingJournal(directory, 10L * RatingJournal.RECORD_SIZE, 0)) {
+            assertEquals(26, reopened.size());
+
+            List<RatingEvent> events = new ArrayList<>();
+            assertEquals(26, reopened.replayEvents(events::add));
+            for (int i = 0; i < 25; i++) {
+                RatingEvent event = events.get(i);
+                assertEquals(user, event.userId());
+                assertEquals(items.get(i), event.itemId());
+                assertEquals("RATED", event.status());
+                assertEquals(i % 6, event.rating());
+                assertEquals(1_000L + i, event.timestamp());
+            }
+            RatingEvent last = events.get(25);
+            assertEquals("DONT_CARE", last.status());
+            assertNull(last.rating());
+
+            // Appends continue from the recovered tail
+            assertEquals(26, reopened.append(user, items.get(1), "DONT_KNOW", null, 3_000L));
+        }
+    }
+
+    @Test
+    void testTornRecordIsDiscardedOnReopen() throws IOException {
+        UUID user = UUID.randomUUID();
+        try (RatingJournal journal = new RatingJournal(directory, 10L * RatingJournal.RECORD_SIZE, 0)) {
+            journal.append(user, UUID.randomUUID(), "RATED", 4, 1L);
+            journal.append(user, UUID.randomUUID(), "RATED", 5, 2L);
+        }
+
+        // Corrupt the body of the second record, as a crash mid-write would
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        byte[] bytes = Files.readAllBytes(segment);
+        bytes[RatingJournal.RECORD_SIZE + 20] ^= 0x7f;
+        Files.write(segment, bytes);
+
+        try (RatingJournal reopened = new RatingJournal(directory, 10L * RatingJournal.RECORD_SIZE, 0)) {
+            assertEquals(1, reopened.size());
+            assertEquals(1, reopened.replayEvents(event -> { }));
+            assertEquals(1, reopened.append(user, UUID.randomUUID(), "DELETED", null, 3L));
+            assertEquals(2, reopened.replayEvents(event -> { }));
+        }
+    }
+
+    @Test
+    void testReplayStopsAtFirstCorruptRecord() throws IOException {
+        UUID user = UUID.randomUUID();
+        try (RatingJournal journal = new RatingJournal(directory, 10L * RatingJournal.RECORD_SIZE, 0)) {
+            for (int i = 0; i < 25; i++) {
+                journal.append(user, UUID.randomUUID(), "RATED", i % 6, i);
+            }
+        }
+
+        // A committed record in the first, sealed segment whose body no longer matches its checksum
+        Path first;
+        try (Stream<Path> files = Files.list(directory)) {
+            first = files.sorted().findFirst().orElseThrow();
+        }
+        byte[] bytes = Files.readAllBytes(first);
+        bytes[3 * RatingJournal.RECORD_SIZE + 20] ^= 0x7f;
+        Files.write(first, bytes);
+
+        try (RatingJournal reopened = new RatingJournal(directory, 10L * RatingJournal.RECORD_SIZE, 0)) {
+            List<RatingEvent> events = new ArrayList<>();
+            assertEquals(3, reopened.replayEvents(events::add));
+            assertEquals(List.of(0, 1, 2), events.stream().map(RatingEvent::rating).toList());
+        }
+    }
+
+    @Test
+    void testRatingOutOfRangeIsRejected() throws IOException {
+        try (RatingJournal journal = new RatingJournal(directory, 10L * RatingJournal.RECORD_SIZE, 0)) {
+            assertThrows(IllegalArgumentException.class,
+                () -> journal.append(UUID.randomUUID(), UUID.randomUUID(), "RATED", 300, 1L));
+            assertThrows(IllegalArgumentException.class,
+                () -> journal.append(UUID.randomUUID(), UUID.randomUUID(), "RATED", -1, 1L));
+            assertEquals(0, journal.size());
+        }
+    }
+
+    /**
+     * Appends events across many segments, reopens the journal and logs replay throughput, once
+     * cold and once warm, with the allocation-free visitor.
+     */
+    @Test
+    @Tag("benchmark")
+    void testReplayBenchmark() throws IOException {
+        UUID user = UUID.randomUUID();
+        long start = System.nanoTime();
+        try (RatingJournal journal = new RatingJournal(directory, 8L * 1024 * 1024, 0)) {
+            for (int i = 0; i < BENCHMARK_EVENTS; i++) {
+                journal.append(user, new UUID(0, i), "RATED", i % 6, i);
+            }
+        }
+        logger.info("Appended {} events in {} ms", BENCHMARK_EVENTS, (System.nanoTime() - start) / 1_000_000);
+
+        try (RatingJournal journal = new RatingJournal(directory, 8L * 1024 * 1024, 0)) {
+            for (int run = 0; run < 2; run++) {
+                long[] sum = new long[1];
+                start = System.nanoTime();
+                long replayed = journal.replay((userMsb, userLsb, itemMsb, itemLsb, status, rating, timestamp) -> sum[0] += rating);
+                long nanos = System.nanoTime() - start;
+                assertEquals(BENCHMARK_EVENTS, replayed);
+                assertEquals(BENCHMARK_EVENTS / 6 * 15L + List.of(0, 0, 1, 3, 6, 10).get(BENCHMARK_EVENTS % 6), sum[0]);
+                logger.info("Replayed {} events in {} ms: {} events/s, {} MB/s", replayed, nanos / 1_000_000,
+                    replayed * 1_000_000_000L / nanos, replayed * RatingJournal.RECORD_SIZE * 1_000L / nanos);
+            }
+        }
+    }
+}
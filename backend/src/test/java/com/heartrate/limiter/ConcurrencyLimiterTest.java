@@ -0,0 +1,77 @@
+package com.heartrate.limiter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+public class ConcurrencyLimiterTest {
+    private static final long MILLIS = 1_000_000;
+
+    private static GradientLimit newLimit(int initial) {
+        return new GradientLimit(initial, 4, 200, 0.2, 1.5, 0.9, 600);
+    }
+
+    @Test
+    void testLimitGrowsWhileLatencyIsSteady() {
+        GradientLimit limit = newLimit(20);
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(10 * MILLIS, limit.getLimit(), false);
+        }
+        assertTrue(limit.getLimit() > 40, "limit " + limit.getLimit());
+    }
+
+    @Test
+    void testLimitShrinksWhenRequestsQueue() {
+        GradientLimit limit = newLimit(100);
+        for (int i = 0; i < 20; i++) {
+            limit.onSample(10 * MILLIS, limit.getLimit(), false);
+        }
+        int before = limit.getLimit();
+        // The database slows down: latency four times the baseline
+        for (int i = 0; i < 20; i++) {
+            limit.onSample(40 * MILLIS, limit.getLimit(), false);
+        }
+        assertTrue(limit.getLimit() < before / 2, before + " -> " + limit.getLimit());
+    }
+
+    @Test
+    void testIgnoresSamplesWhileMostlyIdleAndBacksOffOnDrops() {
+        GradientLimit limit = newLimit(20);
+        for (int i = 0; i < 20; i++) {
+            limit.onSample(10 * MILLIS, 2, false);
+        }
+        assertEquals(20, limit.getLimit());
+
+        limit.onSample(10 * MILLIS, 2, true);
+        assertEquals(18, limit.getLimit());
+    }
+
+    @Test
+    void testBrowsingIsShedBeforeSwipes() {
+        AtomicLong clock = new AtomicLong();
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(newLimit(8), 0.75, clock::get);
+
+        List<ConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            permits.add(limiter.tryAcquire(false));
+        }
+        // Browsing may only fill 6 of the 8 slots
+        assertNull(limiter.tryAcquire(false));
+        permits.add(limiter.tryAcquire(true));
+        permits.add(limiter.tryAcquire(true));
+        permits.forEach(permit -> assertNotNull(permit));
+        assertNull(limiter.tryAcquire(true));
+        assertEquals(8, limiter.getInflight());
+
+        clock.addAndGet(10 * MILLIS);
+        permits.get(0).onSuccess();
+        assertNotNull(limiter.tryAcquire(true));
+    }
+}
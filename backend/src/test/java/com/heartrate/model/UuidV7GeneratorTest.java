@@ -0,0 +1,141 @@
+package com.heartrate.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class UuidV7GeneratorTest {
+    private static final Logger logger = LoggerFactory.getLogger(UuidV7GeneratorTest.class);
+    private static final int BENCHMARK_ROWS = 50_000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testLayout() {
+        long now = System.currentTimeMillis();
+        UUID id = UuidV7Generator.generate(now);
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        assertEquals(now, UuidV7Generator.timestamp(id));
+        assertThrows(IllegalArgumentException.class, () -> UuidV7Generator.timestamp(UUID.randomUUID()));
+    }
+
+    @Test
+    void testIdsSortInGenerationOrder() throws Exception {
+        // Many ids per millisecond from several threads still come out strictly increasing per thread
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<UUID>>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    List<UUID> ids = new ArrayList<>();
+                    for (int i = 0; i < 20_000; i++) {
+                        ids.add(UuidV7Generator.generate());
+                    }
+                    return ids;
+                }));
+            }
+            List<UUID> all = new ArrayList<>();
+            for (Future<List<UUID>> future : futures) {
+                List<UUID> ids = future.get();
+                for (int i = 1; i < ids.size(); i++) {
+                    assertTrue(compareUnsigned(ids.get(i - 1), ids.get(i)) < 0);
+                }
+                all.addAll(ids);
+            }
+            assertEquals(all.size(), all.stream().distinct().count());
+        } finally {
+            executor.shutdown();
+        }
+
+        // A clock step backwards does not break the ordering either
+        UUID before = UuidV7Generator.generate();
+        UUID after = UuidV7Generator.generate(UuidV7Generator.timestamp(before) - 1000);
+        assertTrue(compareUnsigned(before, after) < 0);
+    }
+
+    /**
+     * Inserts the same number of rows keyed by random v4 and by v7 ids into a file-backed H2
+     * database and logs throughput and on-disk size. The PostgreSQL counterpart is
+     * scripts/uuid-benchmark.sh.
+     */
+    @Test
+    @Tag("benchmark")
+    void testH2InsertBenchmark() throws SQLException {
+        String url = "jdbc:h2:file:" + directory.resolve("uuid-benchmark");
+        try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+            connection.setAutoCommit(false);
+            insertRows(connection, "bench_uuid_v4", UUID::randomUUID);
+            insertRows(connection, "bench_uuid_v7", UuidV7Generator::generate);
+            // Repeat now that the JIT has warmed up, so the logged numbers compare like with like
+            insertRows(connection, "bench_uuid_v4", UUID::randomUUID);
+            insertRows(connection, "bench_uuid_v7", UuidV7Generator::generate);
+        }
+    }
+
+    private void insertRows(Connection connection, String table, Supplier<UUID> ids) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop table if exists " + table);
+            statement.execute("create table " + table
+                + " (id uuid primary key, user_id uuid not null, item_id uuid not null, rating integer)");
+        }
+        UUID userId = UUID.randomUUID();
+        long start = System.nanoTime();
+        try (PreparedStatement insert = connection.prepareStatement(
+                "insert into " + table + " (id, user_id, item_id, rating) values (?, ?, ?, ?)")) {
+            for (int i = 1; i <= BENCHMARK_ROWS; i++) {
+                insert.setObject(1, ids.get());
+                insert.setObject(2, userId);
+                insert.setObject(3, UUID.randomUUID());
+                insert.setInt(4, i % 6);
+                insert.addBatch();
+                if (i % 1000 == 0) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("checkpoint");
+            try (ResultSet count = statement.executeQuery("select count(*) from " + table)) {
+                count.next();
+                assertEquals(BENCHMARK_ROWS, count.getLong(1));
+            }
+            try (ResultSet size = statement.executeQuery("select disk_space_used('" + table + "')")) {
+                size.next();
+                logger.info("{}: {} rows in {} ms ({} inserts/s), {} KiB on disk", table, BENCHMARK_ROWS,
+                    elapsedNanos / 1_000_000, BENCHMARK_ROWS * 1_000_000_000L / elapsedNanos, size.getLong(1) / 1024);
+            }
+        }
+    }
+
+    // UUID.compareTo compares signed halves; databases order uuid columns by their unsigned bytes
+    private static int compareUnsigned(UUID a, UUID b) {
+        int result = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return result != 0 ? result : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+}
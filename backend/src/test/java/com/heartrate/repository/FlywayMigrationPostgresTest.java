@@ -0,0 +1,126 @@
+package com.heartrate.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Applies the production Flyway migrations to a real PostgreSQL, once with a plain ratings table
+ * and once with V6 hash partitioning. Skipped when Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+public class FlywayMigrationPostgresTest {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Test
+    public void testPlainRatingsTableHasForeignKeys() throws SQLException {
+        String url = migrate("plain", 1);
+        try (Connection connection = connect(url)) {
+            assertFalse(isPartitioned(connection));
+            assertEquals(Set.of("fk_ratings_user", "fk_ratings_item"), foreignKeys(connection));
+            assertRejectsOrphanRating(connection);
+        }
+    }
+
+    @Test
+    public void testPartitionedRatingsTableKeepsRowsAndForeignKeys() throws SQLException {
+        String url = createDatabase("partitioned");
+        UUID userId = UUID.randomUUID();
+        UUID itemId = UUID.randomUUID();
+        // Migrate up to V5, insert a rating, then let V6 partition the existing table
+        flyway(url, 4).target("5").load().migrate();
+        try (Connection connection = connect(url); Statement statement = connection.createStatement()) {
+            statement.execute("insert into users (id, email, password) values ('" + userId + "', 'a@example.com', 'x')");
+            statement.execute("insert into items (id, name) values ('" + itemId + "', 'Item')");
+            statement.execute("insert into ratings (id, user_id, item_id, rating, status) values ('"
+                + UUID.randomUUID() + "', '" + userId + "', '" + itemId + "', 5, 'RATED')");
+        }
+        flyway(url, 4).load().migrate();
+
+        try (Connection connection = connect(url); Statement statement = connection.createStatement()) {
+            assertTrue(isPartitioned(connection));
+            try (ResultSet rs = statement.executeQuery(
+                    "select count(*) from pg_inherits where inhparent = 'ratings'::regclass")) {
+                rs.next();
+                assertEquals(4, rs.getInt(1));
+            }
+            try (ResultSet rs = statement.executeQuery("select count(*) from ratings where user_id = '" + userId + "'")) {
+                rs.next();
+                assertEquals(1, rs.getInt(1));
+            }
+            assertEquals(Set.of("fk_ratings_user", "fk_ratings_item"), foreignKeys(connection));
+            assertRejectsOrphanRating(connection);
+        }
+    }
+
+    private static String migrate(String database, int partitions) throws SQLException {
+        String url = createDatabase(database);
+        flyway(url, partitions).load().migrate();
+        return url;
+    }
+
+    private static FluentConfiguration flyway(String url, int partitions) {
+        return Flyway.configure()
+            .dataSource(url, POSTGRES.getUsername(), POSTGRES.getPassword())
+            .placeholders(Map.of("ratings_partitions", String.valueOf(partitions)));
+    }
+
+    private static String createDatabase(String database) throws SQLException {
+        try (Connection connection = connect(POSTGRES.getJdbcUrl());
+             Statement statement = connection.createStatement()) {
+            statement.execute("create database " + database);
+        }
+        return POSTGRES.getJdbcUrl().replace("/" + POSTGRES.getDatabaseName(), "/" + database);
+    }
+
+    private static Connection connect(String url) throws SQLException {
+        return DriverManager.getConnection(url, POSTGRES.getUsername(), POSTGRES.getPassword());
+    }
+
+    private static boolean isPartitioned(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(
+                 "select count(*) from pg_partitioned_table where partrelid = 'ratings'::regclass")) {
+            rs.next();
+            return rs.getInt(1) == 1;
+        }
+    }
+
+    private static Set<String> foreignKeys(Connection connection) throws SQLException {
+        Set<String> names = new HashSet<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(
+                 "select conname from pg_constraint where conrelid = 'ratings'::regclass and contype = 'f'")) {
+            while (rs.next()) {
+                names.add(rs.getString(1));
+            }
+        }
+        return names;
+    }
+
+    private static void assertRejectsOrphanRating(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            SQLException e = assertThrows(SQLException.class, () -> statement.execute(
+                "insert into ratings (id, user_id, item_id, rating) values ('" + UUID.randomUUID() + "', '"
+                    + UUID.randomUUID() + "', '" + UUID.randomUUID() + "', 1)"));
+            assertEquals("23503", e.getSQLState());
+        }
+    }
+}
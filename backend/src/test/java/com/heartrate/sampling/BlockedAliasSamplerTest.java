@@ -0,0 +1,74 @@
+package com.heartrate.sampling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+import org.junit.jupiter.api.Test;
+
+public class BlockedAliasSamplerTest {
+
+    @Test
+    void testAliasTableMatchesWeights() {
+        AliasTable table = new AliasTable(new double[] {1, 0, 3, 6});
+        RandomGenerator random = new SplittableRandom(42);
+        int[] counts = new int[4];
+        int draws = 200_000;
+        for (int i = 0; i < draws; i++) {
+            counts[table.sample(random)]++;
+        }
+        assertEquals(0, counts[1]);
+        assertEquals(0.1, counts[0] / (double) draws, 0.01);
+        assertEquals(0.3, counts[2] / (double) draws, 0.01);
+        assertEquals(0.6, counts[3] / (double) draws, 0.01);
+
+        assertEquals(-1, new AliasTable(new double[] {0, 0}).sample(random));
+        assertThrows(IllegalArgumentException.class, () -> new AliasTable(new double[] {1, -1}));
+    }
+
+    @Test
+    void testIncrementalUpdatesAcrossBlocks() {
+        BlockedAliasSampler<String> sampler = new BlockedAliasSampler<>(4);
+        RandomGenerator random = new SplittableRandom(7);
+        assertNull(sampler.sample(random));
+
+        // Ten keys over three blocks, all equal
+        for (int i = 0; i < 10; i++) {
+            sampler.setWeight("key" + i, 1);
+        }
+        assertNull(sampler.sample(random), "changes are invisible until published");
+        assertTrue(sampler.publish());
+        assertFalse(sampler.publish());
+
+        Map<String, Integer> counts = count(sampler, random, 100_000);
+        assertEquals(10, counts.size());
+        for (int count : counts.values()) {
+            assertEquals(0.1, count / 100_000.0, 0.01);
+        }
+
+        // Reweighing one key in the last block and dropping one in the first only touches those blocks
+        sampler.setWeight("key9", 12);
+        sampler.setWeight("key0", 0);
+        sampler.publish();
+        counts = count(sampler, random, 100_000);
+        assertFalse(counts.containsKey("key0"));
+        assertEquals(0.6, counts.get("key9") / 100_000.0, 0.01);
+        assertEquals(0.05, counts.get("key4") / 100_000.0, 0.01);
+        assertEquals(10, sampler.size());
+    }
+
+    private static Map<String, Integer> count(BlockedAliasSampler<String> sampler, RandomGenerator random, int draws) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < draws; i++) {
+            counts.merge(sampler.sample(random), 1, Integer::sum);
+        }
+        return counts;
+    }
+}
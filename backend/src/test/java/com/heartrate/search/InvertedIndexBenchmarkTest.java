@@ -0,0 +1,61 @@
+package com.heartrate.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Build time, query latency and update cost of {@link InvertedIndex}. Timing only, so it runs with
+ * the benchmarks profile: {@code mvn test -Pbenchmarks -Dtest=InvertedIndexBenchmarkTest}.
+ */
+@Tag("benchmark")
+public class InvertedIndexBenchmarkTest {
+    private static final Logger logger = LoggerFactory.getLogger(InvertedIndexBenchmarkTest.class);
+    // Raise with -Dsearch.benchmark.items=1000000 for the full-size numbers
+    private static final int BENCHMARK_ITEMS = Integer.getInteger("search.benchmark.items", 100_000);
+
+    /**
+     * Builds an index of synthetic items and logs build time and query latency percentiles.
+     */
+    @Test
+    void testSearchBenchmark() {
+        SplittableRandom random = new SplittableRandom(17);
+        List<InvertedIndex.Document> documents = InvertedIndexTest.documents(BENCHMARK_ITEMS, random);
+        int threads = Runtime.getRuntime().availableProcessors();
+        long start = System.nanoTime();
+        InvertedIndex index = InvertedIndex.build(documents, threads);
+        long buildMillis = (System.nanoTime() - start) / 1_000_000;
+        assertEquals(BENCHMARK_ITEMS, index.size());
+
+        // One common word, one rarer word, and a mix
+        String[] queries = {"alpha", "word" + 4_321, "bravo word" + 17 + " word" + 9_000};
+        for (String query : queries) {
+            for (int i = 0; i < 200; i++) {
+                index.search(query, InvertedIndexTest.DEFAULT_BOOSTS, 0, 20);
+            }
+            long[] nanos = new long[500];
+            for (int i = 0; i < nanos.length; i++) {
+                long queryStart = System.nanoTime();
+                index.search(query, InvertedIndexTest.DEFAULT_BOOSTS, 0, 20);
+                nanos[i] = System.nanoTime() - queryStart;
+            }
+            Arrays.sort(nanos);
+            logger.info("{} items, query \"{}\": {} matches, p50 {} us, p99 {} us", BENCHMARK_ITEMS, query,
+                index.search(query, InvertedIndexTest.DEFAULT_BOOSTS, 0, 20).total(), nanos[nanos.length / 2] / 1_000, nanos[nanos.length * 99 / 100] / 1_000);
+        }
+        long putStart = System.nanoTime();
+        for (int i = 0; i < 10_000; i++) {
+            InvertedIndex.Document document = documents.get(random.nextInt(documents.size()));
+            index.put(new InvertedIndex.Document(document.id(), document.name() + " updated", document.description()));
+        }
+        logger.info("{} items built in {} ms on {} threads; {} us per incremental update", BENCHMARK_ITEMS, buildMillis, threads,
+            (System.nanoTime() - putStart) / 10_000 / 1_000);
+    }
+}
@@ -0,0 +1,95 @@
+package com.heartrate.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+public class InvertedIndexTest {
+    static final double[] DEFAULT_BOOSTS = {2.0, 1.0};
+
+    @Test
+    void testAnalysis() {
+        assertEquals(List.of("caress", "poni", "run", "relat", "gener", "hope", "cafe", "2024"),
+            Analyzer.terms("Caresses, PONIES & the running-relational generalization of the hopeful Café (2024)"));
+        assertEquals(List.of(), Analyzer.terms("the and of"));
+        assertEquals(List.of(), Analyzer.terms(null));
+    }
+
+    @Test
+    void testRankingUpdatesAndRemoval() {
+        UUID pizza = UUID.randomUUID();
+        UUID pasta = UUID.randomUUID();
+        UUID salad = UUID.randomUUID();
+        InvertedIndex index = new InvertedIndex();
+        index.put(new InvertedIndex.Document(pizza, "Margherita Pizza", "Tomato, mozzarella and basil"));
+        index.put(new InvertedIndex.Document(pasta, "Pasta al pomodoro", "Spaghetti with tomatoes and basil, like a pizza sauce"));
+        index.put(new InvertedIndex.Document(salad, "Caprese", "Tomato and mozzarella salad"));
+
+        // A name match outranks a description match, and stemming matches "tomatoes" to "tomato"
+        assertEquals(List.of(pizza, pasta), ids(index.search("pizzas", DEFAULT_BOOSTS, 0, 10)));
+        assertEquals(List.of(pasta), ids(index.search("pizza", new double[] {0, 1}, 0, 10)));
+        InvertedIndex.Result tomato = index.search("tomatoes", DEFAULT_BOOSTS, 0, 10);
+        assertEquals(3, tomato.total());
+        assertEquals(2, index.search("tomato", DEFAULT_BOOSTS, 1, 10).hits().size());
+
+        // Saving again replaces the indexed text; removing drops the document
+        index.put(new InvertedIndex.Document(salad, "Caprese pizza", "Flatbread"));
+        assertEquals(2, index.search("tomato", DEFAULT_BOOSTS, 0, 10).total());
+        assertTrue(ids(index.search("pizza", DEFAULT_BOOSTS, 0, 10)).contains(salad));
+        assertTrue(index.remove(pizza));
+        assertFalse(index.remove(pizza));
+        assertEquals(List.of(salad, pasta), ids(index.search("pizza", DEFAULT_BOOSTS, 0, 10)));
+        assertEquals(2, index.size());
+        assertEquals(0, index.search("the", DEFAULT_BOOSTS, 0, 10).total());
+    }
+
+    @Test
+    void testParallelBuildMatchesIncremental() {
+        List<InvertedIndex.Document> documents = documents(5_000, new SplittableRandom(3));
+        InvertedIndex built = InvertedIndex.build(documents, 4);
+        InvertedIndex incremental = new InvertedIndex();
+        documents.forEach(incremental::put);
+
+        for (String query : List.of("alpha", "bravo charlie", "delta echo foxtrot", "golf")) {
+            InvertedIndex.Result expected = incremental.search(query, DEFAULT_BOOSTS, 0, 50);
+            InvertedIndex.Result actual = built.search(query, DEFAULT_BOOSTS, 0, 50);
+            assertEquals(expected.total(), actual.total());
+            assertEquals(ids(expected), ids(actual));
+        }
+
+        // Churn compacts posting lists without changing results
+        for (InvertedIndex.Document document : documents.subList(0, 4_000)) {
+            built.put(new InvertedIndex.Document(document.id(), document.name(), document.description()));
+            incremental.remove(document.id());
+            incremental.put(document);
+        }
+        assertEquals(ids(incremental.search("alpha bravo", DEFAULT_BOOSTS, 0, 100)), ids(built.search("alpha bravo", DEFAULT_BOOSTS, 0, 100)));
+    }
+
+    // Names from a handful of common words, descriptions from a Zipf-like vocabulary of 10,000
+    static List<InvertedIndex.Document> documents(int count, SplittableRandom random) {
+        String[] common = {"alpha", "bravo", "charlie", "delta", "echo", "foxtrot", "golf", "hotel"};
+        List<InvertedIndex.Document> documents = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = common[random.nextInt(common.length)] + " " + common[random.nextInt(common.length)] + " " + i;
+            StringBuilder description = new StringBuilder();
+            int words = 5 + random.nextInt(20);
+            for (int w = 0; w < words; w++) {
+                description.append("word").append((int) Math.pow(10_000, random.nextDouble())).append(' ');
+            }
+            documents.add(new InvertedIndex.Document(UUID.randomUUID(), name, description.toString()));
+        }
+        return documents;
+    }
+
+    private static List<UUID> ids(InvertedIndex.Result result) {
+        return result.hits().stream().map(InvertedIndex.Hit::id).toList();
+    }
+}
@@ -0,0 +1,76 @@
+package com.heartrate.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+public class TokenBucketRateLimiterTest {
+
+    @Test
+    void testAllowsBurstUpToCapacityThenRejects() {
+        AtomicLong clock = new AtomicLong();
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(5, Duration.ofMinutes(15), 4, 100, clock::get);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire("user@example.com"));
+        }
+        long retryAfter = limiter.tryAcquire("user@example.com");
+        assertEquals(180, retryAfter); // 15 minutes / 5 tokens
+
+        // Other keys are unaffected
+        assertEquals(0, limiter.tryAcquire("other@example.com"));
+    }
+
+    @Test
+    void testRefillsOverTime() {
+        AtomicLong clock = new AtomicLong();
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(5, Duration.ofMinutes(15), 4, 100, clock::get);
+
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire("key");
+        }
+        assertTrue(limiter.tryAcquire("key") > 0);
+
+        clock.addAndGet(Duration.ofMinutes(3).toNanos());
+        assertEquals(0, limiter.tryAcquire("key"));
+        assertTrue(limiter.tryAcquire("key") > 0);
+    }
+
+    @Test
+    void testEvictsOnlyRefilledKeysPerStripe() {
+        AtomicLong clock = new AtomicLong();
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, Duration.ofMinutes(15), 1, 2, clock::get);
+
+        assertEquals(0, limiter.tryAcquire("a"));
+        assertEquals(0, limiter.tryAcquire("b"));
+        // A new key cannot push out a drained bucket, which would reset its limit
+        assertTrue(limiter.tryAcquire("c") > 0);
+        assertTrue(limiter.tryAcquire("a") > 0);
+
+        clock.addAndGet(Duration.ofMinutes(15).toNanos());
+        assertEquals(0, limiter.tryAcquire("c")); // evicts the refilled "a"
+        assertTrue(limiter.tryAcquire("c") > 0);
+    }
+
+    @Test
+    void testTakesAllTokensOrNone() {
+        AtomicLong clock = new AtomicLong();
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(2, Duration.ofMinutes(15), 4, 100, clock::get);
+
+        assertEquals(0, limiter.tryAcquire("email"));
+        assertEquals(0, limiter.tryAcquire("email"));
+        // The email is exhausted, so the IP keeps its tokens
+        assertTrue(limiter.tryAcquire("ip", "email") > 0);
+        assertEquals(0, limiter.tryAcquire("ip", "other"));
+        assertEquals(0, limiter.tryAcquire("ip"));
+        assertTrue(limiter.tryAcquire("ip") > 0);
+
+        limiter.refund("ip", "email");
+        assertEquals(0, limiter.tryAcquire("ip", "email"));
+        assertTrue(limiter.tryAcquire("ip", "email") > 0);
+    }
+}
@@ -0,0 +1,47 @@
+package com.heartrate.service;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+import com.heartrate.config.FeedConfig;
+import com.heartrate.controller.dto.FeedResponse;
+import com.heartrate.controller.dto.ItemResponse;
+import com.heartrate.repository.FeedReservationRepository;
+
+public class FeedStreamServiceTest {
+
+    @Test
+    void testItemTakenButNotSentIsReleased() {
+        UUID userId = UUID.randomUUID();
+        UUID itemId = UUID.randomUUID();
+        FeedService feedService = mock(FeedService.class);
+        FeedReservationRepository reservationRepository = mock(FeedReservationRepository.class);
+        FeedStreamService service = new FeedStreamService(feedService, reservationRepository,
+            mock(SeenItemService.class), new FeedConfig());
+        CompletableFuture<FeedStream> opened = new CompletableFuture<>();
+        // The client goes away while the item is being fetched, so its send fails after the take
+        when(feedService.reservePage(eq(userId), anyInt())).thenAnswer(invocation -> {
+            opened.get().getEmitter().complete();
+            return new FeedResponse(List.of(new ItemResponse(itemId, "Item", null, null, null, null)),
+                LocalDateTime.now().plusMinutes(30));
+        });
+
+        try {
+            opened.complete(service.open(userId, 1));
+            verify(reservationRepository, timeout(2_000)).release(userId, List.of(itemId));
+        } finally {
+            service.shutdown();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.heartrate.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.heartrate.config.NearbyConfig;
+import com.heartrate.controller.dto.NearbyItemResponse;
+import com.heartrate.model.Item;
+import com.heartrate.repository.ItemRepository;
+
+public class ItemLocationIndexTest {
+
+    @Test
+    void testFailedLoadIsRetried() throws Exception {
+        UUID itemId = UUID.randomUUID();
+        ItemRepository itemRepository = mock(ItemRepository.class);
+        when(itemRepository.streamLocations())
+            .thenThrow(new DataAccessResourceFailureException("database is starting"))
+            .thenThrow(new DataAccessResourceFailureException("database is starting"))
+            .thenReturn(Stream.<Object[]>of(new Object[] {itemId, 48.8584, 2.2945}));
+        when(itemRepository.findAllById(any())).thenReturn(List.of(item(itemId)));
+        NearbyConfig config = new NearbyConfig();
+        config.setLoadRetryInitialMs(10);
+
+        ItemLocationIndex index = new ItemLocationIndex(itemRepository, mock(PlatformTransactionManager.class), config);
+        try {
+            index.start();
+            awaitReady(index);
+            verify(itemRepository, times(3)).streamLocations();
+            assertEquals(List.of(itemId), ids(index.nearby(48.8584, 2.2945, 1_000, 10)));
+        } finally {
+            index.shutdown();
+        }
+    }
+
+    @Test
+    void testMoveCommittedDuringLoadWins() throws Exception {
+        UUID itemId = UUID.randomUUID();
+        ItemRepository itemRepository = mock(ItemRepository.class);
+        NearbyConfig config = new NearbyConfig();
+        ItemLocationIndex index = new ItemLocationIndex(itemRepository, mock(PlatformTransactionManager.class), config);
+        // The item moves to Rome after the load read it in Paris
+        when(itemRepository.streamLocations()).thenAnswer(invocation -> {
+            index.update(itemId, 41.8902, 12.4922);
+            return Stream.<Object[]>of(new Object[] {itemId, 48.8584, 2.2945});
+        });
+        when(itemRepository.findAllById(any())).thenReturn(List.of(item(itemId)));
+
+        try {
+            index.start();
+            awaitReady(index);
+            assertEquals(List.of(), ids(index.nearby(48.8584, 2.2945, 1_000, 10)));
+            assertEquals(List.of(itemId), ids(index.nearby(41.8902, 12.4922, 1_000, 10)));
+        } finally {
+            index.shutdown();
+        }
+    }
+
+    private static void awaitReady(ItemLocationIndex index) throws InterruptedException {
+        for (int i = 0; i < 100 && !index.isReady(); i++) {
+            Thread.sleep(20);
+        }
+        assertTrue(index.isReady());
+    }
+
+    private static Item item(UUID itemId) {
+        Item item = new Item();
+        item.setId(itemId);
+        item.setName("Place");
+        return item;
+    }
+
+    private static List<UUID> ids(List<NearbyItemResponse> results) {
+        return results.stream().map(NearbyItemResponse::id).toList();
+    }
+}
@@ -0,0 +1,76 @@
+package com.heartrate.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.heartrate.config.SearchConfig;
+import com.heartrate.model.Item;
+import com.heartrate.repository.ItemRepository;
+
+public class ItemSearchIndexTest {
+
+    @Test
+    void testFailedBuildIsRetried() throws Exception {
+        UUID itemId = UUID.randomUUID();
+        ItemRepository itemRepository = mock(ItemRepository.class);
+        when(itemRepository.streamSearchText())
+            .thenThrow(new DataAccessResourceFailureException("database is starting"))
+            .thenThrow(new DataAccessResourceFailureException("database is starting"))
+            .thenReturn(Stream.<Object[]>of(new Object[] {itemId, "Quokka Pizza", null}));
+        Item item = new Item();
+        item.setId(itemId);
+        item.setName("Quokka Pizza");
+        when(itemRepository.findAllById(any())).thenReturn(List.of(item));
+        SearchConfig config = new SearchConfig();
+        config.setBuildThreads(1);
+        config.setBuildRetryInitialMs(10);
+
+        ItemSearchIndex index = new ItemSearchIndex(itemRepository, mock(PlatformTransactionManager.class), config);
+        try {
+            index.start();
+            for (int i = 0; i < 100 && !index.isReady(); i++) {
+                Thread.sleep(20);
+            }
+            assertTrue(index.isReady());
+            verify(itemRepository, times(3)).streamSearchText();
+            assertEquals(1, index.search("quokka", 0, 10, null, null).total());
+        } finally {
+            index.shutdown();
+        }
+    }
+
+    @Test
+    void testNotReadyWhileBuildKeepsFailing() throws Exception {
+        ItemRepository itemRepository = mock(ItemRepository.class);
+        when(itemRepository.streamSearchText()).thenThrow(new DataAccessResourceFailureException("database is down"));
+        SearchConfig config = new SearchConfig();
+        config.setBuildRetryInitialMs(5);
+        config.setBuildRetryMaxMs(20);
+
+        ItemSearchIndex index = new ItemSearchIndex(itemRepository, mock(PlatformTransactionManager.class), config);
+        try {
+            index.start();
+            Thread.sleep(200);
+            assertFalse(index.isReady());
+            // 5, 10, then every 20 ms: backoff caps the delay but retries never stop
+            verify(itemRepository, atLeast(4)).streamSearchText();
+        } finally {
+            index.shutdown();
+        }
+    }
+}
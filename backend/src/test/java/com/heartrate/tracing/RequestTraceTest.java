@@ -0,0 +1,27 @@
+package com.heartrate.tracing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class RequestTraceTest {
+
+    @Test
+    void testSummaryMarksFailedSpans() {
+        RequestTrace trace = RequestTrace.begin("req-1");
+        try {
+            try (RequestTrace.Span outer = RequestTrace.startSpan("service:ItemService.find")) {
+                try (RequestTrace.Span inner = RequestTrace.startSpan("repository:ItemRepository.findById")) {
+                    inner.fail(new IllegalStateException("boom"));
+                }
+            }
+        } finally {
+            RequestTrace.end();
+        }
+
+        String summary = trace.summary();
+        assertTrue(summary.matches(".*\\| >repository:ItemRepository\\.findById=\\d+us!IllegalStateException$"), summary);
+        assertTrue(summary.matches(".*\\| service:ItemService\\.find=\\d+us \\|.*"), summary);
+        assertFalse(RequestTrace.isSampled());
+    }
+}
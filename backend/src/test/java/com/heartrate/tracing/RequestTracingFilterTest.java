@@ -0,0 +1,48 @@
+package com.heartrate.tracing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.heartrate.config.TracingConfig;
+
+class RequestTracingFilterTest {
+
+    @Test
+    void testPropagatesClientRequestId() throws Exception {
+        assertEquals("abc-123_DEF.4", filter("abc-123_DEF.4"));
+        assertEquals("a".repeat(64), filter("a".repeat(64)));
+    }
+
+    @Test
+    void testReplacesUnsafeRequestIds() throws Exception {
+        for (String unsafe : new String[] {"abc\r\nINFO forged line", "id with spaces", "id\u0007", "é", "a".repeat(65), ""}) {
+            String requestId = filter(unsafe);
+            assertNotEquals(unsafe, requestId);
+            assertTrue(RequestTracingFilter.isValidRequestId(requestId), requestId);
+        }
+        assertTrue(RequestTracingFilter.isValidRequestId(filter(null)));
+    }
+
+    // Runs a request with the header through the filter; returns the id the chain saw in the MDC,
+    // after checking that it was echoed back
+    private static String filter(String incoming) throws Exception {
+        TracingConfig config = new TracingConfig();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/items");
+        if (incoming != null) {
+            request.addHeader(config.getRequestIdHeader(), incoming);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<String> seen = new AtomicReference<>();
+        new RequestTracingFilter(config).doFilter(request, response,
+            (req, res) -> seen.set(MDC.get(RequestTracingFilter.MDC_REQUEST_ID)));
+        assertEquals(seen.get(), response.getHeader(config.getRequestIdHeader()));
+        assertNull(MDC.get(RequestTracingFilter.MDC_REQUEST_ID));
+        return seen.get();
+    }
+}
@@ -0,0 +1,157 @@
+package com.heartrate.upload;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DigestingFileWriterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testAppendHashesWhatItWrites() throws Exception {
+        byte[] content = randomBytes(10_000);
+        Path file = directory.resolve("image");
+        try (DigestingFileWriter writer = DigestingFileWriter.create(file)) {
+            // A buffer much smaller than the content, so it takes many passes
+            assertEquals(content.length, writer.append(new ByteArrayInputStream(content), content.length, new byte[64]));
+            assertEquals(sha256(content), writer.finish());
+        }
+        assertArrayEquals(content, Files.readAllBytes(file));
+        assertThrows(IOException.class, () -> DigestingFileWriter.create(file));
+    }
+
+    @Test
+    void testResumesAfterBrokenStreamAndLimit() throws Exception {
+        byte[] content = randomBytes(5_000);
+        Path file = directory.resolve("image");
+        MessageDigest digest;
+        long size;
+        try (DigestingFileWriter writer = DigestingFileWriter.create(file)) {
+            // The connection drops after 1,234 bytes
+            assertThrows(IOException.class, () -> writer.append(new FailingStream(content, 1_234), content.length, new byte[100]));
+            assertEquals(1_234, writer.size());
+            digest = writer.digest();
+            size = writer.size();
+        }
+
+        try (DigestingFileWriter writer = DigestingFileWriter.resume(file, digest, size)) {
+            // Too much data: what came before the offending read is kept
+            InputStream tooLong = new ByteArrayInputStream(content, 1_234, content.length);
+            assertThrows(SizeLimitExceededException.class, () -> writer.append(tooLong, 3_000, new byte[100]));
+            assertTrue(writer.size() <= 3_000);
+            size = writer.size();
+        }
+
+        try (DigestingFileWriter writer = DigestingFileWriter.resume(file, digest, size)) {
+            InputStream rest = new ByteArrayInputStream(content, (int) size, content.length - (int) size);
+            writer.append(rest, content.length, new byte[100]);
+            assertEquals(content.length, writer.size());
+            assertEquals(sha256(content), writer.finish());
+        }
+        assertArrayEquals(content, Files.readAllBytes(file));
+    }
+
+    @Test
+    void testResumeDiscardsTornTail() throws Exception {
+        byte[] content = randomBytes(1_000);
+        Path file = directory.resolve("image");
+        MessageDigest digest;
+        try (DigestingFileWriter writer = DigestingFileWriter.create(file)) {
+            writer.append(new ByteArrayInputStream(content, 0, 600), content.length, new byte[128]);
+            digest = writer.digest();
+        }
+        // Bytes on disk that the digest never saw
+        Files.write(file, new byte[] {1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (DigestingFileWriter writer = DigestingFileWriter.resume(file, digest, 600)) {
+            writer.append(new ByteArrayInputStream(content, 600, 400), content.length, new byte[128]);
+            assertEquals(sha256(content), writer.finish());
+        }
+        assertArrayEquals(content, Files.readAllBytes(file));
+    }
+
+    @Test
+    void testGateHeldOnlyWhileWriting() throws Exception {
+        byte[] content = randomBytes(1_000);
+        int[] held = new int[1];
+        int[] entered = new int[1];
+        DigestingFileWriter.WriteGate gate = new DigestingFileWriter.WriteGate() {
+            @Override
+            public void enter() {
+                held[0]++;
+                entered[0]++;
+            }
+
+            @Override
+            public void exit() {
+                held[0]--;
+            }
+        };
+        InputStream input = new ByteArrayInputStream(content) {
+            @Override
+            public synchronized int read(byte[] buffer, int offset, int length) {
+                assertEquals(0, held[0], "gate held while reading");
+                return super.read(buffer, offset, length);
+            }
+        };
+        try (DigestingFileWriter writer = DigestingFileWriter.create(directory.resolve("image"), gate)) {
+            writer.append(input, content.length, new byte[100]);
+            assertEquals(sha256(content), writer.finish());
+        }
+        assertEquals(0, held[0]);
+        // Ten buffers and the force
+        assertEquals(11, entered[0]);
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static String sha256(byte[] content) {
+        return HexFormat.of().formatHex(DigestingFileWriter.newDigest().digest(content));
+    }
+
+    // Serves the first bytes of the content and then fails, like a dropped connection
+    private static final class FailingStream extends InputStream {
+        private final byte[] content;
+        private final int failAt;
+        private int position;
+
+        FailingStream(byte[] content, int failAt) {
+            this.content = content;
+            this.failAt = failAt;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (position == failAt) {
+                throw new IOException("Connection reset");
+            }
+            int read = Math.min(length, failAt - position);
+            System.arraycopy(content, position, buffer, offset, read);
+            position += read;
+            return read;
+        }
+    }
+}